@@ -0,0 +1,35 @@
+package com.farmmanager.benchmark;
+
+import com.farmmanager.model.AtividadeSafraDAO;
+import com.farmmanager.model.AtividadeSafraDAO.ConsumoHistoricoInfo;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Histórico de consumo de insumos (JOIN atividades_safra x estoque x safras).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Dfarmmanager.db.metrics=false" })
+@State(Scope.Benchmark)
+public class AtividadeSafraDaoBenchmark {
+
+    private final AtividadeSafraDAO atividadeSafraDAO = new AtividadeSafraDAO();
+
+    @Benchmark
+    public List<ConsumoHistoricoInfo> listConsumoHistorico(BenchmarkDatabase db) throws SQLException {
+        return atividadeSafraDAO.listConsumoHistorico();
+    }
+}
@@ -0,0 +1,77 @@
+package com.farmmanager.benchmark;
+
+import com.farmmanager.model.Database;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Estado compartilhado pelos benchmarks: um banco temporário por trial,
+ * copiado de um modelo já populado para a escala pedida.
+ *
+ * Os modelos ficam em target/bench-data (ou -Dfarmmanager.bench.dataDir) e
+ * só são gerados na primeira execução de cada escala.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkDatabase {
+
+    @Param({ "10000", "100000", "1000000" })
+    public int linhas;
+
+    private Path arquivoTemporario;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException, SQLException {
+        Path modelo = obterModelo(linhas);
+        arquivoTemporario = Files.createTempFile("farmmanager-bench-" + linhas + "-", ".db");
+        Files.copy(modelo, arquivoTemporario, StandardCopyOption.REPLACE_EXISTING);
+        Database.setDbPath(arquivoTemporario.toString());
+        Database.inicializarSchema();
+    }
+
+    @TearDown(Level.Trial)
+    public void limpar() throws IOException {
+        if (arquivoTemporario != null) {
+            Files.deleteIfExists(arquivoTemporario);
+            Files.deleteIfExists(Paths.get(arquivoTemporario + "-wal"));
+            Files.deleteIfExists(Paths.get(arquivoTemporario + "-shm"));
+        }
+    }
+
+    /**
+     * Retorna o banco modelo da escala, gerando-o se ainda não existir.
+     */
+    private static synchronized Path obterModelo(int linhas) throws IOException, SQLException {
+        Path pasta = Paths.get(System.getProperty("farmmanager.bench.dataDir", "target" + File.separator + "bench-data"));
+        Files.createDirectories(pasta);
+        FarmDataGenerator.Config config = FarmDataGenerator.Config.paraEscala(linhas);
+        // A data de referência entra no nome: o modelo é refeito a cada dia (contas a vencer dependem de 'hoje')
+        Path modelo = pasta.resolve("farm-" + linhas + "-s" + config.semente + "-" + config.dataReferencia + ".db");
+        if (Files.exists(modelo)) {
+            return modelo;
+        }
+
+        // Gera em um arquivo parcial e só renomeia no fim (execução interrompida não deixa modelo corrompido)
+        Path parcial = pasta.resolve(modelo.getFileName() + ".parcial");
+        Files.deleteIfExists(parcial);
+        Database.setDbPath(parcial.toString());
+        long inicio = System.nanoTime();
+        FarmDataGenerator.Resumo resumo = new FarmDataGenerator(config).gerar();
+        System.out.printf("Banco modelo gerado em %.1f s: %s%n", (System.nanoTime() - inicio) / 1e9, resumo);
+
+        Files.deleteIfExists(Paths.get(parcial + "-wal"));
+        Files.deleteIfExists(Paths.get(parcial + "-shm"));
+        Files.move(parcial, modelo, StandardCopyOption.ATOMIC_MOVE);
+        return modelo;
+    }
+}
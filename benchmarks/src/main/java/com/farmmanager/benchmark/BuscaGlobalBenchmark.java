@@ -0,0 +1,75 @@
+package com.farmmanager.benchmark;
+
+import com.farmmanager.model.BuscaGlobalDAO;
+import com.farmmanager.model.Database;
+import com.farmmanager.model.ResultadoBusca;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Busca global: índice FTS5 (BuscaGlobalDAO) contra a alternativa sem índice,
+ * LIKE '%termo%' em cada tabela pesquisável (varredura completa de todas elas).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Dfarmmanager.db.metrics=false" })
+@State(Scope.Benchmark)
+public class BuscaGlobalBenchmark {
+
+    private static final int LIMITE = 15;
+
+    private static final String SQL_LIKE =
+        "SELECT 1, id, descricao FROM financeiro WHERE descricao LIKE ? "
+      + "UNION ALL SELECT 2, id, descricao FROM contas WHERE descricao LIKE ? OR fornecedor_nome LIKE ? OR fornecedor_empresa LIKE ? "
+      + "UNION ALL SELECT 3, id, descricao FROM atividades_safra WHERE descricao LIKE ? "
+      + "UNION ALL SELECT 4, id, descricao FROM manutencao_patrimonio WHERE descricao LIKE ? "
+      + "UNION ALL SELECT 5, id, item_nome FROM estoque WHERE item_nome LIKE ? OR fornecedor_nome LIKE ? OR fornecedor_empresa LIKE ? "
+      + "LIMIT ?";
+
+    @Param({ "adubacao", "agrosul", "troca oleo", "inexistente" })
+    public String termo;
+
+    private final BuscaGlobalDAO buscaGlobalDAO = new BuscaGlobalDAO();
+
+    @Benchmark
+    public List<ResultadoBusca> fts(BenchmarkDatabase db) throws SQLException {
+        return buscaGlobalDAO.buscar(termo, LIMITE);
+    }
+
+    @Benchmark
+    public List<String> likeSemIndice(BenchmarkDatabase db) throws SQLException {
+        // Só a primeira palavra: LIKE não trata acentos nem várias palavras, e a varredura é a mesma
+        String padrao = "%" + termo.split(" ")[0] + "%";
+        List<String> encontrados = new ArrayList<>();
+        try (Connection conn = Database.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SQL_LIKE)) {
+            for (int i = 1; i <= 9; i++) {
+                pstmt.setString(i, padrao);
+            }
+            pstmt.setInt(10, LIMITE);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    encontrados.add(rs.getString(3));
+                }
+            }
+        }
+        return encontrados;
+    }
+}
@@ -0,0 +1,104 @@
+package com.farmmanager.benchmark;
+
+import com.farmmanager.model.ClassificadorCategorias;
+import com.farmmanager.model.RegraCategoria;
+import com.farmmanager.util.SearchIndex;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Categorização automática: ClassificadorCategorias (autômato único para todas as
+ * palavras-chave) contra o teste regra a regra (contains na descrição normalizada).
+ * Resultado em descrições classificadas por segundo. Não usa banco.
+ *
+ * Ex: java -jar benchmarks.jar ClassificadorCategorias -p regras=100,2000
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClassificadorCategoriasBenchmark {
+
+    private static final int DESCRICOES = 10_000;
+
+    private static final String[] PRODUTOS = { "Ureia", "Adubo NPK 04-14-08", "Glifosato", "Óleo Diesel S10",
+        "Semente de Soja", "Calcário", "Fungicida", "Peças de reposição", "Frete", "Energia elétrica" };
+
+    @Param({ "10", "100", "2000" })
+    public int regras;
+
+    private List<RegraCategoria> listaRegras;
+    private String[] padroesNormalizados;
+    private ClassificadorCategorias classificador;
+    private String[] descricoes;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        Random random = new Random(42);
+        listaRegras = new ArrayList<>(regras);
+        for (int i = 1; i <= regras; i++) {
+            listaRegras.add(new RegraCategoria(i, "Fornecedor " + i + " Ltda", RegraCategoria.TIPO_PALAVRA,
+                "Categoria " + (i % 40), random.nextInt(3)));
+        }
+        classificador = ClassificadorCategorias.compilar(listaRegras);
+        padroesNormalizados = listaRegras.stream().map(r -> SearchIndex.normalizar(r.getPadrao())).toArray(String[]::new);
+
+        // Metade das descrições cita um fornecedor com regra
+        descricoes = new String[DESCRICOES];
+        for (int i = 0; i < DESCRICOES; i++) {
+            descricoes[i] = String.format(Locale.ROOT, "Compra (à vista): %s lote %d (Fornec: Fornecedor %d Ltda)",
+                PRODUTOS[random.nextInt(PRODUTOS.length)], i, 1 + random.nextInt(regras * 2));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DESCRICOES)
+    public int automato() {
+        int classificadas = 0;
+        for (String descricao : descricoes) {
+            if (classificador.classificar(descricao) != null) {
+                classificadas++;
+            }
+        }
+        return classificadas;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DESCRICOES)
+    public int regraARegra() {
+        int classificadas = 0;
+        for (String descricao : descricoes) {
+            String texto = SearchIndex.normalizar(descricao);
+            RegraCategoria melhor = null;
+            for (int r = 0; r < padroesNormalizados.length; r++) {
+                RegraCategoria regra = listaRegras.get(r);
+                if ((melhor == null || regra.getPrioridade() > melhor.getPrioridade())
+                        && texto.contains(padroesNormalizados[r])) {
+                    melhor = regra;
+                }
+            }
+            if (melhor != null) {
+                classificadas++;
+            }
+        }
+        return classificadas;
+    }
+}
@@ -0,0 +1,118 @@
+package com.farmmanager.benchmark;
+
+import com.farmmanager.model.ConciliadorExtrato;
+import com.farmmanager.model.Conta;
+import com.farmmanager.model.ItemConciliacao;
+import com.farmmanager.model.LancamentoExtrato;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Conciliação bancária: ConciliadorExtrato (HashMap por valor + busca binária na janela
+ * de datas) contra o laço aninhado que compara cada linha do extrato com todas as contas.
+ * Tempo para conciliar um extrato inteiro; não usa banco.
+ *
+ * Ex: java -jar benchmarks.jar ConciliadorExtrato -p lancamentos=2000 -p contas=1000,20000
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConciliadorExtratoBenchmark {
+
+    private static final int JANELA_DIAS = 10;
+    private static final String[] FORNECEDORES = { "AgroSul Insumos", "Posto Central", "Cooperativa Regional",
+        "Calcário Sul", "Máquinas Oeste", "Sementes Boa Safra" };
+
+    @Param({ "2000" })
+    public int lancamentos;
+
+    @Param({ "1000", "20000" })
+    public int contas;
+
+    private List<LancamentoExtrato> extrato;
+    private List<Conta> contasPendentes;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        Random random = new Random(42);
+        LocalDate inicio = LocalDate.of(2025, 1, 1);
+        contasPendentes = new ArrayList<>(contas);
+        for (int i = 1; i <= contas; i++) {
+            String fornecedor = FORNECEDORES[random.nextInt(FORNECEDORES.length)];
+            double valor = 50 + random.nextInt(500) * 10; // valores repetidos, como boletos reais
+            contasPendentes.add(new Conta(i, "Compra (a prazo): lote " + i, valor,
+                inicio.plusDays(random.nextInt(365)).toString(), random.nextInt(4) == 0 ? "receber" : "pagar",
+                "pendente", null, fornecedor, null));
+        }
+        // Metade do extrato paga contas (com atraso de até 5 dias); o resto não tem correspondência
+        extrato = new ArrayList<>(lancamentos);
+        for (int i = 0; i < lancamentos; i++) {
+            if (i % 2 == 0) {
+                Conta conta = contasPendentes.get(random.nextInt(contas));
+                double valor = "pagar".equals(conta.getTipo()) ? -conta.getValor() : conta.getValor();
+                extrato.add(new LancamentoExtrato(LocalDate.parse(conta.getDataVencimento()).plusDays(random.nextInt(6)).toString(),
+                    valor, "PAG BOLETO " + conta.getFornecedorEmpresa().toUpperCase(), "ofx:" + i));
+            } else {
+                extrato.add(new LancamentoExtrato(inicio.plusDays(random.nextInt(365)).toString(),
+                    -(1 + random.nextInt(100_000) / 100.0), "TARIFA " + i, "ofx:" + i));
+            }
+        }
+    }
+
+    @Benchmark
+    public List<ItemConciliacao> indice() {
+        return ConciliadorExtrato.conciliar(extrato, contasPendentes, Collections.emptyList(),
+            Collections.emptySet(), null, JANELA_DIAS);
+    }
+
+    /**
+     * Referência: para cada linha do extrato, percorre todas as contas e fica com a de
+     * data mais próxima entre as de mesmo valor e sentido (sem comparar descrições).
+     */
+    @Benchmark
+    public int lacoAninhado() {
+        boolean[] usadas = new boolean[contasPendentes.size()];
+        int casadas = 0;
+        for (LancamentoExtrato lancamento : extrato) {
+            long dia = LocalDate.parse(lancamento.getData()).toEpochDay();
+            int melhor = -1;
+            long melhorDistancia = Long.MAX_VALUE;
+            for (int c = 0; c < contasPendentes.size(); c++) {
+                Conta conta = contasPendentes.get(c);
+                if (usadas[c] || Math.round(conta.getValor() * 100) != lancamento.getCentavos()
+                        || "receber".equals(conta.getTipo()) != lancamento.isCredito()) {
+                    continue;
+                }
+                long distancia = Math.abs(LocalDate.parse(conta.getDataVencimento()).toEpochDay() - dia);
+                if (distancia <= JANELA_DIAS && distancia < melhorDistancia) {
+                    melhor = c;
+                    melhorDistancia = distancia;
+                }
+            }
+            if (melhor >= 0) {
+                usadas[melhor] = true;
+                casadas++;
+            }
+        }
+        return casadas;
+    }
+}
@@ -0,0 +1,414 @@
+package com.farmmanager.benchmark;
+
+import com.farmmanager.model.Conta;
+import com.farmmanager.model.ContaDAO;
+import com.farmmanager.model.Database;
+import com.farmmanager.model.DatabaseWriter;
+import com.farmmanager.model.EstoqueDAO;
+import com.farmmanager.model.EstoqueItem;
+import com.farmmanager.model.FinanceiroDAO;
+import com.farmmanager.model.Transacao;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Teste de estresse concorrente das escritas de estoque, contas e livro-caixa.
+ *
+ * Várias threads disparam, ao mesmo tempo e contra um banco temporário, milhares de
+ * operações misturadas pelos DAOs reais:
+ * - EstoqueDAO.consumirEstoque e EstoqueDAO.addEstoque sobre poucos itens (alta disputa por linha);
+ * - ContaDAO.liquidarConta sobre contas sorteadas (a mesma conta é liquidada por várias threads);
+ * - FinanceiroDAO.addTransacao.
+ *
+ * Ao final verifica os invariantes:
+ * - nenhum item com quantidade negativa;
+ * - saldo de cada item = inicial + entradas - baixas bem-sucedidas;
+ * - cada conta liquidada no máximo uma vez, com exatamente um lançamento "Liquidação:" se paga;
+ * - soma do financeiro = lançamentos avulsos + contas liquidadas.
+ *
+ * Erros SQLITE_BUSY ("database is locked") são repetidos com backoff exponencial e contados.
+ * Relata vazão e latência por operação; sai com código 1 se algum invariante falhar.
+ *
+ * Uso:
+ *   java -cp benchmarks.jar com.farmmanager.benchmark.ConcurrencyStressSuite [--threads 8] [--operacoes 4000]
+ *        [--itens 5] [--contas 300] [--seed 42]
+ */
+public final class ConcurrencyStressSuite {
+
+    private static final int MAX_TENTATIVAS = 8;
+    private static final double ESTOQUE_INICIAL = 500;
+    private static final String DATA = LocalDate.now().toString();
+
+    private enum Operacao { CONSUMIR, ADICIONAR, LIQUIDAR, LANCAR }
+
+    private final int threads;
+    private final int operacoes;
+    private final long semente;
+
+    private final EstoqueDAO estoqueDAO = new EstoqueDAO();
+    private final ContaDAO contaDAO = new ContaDAO();
+    private final FinanceiroDAO financeiroDAO = new FinanceiroDAO();
+
+    private final List<Integer> idsItens = new ArrayList<>();
+    private final List<String> nomesItens = new ArrayList<>();
+    private final List<Conta> contas = new ArrayList<>();
+
+    // Efeitos confirmados (quantidades em unidades inteiras, valores em centavos)
+    private AtomicLongArray consumidoPorItem;
+    private AtomicLongArray adicionadoPorItem;
+    private AtomicIntegerArray liquidacoesPorConta;
+    private final LongAdder centavosEsperados = new LongAdder();
+
+    // Contadores
+    private final LongAdder[] sucessos = novosContadores();
+    private final LongAdder[] rejeicoes = novosContadores(); // estoque insuficiente / conta já paga
+    private final LongAdder[] erros = novosContadores();
+    private final LongAdder[] nanosTotais = novosContadores();
+    private final LongAdder tentativasBusy = new LongAdder();
+    private final LongAdder desistenciasBusy = new LongAdder();
+    private final List<Long>[] latencias = novasListas();
+
+    private ConcurrencyStressSuite(int threads, int operacoes, long semente) {
+        this.threads = threads;
+        this.operacoes = operacoes;
+        this.semente = semente;
+    }
+
+    public static void main(String[] args) throws Exception {
+        // As métricas JDBC distorcem a vazão e poluem o log de consultas lentas; ative com -Dfarmmanager.db.metrics=true
+        if (System.getProperty("farmmanager.db.metrics") == null) {
+            System.setProperty("farmmanager.db.metrics", "false");
+        }
+
+        int threads = 8;
+        int operacoes = 4_000;
+        int itens = 5;
+        int numContas = 300;
+        long semente = 42;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--threads": threads = Integer.parseInt(args[i + 1]); break;
+                case "--operacoes": operacoes = Integer.parseInt(args[i + 1]); break;
+                case "--itens": itens = Integer.parseInt(args[i + 1]); break;
+                case "--contas": numContas = Integer.parseInt(args[i + 1]); break;
+                case "--seed": semente = Long.parseLong(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Opção desconhecida: " + args[i]);
+            }
+        }
+
+        Path banco = Files.createTempFile("farmmanager-stress-", ".db");
+        Files.delete(banco);
+        Database.setDbPath(banco.toString());
+        boolean ok;
+        try {
+            Database.inicializarSchema();
+            ConcurrencyStressSuite suite = new ConcurrencyStressSuite(threads, operacoes, semente);
+            suite.popular(itens, numContas);
+            double segundos = suite.executar();
+            suite.imprimirResultados(segundos);
+            ok = suite.verificarInvariantes();
+        } finally {
+            Files.deleteIfExists(banco);
+            Files.deleteIfExists(Paths.get(banco + "-wal"));
+            Files.deleteIfExists(Paths.get(banco + "-shm"));
+        }
+        System.exit(ok ? 0 : 1);
+    }
+
+    // --- Preparação ---
+
+    private void popular(int itens, int numContas) throws SQLException {
+        for (int i = 0; i < itens; i++) {
+            String nome = "Insumo Estresse " + (i + 1);
+            estoqueDAO.addEstoque(new EstoqueItem(nome, ESTOQUE_INICIAL, "kg", 10.0, ESTOQUE_INICIAL * 10.0, null, null));
+            nomesItens.add(nome);
+            idsItens.add(estoqueDAO.getEstoqueItemPorNome(nome).getId());
+        }
+        Random random = new Random(semente);
+        for (int i = 0; i < numContas; i++) {
+            String tipo = random.nextBoolean() ? "pagar" : "receber";
+            contaDAO.addConta(new Conta("Conta Estresse #" + (i + 1), 10 + random.nextInt(990), DATA, tipo, "pendente", null, null));
+        }
+        contas.addAll(contaDAO.listContas("pendente"));
+
+        consumidoPorItem = new AtomicLongArray(itens);
+        adicionadoPorItem = new AtomicLongArray(itens);
+        liquidacoesPorConta = new AtomicIntegerArray(contas.size());
+    }
+
+    // --- Execução ---
+
+    private double executar() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch largada = new CountDownLatch(1);
+        int porThread = operacoes / threads;
+
+        for (int t = 0; t < threads; t++) {
+            Random random = new Random(semente * 31 + t);
+            executor.execute(() -> {
+                try {
+                    largada.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < porThread; i++) {
+                    executarOperacao(Operacao.values()[random.nextInt(Operacao.values().length)], random);
+                }
+            });
+        }
+
+        long inicio = System.nanoTime();
+        largada.countDown();
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("Teste de estresse não terminou em 30 minutos");
+        }
+        return (System.nanoTime() - inicio) / 1e9;
+    }
+
+    private void executarOperacao(Operacao operacao, Random random) {
+        int i = operacao.ordinal();
+        long inicio = System.nanoTime();
+        try {
+            comRetentativa(() -> aplicar(operacao, random));
+            sucessos[i].increment();
+        } catch (IllegalStateException | Rejeitada e) {
+            rejeicoes[i].increment();
+        } catch (SQLException e) {
+            erros[i].increment();
+            System.err.println(operacao + ": " + e.getMessage());
+        } finally {
+            long nanos = System.nanoTime() - inicio;
+            nanosTotais[i].add(nanos);
+            synchronized (latencias[i]) {
+                latencias[i].add(nanos);
+            }
+        }
+    }
+
+    /**
+     * Executa uma operação e registra o efeito esperado somente se ela foi confirmada.
+     */
+    private void aplicar(Operacao operacao, Random random) throws SQLException {
+        switch (operacao) {
+            case CONSUMIR: {
+                int item = random.nextInt(idsItens.size());
+                int quantidade = 1 + random.nextInt(5);
+                estoqueDAO.consumirEstoque(idsItens.get(item), quantidade);
+                consumidoPorItem.addAndGet(item, quantidade);
+                break;
+            }
+            case ADICIONAR: {
+                int item = random.nextInt(idsItens.size());
+                int quantidade = 1 + random.nextInt(3);
+                estoqueDAO.addEstoque(new EstoqueItem(nomesItens.get(item), quantidade, "kg", 12.0, quantidade * 12.0, "Fornecedor Estresse", null));
+                adicionadoPorItem.addAndGet(item, quantidade);
+                break;
+            }
+            case LIQUIDAR: {
+                int indice = random.nextInt(contas.size());
+                Conta conta = contas.get(indice);
+                try {
+                    contaDAO.liquidarConta(conta.getId(), DATA);
+                } catch (SQLException e) {
+                    if (e.getMessage() != null && e.getMessage().contains("já foi paga")) {
+                        throw new Rejeitada();
+                    }
+                    throw e;
+                }
+                liquidacoesPorConta.incrementAndGet(indice);
+                long centavos = Math.round(conta.getValor() * 100);
+                centavosEsperados.add("pagar".equals(conta.getTipo()) ? -centavos : centavos);
+                break;
+            }
+            case LANCAR: {
+                long centavos = (random.nextInt(20_000) - 10_000);
+                String tipo = centavos >= 0 ? "receita" : "despesa";
+                financeiroDAO.addTransacao(new Transacao("Lançamento Estresse", centavos / 100.0, DATA, tipo));
+                centavosEsperados.add(centavos);
+                break;
+            }
+            default:
+                throw new IllegalArgumentException(operacao.name());
+        }
+    }
+
+    private interface Acao {
+        void executar() throws SQLException;
+    }
+
+    /**
+     * Conta já liquidada por outra thread (resultado esperado da disputa, não um erro).
+     */
+    private static final class Rejeitada extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Rejeitada() {
+            super(null, null, false, false);
+        }
+    }
+
+    private void comRetentativa(Acao acao) throws SQLException {
+        long espera = 5;
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                acao.executar();
+                return;
+            } catch (SQLException e) {
+                if (!isBusy(e)) {
+                    throw e;
+                }
+                if (tentativa >= MAX_TENTATIVAS) {
+                    desistenciasBusy.increment();
+                    throw e;
+                }
+                tentativasBusy.increment();
+                try {
+                    Thread.sleep(espera + (long) (Math.random() * espera));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                espera = Math.min(espera * 2, 500);
+            }
+        }
+    }
+
+    private static boolean isBusy(SQLException e) {
+        String msg = String.valueOf(e.getMessage());
+        return msg.contains("SQLITE_BUSY") || msg.contains("database is locked");
+    }
+
+    // --- Verificação ---
+
+    private boolean verificarInvariantes() throws SQLException {
+        List<String> falhas = new ArrayList<>();
+
+        try (Connection conn = Database.getConnection()) {
+            // Estoque: nunca negativo e saldo batendo com as operações confirmadas
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM estoque WHERE quantidade < 0")) {
+                if (rs.next() && rs.getInt(1) > 0) {
+                    falhas.add(rs.getInt(1) + " item(ns) com estoque negativo");
+                }
+            }
+            for (int i = 0; i < idsItens.size(); i++) {
+                double esperado = ESTOQUE_INICIAL + adicionadoPorItem.get(i) - consumidoPorItem.get(i);
+                double atual = estoqueDAO.getItemById(idsItens.get(i)).getQuantidade();
+                if (Math.abs(atual - esperado) > 1e-6) {
+                    falhas.add(String.format(Locale.US, "%s: saldo %.2f, esperado %.2f", nomesItens.get(i), atual, esperado));
+                }
+            }
+
+            // Contas: no máximo uma liquidação, status e lançamentos coerentes
+            String sqlLancamentos = "SELECT COUNT(*) FROM financeiro WHERE descricao = ?";
+            try (PreparedStatement pstmt = conn.prepareStatement(sqlLancamentos)) {
+                for (int i = 0; i < contas.size(); i++) {
+                    Conta conta = contas.get(i);
+                    int liquidacoes = liquidacoesPorConta.get(i);
+                    String status = contaDAO.getContaById(conta.getId()).getStatus();
+                    pstmt.setString(1, "Liquidação: " + conta.getDescricao());
+                    int lancamentos;
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        lancamentos = rs.next() ? rs.getInt(1) : 0;
+                    }
+                    if (liquidacoes > 1) {
+                        falhas.add(conta.getDescricao() + " liquidada " + liquidacoes + " vezes");
+                    }
+                    int esperado = liquidacoes > 0 ? 1 : 0;
+                    if (lancamentos != esperado || "pago".equals(status) != (liquidacoes > 0)) {
+                        falhas.add(conta.getDescricao() + ": status=" + status + ", lançamentos=" + lancamentos
+                            + ", liquidações confirmadas=" + liquidacoes);
+                    }
+                }
+            }
+        }
+
+        // Livro-caixa: soma igual ao que foi confirmado
+        long centavosAtuais = Math.round(financeiroDAO.getBalançoFinanceiro() * 100);
+        if (centavosAtuais != centavosEsperados.sum()) {
+            falhas.add(String.format(Locale.US, "Balanço do financeiro %.2f, esperado %.2f", centavosAtuais / 100.0, centavosEsperados.sum() / 100.0));
+        }
+
+        System.out.println();
+        if (falhas.isEmpty()) {
+            System.out.println("Invariantes: OK");
+            return true;
+        }
+        System.out.println("Invariantes: " + falhas.size() + " FALHA(S)");
+        falhas.stream().limit(50).forEach(f -> System.out.println("  - " + f));
+        return false;
+    }
+
+    // --- Relatório ---
+
+    private void imprimirResultados(double segundos) {
+        long total = 0;
+        for (Operacao op : Operacao.values()) {
+            total += sucessos[op.ordinal()].sum() + rejeicoes[op.ordinal()].sum() + erros[op.ordinal()].sum();
+        }
+        System.out.printf(Locale.US, "%d operações em %.2f s com %d threads: %.0f ops/s%n", total, segundos, threads, total / segundos);
+        System.out.printf("Retentativas por SQLITE_BUSY: %d | desistências: %d%n", tentativasBusy.sum(), desistenciasBusy.sum());
+        long lotes = DatabaseWriter.getLotes();
+        System.out.printf(Locale.US, "DatabaseWriter: %d comandos em %d lotes (média %.1f, maior %d) | retentativas internas: %d%n%n",
+            DatabaseWriter.getComandos(), lotes, lotes == 0 ? 0.0 : (double) DatabaseWriter.getComandos() / lotes,
+            DatabaseWriter.getMaiorLote(), DatabaseWriter.getRetentativasBusy());
+        System.out.printf("%-10s %9s %10s %7s %10s %10s %10s%n", "Operação", "sucessos", "rejeitadas", "erros", "média ms", "p50 ms", "p99 ms");
+        for (Operacao op : Operacao.values()) {
+            int i = op.ordinal();
+            long n = sucessos[i].sum() + rejeicoes[i].sum() + erros[i].sum();
+            System.out.printf(Locale.US, "%-10s %9d %10d %7d %10.2f %10.2f %10.2f%n", op, sucessos[i].sum(), rejeicoes[i].sum(), erros[i].sum(),
+                n == 0 ? 0 : nanosTotais[i].sum() / 1e6 / n, percentilMs(latencias[i], 50), percentilMs(latencias[i], 99));
+        }
+    }
+
+    private static double percentilMs(List<Long> valores, double p) {
+        List<Long> ordenados;
+        synchronized (valores) {
+            ordenados = new ArrayList<>(valores);
+        }
+        if (ordenados.isEmpty()) {
+            return 0;
+        }
+        Collections.sort(ordenados);
+        int indice = (int) Math.ceil(p / 100.0 * ordenados.size()) - 1;
+        return ordenados.get(Math.max(0, indice)) / 1e6;
+    }
+
+    private static LongAdder[] novosContadores() {
+        LongAdder[] contadores = new LongAdder[Operacao.values().length];
+        for (int i = 0; i < contadores.length; i++) {
+            contadores[i] = new LongAdder();
+        }
+        return contadores;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Long>[] novasListas() {
+        List<Long>[] listas = (List<Long>[]) new List<?>[Operacao.values().length];
+        for (int i = 0; i < listas.length; i++) {
+            listas[i] = new ArrayList<>();
+        }
+        return listas;
+    }
+}
@@ -0,0 +1,33 @@
+package com.farmmanager.benchmark;
+
+import com.farmmanager.model.ContaDAO;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Contagem de contas a vencer exibida no Dashboard.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Dfarmmanager.db.metrics=false" })
+@State(Scope.Benchmark)
+public class ContaDaoBenchmark {
+
+    private final ContaDAO contaDAO = new ContaDAO();
+
+    @Benchmark
+    public int getContagemContasAVencer(BenchmarkDatabase db) throws SQLException {
+        return contaDAO.getContagemContasAVencer(7);
+    }
+}
@@ -0,0 +1,259 @@
+package com.farmmanager.benchmark;
+
+import com.farmmanager.model.Database;
+import com.farmmanager.model.DatabaseMaintenance;
+import com.farmmanager.model.EstoqueDAO;
+import com.farmmanager.model.EstoqueItem;
+import com.farmmanager.model.Funcionario;
+import com.farmmanager.model.FuncionarioDAO;
+import com.farmmanager.model.ReferenceDataCache;
+import com.farmmanager.model.Talhao;
+import com.farmmanager.model.TalhaoDAO;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Verificações da camada de banco com o driver SQLite real, cada uma em um banco temporário:
+ * - migrações: um banco novo e um banco antigo (só as tabelas originais, com dados)
+ *   chegam a Database.VERSAO_SCHEMA, e reabrir o banco não aplica nada de novo.
+ * - cache de referência: uma gravação externa é percebida mesmo quando o aplicativo também
+ *   grava no mesmo intervalo da verificação do data_version, em qualquer ordem.
+ * - estoque: o nome de um item sem saldo (fora do cache) continua sendo encontrado.
+ * - manutenção: o incremental_vacuum devolve toda a freelist, em vários passos.
+ *
+ * Não usa JavaFX nem dados gerados; roda em segundos. Sai com código 1 se alguma verificação falhar.
+ *
+ * Uso:
+ *   java -cp benchmarks.jar com.farmmanager.benchmark.DatabaseCheckSuite
+ */
+public final class DatabaseCheckSuite {
+
+    /** Uma verificação; registra as falhas em "falhas". */
+    private interface Verificacao {
+        void executar(Path banco) throws Exception;
+    }
+
+    private final List<String> falhas = new ArrayList<>();
+
+    private DatabaseCheckSuite() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("farmmanager.db.metrics") == null) {
+            System.setProperty("farmmanager.db.metrics", "false");
+        }
+
+        DatabaseCheckSuite suite = new DatabaseCheckSuite();
+        suite.verificar("Migrações em banco novo", suite::migracoesBancoNovo);
+        suite.verificar("Migrações em banco antigo", suite::migracoesBancoAntigo);
+        suite.verificar("Cache: gravação externa e do aplicativo no mesmo intervalo", suite::cacheGravacaoExterna);
+        suite.verificar("Estoque: nome de item sem saldo", suite::nomeItemSemSaldo);
+        suite.verificar("Manutenção: incremental_vacuum esvazia a freelist", suite::vacuumIncremental);
+
+        System.out.println();
+        if (suite.falhas.isEmpty()) {
+            System.out.println("Verificações: OK");
+            System.exit(0);
+        }
+        System.out.println("Verificações: " + suite.falhas.size() + " FALHA(S)");
+        suite.falhas.forEach(f -> System.out.println("  - " + f));
+        System.exit(1);
+    }
+
+    private void verificar(String nome, Verificacao verificacao) throws Exception {
+        Path banco = Files.createTempFile("farmmanager-check-", ".db");
+        Files.delete(banco);
+        Database.setDbPath(banco.toString());
+        int antes = falhas.size();
+        try {
+            verificacao.executar(banco);
+        } catch (Exception e) {
+            falhas.add(nome + ": " + e);
+        } finally {
+            Files.deleteIfExists(banco);
+            Files.deleteIfExists(Paths.get(banco + "-wal"));
+            Files.deleteIfExists(Paths.get(banco + "-shm"));
+        }
+        System.out.println((falhas.size() == antes ? "[OK]    " : "[FALHA] ") + nome);
+    }
+
+    // --- Migrações ---
+
+    private void migracoesBancoNovo(Path banco) throws SQLException {
+        Database.inicializarSchema();
+        try (Connection conn = abrir(banco)) {
+            esperar("user_version do banco novo", Database.VERSAO_SCHEMA, inteiro(conn, "PRAGMA user_version"));
+            esperar("journal_mode", "wal", texto(conn, "PRAGMA journal_mode"));
+            for (String tabela : new String[] { "safra_financeiro_snapshot", "busca_global", "folha_pagamento",
+                    "regras_categoria", "planos_parcelamento", "financeiro_arquivado_diario" }) {
+                esperar("tabela " + tabela, 1,
+                    inteiro(conn, "SELECT COUNT(*) FROM sqlite_master WHERE name = '" + tabela + "'"));
+            }
+        }
+    }
+
+    /**
+     * Banco criado antes das migrações: tabelas originais, user_version 0 e um salário já pago.
+     */
+    private void migracoesBancoAntigo(Path banco) throws SQLException {
+        try (Connection conn = abrir(banco); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE funcionarios (id INTEGER PRIMARY KEY AUTOINCREMENT, nome TEXT NOT NULL, cargo TEXT, "
+                + "salario REAL, data_inicio TEXT, cpf TEXT, telefone TEXT, endereco TEXT, data_criacao TEXT, data_modificacao TEXT)");
+            stmt.execute("CREATE TABLE financeiro (id INTEGER PRIMARY KEY AUTOINCREMENT, descricao TEXT NOT NULL, "
+                + "valor REAL NOT NULL, data TEXT NOT NULL, tipo TEXT NOT NULL, data_hora_criacao TEXT, data_modificacao TEXT)");
+            stmt.execute("INSERT INTO funcionarios (nome, salario) VALUES ('Ana Souza', 2500)");
+            stmt.execute("INSERT INTO financeiro (descricao, valor, data, tipo, data_hora_criacao) VALUES "
+                + "('Pagamento de salário: Ana Souza', -2500, '2024-03-05', 'despesa', '2024-03-05 08:00:00'), "
+                + "('Venda de milho', 8000, '2024-03-10', 'receita', '2024-03-10 10:00:00')");
+        }
+
+        Database.inicializarSchema();
+        try (Connection conn = abrir(banco)) {
+            esperar("user_version do banco antigo", Database.VERSAO_SCHEMA, inteiro(conn, "PRAGMA user_version"));
+            esperar("salário ligado ao funcionário (migração 4)", 1,
+                inteiro(conn, "SELECT COUNT(*) FROM financeiro WHERE funcionario_id IS NOT NULL"));
+            esperar("competência paga (migração 5)", 1,
+                inteiro(conn, "SELECT COUNT(*) FROM folha_pagamento WHERE competencia = '2024-03'"));
+            esperar("linhas classificadas (migração 6)", 0,
+                inteiro(conn, "SELECT COUNT(*) FROM financeiro WHERE categoria IS NULL"));
+            esperar("linhas no índice de busca (migração 3)", 2,
+                inteiro(conn, "SELECT COUNT(*) FROM busca_global"));
+        }
+
+        // Reabrir não repete nenhuma migração
+        Database.inicializarSchema();
+        try (Connection conn = abrir(banco)) {
+            esperar("user_version após reabrir", Database.VERSAO_SCHEMA, inteiro(conn, "PRAGMA user_version"));
+            esperar("linhas no índice de busca após reabrir", 2, inteiro(conn, "SELECT COUNT(*) FROM busca_global"));
+        }
+    }
+
+    // --- Cache de referência ---
+
+    /**
+     * Cada intervalo é fechado por uma chamada a ReferenceDataCache.verificarAlteracoesExternas
+     * (o que o agendador faz a cada 2 s). As gravações do aplicativo vão para funcionarios, então
+     * só a detecção da gravação externa pode invalidar o conjunto de talhões.
+     */
+    private void cacheGravacaoExterna(Path banco) throws SQLException {
+        Database.inicializarSchema();
+        ReferenceDataCache.invalidarTudo(); // Conjuntos de um banco anterior da suíte
+        new TalhaoDAO().addTalhao(new Talhao("Talhão A", 10));
+        ReferenceDataCache.verificarAlteracoesExternas();
+        esperar("talhões no início", 1, ReferenceDataCache.talhoes().listar().size());
+
+        long versao = ReferenceDataCache.talhoes().getVersao();
+        gravarFuncionario("Bruno Lima");
+        ReferenceDataCache.verificarAlteracoesExternas();
+        esperar("versão dos talhões após gravação só do aplicativo", versao, ReferenceDataCache.talhoes().getVersao());
+
+        gravarTalhaoExterno(banco, "Talhão externo 1");
+        gravarFuncionario("Carla Dias");
+        ReferenceDataCache.verificarAlteracoesExternas();
+        esperar("talhões após gravação externa e depois do aplicativo", 2, ReferenceDataCache.talhoes().listar().size());
+
+        gravarFuncionario("Davi Rocha");
+        gravarTalhaoExterno(banco, "Talhão externo 2");
+        ReferenceDataCache.verificarAlteracoesExternas();
+        esperar("talhões após gravação do aplicativo e depois externa", 3, ReferenceDataCache.talhoes().listar().size());
+
+        // O lote vazio da conferência não conta como alteração nas verificações seguintes
+        versao = ReferenceDataCache.talhoes().getVersao();
+        ReferenceDataCache.verificarAlteracoesExternas();
+        ReferenceDataCache.verificarAlteracoesExternas();
+        esperar("versão dos talhões sem gravações", versao, ReferenceDataCache.talhoes().getVersao());
+    }
+
+    private static void gravarFuncionario(String nome) throws SQLException {
+        new FuncionarioDAO().addFuncionario(new Funcionario(nome, "Operador", 2000, "2024-01-01", null, null, null));
+    }
+
+    /**
+     * Gravação de outra conexão (outro processo, ArquivoDAO), fora do DatabaseWriter.
+     */
+    private static void gravarTalhaoExterno(Path banco, String nome) throws SQLException {
+        try (Connection conn = abrir(banco); Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("INSERT INTO talhoes (nome, area_hectares) VALUES ('" + nome + "', 5)");
+        }
+    }
+
+    /**
+     * O conjunto de estoque do cache só tem itens com quantidade > 0.
+     */
+    private void nomeItemSemSaldo(Path banco) throws SQLException {
+        Database.inicializarSchema();
+        ReferenceDataCache.invalidarTudo();
+        EstoqueDAO dao = new EstoqueDAO();
+        dao.addEstoque(new EstoqueItem("Ureia", 10, "kg", 3.5, 35, null, null));
+        int id = dao.getEstoqueItemPorNome("Ureia").getId();
+        dao.consumirEstoque(id, 10);
+        esperar("item sem saldo fora do cache", null, ReferenceDataCache.estoque().porId(id));
+        esperar("nome do item sem saldo", "Ureia", dao.getItemNomeById(id));
+        esperar("nome de id inexistente", "ID: 999 (Não encontrado)", dao.getItemNomeById(999));
+    }
+
+    // --- Manutenção ---
+
+    /**
+     * Cerca de 3000 páginas livres: mais de um passo de DatabaseMaintenance.PAGINAS_POR_PASSO (1000).
+     */
+    private void vacuumIncremental(Path banco) throws SQLException {
+        Database.inicializarSchema();
+        int livresAntes;
+        try (Connection conn = abrir(banco); Statement stmt = conn.createStatement()) {
+            esperar("auto_vacuum (2 = incremental)", 2, inteiro(conn, "PRAGMA auto_vacuum"));
+            stmt.execute("CREATE TABLE descarte (dados BLOB)");
+            stmt.execute("WITH RECURSIVE n(i) AS (SELECT 1 UNION ALL SELECT i + 1 FROM n WHERE i < 3000) "
+                + "INSERT INTO descarte SELECT randomblob(3000) FROM n");
+            stmt.execute("DROP TABLE descarte");
+            stmt.execute("ANALYZE"); // Na manutenção, só PRAGMA optimize (a primeira coleta ocuparia páginas livres)
+            livresAntes = inteiro(conn, "PRAGMA freelist_count");
+        }
+        if (livresAntes < 2_500) {
+            esperar("páginas livres antes da manutenção (no mínimo 2500)", true, false);
+            return;
+        }
+
+        DatabaseMaintenance.ResultadoManutencao resultado = DatabaseMaintenance.executarManutencao();
+        esperar("páginas liberadas", livresAntes, resultado.getPaginasLiberadas());
+        try (Connection conn = abrir(banco)) {
+            esperar("páginas livres depois da manutenção", 0, inteiro(conn, "PRAGMA freelist_count"));
+        }
+    }
+
+    // --- Helpers ---
+
+    /**
+     * Conexão direta ao arquivo, fora do Database (sem pool, escritor ou métricas).
+     */
+    private static Connection abrir(Path banco) throws SQLException {
+        return DriverManager.getConnection("jdbc:sqlite:" + banco);
+    }
+
+    private static int inteiro(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : -1;
+        }
+    }
+
+    private static String texto(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getString(1) : null;
+        }
+    }
+
+    private void esperar(String descricao, Object esperado, Object atual) {
+        if (!Objects.equals(esperado, atual)) {
+            falhas.add(descricao + ": " + atual + ", esperado " + esperado);
+        }
+    }
+}
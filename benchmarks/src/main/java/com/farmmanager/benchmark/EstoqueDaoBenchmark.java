@@ -0,0 +1,64 @@
+package com.farmmanager.benchmark;
+
+import com.farmmanager.model.EstoqueDAO;
+import com.farmmanager.model.EstoqueItem;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Escritas do EstoqueDAO: entrada de compra (custo médio ponderado) e baixa por consumo.
+ * Os insumos do banco modelo têm saldo de milhares de unidades, e cada baixa é pequena.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Dfarmmanager.db.metrics=false" })
+@State(Scope.Benchmark)
+public class EstoqueDaoBenchmark {
+
+    private final EstoqueDAO estoqueDAO = new EstoqueDAO();
+
+    /**
+     * Percorre os insumos em sequência para não concentrar as escritas em uma única linha.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private List<EstoqueItem> insumos;
+        private int proximo = -1;
+
+        EstoqueItem proximoItem() throws SQLException {
+            if (insumos == null) {
+                // Carregado na primeira chamada (warmup), depois que o banco do trial já existe
+                insumos = new EstoqueDAO().listEstoque().stream()
+                    .filter(item -> !item.getItemNome().contains("(Colheita"))
+                    .collect(Collectors.toList());
+            }
+            proximo = (proximo + 1) % insumos.size();
+            return insumos.get(proximo);
+        }
+    }
+
+    @Benchmark
+    public boolean addEstoque(BenchmarkDatabase db, Cursor cursor) throws SQLException {
+        EstoqueItem insumo = cursor.proximoItem();
+        EstoqueItem compra = new EstoqueItem(insumo.getItemNome(), 10, insumo.getUnidade(), 25.0, 250.0, "Fornecedor Bench", "Empresa Bench");
+        return estoqueDAO.addEstoque(compra);
+    }
+
+    @Benchmark
+    public double consumirEstoque(BenchmarkDatabase db, Cursor cursor) throws SQLException {
+        return estoqueDAO.consumirEstoque(cursor.proximoItem().getId(), 0.01);
+    }
+}
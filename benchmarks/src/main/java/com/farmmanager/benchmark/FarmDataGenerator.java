@@ -0,0 +1,683 @@
+package com.farmmanager.benchmark;
+
+import com.farmmanager.model.CategoriaFinanceira;
+import com.farmmanager.model.Database;
+import com.farmmanager.model.Transacao;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Gerador determinístico de dados sintéticos de uma fazenda, para testes de carga e escala.
+ *
+ * Preenche todas as tabelas criadas por Database.initDb (talhões, safras, estoque,
+ * financeiro, atividades_safra, contas, patrimonio, manutencao_patrimonio e funcionarios)
+ * e a folha de pagamento (folha_pagamento, uma linha por salário, ligada por funcionario_id e transacao_id),
+ * seguindo as convenções de descrição que os controllers usam para cruzar dados, por exemplo:
+ * - "Venda de Soja (Colheita 2019/1)" (receita da safra, à vista ou em contas a receber);
+ * - "Compra (à vista): Glifosato" / "Compra (a prazo): Glifosato";
+ * - "Custo Safra (Milho): Pulverização" (custo manual de atividade);
+ * - "Pagamento de salário: Nome" e "Pgto. Funcionário (Nome): ..." (histórico do funcionário,
+ *   também ligado por financeiro.funcionario_id);
+ * - "Liquidação: <descrição da conta> (Fornec: ...)" (contas pagas).
+ * As colunas de classificação do financeiro (categoria, contraparte, origem) são preenchidas
+ * ao final, a partir dessas descrições, como a migração 6 faz com bancos existentes.
+ *
+ * Mesma semente, mesma configuração e mesma data de referência geram exatamente o mesmo banco.
+ * Todas as inserções são feitas em lotes, dentro de uma única transação.
+ *
+ * Uso pela linha de comando:
+ *   java -cp benchmarks.jar com.farmmanager.benchmark.FarmDataGenerator --db /tmp/fazenda.db --financeiro 1000000 --seed 42
+ */
+public final class FarmDataGenerator {
+
+    private static final int TAMANHO_LOTE = 5_000;
+
+    private static final String[] CULTURAS = { "Soja", "Milho", "Trigo", "Café", "Algodão", "Feijão", "Sorgo", "Arroz" };
+    private static final String[] STATUS_ATIVOS = { "Planejada", "Em Preparo", "Plantio", "Crescimento", "Aplicação Defensivos", "Colheita" };
+    private static final String[] ATIVIDADES = { "Aplicação de herbicida", "Adubação de cobertura", "Plantio", "Pulverização",
+        "Tratamento de sementes", "Correção de solo", "Aplicação de fungicida", "Controle de pragas" };
+    private static final String[] CUSTOS_MANUAIS = { "Frete", "Mão de obra terceirizada", "Aluguel de máquina", "Análise de solo", "Combustível", "Assistência técnica" };
+    private static final String[] NOMES = { "João", "Maria", "José", "Ana", "Pedro", "Francisca", "Paulo", "Antônia", "Carlos", "Adriana",
+        "Lucas", "Juliana", "Marcos", "Fernanda", "Rafael", "Patrícia", "Tiago", "Aline", "Bruno", "Camila" };
+    private static final String[] SOBRENOMES = { "Silva", "Santos", "Oliveira", "Souza", "Rodrigues", "Ferreira", "Alves", "Pereira",
+        "Lima", "Gomes", "Costa", "Ribeiro", "Martins", "Carvalho", "Almeida" };
+    private static final String[] CARGOS = { "Operador de Máquinas", "Tratorista", "Gerente", "Técnico Agrícola", "Auxiliar de Campo", "Administrativo" };
+    private static final String[] EMPRESAS = { "AgroSul Insumos", "Cooperativa Central", "Terra Forte Ltda", "Campo Verde Comércio",
+        "Grãos do Brasil S.A.", "Mecânica Rural" };
+    private static final String[] TIPOS_PATRIMONIO = { "Trator", "Colheitadeira", "Pulverizador", "Plantadeira", "Caminhão", "Implemento" };
+    private static final String[] STATUS_PATRIMONIO = { "Operacional", "Operacional", "Operacional", "Em Manutenção", "Inativo" };
+    private static final String[] SERVICOS_MANUTENCAO = { "Troca de óleo", "Revisão geral", "Troca de pneus", "Reparo hidráulico", "Troca de filtros", "Solda" };
+
+    // Insumos: nome, unidade, faixa de preço unitário
+    private static final Object[][] INSUMOS = {
+        { "Glifosato", "L", 18.0, 35.0 }, { "Adubo NPK 04-14-08", "kg", 2.5, 4.5 }, { "Ureia", "kg", 2.8, 4.2 },
+        { "Cloreto de Potássio", "kg", 2.6, 4.0 }, { "Calcário Dolomítico", "kg", 0.15, 0.3 }, { "Semente de Soja", "kg", 6.0, 12.0 },
+        { "Semente de Milho", "kg", 25.0, 45.0 }, { "Semente de Trigo", "kg", 3.0, 6.0 }, { "Fungicida Azoxistrobina", "L", 90.0, 160.0 },
+        { "Inseticida Lambda-cialotrina", "L", 60.0, 110.0 }, { "Herbicida 2,4-D", "L", 20.0, 40.0 }, { "Óleo Mineral", "L", 8.0, 15.0 },
+        { "Diesel", "L", 5.0, 7.0 }, { "Óleo Lubrificante", "L", 20.0, 35.0 }, { "Filtro de Óleo", "un", 40.0, 90.0 },
+        { "Graxa", "kg", 25.0, 45.0 }, { "Inoculante", "dose", 8.0, 15.0 }, { "Sulfato de Amônio", "kg", 1.8, 3.2 },
+        { "Micronutrientes Foliar", "L", 30.0, 60.0 }, { "Adjuvante", "L", 15.0, 30.0 } };
+
+    /**
+     * Volumes a gerar. Use paraEscala() para obter uma configuração proporcional
+     * ao número de lançamentos do financeiro.
+     */
+    public static final class Config {
+        public long semente = 42L;
+        public LocalDate dataReferencia = LocalDate.now();
+        public int anos = 20;
+        public int talhoes = 100;
+        public int funcionarios = 25;
+        public int patrimonios = 30;
+        public int financeiro = 100_000;
+        public int atividades = 50_000;
+        public int contas = 10_000;
+
+        public static Config paraEscala(int linhasFinanceiro) {
+            Config c = new Config();
+            c.financeiro = linhasFinanceiro;
+            c.atividades = linhasFinanceiro / 2;
+            c.contas = linhasFinanceiro / 10;
+            c.talhoes = limitar(linhasFinanceiro / 2_000, 20, 500);
+            c.funcionarios = limitar(c.talhoes / 4, 5, 150);
+            c.patrimonios = limitar(c.talhoes / 3, 10, 300);
+            return c;
+        }
+
+        private static int limitar(int valor, int minimo, int maximo) {
+            return Math.max(minimo, Math.min(maximo, valor));
+        }
+    }
+
+    /**
+     * Quantidade de linhas gravadas em cada tabela.
+     */
+    public static final class Resumo {
+        private final Map<String, Integer> linhasPorTabela = new TreeMap<>();
+
+        void somar(String tabela, int linhas) {
+            linhasPorTabela.merge(tabela, linhas, Integer::sum);
+        }
+
+        public int getLinhas(String tabela) {
+            return linhasPorTabela.getOrDefault(tabela, 0);
+        }
+
+        public Map<String, Integer> getLinhasPorTabela() {
+            return linhasPorTabela;
+        }
+
+        @Override
+        public String toString() {
+            return linhasPorTabela.toString();
+        }
+    }
+
+    // Dados mantidos em memória para relacionar as tabelas (ids são sequenciais em banco vazio)
+    private static final class SafraGerada {
+        int id;
+        String cultura;
+        String ano;
+        LocalDate inicio;
+        LocalDate colheita; // null se ainda não colhida
+        double producaoKg;
+    }
+
+    private static final class InsumoGerado {
+        int id;
+        String nome;
+        String unidade;
+        double valorUnitario;
+    }
+
+    private final Config config;
+    private final Random random;
+    private final Resumo resumo = new Resumo();
+    private final List<SafraGerada> safrasColhidas = new ArrayList<>();
+
+    public FarmDataGenerator(Config config) {
+        this.config = config;
+        this.random = new Random(config.semente);
+    }
+
+    /**
+     * Gera os dados no banco configurado em Database (que deve estar vazio).
+     */
+    public Resumo gerar() throws SQLException {
+        Database.inicializarSchema();
+        try (Connection conn = Database.getConnection()) {
+            verificarBancoVazio(conn);
+            conn.setAutoCommit(false);
+            try {
+                List<Double> areas = gerarTalhoes(conn);
+                List<InsumoGerado> insumos = gerarEstoque(conn);
+                List<SafraGerada> safras = gerarSafras(conn, areas);
+                List<String[]> funcionarios = gerarFuncionarios(conn);
+                List<String> patrimonios = gerarPatrimonio(conn, insumos);
+
+                try (Lote financeiro = new Lote(conn, "financeiro",
+                        "INSERT INTO financeiro (descricao, valor, data, tipo, data_hora_criacao, data_modificacao) VALUES (?, ?, ?, ?, ?, ?)")) {
+                    gerarAtividades(conn, safras, insumos, financeiro);
+                    gerarPagamentosFuncionarios(conn, funcionarios);
+                    gerarContas(conn, insumos, financeiro);
+                    gerarComprasEVendas(insumos, financeiro);
+                }
+                gerarFolhaPagamento(conn);
+                classificarFinanceiro(conn);
+                gerarEstoqueColheita(conn);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ANALYZE");
+                stmt.execute("PRAGMA wal_checkpoint(TRUNCATE)");
+            }
+        }
+        return resumo;
+    }
+
+    // --- Tabelas ---
+
+    /**
+     * Preenche categoria, contraparte e origem das transações geradas (ver CategoriaFinanceira).
+     */
+    private void classificarFinanceiro(Connection conn) throws SQLException {
+        try (Statement select = conn.createStatement();
+             ResultSet rs = select.executeQuery("SELECT id, descricao, tipo, funcionario_id FROM financeiro WHERE categoria IS NULL");
+             PreparedStatement update = conn.prepareStatement("UPDATE financeiro SET categoria = ?, contraparte_nome = ?, "
+                 + "contraparte_empresa = ?, origem_tipo = ?, origem_id = ? WHERE id = ?")) {
+            int pendentes = 0;
+            while (rs.next()) {
+                Transacao t = new Transacao(rs.getString("descricao"), 0, null, rs.getString("tipo"));
+                int funcionarioId = rs.getInt("funcionario_id");
+                t.setFuncionarioId(rs.wasNull() ? null : funcionarioId);
+                CategoriaFinanceira.completar(t);
+                update.setString(1, t.getCategoria());
+                update.setString(2, t.getContraparteNome());
+                update.setString(3, t.getContraparteEmpresa());
+                update.setString(4, t.getOrigemTipo());
+                update.setObject(5, t.getOrigemId());
+                update.setInt(6, rs.getInt("id"));
+                update.addBatch();
+                if (++pendentes == TAMANHO_LOTE) {
+                    update.executeBatch();
+                    pendentes = 0;
+                }
+            }
+            update.executeBatch();
+        }
+    }
+
+    private List<Double> gerarTalhoes(Connection conn) throws SQLException {
+        List<Double> areas = new ArrayList<>();
+        try (Lote lote = new Lote(conn, "talhoes",
+                "INSERT INTO talhoes (nome, area_hectares, data_criacao, data_modificacao) VALUES (?, ?, ?, ?)")) {
+            String criacao = timestamp(inicioPeriodo());
+            for (int i = 1; i <= config.talhoes; i++) {
+                double area = arredondar(5 + random.nextDouble() * 295);
+                areas.add(area);
+                lote.adicionar(String.format("Talhão %03d", i), area, criacao, criacao);
+            }
+        }
+        return areas;
+    }
+
+    private List<InsumoGerado> gerarEstoque(Connection conn) throws SQLException {
+        List<InsumoGerado> insumos = new ArrayList<>();
+        try (Lote lote = new Lote(conn, "estoque",
+                "INSERT INTO estoque (item_nome, quantidade, unidade, valor_unitario, valor_total, fornecedor_nome, fornecedor_empresa, "
+                + "data_criacao, data_modificacao) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            String criacao = timestamp(inicioPeriodo());
+            String modificacao = timestamp(config.dataReferencia.minusDays(random.nextInt(30)));
+            for (int i = 0; i < INSUMOS.length; i++) {
+                InsumoGerado insumo = new InsumoGerado();
+                insumo.id = i + 1;
+                insumo.nome = (String) INSUMOS[i][0];
+                insumo.unidade = (String) INSUMOS[i][1];
+                double min = (Double) INSUMOS[i][2];
+                double max = (Double) INSUMOS[i][3];
+                insumo.valorUnitario = arredondar(min + random.nextDouble() * (max - min));
+                insumos.add(insumo);
+
+                double quantidade = 2_000 + random.nextInt(20_000);
+                lote.adicionar(insumo.nome, quantidade, insumo.unidade, insumo.valorUnitario,
+                    arredondar(quantidade * insumo.valorUnitario), nomePessoa(), sorteia(EMPRESAS), criacao, modificacao);
+            }
+        }
+        return insumos;
+    }
+
+    /**
+     * Duas safras por talhão por ano (verão "AAAA/1" e safrinha "AAAA/2").
+     * Safras de anos anteriores e a de verão já passada estão colhidas.
+     */
+    private List<SafraGerada> gerarSafras(Connection conn, List<Double> areas) throws SQLException {
+        List<SafraGerada> safras = new ArrayList<>();
+        int id = 0;
+        try (Lote lote = new Lote(conn, "safras",
+                "INSERT INTO safras (cultura, ano_inicio, status, talhao_id, producao_total_kg, data_criacao, data_modificacao) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            int anoFinal = config.dataReferencia.getYear();
+            for (int ano = anoFinal - config.anos + 1; ano <= anoFinal; ano++) {
+                for (int talhao = 1; talhao <= config.talhoes; talhao++) {
+                    for (int temporada = 1; temporada <= 2; temporada++) {
+                        SafraGerada s = new SafraGerada();
+                        s.id = ++id;
+                        s.cultura = temporada == 1 ? sorteia(CULTURAS) : (random.nextBoolean() ? "Milho" : "Trigo");
+                        s.ano = ano + "/" + temporada;
+                        s.inicio = LocalDate.of(ano, temporada == 1 ? 1 : 7, 1).plusDays(random.nextInt(45));
+                        LocalDate colheita = s.inicio.plusDays(120 + random.nextInt(60));
+
+                        String status;
+                        if (colheita.isBefore(config.dataReferencia)) {
+                            s.colheita = colheita;
+                            double produtividade = 2_500 + random.nextInt(2_000); // kg/ha
+                            s.producaoKg = arredondar(areas.get(talhao - 1) * produtividade);
+                            status = "Colhida";
+                            safrasColhidas.add(s);
+                        } else {
+                            status = s.inicio.isAfter(config.dataReferencia) ? "Planejada" : sorteia(STATUS_ATIVOS);
+                        }
+                        String criacao = timestamp(s.inicio.minusDays(15));
+                        lote.adicionar(s.cultura, s.ano, status, talhao, s.producaoKg, criacao,
+                            s.colheita != null ? timestamp(s.colheita) : criacao);
+                        safras.add(s);
+                    }
+                }
+            }
+        }
+        return safras;
+    }
+
+    /**
+     * Retorna [nome, salario, data_inicio] de cada funcionário gerado.
+     */
+    private List<String[]> gerarFuncionarios(Connection conn) throws SQLException {
+        List<String[]> funcionarios = new ArrayList<>();
+        try (Lote lote = new Lote(conn, "funcionarios",
+                "INSERT INTO funcionarios (nome, cargo, salario, data_inicio, cpf, telefone, endereco, data_criacao, data_modificacao) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < config.funcionarios; i++) {
+                String nome = nomePessoa() + (i >= NOMES.length ? " " + (i / NOMES.length + 1) : "");
+                double salario = arredondar(1_800 + random.nextInt(6_000));
+                LocalDate inicio = inicioPeriodo().plusDays(random.nextInt(365 * config.anos));
+                String cpf = String.format("%03d.%03d.%03d-%02d", random.nextInt(1000), random.nextInt(1000), random.nextInt(1000), random.nextInt(100));
+                String telefone = String.format("(%02d) 9%04d-%04d", 11 + random.nextInt(89), random.nextInt(10_000), random.nextInt(10_000));
+                lote.adicionar(nome, sorteia(CARGOS), salario, inicio.toString(), cpf, telefone,
+                    "Zona Rural, Km " + (1 + random.nextInt(80)), timestamp(inicio), timestamp(inicio));
+                funcionarios.add(new String[] { nome, String.valueOf(salario), inicio.toString() });
+            }
+        }
+        return funcionarios;
+    }
+
+    /**
+     * Patrimônio com aquisições no financeiro e manutenções periódicas
+     * (mão de obra no financeiro e peças consumidas do estoque como atividade interna).
+     * Retorna os nomes dos ativos.
+     */
+    private List<String> gerarPatrimonio(Connection conn, List<InsumoGerado> insumos) throws SQLException {
+        List<String> nomes = new ArrayList<>();
+        try (Lote patrimonio = new Lote(conn, "patrimonio",
+                "INSERT INTO patrimonio (nome, tipo, data_aquisicao, valor_aquisicao, status, data_criacao, data_modificacao) VALUES (?, ?, ?, ?, ?, ?, ?)");
+             Lote manutencoes = new Lote(conn, "manutencao_patrimonio",
+                "INSERT INTO manutencao_patrimonio (patrimonio_id, data, descricao, custo, data_hora_criacao) VALUES (?, ?, ?, ?, ?)");
+             Lote atividades = loteAtividades(conn);
+             Lote financeiro = new Lote(conn, "financeiro",
+                "INSERT INTO financeiro (descricao, valor, data, tipo, data_hora_criacao, data_modificacao) VALUES (?, ?, ?, ?, ?, ?)")) {
+
+            for (int i = 1; i <= config.patrimonios; i++) {
+                String tipo = sorteia(TIPOS_PATRIMONIO);
+                String nome = tipo + " " + String.format("%03d", i);
+                LocalDate aquisicao = inicioPeriodo().plusDays(random.nextInt(365 * config.anos));
+                double valor = arredondar(50_000 + random.nextInt(900_000));
+                patrimonio.adicionar(nome, tipo, aquisicao.toString(), valor, sorteia(STATUS_PATRIMONIO), timestamp(aquisicao), timestamp(aquisicao));
+                financeiro.adicionar("Aquisição Ativo: " + nome, -valor, aquisicao.toString(), "despesa", timestamp(aquisicao), null);
+                nomes.add(nome);
+
+                // Duas manutenções por ano, em média, desde a aquisição
+                for (LocalDate data = aquisicao.plusDays(90 + random.nextInt(180)); data.isBefore(config.dataReferencia);
+                        data = data.plusDays(90 + random.nextInt(270))) {
+                    String servico = sorteia(SERVICOS_MANUTENCAO);
+                    double maoDeObra = arredondar(150 + random.nextInt(3_000));
+                    InsumoGerado peca = insumos.get(12 + random.nextInt(4)); // Diesel, óleo, filtro, graxa
+                    double qtdPeca = 1 + random.nextInt(20);
+                    double custoPeca = arredondar(qtdPeca * peca.valorUnitario);
+
+                    manutencoes.adicionar(i, data.toString(), servico, arredondar(maoDeObra + custoPeca), timestamp(data));
+                    atividades.adicionar(null, "Manutenção (" + nome + "): " + servico, data.toString(), peca.id, qtdPeca, custoPeca, timestamp(data));
+                    String empresa = sorteia(EMPRESAS);
+                    financeiro.adicionar("Manutenção (Mão de Obra): " + nome + " (" + servico + ") (Empresa: " + empresa + ")",
+                        -maoDeObra, data.toString(), "despesa", timestamp(data), null);
+                }
+            }
+        }
+        return nomes;
+    }
+
+    /**
+     * Atividades das safras: a maioria consome insumo do estoque (custo = quantidade x custo médio);
+     * as demais são custos manuais que também geram despesa "Custo Safra (...)".
+     */
+    private void gerarAtividades(Connection conn, List<SafraGerada> safras, List<InsumoGerado> insumos, Lote financeiro) throws SQLException {
+        int restantes = Math.max(0, config.atividades - resumo.getLinhas("atividades_safra"));
+        try (Lote atividades = loteAtividades(conn)) {
+            for (int i = 0; i < restantes; i++) {
+                SafraGerada safra = safras.get(random.nextInt(safras.size()));
+                LocalDate fim = safra.colheita != null ? safra.colheita : config.dataReferencia;
+                long dias = Math.max(1, fim.toEpochDay() - safra.inicio.toEpochDay());
+                LocalDate data = safra.inicio.plusDays(random.nextInt((int) dias));
+                if (data.isAfter(config.dataReferencia)) {
+                    data = config.dataReferencia;
+                }
+
+                if (random.nextInt(5) > 0) {
+                    InsumoGerado insumo = insumos.get(random.nextInt(12));
+                    double quantidade = arredondar(1 + random.nextDouble() * 500);
+                    atividades.adicionar(safra.id, sorteia(ATIVIDADES), data.toString(), insumo.id, quantidade,
+                        arredondar(quantidade * insumo.valorUnitario), timestamp(data));
+                } else {
+                    String descricao = sorteia(CUSTOS_MANUAIS);
+                    double custo = arredondar(100 + random.nextInt(15_000));
+                    atividades.adicionar(safra.id, descricao, data.toString(), null, 0.0, custo, timestamp(data));
+                    financeiro.adicionar("Custo Safra (" + safra.cultura + "): " + descricao, -custo, data.toString(), "despesa", timestamp(data), null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Salário mensal de cada funcionário desde a admissão e, ocasionalmente, pagamentos avulsos.
+     * Com funcionario_id: o banco está vazio, então o id é a posição na lista (1, 2, ...).
+     */
+    private void gerarPagamentosFuncionarios(Connection conn, List<String[]> funcionarios) throws SQLException {
+        try (Lote financeiro = new Lote(conn, "financeiro",
+                "INSERT INTO financeiro (descricao, valor, data, tipo, data_hora_criacao, data_modificacao, funcionario_id) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < funcionarios.size(); i++) {
+                String[] f = funcionarios.get(i);
+                int funcionarioId = i + 1;
+                String nome = f[0];
+                double salario = Double.parseDouble(f[1]);
+                for (LocalDate data = LocalDate.parse(f[2]).plusMonths(1).withDayOfMonth(5); data.isBefore(config.dataReferencia); data = data.plusMonths(1)) {
+                    financeiro.adicionar("Pagamento de salário: " + nome, -salario, data.toString(), "despesa", timestamp(data), null, funcionarioId);
+                    if (random.nextInt(12) == 0) {
+                        String motivo = random.nextBoolean() ? "Bônus de colheita" : "Hora extra";
+                        financeiro.adicionar("Pgto. Funcionário (" + nome + "): " + motivo, -arredondar(200 + random.nextInt(1_500)),
+                            data.plusDays(10).toString(), "despesa", timestamp(data.plusDays(10)), null, funcionarioId);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Uma linha da folha por salário gerado: competência = mês do pagamento (padrão da tela de
+     * folha), extras = pagamentos avulsos do funcionário no mesmo mês, transacao_id = salário.
+     * Feito depois dos lotes do financeiro, porque os ids dos lançamentos só existem no banco.
+     */
+    private void gerarFolhaPagamento(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("INSERT INTO folha_pagamento "
+                + "(competencia, funcionario_id, data_pagamento, valor_salario, valor_extras, transacao_id, data_criacao) "
+                + "SELECT substr(s.data, 1, 7), s.funcionario_id, s.data, -s.valor, "
+                + "COALESCE((SELECT -SUM(e.valor) FROM financeiro e WHERE e.funcionario_id = s.funcionario_id "
+                + "AND e.data >= substr(s.data, 1, 7) || '-01' AND e.data < substr(s.data, 1, 7) || '-32' "
+                + "AND e.descricao LIKE 'Pgto. Funcionário (%'), 0), s.id, s.data_hora_criacao "
+                + "FROM financeiro s WHERE s.funcionario_id IS NOT NULL AND s.descricao LIKE 'Pagamento de salário: %' "
+                + "ORDER BY s.data, s.id");
+            // Contado na tabela: o retorno do executeUpdate inclui as gravações internas do AUTOINCREMENT
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM folha_pagamento")) {
+                resumo.somar("folha_pagamento", rs.next() ? rs.getInt(1) : 0);
+            }
+        }
+    }
+
+    /**
+     * Contas a pagar (compras a prazo) e a receber (vendas de colheita a prazo).
+     * Vencimentos de 30 a 120 dias após a emissão; contas vencidas estão, em sua maioria,
+     * liquidadas (com o lançamento "Liquidação: ..." no financeiro) e o restante fica pendente.
+     */
+    private void gerarContas(Connection conn, List<InsumoGerado> insumos, Lote financeiro) throws SQLException {
+        int[] prazos = { 30, 30, 45, 60, 60, 90, 120 };
+        try (Lote contas = new Lote(conn, "contas",
+                "INSERT INTO contas (descricao, valor, data_vencimento, tipo, status, fornecedor_nome, fornecedor_empresa, data_criacao) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < config.contas; i++) {
+                boolean receber = !safrasColhidas.isEmpty() && random.nextInt(10) < 4;
+                LocalDate emissao;
+                String descricao;
+                double valor;
+                if (receber) {
+                    SafraGerada safra = safrasColhidas.get(random.nextInt(safrasColhidas.size()));
+                    emissao = safra.colheita.plusDays(random.nextInt(120));
+                    descricao = "Venda de " + nomeItemColheita(safra);
+                    valor = arredondar((10 + random.nextInt(400)) * (100 + random.nextInt(60)));
+                } else {
+                    InsumoGerado insumo = insumos.get(random.nextInt(insumos.size()));
+                    emissao = inicioPeriodo().plusDays(random.nextInt(365 * config.anos));
+                    descricao = "Compra (a prazo): " + insumo.nome;
+                    valor = arredondar((10 + random.nextInt(2_000)) * insumo.valorUnitario);
+                }
+                if (emissao.isAfter(config.dataReferencia)) {
+                    emissao = config.dataReferencia;
+                }
+                LocalDate vencimento = emissao.plusDays(prazos[random.nextInt(prazos.length)]);
+                boolean paga = vencimento.isBefore(config.dataReferencia) && random.nextInt(100) < 93;
+                String fornecedor = nomePessoa();
+                String empresa = sorteia(EMPRESAS);
+
+                contas.adicionar(descricao, valor, vencimento.toString(), receber ? "receber" : "pagar",
+                    paga ? "pago" : "pendente", fornecedor, empresa, timestamp(emissao));
+
+                if (paga) {
+                    LocalDate pagamento = vencimento.plusDays(random.nextInt(7) - 3);
+                    if (pagamento.isAfter(config.dataReferencia)) {
+                        pagamento = config.dataReferencia;
+                    }
+                    financeiro.adicionar("Liquidação: " + descricao + " (Fornec: " + fornecedor + ")",
+                        receber ? valor : -valor, pagamento.toString(), receber ? "receita" : "despesa", timestamp(pagamento), null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Completa o financeiro até o volume pedido com compras à vista de insumos
+     * e vendas à vista das colheitas.
+     */
+    private void gerarComprasEVendas(List<InsumoGerado> insumos, Lote financeiro) throws SQLException {
+        int restantes = config.financeiro - financeiro.getTotal();
+        for (int i = 0; i < restantes; i++) {
+            boolean venda = !safrasColhidas.isEmpty() && random.nextInt(100) < 35;
+            if (venda) {
+                SafraGerada safra = safrasColhidas.get(random.nextInt(safrasColhidas.size()));
+                LocalDate data = safra.colheita.plusDays(random.nextInt(180));
+                if (data.isAfter(config.dataReferencia)) {
+                    data = config.dataReferencia;
+                }
+                double valor = arredondar((10 + random.nextInt(500)) * (100 + random.nextInt(60)));
+                String descricao = "Venda de " + nomeItemColheita(safra);
+                if (random.nextBoolean()) {
+                    descricao += " (Fornec: " + nomePessoa() + ")";
+                }
+                financeiro.adicionar(descricao, valor, data.toString(), "receita", timestamp(data), null);
+            } else {
+                InsumoGerado insumo = insumos.get(random.nextInt(insumos.size()));
+                LocalDate data = inicioPeriodo().plusDays(random.nextInt(365 * config.anos));
+                if (data.isAfter(config.dataReferencia)) {
+                    data = config.dataReferencia;
+                }
+                double valor = arredondar((1 + random.nextInt(1_000)) * insumo.valorUnitario);
+                financeiro.adicionar("Compra (à vista): " + insumo.nome, -valor, data.toString(), "despesa", timestamp(data), null);
+            }
+        }
+    }
+
+    /**
+     * Sacos ainda em estoque das colheitas dos dois últimos anos ("Soja (Colheita 2024/1)").
+     */
+    private void gerarEstoqueColheita(Connection conn) throws SQLException {
+        Map<String, double[]> porItem = new TreeMap<>();
+        int anoMinimo = config.dataReferencia.getYear() - 1;
+        for (SafraGerada safra : safrasColhidas) {
+            if (safra.colheita.getYear() >= anoMinimo) {
+                double sacos = safra.producaoKg / 60.0 * (0.1 + random.nextDouble() * 0.5);
+                double valorSaco = 100 + random.nextInt(60);
+                double[] acumulado = porItem.computeIfAbsent(nomeItemColheita(safra), k -> new double[2]);
+                acumulado[0] += sacos;
+                acumulado[1] += sacos * valorSaco;
+            }
+        }
+
+        try (Lote lote = new Lote(conn, "estoque",
+                "INSERT INTO estoque (item_nome, quantidade, unidade, valor_unitario, valor_total, data_criacao, data_modificacao) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            String agora = timestamp(config.dataReferencia);
+            for (Map.Entry<String, double[]> item : porItem.entrySet()) {
+                double quantidade = arredondar(item.getValue()[0]);
+                double total = arredondar(item.getValue()[1]);
+                lote.adicionar(item.getKey(), quantidade, "sacos", arredondar(total / quantidade), total, agora, agora);
+            }
+        }
+    }
+
+    // --- Helpers ---
+
+    private Lote loteAtividades(Connection conn) throws SQLException {
+        return new Lote(conn, "atividades_safra",
+            "INSERT INTO atividades_safra (safra_id, descricao, data, item_consumido_id, quantidade_consumida, custo_total_atividade, data_hora_criacao) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)");
+    }
+
+    private void verificarBancoVazio(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT (SELECT COUNT(*) FROM talhoes) + (SELECT COUNT(*) FROM financeiro) + (SELECT COUNT(*) FROM estoque)")) {
+            if (rs.next() && rs.getInt(1) > 0) {
+                throw new IllegalStateException("O gerador precisa de um banco vazio: " + Database.getDbPath());
+            }
+        }
+    }
+
+    private static String nomeItemColheita(SafraGerada safra) {
+        return safra.cultura + " (Colheita " + safra.ano + ")";
+    }
+
+    private LocalDate inicioPeriodo() {
+        return LocalDate.of(config.dataReferencia.getYear() - config.anos + 1, 1, 1);
+    }
+
+    private String timestamp(LocalDate data) {
+        return String.format("%s %02d:%02d:%02d", data, 6 + random.nextInt(13), random.nextInt(60), random.nextInt(60));
+    }
+
+    private String nomePessoa() {
+        return sorteia(NOMES) + " " + sorteia(SOBRENOMES);
+    }
+
+    private String sorteia(String[] opcoes) {
+        return opcoes[random.nextInt(opcoes.length)];
+    }
+
+    private static double arredondar(double valor) {
+        return Math.round(valor * 100.0) / 100.0;
+    }
+
+    /**
+     * PreparedStatement com envio em lotes de TAMANHO_LOTE linhas.
+     */
+    private final class Lote implements AutoCloseable {
+        private final PreparedStatement pstmt;
+        private final String tabela;
+        private int pendentes = 0;
+        private int total = 0;
+
+        Lote(Connection conn, String tabela, String sql) throws SQLException {
+            this.pstmt = conn.prepareStatement(sql);
+            this.tabela = tabela;
+        }
+
+        void adicionar(Object... valores) throws SQLException {
+            for (int i = 0; i < valores.length; i++) {
+                pstmt.setObject(i + 1, valores[i]);
+            }
+            pstmt.addBatch();
+            total++;
+            if (++pendentes == TAMANHO_LOTE) {
+                pstmt.executeBatch();
+                pendentes = 0;
+            }
+        }
+
+        int getTotal() {
+            return total + resumo.getLinhas(tabela);
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                if (pendentes > 0) {
+                    pstmt.executeBatch();
+                }
+                resumo.somar(tabela, total);
+            } finally {
+                pstmt.close();
+            }
+        }
+    }
+
+    /**
+     * Gera um banco pela linha de comando.
+     * Opções: --db caminho, --financeiro N, --seed S, --anos A, --data AAAA-MM-DD.
+     */
+    public static void main(String[] args) throws SQLException {
+        String caminho = null;
+        int financeiro = 100_000;
+        Long semente = null;
+        Integer anos = null;
+        LocalDate data = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--db": caminho = args[i + 1]; break;
+                case "--financeiro": financeiro = Integer.parseInt(args[i + 1]); break;
+                case "--seed": semente = Long.parseLong(args[i + 1]); break;
+                case "--anos": anos = Integer.parseInt(args[i + 1]); break;
+                case "--data": data = LocalDate.parse(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Opção desconhecida: " + args[i]);
+            }
+        }
+        if (caminho == null) {
+            System.err.println("Uso: FarmDataGenerator --db <arquivo.db> [--financeiro N] [--seed S] [--anos A] [--data AAAA-MM-DD]");
+            System.exit(2);
+        }
+
+        Config config = Config.paraEscala(financeiro);
+        if (semente != null) {
+            config.semente = semente;
+        }
+        if (anos != null) {
+            config.anos = anos;
+        }
+        if (data != null) {
+            config.dataReferencia = data;
+        }
+
+        Database.setDbPath(caminho);
+        long inicio = System.nanoTime();
+        Resumo resumo = new FarmDataGenerator(config).gerar();
+        System.out.printf("Banco gerado em %s (%.1f s): %s%n", Database.getDbPath(), (System.nanoTime() - inicio) / 1e9, resumo);
+    }
+}
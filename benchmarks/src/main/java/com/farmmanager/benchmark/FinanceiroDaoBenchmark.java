@@ -0,0 +1,72 @@
+package com.farmmanager.benchmark;
+
+import com.farmmanager.model.FinanceiroDAO;
+import com.farmmanager.model.Funcionario;
+import com.farmmanager.model.FuncionarioDAO;
+import com.farmmanager.model.Transacao;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Leituras do FinanceiroDAO usadas pela tela Financeiro e pelo histórico de safras.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Dfarmmanager.db.metrics=false" })
+@State(Scope.Benchmark)
+public class FinanceiroDaoBenchmark {
+
+    private final FinanceiroDAO financeiroDAO = new FinanceiroDAO();
+    private final String vendaSafra = "Venda de Soja (Colheita " + (LocalDate.now().getYear() - 5) + "/1)";
+
+    /**
+     * Funcionário cujo histórico de pagamentos é consultado (o primeiro do banco gerado).
+     */
+    @State(Scope.Benchmark)
+    public static class FuncionarioAlvo {
+        Funcionario funcionario;
+
+        @Setup(Level.Trial)
+        public void preparar(BenchmarkDatabase db) throws SQLException {
+            funcionario = new FuncionarioDAO().listFuncionarios().get(0);
+        }
+    }
+
+    @Benchmark
+    public List<Transacao> listTransacoes(BenchmarkDatabase db) throws SQLException {
+        return financeiroDAO.listTransacoes();
+    }
+
+    @Benchmark
+    public List<Transacao> listTransacoesPorDescricaoLike(BenchmarkDatabase db) throws SQLException {
+        // Mesmo padrão de consulta da receita de uma safra colhida
+        return financeiroDAO.listTransacoesPorDescricaoLike(vendaSafra);
+    }
+
+    @Benchmark
+    public List<Transacao> pagamentosFuncionarioPorNome(BenchmarkDatabase db, FuncionarioAlvo alvo) throws SQLException {
+        // Busca antiga do histórico do funcionário: LIKE '%nome%' em todo o livro-caixa
+        return financeiroDAO.listTransacoesPorDescricaoContendo(alvo.funcionario.getNome());
+    }
+
+    @Benchmark
+    public List<Transacao> pagamentosFuncionarioPorId(BenchmarkDatabase db, FuncionarioAlvo alvo) throws SQLException {
+        // Primeira página do histórico pelo índice (funcionario_id, data)
+        return financeiroDAO.listPagamentosFuncionario(alvo.funcionario.getId(), 100, 0);
+    }
+}
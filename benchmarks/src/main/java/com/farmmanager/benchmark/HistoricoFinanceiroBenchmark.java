@@ -0,0 +1,72 @@
+package com.farmmanager.benchmark;
+
+import com.farmmanager.model.CalculoFinanceiroSafras;
+import com.farmmanager.model.SafraDAO;
+import com.farmmanager.model.SafraHistoricoInfo;
+import com.farmmanager.model.SafraInfo;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Financeiro das safras colhidas (tela Histórico de Safras): caminho sequencial
+ * contra o fork/join do CalculoFinanceiroSafras com diferentes paralelismos.
+ *
+ * Ex: java -jar benchmarks.jar HistoricoFinanceiro -p linhas=100000 -p paralelismo=1,4
+ * (paralelismo=1 mede o caminho sequencial).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Dfarmmanager.db.metrics=false", "-Dfarmmanager.db.leitura.conexoes=8" })
+@State(Scope.Benchmark)
+public class HistoricoFinanceiroBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Pool {
+
+        @Param({ "1", "2", "4", "8" })
+        public int paralelismo;
+
+        ForkJoinPool forkJoin;
+        List<SafraInfo> safras;
+
+        @Setup(Level.Trial)
+        public void preparar(BenchmarkDatabase db) throws SQLException {
+            safras = new SafraDAO().listSafrasComInfo();
+            forkJoin = paralelismo > 1 ? new ForkJoinPool(paralelismo) : null;
+        }
+
+        @TearDown(Level.Trial)
+        public void encerrar() {
+            if (forkJoin != null) {
+                forkJoin.shutdown();
+            }
+        }
+    }
+
+    private final CalculoFinanceiroSafras calculo = new CalculoFinanceiroSafras();
+
+    @Benchmark
+    public List<SafraHistoricoInfo> calcularFinanceiro(Pool pool) throws SQLException {
+        if (pool.forkJoin == null) {
+            return calculo.calcularSequencial(pool.safras);
+        }
+        return calculo.calcularParalelo(pool.safras, pool.forkJoin);
+    }
+}
@@ -0,0 +1,35 @@
+package com.farmmanager.benchmark;
+
+import com.farmmanager.model.SafraDAO;
+import com.farmmanager.model.SafraInfo;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lista de safras com dados do talhão (telas Safras e Histórico de Safras).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Dfarmmanager.db.metrics=false" })
+@State(Scope.Benchmark)
+public class SafraDaoBenchmark {
+
+    private final SafraDAO safraDAO = new SafraDAO();
+
+    @Benchmark
+    public List<SafraInfo> listSafrasComInfo(BenchmarkDatabase db) throws SQLException {
+        return safraDAO.listSafrasComInfo();
+    }
+}
@@ -0,0 +1,89 @@
+package com.farmmanager.benchmark;
+
+import com.farmmanager.model.EstoqueItem;
+import com.farmmanager.util.SearchIndex;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Autocompletar dos seletores de insumo: SearchIndex (trigramas + prefixos) contra o filtro
+ * linear que os diálogos fariam sobre a lista inteira (contains em nome e fornecedor).
+ * Não usa banco: os itens são gerados em memória.
+ *
+ * Ex: java -jar benchmarks.jar SearchIndex -p itens=50000 -p consulta=ure,npk,agrosul
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchIndexBenchmark {
+
+    private static final int LIMITE = 50;
+
+    private static final String[] PRODUTOS = { "Ureia", "Adubo NPK", "Glifosato", "Semente Soja", "Semente Milho",
+        "Óleo Diesel", "Calcário", "Fungicida", "Inseticida", "Herbicida", "Cloreto de Potássio", "Superfosfato" };
+    private static final String[] FORNECEDORES = { "AgroSul Insumos", "Cooperativa Central", "Terra Forte Ltda",
+        "Campo Verde Comércio", "Sementes Paraná", "Distribuidora Oeste" };
+
+    @Param({ "1000", "10000", "50000" })
+    public int itens;
+
+    @Param({ "u", "ure", "npk 10", "agrosul", "xyz" })
+    public String consulta;
+
+    private List<EstoqueItem> estoque;
+    private SearchIndex<EstoqueItem> indice;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        Random random = new Random(42);
+        estoque = new ArrayList<>(itens);
+        for (int i = 1; i <= itens; i++) {
+            String nome = String.format(Locale.ROOT, "%s %02d-%02d lote %d",
+                PRODUTOS[random.nextInt(PRODUTOS.length)], random.nextInt(40), random.nextInt(40), i);
+            String fornecedor = FORNECEDORES[random.nextInt(FORNECEDORES.length)];
+            estoque.add(new EstoqueItem(i, nome, 100, "kg", 2.5, 250, "Vendedor " + (i % 97), fornecedor, null, null));
+        }
+        indice = new SearchIndex<>(EstoqueItem::getId, List.of(EstoqueItem::getItemNome,
+            EstoqueItem::getFornecedorNome, EstoqueItem::getFornecedorEmpresa));
+        indice.sincronizar(estoque);
+    }
+
+    @Benchmark
+    public List<EstoqueItem> indice() {
+        return indice.buscar(consulta, LIMITE);
+    }
+
+    @Benchmark
+    public List<EstoqueItem> filtroLinear() {
+        String termo = SearchIndex.normalizar(consulta);
+        List<EstoqueItem> encontrados = new ArrayList<>();
+        for (EstoqueItem item : estoque) {
+            if (SearchIndex.normalizar(item.getItemNome()).contains(termo)
+                    || SearchIndex.normalizar(item.getFornecedorEmpresa()).contains(termo)) {
+                encontrados.add(item);
+                if (encontrados.size() == LIMITE) {
+                    break;
+                }
+            }
+        }
+        return encontrados;
+    }
+}
@@ -0,0 +1,299 @@
+package com.farmmanager.benchmark;
+
+import com.farmmanager.model.Database;
+import com.farmmanager.util.BackgroundTasks;
+import javafx.application.Platform;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.layout.StackPane;
+import javafx.stage.Stage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Harness headless de time-to-interactive (TTI) das telas FXML.
+ *
+ * Sobe o toolkit JavaFX com o Monocle (sem janela real), gera um banco sintético
+ * com o FarmDataGenerator e carrega cada tela pelo mesmo caminho do
+ * MainViewController.loadView (FXMLLoader + controller), medindo por execução:
+ * - parse: construção do grafo de nós do FXML sem controller (fx:controller e handlers removidos);
+ * - init: carga real menos o parse (instanciação do controller, injeção @FXML e initialize());
+ * - tasks: espera pelas Tasks de carregamento (BackgroundTasks) e seus handlers na thread de UI;
+ * - layout: primeiro passe de CSS + layout com os dados já na tela;
+ * - tti: do início da carga ao fim do layout.
+ *
+ * Gera target/tti-report.csv com mediana e p90 por tela/fase e, com --baseline,
+ * compara a mediana do TTI com um relatório anterior (sai com código 1 se houver regressão).
+ *
+ * Uso:
+ *   java -cp benchmarks.jar com.farmmanager.benchmark.ViewTtiHarness [--financeiro 100000] [--execucoes 5]
+ *        [--aquecimento 2] [--baseline tti-anterior.csv] [--tolerancia 20] [--saida target/tti-report.csv]
+ */
+public final class ViewTtiHarness {
+
+    // Mesmas telas do menu lateral do MainView
+    private static final String[] TELAS = { "DashboardView.fxml", "ContasView.fxml", "FinanceiroView.fxml", "EstoqueView.fxml",
+        "PatrimonioView.fxml", "FuncionariosView.fxml", "SafrasView.fxml", "HistoricoSafrasView.fxml",
+        "DiagnosticoView.fxml" };
+    private static final String[] FASES = { "parse", "init", "tasks", "layout", "tti" };
+    private static final long TIMEOUT_TASKS_S = 120;
+
+    private final StackPane contentArea = new StackPane();
+
+    private ViewTtiHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        configurarMonocle();
+
+        Map<String, String> opcoes = lerOpcoes(args);
+        int financeiro = Integer.parseInt(opcoes.getOrDefault("--financeiro", "100000"));
+        int execucoes = Integer.parseInt(opcoes.getOrDefault("--execucoes", "5"));
+        int aquecimento = Integer.parseInt(opcoes.getOrDefault("--aquecimento", "2"));
+        double tolerancia = Double.parseDouble(opcoes.getOrDefault("--tolerancia", "20"));
+        Path saida = Paths.get(opcoes.getOrDefault("--saida", "target/tti-report.csv"));
+
+        Path banco = Files.createTempFile("farmmanager-tti-", ".db");
+        Files.delete(banco);
+        Database.setDbPath(banco.toString());
+        System.out.println("Gerando banco sintético (" + financeiro + " lançamentos)...");
+        System.out.println(new FarmDataGenerator(FarmDataGenerator.Config.paraEscala(financeiro)).gerar());
+
+        CountDownLatch iniciado = new CountDownLatch(1);
+        Platform.startup(iniciado::countDown);
+        iniciado.await();
+
+        ViewTtiHarness harness = new ViewTtiHarness();
+        harness.naThreadFx(harness::criarJanela);
+
+        Map<String, Map<String, List<Double>>> resultados = new LinkedHashMap<>();
+        for (String tela : TELAS) {
+            for (int i = 0; i < aquecimento; i++) {
+                harness.medir(tela);
+            }
+            Map<String, List<Double>> porFase = new LinkedHashMap<>();
+            for (String fase : FASES) {
+                porFase.put(fase, new ArrayList<>());
+            }
+            for (int i = 0; i < execucoes; i++) {
+                Map<String, Double> medicao = harness.medir(tela);
+                medicao.forEach((fase, ms) -> porFase.get(fase).add(ms));
+            }
+            resultados.put(tela, porFase);
+        }
+
+        Files.createDirectories(saida.toAbsolutePath().getParent());
+        gravarRelatorio(resultados, saida);
+        imprimirRelatorio(resultados);
+
+        boolean regressao = false;
+        if (opcoes.containsKey("--baseline")) {
+            regressao = compararComBaseline(resultados, Paths.get(opcoes.get("--baseline")), tolerancia);
+        }
+
+        Platform.exit();
+        Files.deleteIfExists(banco);
+        Files.deleteIfExists(Paths.get(banco + "-wal"));
+        Files.deleteIfExists(Paths.get(banco + "-shm"));
+        System.exit(regressao ? 1 : 0);
+    }
+
+    /**
+     * Precisa rodar antes de qualquer classe do toolkit ser inicializada.
+     */
+    private static void configurarMonocle() {
+        System.setProperty("glass.platform", "Monocle");
+        System.setProperty("monocle.platform", "Headless");
+        System.setProperty("prism.order", "sw");
+        System.setProperty("prism.text", "t2k");
+        System.setProperty("java.awt.headless", "true");
+    }
+
+    private void criarJanela() {
+        Scene scene = new Scene(contentArea, 1366, 768);
+        URL css = getClass().getResource("/com/farmmanager/styles.css");
+        if (css != null) {
+            scene.getStylesheets().add(css.toExternalForm());
+        }
+        Stage stage = new Stage();
+        stage.setScene(scene);
+        stage.show();
+    }
+
+    /**
+     * Uma carga completa da tela; retorna os milissegundos de cada fase.
+     */
+    private Map<String, Double> medir(String tela) throws Exception {
+        URL url = getClass().getResource("/com/farmmanager/" + tela);
+        if (url == null) {
+            throw new IOException("FXML não encontrado: " + tela);
+        }
+        byte[] fxmlSemController = removerController(url);
+        long[] t = new long[6];
+
+        // 1. Parse puro (sem controller)
+        naThreadFx(() -> {
+            long inicio = System.nanoTime();
+            FXMLLoader loader = new FXMLLoader();
+            loader.setLocation(url);
+            loader.load(new ByteArrayInputStream(fxmlSemController));
+            t[0] = System.nanoTime() - inicio;
+        });
+
+        // 2. Carga real, como no MainViewController.loadView
+        naThreadFx(() -> {
+            contentArea.getChildren().clear();
+            t[1] = System.nanoTime();
+            FXMLLoader loader = new FXMLLoader(url);
+            Node view = loader.load();
+            contentArea.getChildren().add(view);
+            t[2] = System.nanoTime();
+        });
+
+        // 3. Tasks de carregamento e seus handlers (que podem disparar novas Tasks)
+        do {
+            if (!BackgroundTasks.aguardarOcioso(TIMEOUT_TASKS_S, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Tasks de " + tela + " não terminaram em " + TIMEOUT_TASKS_S + " s");
+            }
+            naThreadFx(() -> { });
+        } while (BackgroundTasks.getEmAndamento() > 0);
+        t[3] = System.nanoTime();
+
+        // 4. Primeiro layout com os dados
+        naThreadFx(() -> {
+            t[4] = System.nanoTime();
+            contentArea.getScene().getRoot().applyCss();
+            contentArea.getScene().getRoot().layout();
+            t[5] = System.nanoTime();
+        });
+
+        Map<String, Double> ms = new LinkedHashMap<>();
+        double parse = t[0] / 1e6;
+        double carga = (t[2] - t[1]) / 1e6;
+        ms.put("parse", parse);
+        ms.put("init", Math.max(0, carga - parse));
+        ms.put("tasks", (t[3] - t[2]) / 1e6);
+        ms.put("layout", (t[5] - t[4]) / 1e6);
+        ms.put("tti", (t[5] - t[1]) / 1e6);
+        return ms;
+    }
+
+    /**
+     * Remove fx:controller e os handlers "#metodo" para medir só a construção dos nós.
+     */
+    private static byte[] removerController(URL url) throws IOException {
+        String fxml;
+        try (InputStream in = url.openStream()) {
+            fxml = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        fxml = fxml.replaceAll("\\s+fx:controller=\"[^\"]*\"", "")
+                   .replaceAll("\\s+on[A-Z][A-Za-z]*=\"#[^\"]*\"", "");
+        return fxml.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private interface AcaoFx {
+        void executar() throws Exception;
+    }
+
+    /**
+     * Executa na JavaFX Application Thread e espera terminar, repassando exceções.
+     */
+    private void naThreadFx(AcaoFx acao) throws Exception {
+        CountDownLatch fim = new CountDownLatch(1);
+        AtomicReference<Exception> erro = new AtomicReference<>();
+        Platform.runLater(() -> {
+            try {
+                acao.executar();
+            } catch (Exception e) {
+                erro.set(e);
+            } finally {
+                fim.countDown();
+            }
+        });
+        fim.await();
+        if (erro.get() != null) {
+            throw erro.get();
+        }
+    }
+
+    // --- Relatório ---
+
+    private static double percentil(List<Double> valores, double p) {
+        List<Double> ordenados = new ArrayList<>(valores);
+        Collections.sort(ordenados);
+        int indice = (int) Math.ceil(p / 100.0 * ordenados.size()) - 1;
+        return ordenados.get(Math.max(0, Math.min(indice, ordenados.size() - 1)));
+    }
+
+    private static void gravarRelatorio(Map<String, Map<String, List<Double>>> resultados, Path saida) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(saida, StandardCharsets.UTF_8))) {
+            out.println("tela;fase;mediana_ms;p90_ms");
+            resultados.forEach((tela, fases) -> fases.forEach((fase, valores) ->
+                out.println(String.format(Locale.US, "%s;%s;%.2f;%.2f", tela, fase, percentil(valores, 50), percentil(valores, 90)))));
+        }
+        System.out.println("Relatório gravado em " + saida.toAbsolutePath());
+    }
+
+    private static void imprimirRelatorio(Map<String, Map<String, List<Double>>> resultados) {
+        System.out.printf("%n%-26s %10s %10s %10s %10s %10s%n", "Tela (mediana, ms)", "parse", "init", "tasks", "layout", "tti");
+        resultados.forEach((tela, fases) -> System.out.printf(Locale.US, "%-26s %10.1f %10.1f %10.1f %10.1f %10.1f%n", tela,
+            percentil(fases.get("parse"), 50), percentil(fases.get("init"), 50), percentil(fases.get("tasks"), 50),
+            percentil(fases.get("layout"), 50), percentil(fases.get("tti"), 50)));
+    }
+
+    /**
+     * Compara a mediana do TTI de cada tela com o relatório de referência.
+     * @return true se alguma tela piorou além da tolerância (%).
+     */
+    private static boolean compararComBaseline(Map<String, Map<String, List<Double>>> resultados, Path baseline, double tolerancia) throws IOException {
+        Map<String, Double> referencia = new LinkedHashMap<>();
+        for (String linha : Files.readAllLines(baseline, StandardCharsets.UTF_8)) {
+            String[] campos = linha.split(";");
+            if (campos.length >= 3 && "tti".equals(campos[1])) {
+                referencia.put(campos[0], Double.parseDouble(campos[2]));
+            }
+        }
+
+        boolean regressao = false;
+        System.out.printf("%nComparação com %s (tolerância %.0f%%)%n", baseline, tolerancia);
+        for (Map.Entry<String, Map<String, List<Double>>> e : resultados.entrySet()) {
+            Double antes = referencia.get(e.getKey());
+            double agora = percentil(e.getValue().get("tti"), 50);
+            if (antes == null || antes <= 0) {
+                System.out.printf(Locale.US, "%-26s %10.1f ms (sem referência)%n", e.getKey(), agora);
+                continue;
+            }
+            double variacao = (agora - antes) / antes * 100.0;
+            boolean piorou = variacao > tolerancia;
+            regressao |= piorou;
+            System.out.printf(Locale.US, "%-26s %10.1f -> %10.1f ms (%+.1f%%)%s%n", e.getKey(), antes, agora, variacao,
+                piorou ? "  REGRESSÃO" : "");
+        }
+        return regressao;
+    }
+
+    private static Map<String, String> lerOpcoes(String[] args) {
+        Map<String, String> opcoes = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            opcoes.put(args[i], args[i + 1]);
+        }
+        return opcoes;
+    }
+}
@@ -9,6 +9,7 @@ import javafx.stage.Stage;
 import javafx.stage.Screen;
 import javafx.geometry.Rectangle2D;
 import com.farmmanager.util.AlertUtil;
+import com.farmmanager.util.FxStallDetector; // NOVO IMPORT
 import javafx.scene.image.Image;
 
 import java.io.IOException;
@@ -22,6 +23,11 @@ import java.net.URL;
  * ATUALIZADO: Armazena a instância do Stage principal (primaryStage)
  * para referência global e permite focar a janela.
  * ATUALIZADO: Chama Database.initDb() DEPOIS da inicialização do JavaFX.
+ * NOVO: Inicia a manutenção automática do banco (DatabaseMaintenance) e a encerra em stop().
+ * NOVO: Inicia o detector de travamentos da thread de UI (FxStallDetector).
+ * NOVO: Em stop(), grava as escritas ainda na fila do DatabaseWriter antes de sair.
+ * NOVO: Em stop(), fecha as conexões ociosas do pool de leitura.
+ * NOVO: Inicia (e encerra em stop()) o cache de dados de referência (ReferenceDataCache).
  */
 public class App extends Application {
 
@@ -52,6 +58,15 @@ public class App extends Application {
         }
         // --- FIM DA ATUALIZAÇÃO ---
 
+        // NOVO: Agenda ANALYZE/VACUUM/verificação de integridade para quando o banco estiver ocioso
+        com.farmmanager.model.DatabaseMaintenance.iniciar();
+
+        // NOVO: Pré-carrega talhões, estoque, funcionários e patrimônio usados pelos diálogos
+        com.farmmanager.model.ReferenceDataCache.iniciar();
+
+        // NOVO: Monitora a JavaFX Application Thread e registra travamentos com o handler responsável
+        FxStallDetector.iniciar();
+
         // Constrói o caminho para o arquivo FXML dentro do pacote de resources
         URL fxmlUrl = getClass().getResource("/com/farmmanager/MainView.fxml");
         if (fxmlUrl == null) {
@@ -98,6 +113,23 @@ public class App extends Application {
         stage.show();
     }
 
+    /**
+     * NOVO: Encerra a thread de manutenção do banco ao fechar a aplicação
+     * e imprime o resumo das métricas JDBC da sessão.
+     * ATUALIZADO: Antes, esvazia a fila de escrita (DatabaseWriter).
+     * CORRIGIDO: O cache de referência para primeiro, porque a verificação dele pode enviar um
+     * lote ao escritor e reiniciá-lo.
+     */
+    @Override
+    public void stop() {
+        com.farmmanager.model.ReferenceDataCache.parar();
+        com.farmmanager.model.DatabaseWriter.parar();
+        com.farmmanager.model.DatabaseMaintenance.parar();
+        com.farmmanager.model.Database.fecharConexoesLeitura();
+        FxStallDetector.parar();
+        System.out.println(com.farmmanager.model.DbMetrics.gerarRelatorio(15));
+    }
+
     /**
      * NOVO: Método de acesso global ao Stage principal.
      * @return O Stage principal da aplicação.
@@ -1,31 +1,45 @@
 package com.farmmanager.controller;
 
+import com.farmmanager.model.ConciliacaoExtratoDAO; // NOVO
 import com.farmmanager.model.Conta;
 import com.farmmanager.model.ContaDAO;
+import com.farmmanager.model.ItemConciliacao; // NOVO
+import com.farmmanager.model.PlanoParcelamento; // NOVO
+import com.farmmanager.model.PlanoParcelamentoDAO; // NOVO
 import com.farmmanager.util.AlertUtil;
+import com.farmmanager.util.AsyncDAO; // NOVO IMPORT
+import com.farmmanager.util.CamposParcelamento; // NOVO
+import com.farmmanager.util.LeitorExtrato; // NOVO
 import javafx.beans.binding.Bindings;
 import javafx.beans.binding.BooleanBinding;
-import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.SimpleBooleanProperty; // NOVO
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.concurrent.Task; // NOVO: Import para Task
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.*;
+import javafx.scene.control.cell.CheckBoxTableCell; // NOVO
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox; // NOVO
 import javafx.scene.layout.VBox; // NOVO: Import para o VBox
 import javafx.scene.paint.Color;
+import javafx.stage.FileChooser; // NOVO
 
+import java.io.File; // NOVO
 import java.sql.SQLException;
 import java.text.NumberFormat;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * NOVO: Controller para a ContasView.fxml (Contas a Pagar/Receber).
@@ -35,6 +49,13 @@ import java.util.Optional;
  * - MELHORIA CRÍTICA: Carregamento de dados (carregarDados)
  * movido para uma Task em background para não congelar a UI.
  * - ATUALIZADO: Adicionados campos de fornecedor.
+ * - ATUALIZADO: Carregamento pelo AsyncDAO, com as consultas em paralelo.
+ * - NOVO: Importação de extrato bancário (OFX/CSV) com prévia da conciliação
+ * (handleImportarExtrato): liquidações e lançamentos confirmados em uma única transação.
+ * - NOVO: Seleção múltipla e liquidação em lote das contas selecionadas, com o
+ * resultado de cada conta e atualização só das linhas afetadas.
+ * - NOVO: Contas parceladas (N parcelas gravadas juntas como um plano) e a tela de
+ * planos de parcelamento, com as parcelas e a quitação de cada plano.
  */
 public class ContasController {
 
@@ -81,31 +102,19 @@ public class ContasController {
     private VBox contentVBox; // Container principal (VBox do FXML)
 
     private final ContaDAO contaDAO;
+    private final ConciliacaoExtratoDAO conciliacaoDAO; // NOVO
+    private final PlanoParcelamentoDAO planoDAO; // NOVO
     private final ObservableList<Conta> dadosTabela;
     private final NumberFormat currencyFormatter;
 
     public ContasController() {
         contaDAO = new ContaDAO();
+        conciliacaoDAO = new ConciliacaoExtratoDAO(); // NOVO
+        planoDAO = new PlanoParcelamentoDAO(); // NOVO
         dadosTabela = FXCollections.observableArrayList();
         currencyFormatter = NumberFormat.getCurrencyInstance(new Locale("pt", "BR"));
     }
 
-    /**
-     * NOVO: Classe interna para agrupar os resultados da Task
-     * (pois precisamos buscar 3 informações do banco).
-     */
-    private static class ContasData {
-        final List<Conta> contas;
-        final double totalPagar;
-        final double totalReceber;
-
-        ContasData(List<Conta> contas, double totalPagar, double totalReceber) {
-            this.contas = contas;
-            this.totalPagar = totalPagar;
-            this.totalReceber = totalReceber;
-        }
-    }
-
     @FXML
     public void initialize() {
         // Configura colunas
@@ -182,21 +191,23 @@ public class ContasController {
         filtroStatus.getSelectionModel().selectedItemProperty().addListener(
             (obs, oldV, newV) -> carregarDados());
 
-        // Desabilita botões se nada estiver selecionado
-        btnRemover.disableProperty().bind(tabelaContas.getSelectionModel().selectedItemProperty().isNull());
-        
-        ReadOnlyObjectProperty<Conta> selectedItem = tabelaContas.getSelectionModel().selectedItemProperty();
+        // ATUALIZADO: Seleção múltipla (liquidação em lote)
+        tabelaContas.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        ObservableList<Conta> selecionadas = tabelaContas.getSelectionModel().getSelectedItems();
 
-        BooleanBinding disableEditAndLiquidarBinding = Bindings.createBooleanBinding(() -> {
-            Conta conta = selectedItem.get();
-            if (conta == null) {
-                return true; 
-            }
-            return !conta.getStatus().equals("pendente"); // Desabilita se não for "pendente"
-        }, selectedItem); 
+        // Remover e editar agem sobre uma única conta
+        btnRemover.disableProperty().bind(Bindings.size(selecionadas).isNotEqualTo(1));
+
+        BooleanBinding disableEditBinding = Bindings.createBooleanBinding(() ->
+            selecionadas.size() != 1 || !selecionadas.get(0).getStatus().equals("pendente"), // Desabilita se não for "pendente"
+            selecionadas);
+        btnEditar.disableProperty().bind(disableEditBinding);
 
-        btnEditar.disableProperty().bind(disableEditAndLiquidarBinding);
-        btnLiquidar.disableProperty().bind(disableEditAndLiquidarBinding);
+        // Liquidar: ao menos uma conta "pendente" entre as selecionadas
+        BooleanBinding disableLiquidarBinding = Bindings.createBooleanBinding(() ->
+            selecionadas.stream().noneMatch(conta -> conta.getStatus().equals("pendente")),
+            selecionadas);
+        btnLiquidar.disableProperty().bind(disableLiquidarBinding);
 
         // Carrega os dados (agora assíncrono)
         carregarDados();
@@ -215,68 +226,48 @@ public class ContasController {
 
     /**
      * ATUALIZADO:
-     * Executa a busca de dados (lista e resumos) em uma Task (background thread).
-     * Atualiza a UI na JavaFX Thread quando a busca termina.
+     * Busca a lista e os dois resumos em paralelo pelo AsyncDAO (cada consulta em sua thread).
+     * Atualiza a UI na JavaFX Thread quando as três terminam.
      */
     private void carregarDados() {
-        // Pega o filtro ANTES de iniciar a thread
+        // Pega o filtro ANTES de iniciar as consultas
         String filtro = filtroStatus.getSelectionModel().getSelectedItem();
         if (filtro == null) filtro = "Pendente";
-        final String filtroFinal = filtro; // 'final' para ser usado na Task
+        final String filtroFinal = filtro; // 'final' para ser usado no lambda
 
-        // 1. Cria a Task
-        Task<ContasData> carregarTask = new Task<ContasData>() {
-            @Override
-            protected ContasData call() throws Exception {
-                // Chamadas de banco de dados (demoradas)
-                List<Conta> lista = contaDAO.listContas(filtroFinal);
-                double totalPagar = contaDAO.getTotalPendente("pagar");
-                double totalReceber = contaDAO.getTotalPendente("receber");
-
-                // Retorna o objeto com todos os dados
-                return new ContasData(lista, totalPagar, totalReceber);
-            }
-        };
+        // 1. Dispara as consultas independentes
+        CompletableFuture<List<Conta>> lista = AsyncDAO.consultar(() -> contaDAO.listContas(filtroFinal));
+        CompletableFuture<Double> totalPagar = AsyncDAO.consultar(() -> contaDAO.getTotalPendente("pagar"));
+        CompletableFuture<Double> totalReceber = AsyncDAO.consultar(() -> contaDAO.getTotalPendente("receber"));
 
-        // 2. Define o que fazer em caso de SUCESSO (na JavaFX Thread)
-        carregarTask.setOnSucceeded(e -> {
-            ContasData data = carregarTask.getValue();
+        // 2. Mostra o loading enquanto as consultas rodam
+        showLoading(true);
 
+        // 3. Atualiza a UI (na JavaFX Thread)
+        AsyncDAO.naFx(AsyncDAO.todos(lista, totalPagar, totalReceber), ok -> {
             // Atualiza a tabela
-            dadosTabela.clear();
-            dadosTabela.addAll(data.contas);
-            
+            dadosTabela.setAll(lista.join());
+
             // Atualiza os resumos
-            lblTotalPagar.setText(currencyFormatter.format(data.totalPagar));
-            lblTotalReceber.setText(currencyFormatter.format(data.totalReceber));
+            lblTotalPagar.setText(currencyFormatter.format(totalPagar.join()));
+            lblTotalReceber.setText(currencyFormatter.format(totalReceber.join()));
 
-            // Esconde o loading
             showLoading(false);
-        });
-
-        // 3. Define o que fazer em caso de FALHA (na JavaFX Thread)
-        carregarTask.setOnFailed(e -> {
+        }, erro -> {
             AlertUtil.showError("Erro de Banco de Dados", "Não foi possível carregar as contas.");
-            carregarTask.getException().printStackTrace();
-            
+            erro.printStackTrace();
+
             // Limpa os dados
             dadosTabela.clear();
             lblTotalPagar.setText("Erro");
             lblTotalReceber.setText("Erro");
-            
-            // Esconde o loading
+
             showLoading(false);
         });
-
-        // 4. Mostra o loading ANTES de iniciar a Task
-        showLoading(true);
-
-        // 5. Inicia a Task em uma nova Thread
-        new Thread(carregarTask).start();
     }
 
     // O método antigo atualizarResumo() não é mais necessário,
-    // pois sua lógica foi movida para dentro da Task carregarDados().
+    // pois sua lógica foi movida para dentro de carregarDados().
 
     @FXML
     private void handleAdicionarPagar() {
@@ -323,6 +314,22 @@ public class ContasController {
         grid.add(new Label("Fornecedor (Empresa):"), 0, 4); // NOVO
         grid.add(fornecedorEmpresaField, 1, 4); // NOVO
 
+        // NOVO: Parcelamento (com mais de uma parcela, o vencimento acima é o da 1ª)
+        CamposParcelamento parcelamento = new CamposParcelamento();
+        parcelamento.adicionarAo(grid, 5);
+        Runnable atualizarParcelas = () -> {
+            double valor;
+            try {
+                valor = Double.parseDouble(valorField.getText().replace(",", "."));
+            } catch (NumberFormatException e) {
+                valor = 0;
+            }
+            parcelamento.atualizarResumo(valor, dataVencimentoPicker.getValue());
+        };
+        valorField.textProperty().addListener((obs, o, n) -> atualizarParcelas.run());
+        dataVencimentoPicker.valueProperty().addListener((obs, o, n) -> atualizarParcelas.run());
+        parcelamento.aoAlterar(atualizarParcelas);
+
         dialog.getDialogPane().setContent(grid);
         AlertUtil.setDialogIcon(dialog); // NOVO: Adiciona o ícone
 
@@ -354,6 +361,14 @@ public class ContasController {
         result.ifPresent(conta -> {
             try {
                 // Operação de escrita (rápida, mantida na FX thread por simplicidade)
+                if (parcelamento.isParcelado()) {
+                    // NOVO: Plano e parcelas gravados juntos
+                    planoDAO.criarPlano(parcelamento.criarPlano(conta.getDescricao(), tipo, conta.getValor(),
+                        LocalDate.parse(conta.getDataVencimento()), conta.getFornecedorNome(), conta.getFornecedorEmpresa()));
+                    carregarDados();
+                    AlertUtil.showInfo("Sucesso", parcelamento.getNumeroParcelas() + " parcelas adicionadas com sucesso.");
+                    return;
+                }
                 contaDAO.addConta(conta);
                 carregarDados(); // Recarrega os dados (agora assíncrono)
                 AlertUtil.showInfo("Sucesso", "Conta adicionada com sucesso.");
@@ -456,18 +471,27 @@ public class ContasController {
         });
     }
 
+    /**
+     * ATUALIZADO: Liquida as contas pendentes selecionadas. Uma conta segue o fluxo
+     * individual; várias são liquidadas em lote (ver liquidarSelecionadas).
+     */
     @FXML
     private void handleLiquidar() {
-        Conta selecionada = tabelaContas.getSelectionModel().getSelectedItem();
-        if (selecionada == null) {
-            AlertUtil.showError("Nenhuma Seleção", "Selecione uma conta para liquidar.");
+        List<Conta> pendentes = new ArrayList<>();
+        for (Conta conta : tabelaContas.getSelectionModel().getSelectedItems()) {
+            if (conta.getStatus().equalsIgnoreCase("pendente")) {
+                pendentes.add(conta);
+            }
+        }
+        if (pendentes.isEmpty()) {
+            AlertUtil.showError("Nenhuma Seleção", "Selecione ao menos uma conta pendente para liquidar.");
             return;
         }
-
-        if (selecionada.getStatus().equalsIgnoreCase("pago")) {
-            AlertUtil.showInfo("Ação Inválida", "Esta conta já foi paga/recebida.");
+        if (pendentes.size() > 1) {
+            liquidarSelecionadas(pendentes);
             return;
         }
+        Conta selecionada = pendentes.get(0);
 
         DatePickerDialog dialog = new DatePickerDialog();
         AlertUtil.setDialogIcon(dialog); // NOVO: Adiciona o ícone
@@ -489,6 +513,138 @@ public class ContasController {
         }
     }
 
+    /**
+     * NOVO: Liquidação em lote, na mesma data, em uma única transação (ContaDAO.liquidarContas).
+     * Roda em segundo plano; ao final só as linhas afetadas são atualizadas na tabela e
+     * o resultado de cada conta é exibido.
+     */
+    private void liquidarSelecionadas(List<Conta> pendentes) {
+        double totalPagar = 0;
+        double totalReceber = 0;
+        List<Integer> ids = new ArrayList<>(pendentes.size());
+        for (Conta conta : pendentes) {
+            ids.add(conta.getId());
+            if (conta.getTipo().equals("pagar")) {
+                totalPagar += conta.getValor();
+            } else {
+                totalReceber += conta.getValor();
+            }
+        }
+
+        DatePickerDialog dialog = new DatePickerDialog();
+        dialog.setHeaderText(pendentes.size() + " contas selecionadas: " + currencyFormatter.format(totalPagar)
+            + " a pagar e " + currencyFormatter.format(totalReceber) + " a receber.\n"
+            + "Quando foram pagas/recebidas?");
+        AlertUtil.setDialogIcon(dialog);
+        Optional<LocalDate> result = dialog.showAndWait();
+        if (!result.isPresent() || result.get() == null) {
+            return;
+        }
+        String dataPagamento = result.get().toString();
+
+        showLoading(true);
+        AsyncDAO.naFx(AsyncDAO.consultar(() -> contaDAO.liquidarContas(ids, dataPagamento)), resultados -> {
+            showLoading(false);
+            aplicarResultadosLiquidacao(resultados);
+            mostrarResultadosLiquidacao(resultados);
+        }, erro -> {
+            showLoading(false);
+            AlertUtil.showError("Erro de Banco de Dados", "Não foi possível liquidar as contas: " + erro.getMessage());
+            erro.printStackTrace();
+        });
+    }
+
+    /**
+     * NOVO: Atualiza só as linhas afetadas pelo lote (sem recarregar a lista) e os totais.
+     */
+    private void aplicarResultadosLiquidacao(List<ContaDAO.ResultadoLiquidacao> resultados) {
+        Map<Integer, ContaDAO.ResultadoLiquidacao> porId = new HashMap<>();
+        for (ContaDAO.ResultadoLiquidacao resultado : resultados) {
+            porId.put(resultado.getContaId(), resultado);
+        }
+        boolean somentePendentes = "Pendente".equals(filtroStatus.getSelectionModel().getSelectedItem());
+
+        tabelaContas.getSelectionModel().clearSelection();
+        dadosTabela.removeIf(conta -> {
+            ContaDAO.ResultadoLiquidacao resultado = porId.get(conta.getId());
+            if (resultado == null) {
+                return false;
+            }
+            if (resultado.getConta() == null) {
+                return true; // Removida por outra estação
+            }
+            conta.setStatus(resultado.getConta().getStatus());
+            return somentePendentes && !conta.getStatus().equals("pendente");
+        });
+        tabelaContas.refresh();
+        atualizarTotais();
+    }
+
+    /**
+     * NOVO: Relatório da liquidação em lote: uma linha por conta, com o resultado.
+     */
+    private void mostrarResultadosLiquidacao(List<ContaDAO.ResultadoLiquidacao> resultados) {
+        int liquidadas = 0;
+        double total = 0;
+        for (ContaDAO.ResultadoLiquidacao resultado : resultados) {
+            if (resultado.isLiquidada()) {
+                liquidadas++;
+                Conta conta = resultado.getConta();
+                total += conta.getTipo().equals("pagar") ? -conta.getValor() : conta.getValor();
+            }
+        }
+
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Liquidação em Lote");
+        dialog.setHeaderText(liquidadas + " de " + resultados.size() + " conta(s) liquidada(s). "
+            + "Saldo lançado no Financeiro: " + currencyFormatter.format(total) + ".");
+        dialog.getDialogPane().getButtonTypes().add(ButtonType.OK);
+
+        TableView<ContaDAO.ResultadoLiquidacao> tabelaResultados = new TableView<>(FXCollections.observableArrayList(resultados));
+        tabelaResultados.setPrefSize(620, 320);
+
+        TableColumn<ContaDAO.ResultadoLiquidacao, String> colConta = new TableColumn<>("Conta");
+        colConta.setCellValueFactory(new PropertyValueFactory<>("descricao"));
+        colConta.setPrefWidth(280);
+
+        TableColumn<ContaDAO.ResultadoLiquidacao, Double> colValorResultado = new TableColumn<>("Valor (R$)");
+        colValorResultado.setCellValueFactory(new PropertyValueFactory<>("valor"));
+        colValorResultado.setCellFactory(col -> new TableCell<ContaDAO.ResultadoLiquidacao, Double>() {
+            @Override
+            protected void updateItem(Double item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null : currencyFormatter.format(item));
+                setAlignment(Pos.CENTER_RIGHT);
+            }
+        });
+        colValorResultado.setPrefWidth(120);
+
+        TableColumn<ContaDAO.ResultadoLiquidacao, String> colSituacao = new TableColumn<>("Resultado");
+        colSituacao.setCellValueFactory(new PropertyValueFactory<>("situacao"));
+        colSituacao.setPrefWidth(200);
+
+        tabelaResultados.getColumns().addAll(List.of(colConta, colValorResultado, colSituacao));
+        dialog.getDialogPane().setContent(tabelaResultados);
+        AlertUtil.setDialogIcon(dialog);
+        dialog.showAndWait();
+    }
+
+    /**
+     * NOVO: Recalcula só os totais pendentes (após a liquidação em lote).
+     */
+    private void atualizarTotais() {
+        CompletableFuture<Double> totalPagar = AsyncDAO.consultar(() -> contaDAO.getTotalPendente("pagar"));
+        CompletableFuture<Double> totalReceber = AsyncDAO.consultar(() -> contaDAO.getTotalPendente("receber"));
+        AsyncDAO.naFx(AsyncDAO.todos(totalPagar, totalReceber), ok -> {
+            lblTotalPagar.setText(currencyFormatter.format(totalPagar.join()));
+            lblTotalReceber.setText(currencyFormatter.format(totalReceber.join()));
+        }, erro -> {
+            lblTotalPagar.setText("Erro");
+            lblTotalReceber.setText("Erro");
+            erro.printStackTrace();
+        });
+    }
+
     @FXML
     private void handleRemover() {
         Conta selecionada = tabelaContas.getSelectionModel().getSelectedItem();
@@ -512,6 +668,331 @@ public class ContasController {
         }
     }
 
+    /**
+     * NOVO: Planos de parcelamento: resumo de cada plano (quitado, pendente, próximo
+     * vencimento), as parcelas do plano selecionado e a quitação das parcelas pendentes
+     * em uma única transação (PlanoParcelamentoDAO.quitarPlano).
+     */
+    @FXML
+    private void handlePlanosParcelamento() {
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Planos de Parcelamento");
+        dialog.setHeaderText("Compras e vendas parceladas. Selecione um plano para ver as parcelas.");
+        dialog.getDialogPane().getButtonTypes().add(ButtonType.CLOSE);
+
+        // --- Tabela de planos ---
+        TableView<PlanoParcelamento> tabelaPlanos = new TableView<>();
+        tabelaPlanos.setPrefSize(900, 260);
+
+        TableColumn<PlanoParcelamento, String> colPlanoDescricao = new TableColumn<>("Descrição");
+        colPlanoDescricao.setCellValueFactory(new PropertyValueFactory<>("descricao"));
+        colPlanoDescricao.setPrefWidth(260);
+
+        TableColumn<PlanoParcelamento, String> colPlanoTipo = new TableColumn<>("Tipo");
+        colPlanoTipo.setCellValueFactory(cellData -> new SimpleObjectProperty<>(
+            cellData.getValue().getTipo().equals("pagar") ? "A Pagar" : "A Receber"));
+        colPlanoTipo.setPrefWidth(80);
+
+        TableColumn<PlanoParcelamento, Double> colPlanoTotal = colunaMoeda("Total", "valorTotal");
+        TableColumn<PlanoParcelamento, Double> colPlanoQuitado = colunaMoeda("Quitado", "valorQuitado");
+        TableColumn<PlanoParcelamento, Double> colPlanoPendente = colunaMoeda("Pendente", "valorPendente");
+
+        TableColumn<PlanoParcelamento, String> colPlanoParcelas = new TableColumn<>("Parcelas");
+        colPlanoParcelas.setCellValueFactory(new PropertyValueFactory<>("parcelas"));
+        colPlanoParcelas.setPrefWidth(120);
+
+        TableColumn<PlanoParcelamento, String> colPlanoProximo = new TableColumn<>("Próx. Vencimento");
+        colPlanoProximo.setCellValueFactory(new PropertyValueFactory<>("proximoVencimento"));
+        colPlanoProximo.setPrefWidth(120);
+
+        tabelaPlanos.getColumns().addAll(List.of(colPlanoDescricao, colPlanoTipo, colPlanoTotal, colPlanoQuitado,
+            colPlanoPendente, colPlanoParcelas, colPlanoProximo));
+
+        // --- Tabela de parcelas do plano selecionado ---
+        TableView<Conta> tabelaParcelas = new TableView<>();
+        tabelaParcelas.setPrefSize(900, 220);
+        tabelaParcelas.setPlaceholder(new Label("Selecione um plano."));
+
+        TableColumn<Conta, String> colParcela = new TableColumn<>("Parcela");
+        colParcela.setCellValueFactory(new PropertyValueFactory<>("descricao"));
+        colParcela.setPrefWidth(360);
+
+        TableColumn<Conta, String> colParcelaVencimento = new TableColumn<>("Vencimento");
+        colParcelaVencimento.setCellValueFactory(new PropertyValueFactory<>("dataVencimento"));
+        colParcelaVencimento.setPrefWidth(120);
+
+        TableColumn<Conta, Double> colParcelaValor = colunaMoeda("Valor (R$)", "valor");
+
+        TableColumn<Conta, String> colParcelaStatus = new TableColumn<>("Status");
+        colParcelaStatus.setCellValueFactory(new PropertyValueFactory<>("status"));
+        colParcelaStatus.setPrefWidth(100);
+
+        tabelaParcelas.getColumns().addAll(List.of(colParcela, colParcelaVencimento, colParcelaValor, colParcelaStatus));
+
+        CheckBox somenteAbertos = new CheckBox("Somente planos com parcelas pendentes");
+        somenteAbertos.setSelected(true);
+        Button btnQuitar = new Button("Quitar Parcelas Pendentes");
+        btnQuitar.getStyleClass().add("module-button");
+        btnQuitar.disableProperty().bind(Bindings.createBooleanBinding(() -> {
+            PlanoParcelamento plano = tabelaPlanos.getSelectionModel().getSelectedItem();
+            return plano == null || plano.getParcelasPendentes() == 0;
+        }, tabelaPlanos.getSelectionModel().selectedItemProperty()));
+
+        // --- Carregamento (em segundo plano) ---
+        Runnable carregarParcelas = () -> {
+            PlanoParcelamento plano = tabelaPlanos.getSelectionModel().getSelectedItem();
+            if (plano == null) {
+                tabelaParcelas.getItems().clear();
+                return;
+            }
+            AsyncDAO.naFx(AsyncDAO.consultar(() -> planoDAO.listParcelas(plano.getId())),
+                parcelas -> tabelaParcelas.getItems().setAll(parcelas),
+                erro -> {
+                    AlertUtil.showError("Erro de Banco de Dados", "Não foi possível carregar as parcelas: " + erro.getMessage());
+                    erro.printStackTrace();
+                });
+        };
+        Runnable carregarPlanos = () -> {
+            boolean apenasAbertos = somenteAbertos.isSelected();
+            AsyncDAO.naFx(AsyncDAO.consultar(() -> planoDAO.listPlanos(apenasAbertos)),
+                planos -> {
+                    tabelaPlanos.getItems().setAll(planos);
+                    tabelaParcelas.getItems().clear();
+                },
+                erro -> {
+                    AlertUtil.showError("Erro de Banco de Dados", "Não foi possível carregar os planos: " + erro.getMessage());
+                    erro.printStackTrace();
+                });
+        };
+        tabelaPlanos.getSelectionModel().selectedItemProperty().addListener((obs, o, n) -> carregarParcelas.run());
+        somenteAbertos.selectedProperty().addListener((obs, o, n) -> carregarPlanos.run());
+
+        btnQuitar.setOnAction(e -> {
+            PlanoParcelamento plano = tabelaPlanos.getSelectionModel().getSelectedItem();
+            if (plano == null) {
+                return;
+            }
+            DatePickerDialog dataDialog = new DatePickerDialog();
+            dataDialog.setHeaderText(plano.getDescricao() + ": " + plano.getParcelasPendentes() + " parcela(s), "
+                + currencyFormatter.format(plano.getValorPendente()) + ".\nQuando foram pagas/recebidas?");
+            AlertUtil.setDialogIcon(dataDialog);
+            Optional<LocalDate> data = dataDialog.showAndWait();
+            if (!data.isPresent() || data.get() == null) {
+                return;
+            }
+            String dataPagamento = data.get().toString();
+            AsyncDAO.naFx(AsyncDAO.consultar(() -> planoDAO.quitarPlano(plano.getId(), dataPagamento)), resultados -> {
+                mostrarResultadosLiquidacao(resultados);
+                carregarPlanos.run();
+                carregarDados(); // A tela de contas também mudou
+            }, erro -> {
+                AlertUtil.showError("Erro de Banco de Dados", "Não foi possível quitar o plano: " + erro.getMessage());
+                erro.printStackTrace();
+            });
+        });
+
+        HBox barra = new HBox(10, somenteAbertos, btnQuitar);
+        barra.setAlignment(Pos.CENTER_LEFT);
+        VBox conteudo = new VBox(10, barra, tabelaPlanos, new Label("Parcelas do plano:"), tabelaParcelas);
+        conteudo.setPadding(new Insets(20, 10, 10, 10));
+        dialog.getDialogPane().setContent(conteudo);
+        AlertUtil.setDialogIcon(dialog);
+
+        carregarPlanos.run();
+        dialog.showAndWait();
+    }
+
+    /**
+     * NOVO: Coluna de valor em R$ (tabelas da tela de planos).
+     */
+    private <T> TableColumn<T, Double> colunaMoeda(String titulo, String propriedade) {
+        TableColumn<T, Double> coluna = new TableColumn<>(titulo);
+        coluna.setCellValueFactory(new PropertyValueFactory<>(propriedade));
+        coluna.setCellFactory(col -> new TableCell<T, Double>() {
+            @Override
+            protected void updateItem(Double item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null : currencyFormatter.format(item));
+                setAlignment(Pos.CENTER_RIGHT);
+            }
+        });
+        coluna.setPrefWidth(110);
+        return coluna;
+    }
+
+    /**
+     * NOVO: Importa um extrato bancário (OFX ou CSV) e o concilia com as contas pendentes
+     * e o financeiro. Leitura e correspondência rodam em segundo plano; a prévia mostra a
+     * ação proposta para cada linha do extrato.
+     */
+    @FXML
+    private void handleImportarExtrato() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Importar Extrato Bancário");
+        fileChooser.getExtensionFilters().addAll(
+            new FileChooser.ExtensionFilter("Extratos (*.ofx, *.csv)", "*.ofx", "*.OFX", "*.csv", "*.CSV"),
+            new FileChooser.ExtensionFilter("Todos os arquivos", "*.*"));
+
+        File file = fileChooser.showOpenDialog(tabelaContas.getScene().getWindow());
+        if (file == null) {
+            return; // Usuário cancelou
+        }
+
+        showLoading(true);
+        AsyncDAO.naFx(AsyncDAO.consultar(() -> conciliacaoDAO.preparar(LeitorExtrato.lerTodos(file.toPath()))), itens -> {
+            showLoading(false);
+            if (itens.isEmpty()) {
+                AlertUtil.showInfo("Extrato Vazio", "Nenhum lançamento encontrado em " + file.getName() + ".");
+                return;
+            }
+            abrirPreviaConciliacao(file.getName(), itens);
+        }, erro -> {
+            showLoading(false);
+            AlertUtil.showError("Erro ao Importar Extrato", "Não foi possível importar " + file.getName() + ": " + erro.getMessage());
+            erro.printStackTrace();
+        });
+    }
+
+    /**
+     * NOVO: Prévia da conciliação. Correspondências (liquidar conta / já lançado) vêm
+     * marcadas; lançamentos novos são marcados pelo usuário. Os itens marcados são
+     * gravados juntos pelo ConciliacaoExtratoDAO.
+     */
+    private void abrirPreviaConciliacao(String nomeArquivo, List<ItemConciliacao> itens) {
+        int contas = 0, vinculos = 0, novos = 0, importados = 0;
+        for (ItemConciliacao item : itens) {
+            switch (item.getAcao()) {
+                case LIQUIDAR_CONTA: contas++; break;
+                case VINCULAR_LANCAMENTO: vinculos++; break;
+                case NOVO_LANCAMENTO: novos++; break;
+                default: importados++;
+            }
+        }
+
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Conciliação Bancária");
+        dialog.setHeaderText(nomeArquivo + ": " + itens.size() + " lançamento(s)\n"
+            + contas + " conta(s) a liquidar, " + vinculos + " já lançado(s) no financeiro, "
+            + novos + " sem correspondência, " + importados + " já importado(s).");
+
+        ButtonType confirmarButtonType = new ButtonType("Confirmar Marcados", ButtonBar.ButtonData.OK_DONE);
+        dialog.getDialogPane().getButtonTypes().addAll(confirmarButtonType, ButtonType.CANCEL);
+
+        TableView<ItemConciliacao> tabelaPrevia = new TableView<>(FXCollections.observableArrayList(itens));
+        tabelaPrevia.setEditable(true);
+        tabelaPrevia.setPrefSize(1060, 420);
+        Label lblMarcados = new Label();
+        lblMarcados.setStyle("-fx-font-weight: bold;");
+
+        Runnable atualizarMarcados = () -> {
+            int marcados = 0;
+            for (ItemConciliacao item : itens) {
+                if (item.isConfirmar()) {
+                    marcados++;
+                }
+            }
+            lblMarcados.setText(marcados + " item(ns) marcado(s) para gravar.");
+        };
+
+        TableColumn<ItemConciliacao, Boolean> colConfirmar = new TableColumn<>("Gravar");
+        colConfirmar.setCellValueFactory(cellData -> {
+            ItemConciliacao item = cellData.getValue();
+            SimpleBooleanProperty confirmar = new SimpleBooleanProperty(item.isConfirmar());
+            confirmar.addListener((obs, anterior, marcado) -> {
+                item.setConfirmar(marcado);
+                atualizarMarcados.run();
+            });
+            return confirmar;
+        });
+        colConfirmar.setCellFactory(CheckBoxTableCell.forTableColumn(colConfirmar));
+        colConfirmar.setPrefWidth(60);
+
+        TableColumn<ItemConciliacao, String> colData = new TableColumn<>("Data");
+        colData.setCellValueFactory(new PropertyValueFactory<>("data"));
+        colData.setPrefWidth(90);
+
+        TableColumn<ItemConciliacao, String> colHistorico = new TableColumn<>("Histórico (Extrato)");
+        colHistorico.setCellValueFactory(new PropertyValueFactory<>("descricao"));
+        colHistorico.setPrefWidth(260);
+
+        TableColumn<ItemConciliacao, Double> colValorExtrato = new TableColumn<>("Valor (R$)");
+        colValorExtrato.setCellValueFactory(new PropertyValueFactory<>("valor"));
+        colValorExtrato.setCellFactory(col -> new TableCell<ItemConciliacao, Double>() {
+            @Override
+            protected void updateItem(Double item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || item == null) {
+                    setText(null);
+                } else {
+                    setText(currencyFormatter.format(item));
+                    setAlignment(Pos.CENTER_RIGHT);
+                    setTextFill(item < 0 ? Color.web("#E53E3E") : Color.web("#38A169"));
+                }
+            }
+        });
+        colValorExtrato.setPrefWidth(110);
+
+        TableColumn<ItemConciliacao, String> colAcao = new TableColumn<>("Ação");
+        colAcao.setCellValueFactory(new PropertyValueFactory<>("acaoDescricao"));
+        colAcao.setPrefWidth(120);
+
+        // NOVO: Pontuação da correspondência (pares fracos vêm desmarcados)
+        TableColumn<ItemConciliacao, String> colConfianca = new TableColumn<>("Confiança");
+        colConfianca.setCellValueFactory(new PropertyValueFactory<>("confianca"));
+        colConfianca.setPrefWidth(80);
+
+        TableColumn<ItemConciliacao, String> colCorrespondencia = new TableColumn<>("Correspondência / Categoria");
+        colCorrespondencia.setCellValueFactory(new PropertyValueFactory<>("correspondencia"));
+        colCorrespondencia.setPrefWidth(330);
+
+        tabelaPrevia.getColumns().addAll(List.of(colConfirmar, colData, colHistorico, colValorExtrato, colAcao,
+            colConfianca, colCorrespondencia));
+
+        // Atalho para gravar também as linhas sem correspondência
+        CheckBox marcarNovos = new CheckBox("Marcar os lançamentos sem correspondência (novos no financeiro)");
+        marcarNovos.selectedProperty().addListener((obs, anterior, marcado) -> {
+            for (ItemConciliacao item : itens) {
+                if (item.getAcao() == ItemConciliacao.Acao.NOVO_LANCAMENTO) {
+                    item.setConfirmar(marcado);
+                }
+            }
+            tabelaPrevia.refresh();
+            atualizarMarcados.run();
+        });
+        atualizarMarcados.run();
+
+        Label lblConfianca = new Label("Correspondências com confiança abaixo de "
+            + Math.round(ItemConciliacao.PONTUACAO_MINIMA_MARCADA * 100) + "% vêm desmarcadas: confira antes de marcar.");
+        lblConfianca.setStyle("-fx-font-style: italic; -fx-text-fill: #555;");
+
+        VBox conteudo = new VBox(10, tabelaPrevia, marcarNovos, lblConfianca, lblMarcados);
+        conteudo.setPadding(new Insets(20, 10, 10, 10));
+        dialog.getDialogPane().setContent(conteudo);
+        AlertUtil.setDialogIcon(dialog);
+
+        Optional<ButtonType> result = dialog.showAndWait();
+        if (!result.isPresent() || result.get() != confirmarButtonType) {
+            return;
+        }
+
+        showLoading(true);
+        AsyncDAO.naFx(AsyncDAO.consultar(() -> conciliacaoDAO.confirmar(itens)), r -> {
+            showLoading(false);
+            String mensagem = "Contas liquidadas: " + r.getLiquidadas() + "\n"
+                + "Transações vinculadas ao extrato: " + r.getVinculadas() + "\n"
+                + "Lançamentos novos no financeiro: " + r.getLancadas();
+            if (r.getIgnoradas() > 0) {
+                mensagem += "\n\n" + r.getIgnoradas() + " item(ns) ignorado(s): alterados por outra estação desde a prévia.";
+            }
+            AlertUtil.showInfo("Conciliação Concluída", mensagem);
+            carregarDados();
+        }, erro -> {
+            showLoading(false);
+            AlertUtil.showError("Erro de Banco de Dados", "Não foi possível gravar a conciliação: " + erro.getMessage());
+            erro.printStackTrace();
+        });
+    }
+
     /**
      * Classe interna simples para um diálogo de DatePicker.
      */
@@ -8,9 +8,9 @@ import com.farmmanager.model.PatrimonioDAO;
 import com.farmmanager.model.SafraDAO;
 import com.farmmanager.model.TalhaoDAO;
 import com.farmmanager.util.AlertUtil;
+import com.farmmanager.util.AsyncDAO; // NOVO IMPORT
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.concurrent.Task; // NOVO: Import para Task
 import javafx.fxml.FXML;
 // REMOVIDO: import javafx.scene.chart.LineChart;
 import javafx.scene.chart.PieChart;
@@ -27,6 +27,7 @@ import java.time.LocalDate; // NOVO: Import para data
 import java.time.format.DateTimeFormatter; // NOVO: Import para formatar data
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller para o DashboardView.fxml.
@@ -41,6 +42,8 @@ import java.util.Map;
  * - MELHORIA UX: Adicionados métodos de navegação (ex: navigateToSafras).
  * - MELHORIA CRÍTICA: Todo o carregamento de dados do initialize()
  * movido para uma Task em background para não congelar a UI.
+ * - ATUALIZADO: A Task deu lugar a consultas paralelas pelo AsyncDAO, em conexões somente
+ * leitura, com cada seção exibida assim que seus dados chegam.
  * * --- MELHORIAS DE UX (NOVAS) ---
  * - Adicionado `lblWelcomeDate` para exibir a data atual.
  * - Adicionado KPI `lblPatrimonioManutencao` para "Patrimônio em Manutenção".
@@ -135,34 +138,13 @@ public class DashboardController {
     private final ContaDAO contaDAO; 
 
     private final NumberFormat currencyFormatter;
+
+    // NOVO: Seções ainda carregando e se um erro já foi exibido (usados apenas na JavaFX Thread)
+    private int secoesPendentes;
+    private boolean erroCarregamento;
     
     private MainViewController mainViewController;
 
-    /**
-     * NOVO: Classe interna para agrupar todos os dados
-     * buscados na Task de background.
-     * ATUALIZADO: Adicionado `totalPatrimonioManutencao`.
-     * ATUALIZADO: Removido `balancoPorDia`.
-     */
-    private static class DashboardData {
-        int totalVencidas;
-        int totalAVencer;
-        int totalEstoqueBaixo;
-        double balanco;
-        double valorEstoque;
-        double valorPatrimonio;
-        double contasAReceber;
-        double contasAPagar;
-        int totalSafras;
-        int totalFuncionarios;
-        int totalTalhoes;
-        double totalArea;
-        int totalPatrimonioManutencao; // NOVO
-        Map<String, Double> totaisReceitaDespesa;
-        // REMOVIDO: Map<String, Double> balancoPorDia;
-        Map<String, Integer> contagemCulturas;
-    }
-
     public DashboardController() {
         // Instancia os DAOs
         financeiroDAO = new FinanceiroDAO();
@@ -214,91 +196,88 @@ public class DashboardController {
     
     /**
      * NOVO: Controla a visibilidade do indicador de carregamento.
+     * ATUALIZADO: O conteúdo não é mais desabilitado/esmaecido durante o carregamento,
+     * pois as seções já carregadas são exibidas enquanto as outras chegam.
      */
     private void showLoading(boolean isLoading) {
         loadingIndicator.setVisible(isLoading);
         loadingIndicator.setManaged(isLoading);
-        
-        contentScrollPane.setDisable(isLoading);
-        // O ScrollPane não tem VBox, então o opacity é aplicado nele
-        contentScrollPane.setOpacity(isLoading ? 0.5 : 1.0); 
     }
 
     /**
-     * NOVO: Cria uma Task para carregar todos os dados do dashboard
-     * em uma thread de background.
+     * NOVO: Carrega todos os dados do dashboard em segundo plano.
      * ATUALIZADO: Busca também `totalPatrimonioManutencao`.
      * ATUALIZADO: Não busca mais `balancoPorDia`.
+     * ATUALIZADO: As 15 consultas são independentes e rodam em paralelo nas conexões somente
+     * leitura (AsyncDAO.consultarLeitura). Cada seção (alertas, KPIs, gráficos) é exibida assim
+     * que as suas consultas terminam, sem esperar as demais.
      */
     private void carregarDadosDashboardAssincrono() {
-        Task<DashboardData> carregarTask = new Task<DashboardData>() {
-            @Override
-            protected DashboardData call() throws Exception {
-                // Esta é a parte demorada (chamadas de DB)
-                // É executada em uma thread de background.
-                DashboardData data = new DashboardData();
-
-                // Alertas
-                data.totalVencidas = contaDAO.getContagemContasVencidas();
-                data.totalAVencer = contaDAO.getContagemContasAVencer(7);
-                data.totalEstoqueBaixo = estoqueDAO.getContagemItensEstoqueBaixo();
-                
-                // KPIs Financeiros
-                data.balanco = financeiroDAO.getBalançoFinanceiro();
-                data.valorEstoque = estoqueDAO.getValorTotalEmEstoque();
-                data.valorPatrimonio = patrimonioDAO.getValorTotalPatrimonio();
-                data.contasAReceber = contaDAO.getTotalPendente("receber");
-                data.contasAPagar = contaDAO.getTotalPendente("pagar");
-
-                // KPIs Operacionais
-                data.totalSafras = safraDAO.getContagemSafrasAtivas();
-                data.totalFuncionarios = funcionarioDAO.getContagemFuncionarios();
-                data.totalTalhoes = talhaoDAO.getContagemTalhoes();
-                data.totalArea = talhaoDAO.getTotalAreaHectares();
-                data.totalPatrimonioManutencao = patrimonioDAO.getContagemPatrimonioPorStatus("Em Manutenção"); // NOVO
-
-                // Gráficos
-                data.totaisReceitaDespesa = financeiroDAO.getTotaisReceitaDespesa();
-                // REMOVIDO: data.balancoPorDia = financeiroDAO.getBalancoPorDia();
-                data.contagemCulturas = safraDAO.getContagemCulturasAtivas();
-                
-                return data;
-            }
-        };
-
-        // Define o que fazer quando a Task for bem-sucedida (na JavaFX Thread)
-        carregarTask.setOnSucceeded(e -> {
-            DashboardData data = carregarTask.getValue();
-            
-            // Agora, chama os métodos de *atualização da UI* (rápidos)
-            // passando os dados que foram buscados.
+        // Alertas
+        CompletableFuture<Integer> totalVencidas = AsyncDAO.consultarLeitura(contaDAO::getContagemContasVencidas);
+        CompletableFuture<Integer> totalAVencer = AsyncDAO.consultarLeitura(() -> contaDAO.getContagemContasAVencer(7));
+        CompletableFuture<Integer> totalEstoqueBaixo = AsyncDAO.consultarLeitura(estoqueDAO::getContagemItensEstoqueBaixo);
+
+        // KPIs Financeiros
+        CompletableFuture<Double> balanco = AsyncDAO.consultarLeitura(financeiroDAO::getBalançoFinanceiro);
+        CompletableFuture<Double> valorEstoque = AsyncDAO.consultarLeitura(estoqueDAO::getValorTotalEmEstoque);
+        CompletableFuture<Double> valorPatrimonio = AsyncDAO.consultarLeitura(patrimonioDAO::getValorTotalPatrimonio);
+        CompletableFuture<Double> contasAReceber = AsyncDAO.consultarLeitura(() -> contaDAO.getTotalPendente("receber"));
+        CompletableFuture<Double> contasAPagar = AsyncDAO.consultarLeitura(() -> contaDAO.getTotalPendente("pagar"));
+
+        // KPIs Operacionais
+        CompletableFuture<Integer> totalSafras = AsyncDAO.consultarLeitura(safraDAO::getContagemSafrasAtivas);
+        CompletableFuture<Integer> totalFuncionarios = AsyncDAO.consultarLeitura(funcionarioDAO::getContagemFuncionarios);
+        CompletableFuture<Integer> totalTalhoes = AsyncDAO.consultarLeitura(talhaoDAO::getContagemTalhoes);
+        CompletableFuture<Double> totalArea = AsyncDAO.consultarLeitura(talhaoDAO::getTotalAreaHectares);
+        CompletableFuture<Integer> totalPatrimonioManutencao = AsyncDAO.consultarLeitura(() -> patrimonioDAO.getContagemPatrimonioPorStatus("Em Manutenção")); // NOVO
+
+        // Gráficos
+        CompletableFuture<Map<String, Double>> totaisReceitaDespesa = AsyncDAO.consultarLeitura(financeiroDAO::getTotaisReceitaDespesa);
+        CompletableFuture<Map<String, Integer>> contagemCulturas = AsyncDAO.consultarLeitura(safraDAO::getContagemCulturasAtivas);
+
+        secoesPendentes = 5;
+        erroCarregamento = false;
+        showLoading(true);
+
+        exibirSecao(AsyncDAO.todos(totalVencidas, totalAVencer, totalEstoqueBaixo),
+            () -> atualizarAlertas(totalVencidas.join(), totalAVencer.join(), totalEstoqueBaixo.join()));
+        exibirSecao(AsyncDAO.todos(balanco, valorEstoque, valorPatrimonio, contasAReceber, contasAPagar),
+            () -> atualizarKPIsFinanceiros(balanco.join(), valorEstoque.join(), valorPatrimonio.join(), contasAReceber.join(), contasAPagar.join()));
+        exibirSecao(AsyncDAO.todos(totalSafras, totalFuncionarios, totalTalhoes, totalArea, totalPatrimonioManutencao),
+            () -> atualizarKPIsOperacionais(totalSafras.join(), totalFuncionarios.join(), totalTalhoes.join(), totalArea.join(), totalPatrimonioManutencao.join()));
+        exibirSecao(totaisReceitaDespesa, () -> atualizarGraficoReceitaDespesa(totaisReceitaDespesa.join()));
+        exibirSecao(contagemCulturas, () -> atualizarGraficoCulturas(contagemCulturas.join()));
+    }
+
+    /**
+     * NOVO: Exibe uma seção do dashboard quando as suas consultas terminam (na JavaFX Thread).
+     * O erro de banco é mostrado uma única vez, mesmo que várias seções falhem.
+     */
+    private void exibirSecao(CompletableFuture<?> consultas, Runnable exibir) {
+        AsyncDAO.naFx(consultas, ok -> {
             try {
-                atualizarAlertas(data.totalVencidas, data.totalAVencer, data.totalEstoqueBaixo);
-                atualizarKPIsFinanceiros(data.balanco, data.valorEstoque, data.valorPatrimonio, data.contasAReceber, data.contasAPagar);
-                // ATUALIZADO: Passa o novo dado
-                atualizarKPIsOperacionais(data.totalSafras, data.totalFuncionarios, data.totalTalhoes, data.totalArea, data.totalPatrimonioManutencao);
-                // ATUALIZADO: Não passa mais balancoPorDia
-                atualizarGraficos(data.totaisReceitaDespesa, data.contagemCulturas);
+                exibir.run();
             } catch (Exception ex) {
                 AlertUtil.showError("Erro de UI", "Erro ao exibir dados do dashboard: " + ex.getMessage());
                 ex.printStackTrace();
             }
-            
-            showLoading(false); // Esconde o loading
-        });
-
-        // Define o que fazer se a Task falhar (na JavaFX Thread)
-        carregarTask.setOnFailed(e -> {
-            AlertUtil.showError("Erro de Banco de Dados", "Não foi possível carregar os dados do dashboard.");
-            carregarTask.getException().printStackTrace();
-            showLoading(false); // Esconde o loading
+            concluirSecao();
+        }, erro -> {
+            if (!erroCarregamento) {
+                erroCarregamento = true;
+                AlertUtil.showError("Erro de Banco de Dados", "Não foi possível carregar os dados do dashboard.");
+            }
+            erro.printStackTrace();
+            concluirSecao();
         });
+    }
 
-        // Mostra o loading ANTES de iniciar a Task
-        showLoading(true);
-
-        // Inicia a Task em uma nova Thread
-        new Thread(carregarTask).start();
+    private void concluirSecao() {
+        secoesPendentes--;
+        if (secoesPendentes == 0) {
+            showLoading(false); // Esconde o loading quando a última seção chega
+        }
     }
 
 
@@ -369,11 +348,10 @@ public class DashboardController {
     }
 
     /**
-     * NOVO: Método unificado para atualizar todos os gráficos com dados pré-buscados.
-     * ATUALIZADO: Não recebe mais balancoPorDia e não atualiza chartBalanco.
+     * NOVO: Atualiza o gráfico de Receitas vs. Despesas com dados pré-buscados.
+     * ATUALIZADO: Separado do gráfico de culturas para cada um aparecer assim que sua consulta termina.
      */
-    private void atualizarGraficos(Map<String, Double> totaisReceitaDespesa, Map<String, Integer> contagemCulturas) {
-        // Gráfico Despesas (Receitas vs. Despesas)
+    private void atualizarGraficoReceitaDespesa(Map<String, Double> totaisReceitaDespesa) {
         double totalReceitas = totaisReceitaDespesa.getOrDefault("receita", 0.0);
         double totalDespesas = totaisReceitaDespesa.getOrDefault("despesa", 0.0);
         ObservableList<PieChart.Data> pieChartData =
@@ -382,17 +360,12 @@ public class DashboardController {
                         new PieChart.Data("Despesas", totalDespesas)
                 );
         chartDespesas.setData(pieChartData);
+    }
 
-        // REMOVIDO: Gráfico Balanço Diário
-        // XYChart.Series<String, Number> series = new XYChart.Series<>();
-        // series.setName("Balanço Diário");
-        // chartBalanco.getData().clear();
-        // for (Map.Entry<String, Double> entry : balancoPorDia.entrySet()) {
-        //     series.getData().add(new XYChart.Data<>(entry.getKey(), entry.getValue()));
-        // }
-        // chartBalanco.getData().add(series);
-
-        // Gráfico Culturas Ativas
+    /**
+     * NOVO: Atualiza o gráfico de Culturas Ativas com dados pré-buscados.
+     */
+    private void atualizarGraficoCulturas(Map<String, Integer> contagemCulturas) {
         ObservableList<PieChart.Data> pieChartDataCulturas = FXCollections.observableArrayList();
         for (Map.Entry<String, Integer> entry : contagemCulturas.entrySet()) {
             pieChartDataCulturas.add(new PieChart.Data(entry.getKey() + " (" + entry.getValue() + ")", entry.getValue()));
@@ -0,0 +1,289 @@
+package com.farmmanager.controller;
+
+import com.farmmanager.model.Database;
+import com.farmmanager.model.DatabaseMaintenance;
+import com.farmmanager.model.DatabaseWriter;
+import com.farmmanager.model.DbMetrics;
+import com.farmmanager.util.AlertUtil;
+import com.farmmanager.util.BackgroundTasks;
+import com.farmmanager.util.CacheStats;
+import com.farmmanager.util.DateTimeUtil;
+import com.farmmanager.util.FxStallDetector;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.fxml.FXML;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.stage.FileChooser;
+import javafx.util.Duration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * NOVO: Controller para o DiagnosticoView.fxml (Diagnóstico de Desempenho).
+ * Todas as métricas já estão em memória (DbMetrics, BackgroundTasks, FxStallDetector,
+ * CacheStats), então a atualização periódica roda direto na thread de UI sem tocar no banco.
+ * O relatório exportado junta tudo em um arquivo de texto para envio ao suporte.
+ */
+public class DiagnosticoController {
+
+    private static final int TOP_METODOS = 20;
+    private static final long MB = 1024L * 1024L;
+
+    @FXML
+    private Label lblConexoes;
+    @FXML
+    private Label lblComandos;
+    @FXML
+    private Label lblTarefas;
+    @FXML
+    private Label lblMemoria;
+    @FXML
+    private Label lblBanco;
+    @FXML
+    private Label lblTravamentos;
+
+    @FXML
+    private TableView<DbMetrics.Estatistica> tabelaMetodos;
+    @FXML
+    private TableColumn<DbMetrics.Estatistica, String> colMetodo;
+    @FXML
+    private TableColumn<DbMetrics.Estatistica, Long> colMetodoChamadas;
+    @FXML
+    private TableColumn<DbMetrics.Estatistica, String> colMetodoTotal;
+    @FXML
+    private TableColumn<DbMetrics.Estatistica, String> colMetodoP50;
+    @FXML
+    private TableColumn<DbMetrics.Estatistica, String> colMetodoP99;
+    @FXML
+    private TableColumn<DbMetrics.Estatistica, String> colMetodoMax;
+    @FXML
+    private TableColumn<DbMetrics.Estatistica, Long> colMetodoErros;
+
+    @FXML
+    private TableView<FxStallDetector.Travamento> tabelaTravamentos;
+    @FXML
+    private TableColumn<FxStallDetector.Travamento, String> colTravData;
+    @FXML
+    private TableColumn<FxStallDetector.Travamento, Long> colTravDuracao;
+    @FXML
+    private TableColumn<FxStallDetector.Travamento, String> colTravHandler;
+
+    @FXML
+    private TableView<CacheStats> tabelaCaches;
+    @FXML
+    private TableColumn<CacheStats, String> colCacheNome;
+    @FXML
+    private TableColumn<CacheStats, Long> colCacheAcertos;
+    @FXML
+    private TableColumn<CacheStats, Long> colCacheFalhas;
+    @FXML
+    private TableColumn<CacheStats, String> colCacheTaxa;
+
+    private final ObservableList<DbMetrics.Estatistica> dadosMetodos = FXCollections.observableArrayList();
+    private final ObservableList<FxStallDetector.Travamento> dadosTravamentos = FXCollections.observableArrayList();
+    private final ObservableList<CacheStats> dadosCaches = FXCollections.observableArrayList();
+
+    private Timeline atualizacaoPeriodica;
+
+    @FXML
+    public void initialize() {
+        colMetodo.setCellValueFactory(c -> new SimpleObjectProperty<>(c.getValue().getChave()));
+        colMetodoChamadas.setCellValueFactory(c -> new SimpleObjectProperty<>(c.getValue().getLatencia().getContagem()));
+        colMetodoTotal.setCellValueFactory(c -> new SimpleObjectProperty<>(ms(c.getValue().getLatencia().getTotalMs())));
+        colMetodoP50.setCellValueFactory(c -> new SimpleObjectProperty<>(ms(c.getValue().getLatencia().getPercentilMs(50))));
+        colMetodoP99.setCellValueFactory(c -> new SimpleObjectProperty<>(ms(c.getValue().getLatencia().getPercentilMs(99))));
+        colMetodoMax.setCellValueFactory(c -> new SimpleObjectProperty<>(ms(c.getValue().getLatencia().getMaxMs())));
+        colMetodoErros.setCellValueFactory(c -> new SimpleObjectProperty<>(c.getValue().getErros()));
+        tabelaMetodos.setItems(dadosMetodos);
+        tabelaMetodos.setPlaceholder(new Label("Nenhuma métrica coletada (métricas desativadas com -Dfarmmanager.db.metrics=false?)"));
+
+        colTravData.setCellValueFactory(c -> new SimpleObjectProperty<>(c.getValue().getDataHora()));
+        colTravDuracao.setCellValueFactory(c -> new SimpleObjectProperty<>(c.getValue().getDuracaoMs()));
+        colTravHandler.setCellValueFactory(c -> new SimpleObjectProperty<>(c.getValue().getHandler()));
+        tabelaTravamentos.setItems(dadosTravamentos);
+        tabelaTravamentos.setPlaceholder(new Label("Nenhum travamento detectado."));
+
+        colCacheNome.setCellValueFactory(c -> new SimpleObjectProperty<>(c.getValue().getNome()));
+        colCacheAcertos.setCellValueFactory(c -> new SimpleObjectProperty<>(c.getValue().getAcertos()));
+        colCacheFalhas.setCellValueFactory(c -> new SimpleObjectProperty<>(c.getValue().getFalhas()));
+        colCacheTaxa.setCellValueFactory(c -> new SimpleObjectProperty<>(
+            String.format(Locale.US, "%.1f%%", c.getValue().getTaxaAcerto() * 100)));
+        tabelaCaches.setItems(dadosCaches);
+        tabelaCaches.setPlaceholder(new Label("Nenhum cache registrado."));
+
+        atualizar();
+
+        // Atualiza a cada 2 s enquanto a tela estiver visível
+        atualizacaoPeriodica = new Timeline(new KeyFrame(Duration.seconds(2), e -> atualizar()));
+        atualizacaoPeriodica.setCycleCount(Animation.INDEFINITE);
+        atualizacaoPeriodica.play();
+        lblConexoes.sceneProperty().addListener((obs, antiga, nova) -> {
+            if (nova == null) {
+                atualizacaoPeriodica.stop();
+            }
+        });
+    }
+
+    @FXML
+    private void handleAtualizar() {
+        atualizar();
+    }
+
+    @FXML
+    private void handleZerarMetricas() {
+        if (AlertUtil.showConfirmation("Zerar Métricas", "Deseja zerar as métricas de banco coletadas até agora?")) {
+            DbMetrics.reset();
+            atualizar();
+        }
+    }
+
+    @FXML
+    private void handleExportarRelatorio() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Salvar Relatório de Diagnóstico");
+        fileChooser.setInitialFileName("Diagnostico_FarmManager_"
+            + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".txt");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Arquivos de Texto (*.txt)", "*.txt"));
+
+        File file = fileChooser.showSaveDialog(tabelaMetodos.getScene().getWindow());
+        if (file == null) {
+            return; // Usuário cancelou
+        }
+
+        try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+            writer.write(gerarRelatorio());
+            AlertUtil.showInfo("Sucesso", "Relatório de diagnóstico exportado para:\n" + file.getAbsolutePath());
+        } catch (IOException e) {
+            AlertUtil.showError("Erro ao Exportar", "Não foi possível gravar o relatório: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Relê todas as fontes de métricas e atualiza os cartões e tabelas.
+     */
+    private void atualizar() {
+        lblConexoes.setText(textoConexoes());
+        lblComandos.setText(textoComandos());
+        lblTarefas.setText(textoTarefas());
+        lblMemoria.setText(textoMemoria());
+        lblBanco.setText(textoBanco());
+        lblTravamentos.setText(textoTravamentos());
+
+        List<DbMetrics.Estatistica> metodos = DbMetrics.getEstatisticasMetodos();
+        dadosMetodos.setAll(metodos.subList(0, Math.min(TOP_METODOS, metodos.size())));
+        dadosTravamentos.setAll(FxStallDetector.getEventosRecentes());
+        dadosCaches.setAll(CacheStats.listar());
+        // Os valores das linhas mudam sem a lista mudar; força redesenho
+        tabelaMetodos.refresh();
+        tabelaCaches.refresh();
+    }
+
+    // --- Textos dos cartões (também usados no relatório) ---
+
+    private String textoConexoes() {
+        DbMetrics.Histograma espera = DbMetrics.getEsperaConexao();
+        return String.format(Locale.US, "Em uso: %d (pico %d)%nAbertas desde o início: %d%nEspera p99: %.2f ms | máx: %.2f ms%n"
+                + "Pool de leitura: %d ociosa(s) de %d",
+            DbMetrics.getConexoesEmUso(), DbMetrics.getPicoConexoesEmUso(), DbMetrics.getContadores().get("conexoes_abertas"),
+            espera.getPercentilMs(99), espera.getMaxMs(),
+            Database.getConexoesLeituraOciosas(), Database.getTamanhoPoolLeitura());
+    }
+
+    private String textoComandos() {
+        DbMetrics.Histograma transacao = DbMetrics.getDuracaoTransacao();
+        long lotes = DatabaseWriter.getLotes();
+        return String.format(Locale.US, "Executados: %d | lentos (>= %d ms): %d | erros: %d%nTransações: %d (revertidas: %d) | p99: %.2f ms%n"
+                + "Fila de escrita: %d pendente(s) | %d lote(s), média %.1f e maior %d comando(s) | retentativas BUSY: %d",
+            DbMetrics.getContadores().get("comandos_executados"), DbMetrics.getLimiarLentoMs(),
+            DbMetrics.getContadores().get("consultas_lentas"), DbMetrics.getContadores().get("erros_sql"),
+            transacao.getContagem(), DbMetrics.getContadores().get("transacoes_revertidas"), transacao.getPercentilMs(99),
+            DatabaseWriter.getPendentes(), lotes, lotes == 0 ? 0.0 : (double) DatabaseWriter.getComandos() / lotes,
+            DatabaseWriter.getMaiorLote(), DatabaseWriter.getRetentativasBusy());
+    }
+
+    private String textoTarefas() {
+        return String.format("Em andamento: %d (pico %d)%nThreads no pool: %d%nConcluídas: %d",
+            BackgroundTasks.getEmAndamento(), BackgroundTasks.getPicoEmAndamento(),
+            BackgroundTasks.getThreadsNoPool(), BackgroundTasks.getConcluidas());
+    }
+
+    private String textoMemoria() {
+        Runtime rt = Runtime.getRuntime();
+        long usado = rt.totalMemory() - rt.freeMemory();
+        return String.format("Usado: %d MB de %d MB alocados%nMáximo: %d MB", usado / MB, rt.totalMemory() / MB, rt.maxMemory() / MB);
+    }
+
+    private String textoBanco() {
+        File banco = new File(Database.getDbPath());
+        File wal = new File(Database.getDbPath() + "-wal");
+        StringBuilder sb = new StringBuilder(String.format(Locale.US, "Banco: %.1f MB | WAL: %.1f MB",
+            banco.length() / (double) MB, wal.length() / (double) MB));
+        DatabaseMaintenance.ResultadoManutencao manutencao = DatabaseMaintenance.getUltimoResultado();
+        if (manutencao == null) {
+            sb.append("\nManutenção: ainda não executada nesta sessão");
+        } else {
+            sb.append(String.format("%nÚltima manutenção: %s (%s, %d páginas liberadas)",
+                manutencao.getDataHora(), manutencao.isIntegro() ? "íntegro" : manutencao.getIntegridade(),
+                manutencao.getPaginasLiberadas()));
+        }
+        return sb.toString();
+    }
+
+    private String textoTravamentos() {
+        List<FxStallDetector.Travamento> eventos = FxStallDetector.getEventosRecentes();
+        long maior = eventos.stream().mapToLong(FxStallDetector.Travamento::getDuracaoMs).max().orElse(0);
+        return String.format("Detectados: %d | maior: %d ms%nLimiar: %d ms", eventos.size(), maior, FxStallDetector.getLimiarMs());
+    }
+
+    /**
+     * Relatório completo em texto (o que é exportado).
+     */
+    private String gerarRelatorio() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== Diagnóstico FarmManager ===\n");
+        sb.append("Gerado em: ").append(DateTimeUtil.getCurrentTimestamp()).append('\n');
+        sb.append("Java: ").append(System.getProperty("java.version")).append(" (").append(System.getProperty("java.vendor")).append(")\n");
+        sb.append("Sistema: ").append(System.getProperty("os.name")).append(' ').append(System.getProperty("os.version"))
+          .append(" | CPUs: ").append(Runtime.getRuntime().availableProcessors()).append('\n');
+        sb.append("Banco: ").append(new File(Database.getDbPath()).getAbsolutePath()).append("\n\n");
+
+        sb.append("--- Conexões ---\n").append(textoConexoes()).append("\n\n");
+        sb.append("--- Comandos SQL ---\n").append(textoComandos()).append("\n\n");
+        sb.append("--- Tarefas em segundo plano ---\n").append(textoTarefas()).append("\n\n");
+        sb.append("--- Memória ---\n").append(textoMemoria()).append("\n\n");
+        sb.append("--- Arquivo do banco ---\n").append(textoBanco()).append("\n\n");
+
+        sb.append("--- Caches ---\n");
+        for (CacheStats c : CacheStats.listar()) {
+            sb.append(String.format(Locale.US, "%s: %d acertos, %d falhas (%.1f%%)%n",
+                c.getNome(), c.getAcertos(), c.getFalhas(), c.getTaxaAcerto() * 100));
+        }
+        sb.append('\n');
+
+        sb.append("--- Travamentos da interface ---\n").append(textoTravamentos()).append('\n');
+        for (FxStallDetector.Travamento t : FxStallDetector.getEventosRecentes()) {
+            sb.append(String.format("%s %d ms em %s%n%s", t.getDataHora(), t.getDuracaoMs(), t.getHandler(), t.getPilha()));
+        }
+        sb.append('\n');
+
+        sb.append(DbMetrics.gerarRelatorio(TOP_METODOS));
+        return sb.toString();
+    }
+
+    private static String ms(double valor) {
+        return String.format(Locale.US, "%.2f", valor);
+    }
+}
@@ -1,19 +1,23 @@
 package com.farmmanager.controller;
 
+import com.farmmanager.model.CategoriaFinanceira;
 import com.farmmanager.model.EstoqueItem;
 import com.farmmanager.model.EstoqueDAO;
 import com.farmmanager.model.FinanceiroDAO; 
 import com.farmmanager.model.Transacao; 
 import com.farmmanager.model.Conta; 
 import com.farmmanager.model.ContaDAO; 
+import com.farmmanager.model.PlanoParcelamento; // NOVO
+import com.farmmanager.model.PlanoParcelamentoDAO; // NOVO
 // NOVO: Imports para Histórico
 import com.farmmanager.model.AtividadeSafra; // ATUALIZADO: Import direto
 import com.farmmanager.model.AtividadeSafraDAO;
 import com.farmmanager.model.AtividadeSafraDAO.ConsumoHistoricoInfo;
 import com.farmmanager.util.AlertUtil;
+import com.farmmanager.util.AsyncDAO; // NOVO IMPORT
+import com.farmmanager.util.CamposParcelamento; // NOVO
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.concurrent.Task; // NOVO: Import para Task
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.beans.value.ChangeListener;
@@ -40,6 +44,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Locale; 
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -63,6 +68,9 @@ import java.util.stream.Collectors;
  * - ATUALIZADO (handleAdicionarItem): Diálogo agora usa ScrollPane e é redimensionável.
  * - NOVO: Implementada Aba de Histórico de Consumo com filtros e exportação CSV.
  * - ATUALIZADO (handleConsumirItem): Agora registra o consumo em 'atividades_safra' com safra_id nulo.
+ * - ATUALIZADO: carregarDadosMestres usa o AsyncDAO (itens, valor total e histórico em paralelo).
+ * - ATUALIZADO: Compras e vendas à vista gravam categoria, contraparte e origem no financeiro.
+ * - NOVO (handleAdicionarItem): Compra a prazo parcelada (PlanoParcelamento, N contas a pagar).
  */
 public class EstoqueController {
 
@@ -135,6 +143,7 @@ public class EstoqueController {
     private final EstoqueDAO estoqueDAO;
     private final FinanceiroDAO financeiroDAO; 
     private final ContaDAO contaDAO; 
+    private final PlanoParcelamentoDAO planoDAO; // NOVO
     private final AtividadeSafraDAO atividadeSafraDAO; // NOVO: Para histórico
     
     private final ObservableList<EstoqueItem> dadosTabelaFiltrada; 
@@ -148,26 +157,11 @@ public class EstoqueController {
 
     private boolean isUpdating = false;
 
-    /**
-     * NOVO: Classe interna para agrupar os resultados da Task
-     * ATUALIZADO: Renomeado para EstoquePageData e adicionado historico
-     */
-    private static class EstoquePageData {
-        final List<EstoqueItem> items;
-        final double valorTotal;
-        final List<ConsumoHistoricoInfo> historico; // NOVO
-
-        EstoquePageData(List<EstoqueItem> items, double valorTotal, List<ConsumoHistoricoInfo> historico) {
-            this.items = items;
-            this.valorTotal = valorTotal;
-            this.historico = historico; // NOVO
-        }
-    }
-
     public EstoqueController() {
         estoqueDAO = new EstoqueDAO();
         financeiroDAO = new FinanceiroDAO(); 
         contaDAO = new ContaDAO(); 
+        planoDAO = new PlanoParcelamentoDAO(); // NOVO
         atividadeSafraDAO = new AtividadeSafraDAO(); // NOVO
         
         dadosTabelaFiltrada = FXCollections.observableArrayList(); 
@@ -244,52 +238,38 @@ public class EstoqueController {
 
     /**
      * ATUALIZADO: Carrega todos os dados do banco (Itens, Valor Total, Histórico)
-     * em uma Task de background.
+     * em segundo plano, com as três consultas em paralelo (AsyncDAO).
      */
     private void carregarDadosMestres() {
-        Task<EstoquePageData> carregarTask = new Task<EstoquePageData>() {
-            @Override
-            protected EstoquePageData call() throws Exception {
-                // Chamadas de banco de dados (demoradas)
-                List<EstoqueItem> items = estoqueDAO.listEstoque();
-                double valorTotal = estoqueDAO.getValorTotalEmEstoque();
-                // NOVO: Busca o histórico
-                List<ConsumoHistoricoInfo> historico = atividadeSafraDAO.listConsumoHistorico();
-                
-                return new EstoquePageData(items, valorTotal, historico);
-            }
-        };
+        CompletableFuture<List<EstoqueItem>> items = AsyncDAO.consultar(estoqueDAO::listEstoque);
+        CompletableFuture<Double> valorTotal = AsyncDAO.consultar(estoqueDAO::getValorTotalEmEstoque);
+        CompletableFuture<List<ConsumoHistoricoInfo>> historico = AsyncDAO.consultar(atividadeSafraDAO::listConsumoHistorico);
 
-        carregarTask.setOnSucceeded(e -> {
-            EstoquePageData data = carregarTask.getValue();
+        showLoading(true);
 
+        AsyncDAO.naFx(AsyncDAO.todos(items, valorTotal, historico), ok -> {
             // 1. Atualiza a lista mestra de estoque
             listaMestraEstoque.clear();
-            listaMestraEstoque.addAll(data.items);
+            listaMestraEstoque.addAll(items.join());
 
             // 2. Atualiza o resumo
-            lblValorTotalEstoque.setText(currencyFormatter.format(data.valorTotal));
+            lblValorTotalEstoque.setText(currencyFormatter.format(valorTotal.join()));
 
-            // 3. NOVO: Atualiza a lista mestra de histórico
+            // 3. Atualiza a lista mestra de histórico
             listaMestraHistorico.clear();
-            listaMestraHistorico.addAll(data.historico);
+            listaMestraHistorico.addAll(historico.join());
 
             // 4. Aplica os filtros (rápido, em memória)
             aplicarFiltro();
-            aplicarFiltroHistorico(); // NOVO
-            
+            aplicarFiltroHistorico();
+
             // 5. Esconde o loading
             showLoading(false);
-        });
-
-        carregarTask.setOnFailed(e -> {
+        }, erro -> {
             AlertUtil.showError("Erro de Banco de Dados", "Não foi possível carregar o estoque e o histórico.");
-            carregarTask.getException().printStackTrace();
+            erro.printStackTrace();
             showLoading(false);
         });
-
-        showLoading(true);
-        new Thread(carregarTask).start();
     }
 
 
@@ -495,6 +475,10 @@ public class EstoqueController {
         grid.add(tipoPagCombo, 1, 8); // Linha movida
         grid.add(vencimentoLabel, 0, 9); // Linha movida
         grid.add(vencimentoPicker, 1, 9); // Linha movida
+
+        // NOVO: Parcelamento da compra a prazo (vencimento acima = 1ª parcela)
+        CamposParcelamento parcelamento = new CamposParcelamento();
+        parcelamento.adicionarAo(grid, 10);
         // --- FIM DA MELHORIA DE USABILIDADE ---
 
 
@@ -504,26 +488,28 @@ public class EstoqueController {
         valorTotalField.textProperty().addListener((obs, oldV, newV) -> calcularUnitario(qtdField, valorUnitarioField, valorTotalField));
         
         // --- Lógica de Visibilidade ---
-        vencimentoLabel.setVisible(false);
-        vencimentoPicker.setVisible(false);
-        vencimentoLabel.setManaged(false);
-        vencimentoPicker.setManaged(false);
-
-        // Esconde campos de pagamento se o financeiro não for registrado
-        registrarFinanceiroCheck.selectedProperty().addListener((obs, oldVal, newVal) -> {
-            boolean registrar = newVal;
+        // ATUALIZADO: Também reage à troca do tipo de pagamento (antes só ao checkbox,
+        // e o vencimento não aparecia ao escolher "A Prazo")
+        Runnable atualizarVisibilidade = () -> {
+            boolean registrar = registrarFinanceiroCheck.isSelected();
             tipoPagLabel.setVisible(registrar);
             tipoPagCombo.setVisible(registrar);
             tipoPagLabel.setManaged(registrar);
             tipoPagCombo.setManaged(registrar);
 
-            // Só mostra vencimento se for A Prazo E for registrar
+            // Só mostra vencimento (e parcelas) se for A Prazo E for registrar
             boolean aPrazo = tipoPagCombo.getSelectionModel().getSelectedItem().equals("A Prazo");
             vencimentoLabel.setVisible(registrar && aPrazo);
             vencimentoPicker.setVisible(registrar && aPrazo);
             vencimentoLabel.setManaged(registrar && aPrazo);
             vencimentoPicker.setManaged(registrar && aPrazo);
-        });
+            parcelamento.setVisivel(registrar && aPrazo);
+        };
+        atualizarVisibilidade.run();
+
+        // Esconde campos de pagamento se o financeiro não for registrado
+        registrarFinanceiroCheck.selectedProperty().addListener((obs, oldVal, newVal) -> atualizarVisibilidade.run());
+        tipoPagCombo.valueProperty().addListener((obs, oldVal, newVal) -> atualizarVisibilidade.run());
 
         // NOVO: Coloca o GridPane dentro de um ScrollPane
         ScrollPane scrollPane = new ScrollPane();
@@ -562,6 +548,15 @@ public class EstoqueController {
             }
 
             adicionarButtonNode.setDisable(!nomeOk || !unidadeOk || !qtdOk || !valorTotalOk);
+
+            // NOVO: Resumo das parcelas
+            double valorParcelado;
+            try {
+                valorParcelado = parseDouble(valorTotalField.getText());
+            } catch (NumberFormatException e) {
+                valorParcelado = 0;
+            }
+            parcelamento.atualizarResumo(valorParcelado, vencimentoPicker.getValue());
         };
         
         nomeField.textProperty().addListener((obs, o, n) -> validadorEstoque.run());
@@ -570,6 +565,8 @@ public class EstoqueController {
         valorTotalField.textProperty().addListener((obs, o, n) -> validadorEstoque.run());
         valorUnitarioField.textProperty().addListener((obs, o, n) -> validadorEstoque.run());
         registrarFinanceiroCheck.selectedProperty().addListener((obs, o, n) -> validadorEstoque.run());
+        vencimentoPicker.valueProperty().addListener((obs, o, n) -> validadorEstoque.run()); // NOVO
+        parcelamento.aoAlterar(validadorEstoque); // NOVO
         validadorEstoque.run(); // Validação inicial
         // --- Fim da Validação ---
 
@@ -609,7 +606,8 @@ public class EstoqueController {
                         return null;
                     }
 
-                    return new Pair<>(new CompraInfo(item, tipoPagamento, dataVencimento), deveRegistrar);
+                    return new Pair<>(new CompraInfo(item, tipoPagamento, dataVencimento,
+                        parcelamento.getNumeroParcelas(), parcelamento.getIntervaloMeses()), deveRegistrar);
 
                 } catch (NumberFormatException e) {
                     AlertUtil.showError("Erro de Formato", "Valores de quantidade ou R$ inválidos.");
@@ -639,10 +637,30 @@ public class EstoqueController {
                         double valor = -compraInfo.item.getValorTotal(); 
                         
                         Transacao transacao = new Transacao(desc, valor, data, "despesa");
+                        // NOVO: Classificação estruturada (o id do item só existe após o upsert)
+                        transacao.setCategoria(CategoriaFinanceira.COMPRA_INSUMOS);
+                        transacao.setContraparte(compraInfo.item.getFornecedorNome(), compraInfo.item.getFornecedorEmpresa());
+                        transacao.setOrigem(CategoriaFinanceira.ORIGEM_ESTOQUE, null);
                         financeiroDAO.addTransacao(transacao);
                         
                         AlertUtil.showInfo("Sucesso", "Item comprado (à vista) e despesa registrada no financeiro.");
 
+                    } else if (compraInfo.numeroParcelas > 1) { // NOVO: A Prazo, parcelado
+                        String desc = "Compra (a prazo): " + compraInfo.item.getItemNome();
+                        PlanoParcelamento plano = new PlanoParcelamento(
+                            desc,
+                            "pagar",
+                            compraInfo.item.getValorTotal(),
+                            compraInfo.numeroParcelas,
+                            compraInfo.dataVencimento.toString(),
+                            compraInfo.intervaloMeses,
+                            compraInfo.item.getFornecedorNome(),
+                            compraInfo.item.getFornecedorEmpresa()
+                        );
+                        planoDAO.criarPlano(plano);
+                        AlertUtil.showInfo("Sucesso", "Item comprado (a prazo) e " + compraInfo.numeroParcelas
+                            + " parcelas registradas em 'Contas a Pagar'.");
+
                     } else { // A Prazo
                         String desc = "Compra (a prazo): " + compraInfo.item.getItemNome();
                         Conta conta = new Conta(
@@ -911,6 +929,10 @@ public class EstoqueController {
                 if (vendaInfo.tipoRecebimento.equals("À Vista")) {
                     String data = LocalDate.now().format(dateFormatter);
                     Transacao transacao = new Transacao(desc, valorReceita, data, "receita"); 
+                    // NOVO: Classificação estruturada
+                    transacao.setCategoria(CategoriaFinanceira.VENDA_PRODUCAO);
+                    transacao.setContraparte(vendaInfo.clienteNome, vendaInfo.clienteEmpresa);
+                    transacao.setOrigem(CategoriaFinanceira.ORIGEM_ESTOQUE, selecionado.getId());
                     financeiroDAO.addTransacao(transacao);
                     AlertUtil.showInfo("Sucesso", "Venda (à vista) registrada. Estoque atualizado e receita lançada.");
 
@@ -1148,12 +1170,16 @@ public class EstoqueController {
     private static class CompraInfo {
         final EstoqueItem item;
         final String tipoPagamento; 
-        final LocalDate dataVencimento; 
+        final LocalDate dataVencimento; // 1ª parcela, se parcelado
+        final int numeroParcelas; // NOVO
+        final int intervaloMeses; // NOVO
 
-        CompraInfo(EstoqueItem item, String tipo, LocalDate data) {
+        CompraInfo(EstoqueItem item, String tipo, LocalDate data, int numeroParcelas, int intervaloMeses) {
             this.item = item;
             this.tipoPagamento = tipo;
             this.dataVencimento = data;
+            this.numeroParcelas = numeroParcelas;
+            this.intervaloMeses = intervaloMeses;
         }
     }
     
@@ -1,18 +1,25 @@
 package com.farmmanager.controller;
 
 import com.farmmanager.model.Transacao;
+import com.farmmanager.model.CategoriaFinanceira;
+import com.farmmanager.model.RegraCategoria;
+import com.farmmanager.model.RegraCategoriaDAO;
+import com.farmmanager.model.ArquivoDAO;
 import com.farmmanager.model.FinanceiroDAO;
 import com.farmmanager.util.AlertUtil;
+import com.farmmanager.util.AsyncDAO; // NOVO IMPORT
+import javafx.beans.binding.Bindings; // NOVO
+import javafx.beans.binding.BooleanBinding; // NOVO
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.concurrent.Task; // NOVO: Import para Task
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox; // NOVO: Import para o VBox
 import javafx.stage.FileChooser; 
 
@@ -26,7 +33,11 @@ import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 /**
@@ -42,6 +53,14 @@ import java.util.stream.Collectors;
  * movido para uma Task em background para não congelar a UI.
  * - CORREÇÃO (handleExportarCsv): Adicionado BOM UTF-8 para corrigir acentuação no Excel.
  * - ATUALIZADO: Adicionadas colunas de Fornecedor/Empresa (parseadas da descrição).
+ * - NOVO: Arquivamento de anos fechados e opção "Incluir arquivo" para relatórios.
+ * - ATUALIZADO: Carregamento e arquivamento em segundo plano pelo AsyncDAO.
+ * - ATUALIZADO: Fornecedor/Empresa e a nova coluna Categoria vêm das colunas do financeiro
+ *   (migração 6) em vez de serem parseados da descrição a cada renderização.
+ * - NOVO: Filtro por categoria; categoria no lançamento manual, na edição e no CSV.
+ * - NOVO: Regras de categorização automática (handleRegrasCategoria) e reclassificação
+ *   do financeiro em segundo plano; categorias criadas por regras entram no filtro.
+ * - CORRIGIDO: Transações de arquivos anuais ("Incluir arquivo") não podem ser editadas nem removidas.
  */
 public class FinanceiroController {
 
@@ -57,6 +76,8 @@ public class FinanceiroController {
     @FXML
     private TableColumn<Transacao, String> colFinFornecedorEmpresa; // NOVO
     @FXML
+    private TableColumn<Transacao, String> colFinCategoria; // NOVO
+    @FXML
     private TableColumn<Transacao, String> colFinData;
     @FXML
     private TableColumn<Transacao, String> colFinDataHoraCriacao;
@@ -73,7 +94,11 @@ public class FinanceiroController {
     @FXML
     private ComboBox<String> filtroTipo;
     @FXML
+    private ComboBox<String> filtroCategoria; // NOVO
+    @FXML
     private TextField filtroDescricao;
+    @FXML
+    private CheckBox chkIncluirArquivo; // NOVO: Inclui transações dos arquivos anuais
 
     // Resumo
     @FXML
@@ -99,6 +124,9 @@ public class FinanceiroController {
 
     // --- Lógica Interna ---
     private final FinanceiroDAO financeiroDAO;
+    private final ArquivoDAO arquivoDAO; // NOVO
+    private final RegraCategoriaDAO regraCategoriaDAO; // NOVO
+    private boolean reclassificacaoEmAndamento = false; // NOVO
     private final ObservableList<Transacao> dadosTabela; // O que está visível na tabela
     private List<Transacao> listaMestraTransacoes; // Lista completa do banco
     private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
@@ -106,6 +134,8 @@ public class FinanceiroController {
 
     public FinanceiroController() {
         financeiroDAO = new FinanceiroDAO();
+        arquivoDAO = new ArquivoDAO();
+        regraCategoriaDAO = new RegraCategoriaDAO();
         dadosTabela = FXCollections.observableArrayList();
         listaMestraTransacoes = new ArrayList<>();
         currencyFormatter = NumberFormat.getCurrencyInstance(new Locale("pt", "BR"));
@@ -119,19 +149,10 @@ public class FinanceiroController {
         colFinData.setText("Data Evento"); 
         colFinDesc.setCellValueFactory(new PropertyValueFactory<>("descricao"));
         
-        // NOVO: Coluna Fornecedor Nome (derivada da descrição)
-        colFinFornecedorNome.setCellValueFactory(cellData -> {
-            String desc = cellData.getValue().getDescricao();
-            String nome = parseInfoFromDesc(desc, "(Fornec:");
-            return new SimpleObjectProperty<>(nome);
-        });
-
-        // NOVO: Coluna Fornecedor Empresa (derivada da descrição)
-        colFinFornecedorEmpresa.setCellValueFactory(cellData -> {
-            String desc = cellData.getValue().getDescricao();
-            String empresa = parseInfoFromDesc(desc, "(Empresa:");
-            return new SimpleObjectProperty<>(empresa);
-        });
+        // ATUALIZADO: Fornecedor, Empresa e Categoria lidos das colunas do financeiro
+        colFinFornecedorNome.setCellValueFactory(new PropertyValueFactory<>("contraparteNome"));
+        colFinFornecedorEmpresa.setCellValueFactory(new PropertyValueFactory<>("contraparteEmpresa"));
+        colFinCategoria.setCellValueFactory(new PropertyValueFactory<>("categoria"));
         
         colFinDataHoraCriacao.setCellValueFactory(new PropertyValueFactory<>("dataHoraCriacao"));
 
@@ -186,43 +207,32 @@ public class FinanceiroController {
         // Configura Filtros
         filtroTipo.setItems(FXCollections.observableArrayList("Todos", "Receitas", "Despesas"));
         filtroTipo.getSelectionModel().select("Todos");
+        filtroCategoria.setItems(FXCollections.observableArrayList("Todas"));
+        filtroCategoria.getItems().addAll(CategoriaFinanceira.listar());
+        filtroCategoria.getSelectionModel().select("Todas");
 
         // Adiciona listeners para aplicar filtros automaticamente
         filtroDataInicio.valueProperty().addListener((o, ov, nv) -> handleAplicarFiltro());
         filtroDataFim.valueProperty().addListener((o, ov, nv) -> handleAplicarFiltro());
         filtroTipo.valueProperty().addListener((o, ov, nv) -> handleAplicarFiltro());
+        filtroCategoria.valueProperty().addListener((o, ov, nv) -> handleAplicarFiltro());
         filtroDescricao.textProperty().addListener((o, ov, nv) -> handleAplicarFiltro());
+        // NOVO: Incluir arquivo exige nova consulta ao banco (não é filtro em memória)
+        chkIncluirArquivo.selectedProperty().addListener((o, ov, nv) -> atualizarListaTransacoes());
 
         // Desabilita botões de editar/remover se nada estiver selecionado
-        btnEditar.disableProperty().bind(tabelaFinanceiro.getSelectionModel().selectedItemProperty().isNull());
-        btnRemover.disableProperty().bind(tabelaFinanceiro.getSelectionModel().selectedItemProperty().isNull());
+        // CORRIGIDO: ou se a transação selecionada vier de um arquivo anual (só consulta)
+        BooleanBinding semEdicao = Bindings.createBooleanBinding(() -> {
+            Transacao selecionada = tabelaFinanceiro.getSelectionModel().getSelectedItem();
+            return selecionada == null || selecionada.isArquivada();
+        }, tabelaFinanceiro.getSelectionModel().selectedItemProperty());
+        btnEditar.disableProperty().bind(semEdicao);
+        btnRemover.disableProperty().bind(semEdicao);
 
         // Carrega os dados iniciais (agora assíncrono)
         atualizarListaTransacoes();
     }
     
-    /**
-     * NOVO: Helper para extrair informação da descrição.
-     * Ex: "Compra (Fornec: Nome)" -> "Nome"
-     * Ex: "Compra (Empresa: EmpresaX)" -> "EmpresaX"
-     */
-    private String parseInfoFromDesc(String descricao, String prefix) {
-        if (descricao == null || !descricao.contains(prefix)) {
-            return null;
-        }
-        try {
-            int startIndex = descricao.indexOf(prefix) + prefix.length();
-            int endIndex = descricao.indexOf(")", startIndex);
-            if (endIndex == -1) {
-                endIndex = descricao.length(); // Se não fechar parênteses
-            }
-            return descricao.substring(startIndex, endIndex).trim();
-        } catch (Exception e) {
-            return null; // Erro de parsing
-        }
-    }
-
-
     /**
      * NOVO: Controla a visibilidade do indicador de carregamento e
      * desabilita/habilita o conteúdo principal.
@@ -238,48 +248,56 @@ public class FinanceiroController {
 
     /**
      * ATUALIZADO:
-     * Busca todos os dados do banco em uma Task (background thread).
+     * Busca todos os dados do banco em segundo plano (AsyncDAO).
      * Após sucesso, atualiza a lista mestra e aplica o filtro na thread do JavaFX.
      */
     private void atualizarListaTransacoes() {
-        // 1. Cria a Task para buscar dados em background
-        Task<List<Transacao>> carregarTask = new Task<List<Transacao>>() {
-            @Override
-            protected List<Transacao> call() throws Exception {
-                // Esta é a chamada de banco de dados demorada
-                return financeiroDAO.listTransacoes();
-            }
-        };
+        // Lido na FX Thread, antes de iniciar a consulta
+        boolean incluirArquivo = chkIncluirArquivo.isSelected();
 
-        // 2. Define o que fazer quando a Task for bem-sucedida (na JavaFX Thread)
-        carregarTask.setOnSucceeded(e -> {
-            // Pega o resultado da Task
+        // Mostra o indicador de carregamento ANTES de iniciar a consulta
+        showLoading(true);
+
+        // Por padrão consulta apenas o banco principal (ano corrente e abertos)
+        AsyncDAO.naFx(AsyncDAO.consultar(() -> financeiroDAO.listTransacoes(incluirArquivo)), transacoes -> {
             listaMestraTransacoes.clear();
-            listaMestraTransacoes.addAll(carregarTask.getValue());
-            
+            listaMestraTransacoes.addAll(transacoes);
+            atualizarCategoriasFiltro(); // NOVO
+
             // Aplica os filtros (isso é rápido e mexe na UI)
             handleAplicarFiltro();
-            
-            // Esconde o indicador de carregamento
-            showLoading(false);
-        });
 
-        // 3. Define o que fazer se a Task falhar (na JavaFX Thread)
-        carregarTask.setOnFailed(e -> {
+            showLoading(false);
+        }, erro -> {
             AlertUtil.showError("Erro de Banco de Dados", "Não foi possível carregar as transações.");
-            carregarTask.getException().printStackTrace();
-            // Esconde o indicador de carregamento
+            erro.printStackTrace();
             showLoading(false);
         });
+    }
 
-        // 4. Mostra o indicador de carregamento ANTES de iniciar a Task
-        showLoading(true);
 
-        // 5. Inicia a Task em uma nova Thread
-        new Thread(carregarTask).start();
+    /**
+     * NOVO: Opções do filtro de categoria: as padrão e, em ordem alfabética, as demais
+     * presentes nas transações carregadas (ex: criadas por regras). Mantém a seleção.
+     */
+    private void atualizarCategoriasFiltro() {
+        String selecionada = filtroCategoria.getValue();
+        Set<String> extras = new TreeSet<>();
+        for (Transacao t : listaMestraTransacoes) {
+            if (t.getCategoria() != null && !CategoriaFinanceira.listar().contains(t.getCategoria())) {
+                extras.add(t.getCategoria());
+            }
+        }
+        List<String> opcoes = new ArrayList<>();
+        opcoes.add("Todas");
+        opcoes.addAll(CategoriaFinanceira.listar());
+        opcoes.addAll(extras);
+        if (!opcoes.equals(filtroCategoria.getItems())) {
+            filtroCategoria.getItems().setAll(opcoes);
+            filtroCategoria.getSelectionModel().select(opcoes.contains(selecionada) ? selecionada : "Todas");
+        }
     }
 
-
     /**
      * NOVO: Limpa os filtros e recarrega os dados.
      */
@@ -289,6 +307,8 @@ public class FinanceiroController {
         filtroDataFim.setValue(null);
         filtroDescricao.clear();
         filtroTipo.getSelectionModel().select("Todos");
+        filtroCategoria.getSelectionModel().select("Todas");
+        chkIncluirArquivo.setSelected(false);
         
         // handleAplicarFiltro() é chamado automaticamente pelos listeners
     }
@@ -302,6 +322,7 @@ public class FinanceiroController {
         LocalDate dataInicio = filtroDataInicio.getValue();
         LocalDate dataFim = filtroDataFim.getValue();
         String tipo = filtroTipo.getSelectionModel().getSelectedItem();
+        String categoria = filtroCategoria.getSelectionModel().getSelectedItem();
         String descricao = filtroDescricao.getText().toLowerCase().trim();
 
         // 1. Filtra a lista (em memória)
@@ -322,6 +343,10 @@ public class FinanceiroController {
                         return false;
                     }
                 }
+                // NOVO: Filtro por Categoria
+                if (categoria != null && !categoria.equals("Todas") && !categoria.equals(t.getCategoria())) {
+                    return false;
+                }
                 // Filtro por Descrição
                 if (!descricao.isEmpty()) {
                     if (!t.getDescricao().toLowerCase().contains(descricao)) {
@@ -388,6 +413,10 @@ public class FinanceiroController {
             AlertUtil.showError("Nenhuma Seleção", "Selecione uma transação para editar.");
             return;
         }
+        if (selecionada.isArquivada()) {
+            AlertUtil.showError("Transação Arquivada", "Transações de anos arquivados não podem ser editadas.");
+            return;
+        }
         abrirDialogoEdicao(selecionada);
     }
 
@@ -398,6 +427,10 @@ public class FinanceiroController {
             AlertUtil.showError("Nenhuma Seleção", "Selecione uma transação para remover.");
             return;
         }
+        if (selecionada.isArquivada()) {
+            AlertUtil.showError("Transação Arquivada", "Transações de anos arquivados não podem ser removidas.");
+            return;
+        }
 
         boolean confirmado = AlertUtil.showConfirmation("Confirmar Remoção",
             "Tem certeza que deseja remover a transação:\n'" + selecionada.getDescricao() + "' (" + currencyFormatter.format(selecionada.getValor()) + ")?");
@@ -417,6 +450,191 @@ public class FinanceiroController {
         }
     }
 
+    /**
+     * NOVO: Arquiva um ano agrícola fechado.
+     * Move transações, atividades de safras colhidas e contas pagas do ano
+     * para o arquivo anual, mantendo o banco principal pequeno.
+     */
+    @FXML
+    private void handleArquivarAno() {
+        List<Integer> anos;
+        try {
+            anos = arquivoDAO.listAnosArquivaveis();
+        } catch (SQLException e) {
+            AlertUtil.showError("Erro de Banco de Dados", "Não foi possível listar os anos arquiváveis: " + e.getMessage());
+            return;
+        }
+
+        if (anos.isEmpty()) {
+            AlertUtil.showInfo("Nada para Arquivar", "Não há anos fechados com lançamentos no banco principal.");
+            return;
+        }
+
+        ChoiceDialog<Integer> dialog = new ChoiceDialog<>(anos.get(0), anos);
+        dialog.setTitle("Arquivar Ano Fechado");
+        dialog.setHeaderText("Os lançamentos do ano escolhido serão movidos para um arquivo separado.\n"
+            + "Eles continuam disponíveis marcando \"Incluir arquivo\".");
+        dialog.setContentText("Ano:");
+        AlertUtil.setDialogIcon(dialog);
+
+        Optional<Integer> result = dialog.showAndWait();
+        if (!result.isPresent()) {
+            return;
+        }
+        int ano = result.get();
+
+        boolean confirmado = AlertUtil.showConfirmation("Confirmar Arquivamento",
+            "Arquivar todos os lançamentos fechados de " + ano + "?\n\n"
+            + "Contas pendentes e atividades de safras ainda não colhidas permanecem no banco principal.");
+        if (!confirmado) {
+            return;
+        }
+
+        showLoading(true);
+        AsyncDAO.naFx(AsyncDAO.consultar(() -> arquivoDAO.arquivarAno(ano)), r -> {
+            showLoading(false);
+            AlertUtil.showInfo("Arquivamento Concluído",
+                "Ano " + r.getAno() + " arquivado em:\n" + r.getCaminhoArquivo() + "\n\n"
+                + "Transações: " + r.getTransacoes() + "\n"
+                + "Atividades: " + r.getAtividades() + "\n"
+                + "Contas pagas: " + r.getContas());
+            atualizarListaTransacoes();
+        }, erro -> {
+            showLoading(false);
+            AlertUtil.showError("Erro ao Arquivar", "Não foi possível arquivar o ano " + ano + ": " + erro.getMessage());
+            erro.printStackTrace();
+        });
+    }
+
+    /**
+     * NOVO: Cadastro das regras de categorização automática.
+     * "Aplicar às Transações" reclassifica o financeiro em segundo plano.
+     */
+    @FXML
+    private void handleRegrasCategoria() {
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Regras de Categoria");
+        dialog.setHeaderText("Palavras-chave ou expressões que definem a categoria pela descrição.\n"
+            + "As regras só alteram categorias genéricas (Outras Receitas/Despesas) ou definidas por outra regra.");
+
+        ButtonType aplicarButtonType = new ButtonType("Aplicar às Transações", ButtonBar.ButtonData.OK_DONE);
+        dialog.getDialogPane().getButtonTypes().addAll(aplicarButtonType, ButtonType.CLOSE);
+
+        // 1. Tabela das regras cadastradas
+        TableView<RegraCategoria> tabelaRegras = new TableView<>();
+        tabelaRegras.setPrefSize(580, 260);
+        TableColumn<RegraCategoria, String> colPadrao = new TableColumn<>("Padrão");
+        colPadrao.setCellValueFactory(new PropertyValueFactory<>("padrao"));
+        colPadrao.setPrefWidth(200);
+        TableColumn<RegraCategoria, String> colTipo = new TableColumn<>("Tipo");
+        colTipo.setCellValueFactory(new PropertyValueFactory<>("tipoDescricao"));
+        colTipo.setPrefWidth(130);
+        TableColumn<RegraCategoria, String> colCategoria = new TableColumn<>("Categoria");
+        colCategoria.setCellValueFactory(new PropertyValueFactory<>("categoria"));
+        colCategoria.setPrefWidth(150);
+        TableColumn<RegraCategoria, Integer> colPrioridade = new TableColumn<>("Prioridade");
+        colPrioridade.setCellValueFactory(new PropertyValueFactory<>("prioridade"));
+        colPrioridade.setPrefWidth(80);
+        tabelaRegras.getColumns().addAll(List.of(colPadrao, colTipo, colCategoria, colPrioridade));
+
+        Runnable carregarRegras = () -> {
+            try {
+                tabelaRegras.getItems().setAll(regraCategoriaDAO.listRegras());
+            } catch (SQLException e) {
+                AlertUtil.showError("Erro de Banco de Dados", "Não foi possível carregar as regras: " + e.getMessage());
+            }
+        };
+        carregarRegras.run();
+
+        // 2. Nova regra
+        TextField padraoField = new TextField();
+        padraoField.setPromptText("Ex: diesel");
+        ComboBox<String> tipoCombo = new ComboBox<>(FXCollections.observableArrayList("Palavra-chave", "Expressão regular"));
+        tipoCombo.getSelectionModel().select(0);
+        ComboBox<String> categoriaCombo = criarComboCategoria(null);
+        categoriaCombo.setEditable(true); // permite criar categorias (ex: "Combustível")
+        categoriaCombo.setPromptText("Ex: Combustível");
+        TextField prioridadeField = new TextField("0");
+        prioridadeField.setPrefWidth(60);
+
+        Button btnAdicionar = new Button("Adicionar Regra");
+        btnAdicionar.setOnAction(e -> {
+            try {
+                int prioridade = Integer.parseInt(prioridadeField.getText().trim());
+                String tipo = tipoCombo.getSelectionModel().getSelectedIndex() == 1
+                    ? RegraCategoria.TIPO_REGEX : RegraCategoria.TIPO_PALAVRA;
+                regraCategoriaDAO.addRegra(new RegraCategoria(padraoField.getText(), tipo,
+                    categoriaCombo.getEditor().getText(), prioridade));
+                padraoField.clear();
+                carregarRegras.run();
+            } catch (NumberFormatException ex) {
+                AlertUtil.showError("Erro de Formato", "Prioridade inválida (use um número inteiro).");
+            } catch (IllegalArgumentException ex) {
+                AlertUtil.showError("Erro de Validação", ex.getMessage());
+            } catch (SQLException ex) {
+                AlertUtil.showError("Erro de Banco de Dados", "Não foi possível adicionar a regra: " + ex.getMessage());
+            }
+        });
+
+        Button btnRemover = new Button("Remover Regra");
+        btnRemover.disableProperty().bind(tabelaRegras.getSelectionModel().selectedItemProperty().isNull());
+        btnRemover.setOnAction(e -> {
+            RegraCategoria selecionada = tabelaRegras.getSelectionModel().getSelectedItem();
+            try {
+                regraCategoriaDAO.removerRegra(selecionada.getId());
+                carregarRegras.run();
+            } catch (SQLException ex) {
+                AlertUtil.showError("Erro de Banco de Dados", "Não foi possível remover a regra: " + ex.getMessage());
+            }
+        });
+
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(10);
+        grid.add(new Label("Padrão:"), 0, 0);
+        grid.add(padraoField, 1, 0);
+        grid.add(new Label("Tipo:"), 0, 1);
+        grid.add(tipoCombo, 1, 1);
+        grid.add(new Label("Categoria:"), 0, 2);
+        grid.add(categoriaCombo, 1, 2);
+        grid.add(new Label("Prioridade:"), 0, 3);
+        grid.add(prioridadeField, 1, 3);
+        grid.add(new HBox(10, btnAdicionar, btnRemover), 1, 4);
+
+        VBox conteudo = new VBox(10, tabelaRegras, grid);
+        conteudo.setPadding(new Insets(20, 10, 10, 10));
+        dialog.getDialogPane().setContent(conteudo);
+        AlertUtil.setDialogIcon(dialog);
+
+        Optional<ButtonType> result = dialog.showAndWait();
+        if (result.isPresent() && result.get() == aplicarButtonType) {
+            reclassificarTransacoes();
+        }
+    }
+
+    /**
+     * NOVO: Reclassifica o financeiro pelas regras em segundo plano (a tela continua utilizável).
+     */
+    private void reclassificarTransacoes() {
+        if (reclassificacaoEmAndamento) {
+            AlertUtil.showInfo("Reclassificação em Andamento", "As transações já estão sendo reclassificadas.");
+            return;
+        }
+        reclassificacaoEmAndamento = true;
+        long inicio = System.nanoTime();
+        AsyncDAO.naFx(AsyncDAO.consultar(() -> regraCategoriaDAO.reclassificarFinanceiro(regraCategoriaDAO.carregarClassificador())), alteradas -> {
+            reclassificacaoEmAndamento = false;
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+            AlertUtil.showInfo("Reclassificação Concluída", String.format(Locale.ROOT,
+                "%d transação(ões) com a categoria alterada pelas regras (%.1f s).", alteradas, segundos));
+            atualizarListaTransacoes();
+        }, erro -> {
+            reclassificacaoEmAndamento = false;
+            AlertUtil.showError("Erro na Reclassificação", "Não foi possível aplicar as regras: " + erro.getMessage());
+            erro.printStackTrace();
+        });
+    }
+
     @FXML
     private void handleExportarCsv() {
         if (dadosTabela.isEmpty()) {
@@ -443,23 +661,26 @@ public class FinanceiroController {
             StringBuilder sb = new StringBuilder();
             
             // Cabeçalho do CSV ATUALIZADO
-            sb.append("ID;Data Evento;Data Lancamento;Descricao;Fornecedor;Empresa;Tipo;Entrada (R$);Saida (R$)\n");
+            sb.append("ID;Data Evento;Data Lancamento;Descricao;Categoria;Fornecedor;Empresa;Tipo;Entrada (R$);Saida (R$)\n");
+            Map<String, Double> totaisPorCategoria = new TreeMap<>(); // NOVO: resumo por categoria
 
             // Escreve os dados (usando a lista filtrada 'dadosTabela')
             for (Transacao t : dadosTabela) {
                 double entrada = t.getValor() > 0 ? t.getValor() : 0.0;
                 double saida = t.getValor() < 0 ? -t.getValor() : 0.0; // Valor absoluto
                 
-                // NOVO: Extrair fornecedor
-                String nomeFornec = parseInfoFromDesc(t.getDescricao(), "(Fornec:");
-                String empFornec = parseInfoFromDesc(t.getDescricao(), "(Empresa:");
+                // ATUALIZADO: Fornecedor e categoria lidos das colunas (migração 6)
+                String nomeFornec = t.getContraparteNome();
+                String empFornec = t.getContraparteEmpresa();
+                totaisPorCategoria.merge(t.getCategoria(), t.getValor(), Double::sum);
 
                 // ATUALIZADO: String.format com novos campos
-                sb.append(String.format(Locale.US, "%d;%s;%s;\"%s\";\"%s\";\"%s\";%s;%.2f;%.2f\n",
+                sb.append(String.format(Locale.US, "%d;%s;%s;\"%s\";\"%s\";\"%s\";\"%s\";%s;%.2f;%.2f\n",
                     t.getId(),
                     t.getData(),
                     t.getDataHoraCriacao(),
                     t.getDescricao().replace("\"", "\"\""), // Escapa aspas
+                    t.getCategoria(), // NOVO
                     nomeFornec != null ? nomeFornec.replace("\"", "\"\"") : "", // NOVO
                     empFornec != null ? empFornec.replace("\"", "\"\"") : "", // NOVO
                     t.getTipo(),
@@ -474,6 +695,12 @@ public class FinanceiroController {
             sb.append("Total Despesas;").append(lblTotalDespesasPeriodo.getText()).append("\n");
             sb.append("Balanco;").append(lblBalancoPeriodo.getText()).append("\n");
 
+            // NOVO: Totais por categoria
+            sb.append("\n--- Totais por Categoria ---\n");
+            for (Map.Entry<String, Double> total : totaisPorCategoria.entrySet()) {
+                sb.append(String.format(Locale.US, "\"%s\";%.2f\n", total.getKey(), total.getValue()));
+            }
+
             writer.write(sb.toString());
             AlertUtil.showInfo("Sucesso", "Relatório CSV (Filtrado) exportado com sucesso para:\n" + file.getAbsolutePath());
 
@@ -484,6 +711,20 @@ public class FinanceiroController {
     }
 
 
+    /**
+     * NOVO: ComboBox com as categorias do filtro, já selecionada (a categoria atual entra na
+     * lista se ainda não estiver nela).
+     */
+    private ComboBox<String> criarComboCategoria(String selecionada) {
+        ComboBox<String> combo = new ComboBox<>(FXCollections.observableArrayList(filtroCategoria.getItems()));
+        combo.getItems().remove("Todas");
+        if (selecionada != null && !combo.getItems().contains(selecionada)) {
+            combo.getItems().add(selecionada);
+        }
+        combo.getSelectionModel().select(selecionada);
+        return combo;
+    }
+
     /**
      * Método auxiliar para abrir um diálogo de transação (Receita ou Despesa).
      * @param tipo "receita" ou "despesa"
@@ -508,6 +749,7 @@ public class FinanceiroController {
         TextField valorField = new TextField();
         valorField.setPromptText("Ex: 5000.00");
         DatePicker dataPicker = new DatePicker(LocalDate.now()); 
+        ComboBox<String> categoriaCombo = criarComboCategoria(CategoriaFinanceira.padrao(tipo)); // NOVO
 
         grid.add(new Label("Descrição:"), 0, 0);
         grid.add(descField, 1, 0);
@@ -515,6 +757,8 @@ public class FinanceiroController {
         grid.add(valorField, 1, 1);
         grid.add(new Label("Data Evento:"), 0, 2); 
         grid.add(dataPicker, 1, 2); 
+        grid.add(new Label("Categoria:"), 0, 3);
+        grid.add(categoriaCombo, 1, 3);
 
         dialog.getDialogPane().setContent(grid);
         AlertUtil.setDialogIcon(dialog); // NOVO: Adiciona o ícone
@@ -541,7 +785,10 @@ public class FinanceiroController {
 
                     double valorFinal = isReceita ? valor : -valor;
                     
-                    return new Transacao(desc, valorFinal, data.format(dateFormatter), tipo); // Data formatada
+                    Transacao nova = new Transacao(desc, valorFinal, data.format(dateFormatter), tipo); // Data formatada
+                    nova.setCategoria(categoriaCombo.getValue()); // NOVO
+                    nova.setOrigem(CategoriaFinanceira.ORIGEM_MANUAL, null);
+                    return nova;
                 } catch (NumberFormatException e) {
                     AlertUtil.showError("Erro de Formato", "Valor inválido.");
                     return null;
@@ -583,6 +830,7 @@ public class FinanceiroController {
         TextField descField = new TextField(transacao.getDescricao());
         TextField valorField = new TextField(String.format(Locale.US, "%.2f", Math.abs(transacao.getValor()))); 
         DatePicker dataPicker = new DatePicker(LocalDate.parse(transacao.getData(), dateFormatter));
+        ComboBox<String> categoriaCombo = criarComboCategoria(transacao.getCategoria()); // NOVO
 
         grid.add(new Label("Descrição:"), 0, 0);
         grid.add(descField, 1, 0);
@@ -590,6 +838,8 @@ public class FinanceiroController {
         grid.add(valorField, 1, 1);
         grid.add(new Label("Data Evento:"), 0, 2);
         grid.add(dataPicker, 1, 2);
+        grid.add(new Label("Categoria:"), 0, 3);
+        grid.add(categoriaCombo, 1, 3);
 
         dialog.getDialogPane().setContent(grid);
         AlertUtil.setDialogIcon(dialog); // NOVO: Adiciona o ícone
@@ -608,7 +858,7 @@ public class FinanceiroController {
 
                     double valorFinal = transacao.getTipo().equals("receita") ? valorAbsoluto : -valorAbsoluto;
 
-                    return new Transacao(
+                    Transacao editada = new Transacao(
                         transacao.getId(),
                         desc,
                         valorFinal,
@@ -616,6 +866,8 @@ public class FinanceiroController {
                         transacao.getTipo(), 
                         transacao.getDataHoraCriacao()
                     );
+                    editada.setCategoria(categoriaCombo.getValue()); // NOVO
+                    return editada;
                     
                 } catch (NumberFormatException e) {
                     AlertUtil.showError("Erro de Formato", "Valor inválido.");
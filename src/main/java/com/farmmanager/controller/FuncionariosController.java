@@ -1,10 +1,14 @@
 package com.farmmanager.controller;
 
+import com.farmmanager.model.CategoriaFinanceira;
 import com.farmmanager.model.Funcionario;
 import com.farmmanager.model.FuncionarioDAO;
 import com.farmmanager.model.FinanceiroDAO; // NOVO
+import com.farmmanager.model.FolhaPagamentoDAO; // NOVO
+import com.farmmanager.model.ItemFolha; // NOVO
 import com.farmmanager.model.Transacao; // NOVO
 import com.farmmanager.util.AlertUtil;
+import javafx.beans.property.SimpleBooleanProperty; // NOVO
 import javafx.beans.property.SimpleObjectProperty; // NOVO
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -12,8 +16,12 @@ import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos; // NOVO
 import javafx.scene.control.*;
+import javafx.scene.control.cell.CheckBoxTableCell; // NOVO
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.scene.control.cell.TextFieldTableCell; // NOVO
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.VBox; // NOVO
+import javafx.util.StringConverter; // NOVO
 import javafx.stage.FileChooser; // NOVO: Import para FileChooser
 import java.io.File; // NOVO: Import para File
 import java.io.IOException; // NOVO: Import para IOException
@@ -22,8 +30,13 @@ import java.io.PrintWriter; // NOVO: Import para PrintWriter
 import java.sql.SQLException;
 import java.text.NumberFormat; // NOVO
 import java.time.LocalDate; // NOVO
+import java.time.YearMonth; // NOVO
+import java.time.format.DateTimeFormatter; // NOVO
+import java.util.ArrayList; // NOVO
+import java.util.Collections; // NOVO
 import java.util.List;
 import java.util.Locale; // NOVO
+import java.util.Map; // NOVO
 import java.util.Optional;
 
 /**
@@ -37,6 +50,12 @@ import java.util.Optional;
  * - ATUALIZADO: Adicionado "handleLancarOutroPagamento" para pagamentos customizados.
  * - ATUALIZADO: Adicionado painel de detalhes (SplitPane) com histórico de pagamentos.
  * - ATUALIZADO: Adicionada função de exportar CSV do funcionário.
+ * - ATUALIZADO: Histórico de pagamentos por funcionario_id (índice), em páginas
+ *   ("Carregar mais"); o total vem de uma agregação e não da soma da página.
+ * - NOVO: Folha de pagamento do mês (handleFolhaPagamento): prévia com todos os funcionários
+ *   e lançamento em uma única transação (FolhaPagamentoDAO). O salário padrão individual
+ *   também passa pela folha, então a mesma competência não é paga duas vezes.
+ * - ATUALIZADO: Pagamentos avulsos gravam categoria e o funcionário como contraparte/origem.
  */
 public class FuncionariosController {
 
@@ -81,10 +100,17 @@ public class FuncionariosController {
     private TableColumn<Transacao, Double> colPagSaida; // NOVO
     @FXML
     private Label lblTotalPagamentos; // NOVO
+    @FXML
+    private Button btnCarregarMaisPagamentos; // NOVO
     // --- Fim do Painel de Detalhes ---
 
+    private static final int PAGINA_PAGAMENTOS = 100; // NOVO
+    private static final DateTimeFormatter FORMATO_COMPETENCIA = DateTimeFormatter.ofPattern("MM/yyyy"); // NOVO
+    private int totalPagamentosFuncionario; // NOVO: quantidade total, para a paginação
+
     private final FuncionarioDAO funcionarioDAO;
     private final FinanceiroDAO financeiroDAO; // NOVO
+    private final FolhaPagamentoDAO folhaPagamentoDAO; // NOVO
     private final ObservableList<Funcionario> dadosTabela;
     private final ObservableList<Transacao> dadosTabelaPagamentos; // NOVO
     private final NumberFormat currencyFormatter; // NOVO
@@ -92,6 +118,7 @@ public class FuncionariosController {
     public FuncionariosController() {
         funcionarioDAO = new FuncionarioDAO();
         financeiroDAO = new FinanceiroDAO(); // NOVO
+        folhaPagamentoDAO = new FolhaPagamentoDAO(); // NOVO
         dadosTabela = FXCollections.observableArrayList();
         dadosTabelaPagamentos = FXCollections.observableArrayList(); // NOVO
         currencyFormatter = NumberFormat.getCurrencyInstance(new Locale("pt", "BR")); // NOVO
@@ -176,6 +203,8 @@ public class FuncionariosController {
         lblDetalhesTitulo.setText("Detalhes: (Selecione um funcionário)");
         dadosTabelaPagamentos.clear();
         lblTotalPagamentos.setText("Total Pago: R$ 0,00");
+        totalPagamentosFuncionario = 0;
+        atualizarBotaoCarregarMais();
     }
 
     /**
@@ -190,17 +219,17 @@ public class FuncionariosController {
         lblDetalhesTitulo.setText("Histórico de Pagamentos: " + selecionado.getNome());
 
         try {
-            // Busca no financeiro por transações que contenham o nome do funcionário
-            List<Transacao> pagamentos = financeiroDAO.listTransacoesPorDescricaoContendo(selecionado.getNome());
+            // ATUALIZADO: Busca pelo funcionario_id (índice), primeira página apenas
+            List<Transacao> pagamentos = financeiroDAO.listPagamentosFuncionario(selecionado.getId(), PAGINA_PAGAMENTOS, 0);
+            Map<String, Double> totais = financeiroDAO.getTotalPagamentosFuncionario(selecionado.getId(), null, null);
             
             dadosTabelaPagamentos.clear();
             dadosTabelaPagamentos.addAll(pagamentos);
 
-            // Calcula o custo total
-            double totalPago = 0.0;
-            for (Transacao t : pagamentos) {
-                totalPago += t.getValor(); // Valores já são negativos
-            }
+            // ATUALIZADO: Total de todo o histórico (não só da página carregada); valores já são negativos
+            double totalPago = totais.get("total");
+            totalPagamentosFuncionario = totais.get("quantidade").intValue();
+            atualizarBotaoCarregarMais();
             
             // Exibe o valor absoluto formatado
             lblTotalPagamentos.setText("Total Pago: " + currencyFormatter.format(Math.abs(totalPago)));
@@ -211,6 +240,35 @@ public class FuncionariosController {
         }
     }
 
+    /**
+     * NOVO: Carrega a próxima página do histórico de pagamentos do funcionário selecionado.
+     */
+    @FXML
+    private void handleCarregarMaisPagamentos() {
+        Funcionario selecionado = tabelaFuncionarios.getSelectionModel().getSelectedItem();
+        if (selecionado == null) {
+            return;
+        }
+        try {
+            dadosTabelaPagamentos.addAll(
+                financeiroDAO.listPagamentosFuncionario(selecionado.getId(), PAGINA_PAGAMENTOS, dadosTabelaPagamentos.size()));
+            atualizarBotaoCarregarMais();
+        } catch (SQLException e) {
+            AlertUtil.showError("Erro de Banco de Dados", "Não foi possível carregar o histórico de pagamentos: " + e.getMessage());
+        }
+    }
+
+    /**
+     * NOVO: Mostra quantos pagamentos faltam carregar (e desabilita o botão quando não há mais).
+     */
+    private void atualizarBotaoCarregarMais() {
+        int carregados = dadosTabelaPagamentos.size();
+        btnCarregarMaisPagamentos.setDisable(carregados >= totalPagamentosFuncionario);
+        btnCarregarMaisPagamentos.setText(carregados >= totalPagamentosFuncionario
+            ? "Carregar mais"
+            : "Carregar mais (" + carregados + " de " + totalPagamentosFuncionario + ")");
+    }
+
     /**
      * ATUALIZADO: Adicionado DatePicker para data de início e novos campos.
      */
@@ -340,6 +398,8 @@ public class FuncionariosController {
 
     /**
      * NOVO: Lança o pagamento do salário Padrão do funcionário selecionado no financeiro.
+     * ATUALIZADO: Lançado como folha de um só funcionário (competência do mês atual),
+     * para não pagar o mesmo mês duas vezes.
      */
     @FXML
     private void handlePagarSalarioPadrao() { // RENOMEADO
@@ -350,18 +410,24 @@ public class FuncionariosController {
             return;
         }
 
-        String dataHoje = LocalDate.now().toString();
-        String desc = "Pagamento de salário: " + selecionado.getNome();
-        double valor = -selecionado.getSalario(); // Despesa é negativa
+        LocalDate hoje = LocalDate.now();
+        YearMonth competencia = YearMonth.from(hoje);
 
         boolean confirmado = AlertUtil.showConfirmation("Confirmar Pagamento", 
             "Deseja lançar o pagamento de " + currencyFormatter.format(selecionado.getSalario()) + 
-            " para " + selecionado.getNome() + " com data de hoje (" + dataHoje + ")?");
+            " para " + selecionado.getNome() + " com data de hoje (" + hoje + "), competência " +
+            competencia.format(FORMATO_COMPETENCIA) + "?");
 
         if (confirmado) {
             try {
-                Transacao transacao = new Transacao(desc, valor, dataHoje, "despesa");
-                financeiroDAO.addTransacao(transacao);
+                ItemFolha item = new ItemFolha(selecionado.getId(), selecionado.getNome(), selecionado.getSalario(), false);
+                FolhaPagamentoDAO.ResultadoFolha resultado =
+                    folhaPagamentoDAO.lancar(competencia, hoje, Collections.singletonList(item), "");
+                if (resultado.getPagos() == 0) {
+                    AlertUtil.showError("Salário já Lançado", selecionado.getNome() + " já recebeu o salário da competência "
+                        + competencia.format(FORMATO_COMPETENCIA) + ".");
+                    return;
+                }
                 AlertUtil.showInfo("Sucesso", "Pagamento lançado no financeiro com sucesso.");
                 // Atualiza o painel de detalhes se o funcionário ainda estiver selecionado
                 if(selecionado.equals(tabelaFuncionarios.getSelectionModel().getSelectedItem())) {
@@ -373,6 +439,204 @@ public class FuncionariosController {
         }
     }
 
+    /**
+     * NOVO: Folha de pagamento do mês para todos os funcionários.
+     * Mostra a prévia (salário, extras editáveis, quem já foi pago) e lança os itens
+     * marcados em uma única transação.
+     */
+    @FXML
+    private void handleFolhaPagamento() {
+        if (dadosTabela.isEmpty()) {
+            AlertUtil.showError("Sem Funcionários", "Cadastre funcionários antes de lançar a folha de pagamento.");
+            return;
+        }
+        List<Funcionario> funcionarios = new ArrayList<>(dadosTabela);
+
+        // 1. Criar o diálogo customizado
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Folha de Pagamento");
+        dialog.setHeaderText("Confira a prévia e lance os salários do mês de uma só vez.");
+
+        // 2. Definir os botões
+        ButtonType lancarButtonType = new ButtonType("Lançar Folha", ButtonBar.ButtonData.OK_DONE);
+        dialog.getDialogPane().getButtonTypes().addAll(lancarButtonType, ButtonType.CANCEL);
+
+        // 3. Campos: competência, data do pagamento e motivo dos extras
+        ComboBox<YearMonth> competenciaCombo = new ComboBox<>();
+        YearMonth atual = YearMonth.now();
+        for (int i = 0; i < 12; i++) {
+            competenciaCombo.getItems().add(atual.minusMonths(i));
+        }
+        competenciaCombo.setConverter(new StringConverter<YearMonth>() {
+            @Override
+            public String toString(YearMonth competencia) {
+                return competencia == null ? "" : competencia.format(FORMATO_COMPETENCIA);
+            }
+
+            @Override
+            public YearMonth fromString(String texto) {
+                return YearMonth.parse(texto, FORMATO_COMPETENCIA);
+            }
+        });
+        competenciaCombo.setValue(atual);
+        DatePicker dataPicker = new DatePicker(LocalDate.now());
+        TextField descExtrasField = new TextField("Hora extra");
+
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(10);
+        grid.add(new Label("Competência:"), 0, 0);
+        grid.add(competenciaCombo, 1, 0);
+        grid.add(new Label("Data do Pagamento:"), 0, 1);
+        grid.add(dataPicker, 1, 1);
+        grid.add(new Label("Motivo dos Extras:"), 0, 2);
+        grid.add(descExtrasField, 1, 2);
+
+        // 4. Tabela da prévia
+        TableView<ItemFolha> tabelaPrevia = new TableView<>();
+        tabelaPrevia.setEditable(true);
+        tabelaPrevia.setPrefSize(620, 360);
+        Label lblTotalFolha = new Label();
+        lblTotalFolha.setStyle("-fx-font-weight: bold; -fx-font-size: 14px;");
+
+        Runnable atualizarTotal = () -> {
+            double total = 0;
+            int quantidade = 0;
+            for (ItemFolha item : tabelaPrevia.getItems()) {
+                if (item.isIncluir()) {
+                    total += item.getTotal();
+                    quantidade++;
+                }
+            }
+            lblTotalFolha.setText("Total da Folha: " + currencyFormatter.format(total) + " (" + quantidade + " funcionário(s))");
+        };
+
+        TableColumn<ItemFolha, Boolean> colIncluir = new TableColumn<>("Pagar");
+        colIncluir.setCellValueFactory(cellData -> {
+            ItemFolha item = cellData.getValue();
+            SimpleBooleanProperty incluir = new SimpleBooleanProperty(item.isIncluir());
+            incluir.addListener((obs, anterior, marcado) -> {
+                item.setIncluir(marcado);
+                atualizarTotal.run();
+            });
+            return incluir;
+        });
+        // CORRIGIDO: Funcionários já pagos na competência não podem ser marcados (caixa desabilitada)
+        colIncluir.setCellFactory(col -> new CheckBoxTableCell<ItemFolha, Boolean>() {
+            @Override
+            public void updateItem(Boolean item, boolean empty) {
+                super.updateItem(item, empty);
+                int indice = getIndex();
+                boolean jaPago = !empty && indice >= 0 && indice < getTableView().getItems().size()
+                    && getTableView().getItems().get(indice).isJaPago();
+                setEditable(!jaPago);
+            }
+        });
+        colIncluir.setPrefWidth(60);
+
+        TableColumn<ItemFolha, String> colNome = new TableColumn<>("Funcionário");
+        colNome.setCellValueFactory(new PropertyValueFactory<>("nome"));
+        colNome.setPrefWidth(200);
+
+        TableColumn<ItemFolha, Double> colSalario = new TableColumn<>("Salário (R$)");
+        colSalario.setCellValueFactory(new PropertyValueFactory<>("salario"));
+        colSalario.setCellFactory(col -> new TableCell<ItemFolha, Double>() {
+            @Override
+            protected void updateItem(Double item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null : currencyFormatter.format(item));
+            }
+        });
+        colSalario.setPrefWidth(120);
+
+        TableColumn<ItemFolha, Double> colExtras = new TableColumn<>("Extras (R$)");
+        colExtras.setCellValueFactory(new PropertyValueFactory<>("extras"));
+        colExtras.setCellFactory(TextFieldTableCell.forTableColumn(new StringConverter<Double>() {
+            @Override
+            public String toString(Double valor) {
+                return valor == null ? "" : String.format(Locale.US, "%.2f", valor);
+            }
+
+            @Override
+            public Double fromString(String texto) {
+                try {
+                    return Double.parseDouble(texto.trim().replace(",", "."));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }));
+        colExtras.setOnEditCommit(event -> {
+            Double valor = event.getNewValue();
+            if (valor == null || valor < 0) {
+                AlertUtil.showError("Erro de Formato", "Valor de extras inválido.");
+            } else {
+                event.getRowValue().setExtras(valor);
+            }
+            tabelaPrevia.refresh();
+            atualizarTotal.run();
+        });
+        colExtras.setPrefWidth(110);
+
+        TableColumn<ItemFolha, String> colStatus = new TableColumn<>("Situação");
+        colStatus.setCellValueFactory(new PropertyValueFactory<>("status"));
+        colStatus.setPrefWidth(100);
+
+        tabelaPrevia.getColumns().addAll(List.of(colIncluir, colNome, colSalario, colExtras, colStatus));
+
+        // 5. Carrega a prévia da competência escolhida
+        Runnable carregarPrevia = () -> {
+            try {
+                tabelaPrevia.getItems().setAll(folhaPagamentoDAO.previa(competenciaCombo.getValue(), funcionarios));
+                atualizarTotal.run();
+            } catch (SQLException e) {
+                AlertUtil.showError("Erro de Banco de Dados", "Não foi possível montar a prévia da folha: " + e.getMessage());
+            }
+        };
+        competenciaCombo.valueProperty().addListener((obs, anterior, nova) -> carregarPrevia.run());
+        carregarPrevia.run();
+
+        VBox conteudo = new VBox(10, grid, tabelaPrevia, lblTotalFolha);
+        conteudo.setPadding(new Insets(20, 10, 10, 10));
+        dialog.getDialogPane().setContent(conteudo);
+        AlertUtil.setDialogIcon(dialog);
+
+        // 6. Exibir o diálogo e lançar a folha
+        Optional<ButtonType> result = dialog.showAndWait();
+        if (!result.isPresent() || result.get() != lancarButtonType) {
+            return;
+        }
+        YearMonth competencia = competenciaCombo.getValue();
+        LocalDate dataPagamento = dataPicker.getValue();
+        String descExtras = descExtrasField.getText().trim().isEmpty() ? "Extras" : descExtrasField.getText().trim();
+        if (dataPagamento == null) {
+            AlertUtil.showError("Erro de Validação", "A data do pagamento é obrigatória.");
+            return;
+        }
+
+        try {
+            FolhaPagamentoDAO.ResultadoFolha resultado =
+                folhaPagamentoDAO.lancar(competencia, dataPagamento, tabelaPrevia.getItems(), descExtras);
+            if (resultado.getPagos() == 0) {
+                AlertUtil.showInfo("Folha de Pagamento", "Nenhum salário lançado: todos os funcionários marcados já foram pagos na competência "
+                    + competencia.format(FORMATO_COMPETENCIA) + ".");
+                return;
+            }
+            String mensagem = resultado.getPagos() + " salário(s) lançado(s) no financeiro, total de "
+                + currencyFormatter.format(resultado.getTotal()) + ".";
+            if (resultado.getIgnorados() > 0) {
+                mensagem += "\n" + resultado.getIgnorados() + " funcionário(s) já pago(s) na competência foram ignorados.";
+            }
+            AlertUtil.showInfo("Folha de Pagamento", mensagem);
+            Funcionario selecionado = tabelaFuncionarios.getSelectionModel().getSelectedItem();
+            if (selecionado != null) {
+                handleFuncionarioSelectionChanged(selecionado);
+            }
+        } catch (SQLException e) {
+            AlertUtil.showError("Erro de Banco de Dados", "Não foi possível lançar a folha de pagamento: " + e.getMessage());
+        }
+    }
+
     /**
      * NOVO: Lança um pagamento customizado (adiantamento, bônus, etc.) para o funcionário.
      */
@@ -440,7 +704,12 @@ public class FuncionariosController {
                     String descFinal = "Pgto. Funcionário (" + selecionado.getNome() + "): " + desc;
                     double valorFinal = -valor; // Despesa é negativa
 
-                    return new Transacao(descFinal, valorFinal, data.toString(), "despesa");
+                    Transacao transacao = new Transacao(descFinal, valorFinal, data.toString(), "despesa");
+                    transacao.setFuncionarioId(selecionado.getId()); // NOVO
+                    transacao.setCategoria(CategoriaFinanceira.FOLHA_PAGAMENTO); // NOVO
+                    transacao.setContraparte(selecionado.getNome(), null);
+                    transacao.setOrigem(CategoriaFinanceira.ORIGEM_FUNCIONARIO, selecionado.getId());
+                    return transacao;
                 } catch (NumberFormatException e) {
                     AlertUtil.showError("Erro de Formato", "Valor inválido.");
                     return null;
@@ -511,8 +780,8 @@ public class FuncionariosController {
             sb.append("Histórico de Pagamentos\n");
             sb.append("Data;Descrição;Valor Pago (R$)\n");
 
-            // Usa a lista 'dadosTabelaPagamentos' que já está preenchida no painel de detalhes
-            for (Transacao pgto : dadosTabelaPagamentos) {
+            // ATUALIZADO: Histórico completo (a tabela pode ter só as primeiras páginas)
+            for (Transacao pgto : financeiroDAO.listPagamentosFuncionario(selecionado.getId())) {
                 sb.append(String.format(Locale.US, "%s;\"%s\";%.2f\n",
                     pgto.getData(),
                     pgto.getDescricao().replace("\"", "\"\""), // Escapa aspas
@@ -527,6 +796,8 @@ public class FuncionariosController {
             writer.write(sb.toString());
             AlertUtil.showInfo("Sucesso", "Relatório do funcionário exportado com sucesso para:\n" + file.getAbsolutePath());
 
+        } catch (SQLException e) {
+            AlertUtil.showError("Erro de Banco de Dados", "Não foi possível carregar o histórico de pagamentos: " + e.getMessage());
         } catch (IOException e) {
             // CORREÇÃO: Concatenação de string corrigida
             AlertUtil.showError("Erro ao Exportar", "Não foi possível gerar o arquivo CSV: " + e.getMessage());
@@ -3,22 +3,16 @@ package com.farmmanager.controller;
 // DAOs (ATUALIZADO - Novos DAOs)
 import com.farmmanager.model.SafraDAO;
 import com.farmmanager.model.TalhaoDAO;
-import com.farmmanager.model.AtividadeSafraDAO;
-import com.farmmanager.model.ContaDAO;
-import com.farmmanager.model.EstoqueDAO;
-import com.farmmanager.model.FinanceiroDAO;
+import com.farmmanager.model.CalculoFinanceiroSafras;
 
 // Modelos (ATUALIZADO - Novos Modelos)
-import com.farmmanager.model.SafraInfo;
+import com.farmmanager.model.SafraHistoricoInfo;
 import com.farmmanager.model.Talhao;
-import com.farmmanager.model.Conta;
-import com.farmmanager.model.EstoqueItem;
-import com.farmmanager.model.Transacao;
 
 import com.farmmanager.util.AlertUtil;
+import com.farmmanager.util.AsyncDAO; // NOVO IMPORT
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.concurrent.Task; // NOVO: Import para Task
 import javafx.fxml.FXML;
 // import javafx.scene.chart.BarChart; // ATUALIZADO (REMOVIDO)
 import javafx.scene.chart.LineChart;
@@ -41,16 +35,15 @@ import java.io.File; // NOVO: Import para File
 import java.io.IOException; // NOVO: Import para IOException
 import java.io.PrintWriter; // NOVO: Import para PrintWriter
 
-import java.sql.SQLException;
 import java.text.DecimalFormat; 
 import java.text.NumberFormat; 
 import java.time.LocalDate; 
 import java.time.LocalDateTime; 
 import java.time.format.DateTimeFormatter; 
-import java.util.ArrayList; // NOVO
 import java.util.List;
 import java.util.Locale; 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -64,16 +57,17 @@ import java.util.stream.Collectors;
  * - ATUALIZAÇÃO (MELHORIA): Agora calcula e exibe Custo, Receita e Lucro.
  * - ATUALIZAÇÃO (MELHORIA): Adiciona KPIs de resumo financeiro.
  * - ATUALIZAÇÃO (MELHORIA): Gráfico de lucratividade REVERTIDO para produção.
+ * - ATUALIZADO: Cálculos financeiros incluem os arquivos anuais (relatório).
+ * - ATUALIZADO: Carregamento pelo AsyncDAO (safras e talhões em paralelo).
+ * - ATUALIZADO: Cálculo financeiro movido para CalculoFinanceiroSafras (fork/join por safra).
  */
 public class HistoricoSafrasController {
 
     // DAOs (ATUALIZADO - Novos DAOs)
     private final SafraDAO safraDAO;
     private final TalhaoDAO talhaoDAO;
-    private final AtividadeSafraDAO atividadeSafraDAO;
-    private final FinanceiroDAO financeiroDAO;
-    private final ContaDAO contaDAO;
-    private final EstoqueDAO estoqueDAO;
+    // ATUALIZADO: Os DAOs usados no cálculo financeiro ficam no CalculoFinanceiroSafras
+    private final CalculoFinanceiroSafras calculoFinanceiro;
 
 
     // Listas de Dados (ATUALIZADO - Usando novo DTO)
@@ -154,66 +148,10 @@ public class HistoricoSafrasController {
     private ScrollPane contentScrollPane; // Container principal (ScrollPane do FXML)
 
 
-    /**
-     * NOVO: Classe interna (DTO) para agrupar todos os dados necessários
-     * para a tabela e gráficos de histórico.
-     */
-    public static class SafraHistoricoInfo {
-        private final SafraInfo safraBase;
-        private final double custoTotal;
-        private final double receitaTotal; // Vendas (à vista + a prazo)
-        private final double valorEmEstoque; // Produto não vendido
-        private final double lucro;
-
-        public SafraHistoricoInfo(SafraInfo safraBase, double custoTotal, double receitaTotal, double valorEmEstoque, double lucro) {
-            this.safraBase = safraBase;
-            this.custoTotal = custoTotal;
-            this.receitaTotal = receitaTotal;
-            this.valorEmEstoque = valorEmEstoque;
-            this.lucro = lucro;
-        }
-
-        // Getters da SafraBase (para colunas existentes)
-        public int getId() { return safraBase.getId(); }
-        public String getAnoInicio() { return safraBase.getAnoInicio(); }
-        public String getCultura() { return safraBase.getCultura(); }
-        public String getTalhaoNome() { return safraBase.getTalhaoNome(); }
-        public double getAreaHectares() { return safraBase.getAreaHectares(); }
-        public String getDataModificacao() { return safraBase.getDataModificacao(); } // Data Colheita
-        public double getProducaoTotalSacos() { return safraBase.getProducaoTotalSacos(); }
-        public double getProducaoSacosPorHectare() { return safraBase.getProducaoSacosPorHectare(); }
-        public String getStatus() { return safraBase.getStatus(); }
-
-        // Getters dos novos dados financeiros
-        public double getCustoTotal() { return custoTotal; }
-        public double getReceitaTotal() { return receitaTotal; }
-        public double getValorEmEstoque() { return valorEmEstoque; }
-        public double getLucro() { return lucro; }
-    }
-
-
-    /**
-     * NOVO: Classe interna para agrupar os resultados da Task
-     * ATUALIZADO: Retorna a lista do novo DTO
-     */
-    private static class HistoricoPageData {
-        final List<SafraHistoricoInfo> safrasComFinanceiro;
-        final List<Talhao> talhoes;
-
-        HistoricoPageData(List<SafraHistoricoInfo> safras, List<Talhao> talhoes) {
-            this.safrasComFinanceiro = safras;
-            this.talhoes = talhoes;
-        }
-    }
-
     public HistoricoSafrasController() {
         safraDAO = new SafraDAO();
         talhaoDAO = new TalhaoDAO();
-        // NOVOS DAOs
-        atividadeSafraDAO = new AtividadeSafraDAO();
-        financeiroDAO = new FinanceiroDAO();
-        contaDAO = new ContaDAO();
-        estoqueDAO = new EstoqueDAO();
+        calculoFinanceiro = new CalculoFinanceiroSafras();
         
         listaMestraSafrasComInfo = FXCollections.observableArrayList();
         dadosTabelaHistorico = FXCollections.observableArrayList();
@@ -275,95 +213,36 @@ public class HistoricoSafrasController {
 
     /**
      * NOVO: Carrega os dados mestres (Safras e Talhões) E CALCULA
-     * OS DADOS FINANCEIROS de cada safra colhida, tudo em uma Task.
+     * OS DADOS FINANCEIROS de cada safra colhida, em segundo plano.
+     * ATUALIZADO: Safras (com o cálculo financeiro) e talhões são buscados em paralelo pelo AsyncDAO.
+     * ATUALIZADO: O cálculo por safra é feito pelo CalculoFinanceiroSafras, dividido entre vários núcleos.
      */
     private void carregarDadosPaginaAssincrono() {
-        Task<HistoricoPageData> carregarTask = new Task<HistoricoPageData>() {
-            @Override
-            protected HistoricoPageData call() throws Exception {
-                // Chamadas de banco de dados (demoradas)
-                List<SafraInfo> safrasBase = safraDAO.listSafrasComInfo();
-                List<Talhao> talhoes = talhaoDAO.listTalhoes();
-                
-                List<SafraHistoricoInfo> safrasComFinanceiro = new ArrayList<>();
-
-                // Loop para calcular finanças de cada safra colhida (parte lenta)
-                for (SafraInfo safra : safrasBase) {
-                    if (safra.getStatus().equalsIgnoreCase("Colhida")) {
-                        double custo = atividadeSafraDAO.getCustoTotalPorSafra(safra.getId());
-                        double receita = calcularReceitaParaSafra(safra); // Helper
-                        double estoqueValor = calcularValorEstoqueParaSafra(safra); // Helper
-                        double lucro = (receita + estoqueValor) - custo;
-                        
-                        safrasComFinanceiro.add(new SafraHistoricoInfo(safra, custo, receita, estoqueValor, lucro));
-                    }
-                }
-                
-                return new HistoricoPageData(safrasComFinanceiro, talhoes);
-            }
-        };
+        CompletableFuture<List<SafraHistoricoInfo>> safras =
+            AsyncDAO.consultar(() -> calculoFinanceiro.calcular(safraDAO.listSafrasComInfo()));
+        CompletableFuture<List<Talhao>> talhoes = AsyncDAO.consultar(talhaoDAO::listTalhoes);
 
-        carregarTask.setOnSucceeded(e -> {
-            HistoricoPageData data = carregarTask.getValue();
+        showLoading(true);
 
+        AsyncDAO.naFx(AsyncDAO.todos(safras, talhoes), ok -> {
             // 1. Popula a lista mestra de safras (apenas colhidas com dados financeiros)
-            listaMestraSafrasComInfo = data.safrasComFinanceiro;
+            listaMestraSafrasComInfo = safras.join();
 
             // 2. Popula os ComboBoxes de filtro (rápido, UI)
             // (Passa a lista DTO para extrair culturas)
-            popularFiltros(data.talhoes, data.safrasComFinanceiro);
-            
+            popularFiltros(talhoes.join(), listaMestraSafrasComInfo);
+
             // 3. Aplica os filtros (rápido, em memória)
             handleAplicarFiltro();
-            
+
             // 4. Esconde o loading
             showLoading(false);
-        });
-
-        carregarTask.setOnFailed(e -> {
+        }, erro -> {
             AlertUtil.showError("Erro de Banco de Dados", "Não foi possível carregar o histórico de safras.");
-            carregarTask.getException().printStackTrace();
+            erro.printStackTrace();
             showLoading(false);
         });
-
-        showLoading(true);
-        new Thread(carregarTask).start();
     }
-    
-    // --- NOVOS Métodos Helper para cálculos financeiros (usados pela Task) ---
-
-    private double calcularReceitaParaSafra(SafraInfo safra) throws SQLException {
-        double receitaTotalVendas = 0;
-        String nomeItemColheita = safra.getCultura() + " (Colheita " + safra.getAnoInicio() + ")";
-        String descVendaQuery = "Venda de " + nomeItemColheita;
-        
-        // 1. Soma vendas À VISTA (do Financeiro)
-        List<Transacao> vendasAVista = financeiroDAO.listTransacoesPorDescricaoLike(descVendaQuery);
-        for (Transacao venda : vendasAVista) {
-            receitaTotalVendas += venda.getValor(); // Valores já são positivos
-        }
-
-        // 2. Soma vendas A PRAZO (de Contas a Receber)
-        List<Conta> vendasAPrazo = contaDAO.listContasPorDescricaoLike(descVendaQuery);
-        for (Conta conta : vendasAPrazo) {
-            if (conta.getTipo().equals("receber")) {
-                receitaTotalVendas += conta.getValor();
-            }
-        }
-        return receitaTotalVendas;
-    }
-    
-    private double calcularValorEstoqueParaSafra(SafraInfo safra) throws SQLException {
-        String nomeItemColheita = safra.getCultura() + " (Colheita " + safra.getAnoInicio() + ")";
-        EstoqueItem itemColheitaEstoque = estoqueDAO.getEstoqueItemPorNome(nomeItemColheita);
-        if (itemColheitaEstoque != null) {
-            return itemColheitaEstoque.getValorTotal();
-        }
-        return 0.0;
-    }
-    
-    // --- Fim dos Métodos Helper ---
-
 
     /**
      * ATUALIZADO: Popula os ComboBoxes usando a nova lista de DTOs.
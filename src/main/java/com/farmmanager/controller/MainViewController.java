@@ -1,14 +1,30 @@
 package com.farmmanager.controller;
 
+import com.farmmanager.model.BuscaGlobalDAO;
+import com.farmmanager.model.ResultadoBusca;
 import com.farmmanager.util.AlertUtil;
+import com.farmmanager.util.AsyncDAO;
+import javafx.animation.PauseTransition;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
+import javafx.geometry.Side;
 import javafx.scene.Node;
 import javafx.scene.control.Button; // NOVO: Import para Button
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.CustomMenuItem;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyCode;
 import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextFlow;
+import javafx.util.Duration;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Controller (Cérebro) para o "Shell" principal (MainView.fxml).
@@ -17,6 +33,9 @@ import java.net.URL;
  * - ADICIONADO HANDLER para a nova tela de Histórico de Safras.
  * - ATUALIZADO: loadView agora injeta referência do MainViewController no DashboardController.
  * - ATUALIZADO: Adicionada lógica para gerenciar o estado "ativo" dos botões da barra lateral.
+ * - NOVO: Handler para a tela de Diagnóstico de Desempenho.
+ * - NOVO: Barra de busca global (índice FTS5, ver BuscaGlobalDAO): resultados destacados
+ *   em um menu abaixo do campo; clicar em um resultado abre o módulo correspondente.
  */
 public class MainViewController {
 
@@ -40,11 +59,25 @@ public class MainViewController {
     private Button btnFuncionarios;
     @FXML
     private Button btnHistorico;
+    @FXML
+    private Button btnDiagnostico; // NOVO
 
     // NOVO: Rastreia o botão atualmente ativo
     private Button botaoAtivoAtual;
     private static final String CLASSE_BOTAO_ATIVO = "sidebar-button-selected";
 
+    // --- NOVO: Busca global ---
+    @FXML
+    private TextField campoBuscaGlobal;
+
+    private static final int LIMITE_RESULTADOS_BUSCA = 15;
+    private static final Duration ATRASO_BUSCA = Duration.millis(200);
+
+    private final BuscaGlobalDAO buscaGlobalDAO = new BuscaGlobalDAO();
+    private final ContextMenu menuResultados = new ContextMenu();
+    private final PauseTransition esperaDigitacao = new PauseTransition(ATRASO_BUSCA);
+    private long buscaAtual; // descarta respostas de buscas já substituídas por outra tecla
+
     /**
      * Método especial do JavaFX.
      * É chamado automaticamente depois que o FXML é carregado.
@@ -56,6 +89,137 @@ public class MainViewController {
         // Define o btnDashboard como ativo inicial (sem chamar loadView novamente)
         setBotaoAtivo(btnDashboard);
         loadView("DashboardView.fxml");
+
+        configurarBuscaGlobal();
+    }
+
+    // --- NOVO: Busca global ---
+
+    /**
+     * A busca só roda depois de ATRASO_BUSCA sem digitação (uma consulta por pausa,
+     * não por tecla), fora da thread de UI.
+     */
+    private void configurarBuscaGlobal() {
+        esperaDigitacao.setOnFinished(e -> buscarGlobal(campoBuscaGlobal.getText()));
+        campoBuscaGlobal.textProperty().addListener((obs, anterior, atual) -> {
+            if (atual == null || atual.isBlank()) {
+                esperaDigitacao.stop();
+                buscaAtual++;
+                menuResultados.hide();
+            } else {
+                esperaDigitacao.playFromStart();
+            }
+        });
+        campoBuscaGlobal.setOnAction(e -> {
+            esperaDigitacao.stop();
+            buscarGlobal(campoBuscaGlobal.getText());
+        });
+        campoBuscaGlobal.setOnKeyPressed(e -> {
+            if (e.getCode() == KeyCode.ESCAPE) {
+                campoBuscaGlobal.clear();
+            }
+        });
+    }
+
+    private void buscarGlobal(String termo) {
+        if (termo == null || termo.isBlank()) {
+            return;
+        }
+        long busca = ++buscaAtual;
+        AsyncDAO.naFx(AsyncDAO.consultarLeitura(() -> buscaGlobalDAO.buscar(termo, LIMITE_RESULTADOS_BUSCA)),
+            resultados -> {
+                if (busca == buscaAtual) {
+                    mostrarResultados(resultados);
+                }
+            },
+            erro -> System.err.println("Aviso: falha na busca global: " + AsyncDAO.causa(erro).getMessage()));
+    }
+
+    private void mostrarResultados(List<ResultadoBusca> resultados) {
+        List<CustomMenuItem> itens = new ArrayList<>();
+        if (resultados.isEmpty()) {
+            CustomMenuItem vazio = new CustomMenuItem(new Label("Nenhum resultado encontrado."), false);
+            vazio.setDisable(true);
+            itens.add(vazio);
+        }
+        for (ResultadoBusca resultado : resultados) {
+            Label detalhe = new Label(descreverResultado(resultado));
+            detalhe.getStyleClass().add("busca-global-detalhe");
+            VBox conteudo = new VBox(2, comDestaque(resultado.getTexto()), detalhe);
+            conteudo.getStyleClass().add("busca-global-resultado");
+
+            CustomMenuItem item = new CustomMenuItem(conteudo, true);
+            item.setOnAction(e -> abrirResultado(resultado));
+            itens.add(item);
+        }
+        menuResultados.getItems().setAll(itens);
+        if (!menuResultados.isShowing()) {
+            menuResultados.show(campoBuscaGlobal, Side.BOTTOM, 0, 0);
+        }
+    }
+
+    /**
+     * Linha secundária do resultado: módulo, data e fornecedor (quando houver).
+     */
+    private String descreverResultado(ResultadoBusca resultado) {
+        StringBuilder detalhe = new StringBuilder(resultado.getModulo().getDescricao());
+        if (resultado.getData() != null && !resultado.getData().isEmpty()) {
+            detalhe.append(" • ").append(resultado.getData());
+        }
+        String complemento = ResultadoBusca.removerMarcas(resultado.getComplemento()).trim();
+        if (!complemento.isEmpty()) {
+            detalhe.append(" • ").append(complemento);
+        }
+        return detalhe.toString();
+    }
+
+    /**
+     * Monta o texto com os trechos entre as marcas do highlight() em negrito.
+     */
+    private TextFlow comDestaque(String marcado) {
+        TextFlow fluxo = new TextFlow();
+        boolean destacado = false;
+        int inicio = 0;
+        for (int i = 0; i <= marcado.length(); i++) {
+            boolean fimDoTexto = i == marcado.length();
+            char c = fimDoTexto ? 0 : marcado.charAt(i);
+            if (fimDoTexto || c == ResultadoBusca.MARCA_INICIO || c == ResultadoBusca.MARCA_FIM) {
+                if (i > inicio) {
+                    Text trecho = new Text(marcado.substring(inicio, i));
+                    trecho.getStyleClass().add(destacado ? "busca-global-destaque" : "busca-global-texto");
+                    fluxo.getChildren().add(trecho);
+                }
+                destacado = c == ResultadoBusca.MARCA_INICIO;
+                inicio = i + 1;
+            }
+        }
+        return fluxo;
+    }
+
+    /**
+     * Abre a tela do módulo do resultado.
+     */
+    private void abrirResultado(ResultadoBusca resultado) {
+        menuResultados.hide();
+        switch (resultado.getModulo()) {
+            case FINANCEIRO:
+                handleShowFinanceiro();
+                break;
+            case CONTAS:
+                handleShowContas();
+                break;
+            case ATIVIDADE_SAFRA:
+                handleShowSafras();
+                break;
+            case MANUTENCAO:
+                handleShowPatrimonio();
+                break;
+            case ESTOQUE:
+                handleShowEstoque();
+                break;
+            default:
+                break;
+        }
     }
     
     // --- NOVO: Método para gerenciar o estado visual dos botões ---
@@ -141,6 +305,15 @@ public class MainViewController {
         loadView("HistoricoSafrasView.fxml");
     }
 
+    /**
+     * NOVO: Handler para a tela de Diagnóstico de Desempenho.
+     */
+    @FXML
+    public void handleShowDiagnostico() {
+        setBotaoAtivo(btnDiagnostico);
+        loadView("DiagnosticoView.fxml");
+    }
+
     /**
      * Helper: Carrega um arquivo FXML na área de conteúdo central (StackPane).
      *
@@ -6,13 +6,19 @@ import com.farmmanager.model.Manutencao; // NOVO
 import com.farmmanager.model.ManutencaoDAO; // NOVO
 import com.farmmanager.model.FinanceiroDAO; // NOVO
 import com.farmmanager.model.Transacao; // NOVO
+import com.farmmanager.model.CategoriaFinanceira; // NOVO
 import com.farmmanager.model.Conta; // NOVO: Import para Contas
 import com.farmmanager.model.ContaDAO; // NOVO: Import para ContasDAO
+import com.farmmanager.model.PlanoParcelamento; // NOVO
+import com.farmmanager.model.PlanoParcelamentoDAO; // NOVO
 import com.farmmanager.model.EstoqueItem; // NOVO: Import para Estoque
 import com.farmmanager.model.EstoqueDAO; // NOVO: Import para EstoqueDAO
 import com.farmmanager.model.AtividadeSafra; // NOVO: Import para Atividade
 import com.farmmanager.model.AtividadeSafraDAO; // NOVO: Import para AtividadeDAO
+import com.farmmanager.model.ReferenceDataCache; // NOVO
 import com.farmmanager.util.AlertUtil;
+import com.farmmanager.util.AutoCompleteUtil; // NOVO
+import com.farmmanager.util.CamposParcelamento; // NOVO
 import javafx.beans.binding.Bindings; // NOVO IMPORT
 import javafx.beans.value.ChangeListener; // NOVO IMPORT
 import javafx.collections.FXCollections;
@@ -47,9 +53,13 @@ import java.util.Optional;
  * ou "A Prazo" (Contas a Pagar) e coletar dados do fornecedor.
  * - ATUALIZADO (handleRegistrarManutencao): Conteúdo do diálogo agora está em um ScrollPane.
  * - ATUALIZADO (handleRegistrarManutencao): Agora permite consumir item do estoque.
+ * - ATUALIZADO (handleRegistrarManutencao): Itens do estoque vêm do ReferenceDataCache.
+ * - ATUALIZADO (handleRegistrarManutencao): Item escolhido com autocompletar (AutoCompleteUtil).
  * - MELHORIA USABILIDADE (handleRegistrarManutencao): Diálogo reorganizado com TitledPane.
  * - CORREÇÃO CONTÁBIL (handleRegistrarManutencao): Lançamento financeiro agora usa
  * apenas o Custo Adicional (Mão de Obra), pois o custo do item já está no estoque.
+ * - ATUALIZADO: Aquisição, manutenção e venda de ativos gravam categoria, fornecedor e origem no financeiro.
+ * - NOVO (handleRegistrarManutencao): Mão de obra a prazo pode ser parcelada (PlanoParcelamento).
  */
 public class PatrimonioController {
 
@@ -98,6 +108,7 @@ public class PatrimonioController {
     private final ManutencaoDAO manutencaoDAO; // NOVO
     private final FinanceiroDAO financeiroDAO; // NOVO
     private final ContaDAO contaDAO; // NOVO
+    private final PlanoParcelamentoDAO planoDAO; // NOVO
     private final EstoqueDAO estoqueDAO; // NOVO
     private final AtividadeSafraDAO atividadeSafraDAO; // NOVO
     
@@ -121,11 +132,13 @@ public class PatrimonioController {
         final double quantidadeConsumida;
         final double custoAdicional; // Mão de obra, etc.
         final String tipoPagamento; // "À Vista" ou "A Prazo"
-        final LocalDate dataVencimento; // Nulo se for "À Vista"
+        final LocalDate dataVencimento; // Nulo se for "À Vista"; 1ª parcela, se parcelado
         final String fornecedorNome;
         final String fornecedorEmpresa;
+        final int numeroParcelas; // NOVO
+        final int intervaloMeses; // NOVO
 
-        ManutencaoDialogInfo(String descricao, LocalDate data, EstoqueItem itemConsumido, double quantidadeConsumida, double custoAdicional, String tipoPagamento, LocalDate dataVencimento, String fornecedorNome, String fornecedorEmpresa) {
+        ManutencaoDialogInfo(String descricao, LocalDate data, EstoqueItem itemConsumido, double quantidadeConsumida, double custoAdicional, String tipoPagamento, LocalDate dataVencimento, String fornecedorNome, String fornecedorEmpresa, int numeroParcelas, int intervaloMeses) {
             this.descricao = descricao;
             this.data = data;
             this.itemConsumido = itemConsumido;
@@ -135,6 +148,8 @@ public class PatrimonioController {
             this.dataVencimento = dataVencimento;
             this.fornecedorNome = fornecedorNome;
             this.fornecedorEmpresa = fornecedorEmpresa;
+            this.numeroParcelas = numeroParcelas;
+            this.intervaloMeses = intervaloMeses;
         }
     }
 
@@ -144,6 +159,7 @@ public class PatrimonioController {
         manutencaoDAO = new ManutencaoDAO(); // NOVO
         financeiroDAO = new FinanceiroDAO(); // NOVO
         contaDAO = new ContaDAO(); // NOVO
+        planoDAO = new PlanoParcelamentoDAO(); // NOVO
         estoqueDAO = new EstoqueDAO(); // NOVO
         atividadeSafraDAO = new AtividadeSafraDAO(); // NOVO
         
@@ -395,6 +411,8 @@ public class PatrimonioController {
                     String desc = "Aquisição Ativo: " + patrimonio.getNome();
                     double valor = -patrimonio.getValorAquisicao(); // Despesa é negativa
                     Transacao transacao = new Transacao(desc, valor, patrimonio.getDataAquisicao(), "despesa");
+                    transacao.setCategoria(CategoriaFinanceira.AQUISICAO_ATIVO); // NOVO
+                    transacao.setOrigem(CategoriaFinanceira.ORIGEM_PATRIMONIO, null);
                     financeiroDAO.addTransacao(transacao);
                     AlertUtil.showInfo("Sucesso", "Ativo adicionado e despesa registrada no financeiro.");
                 } else {
@@ -422,9 +440,9 @@ public class PatrimonioController {
         if (selecionado == null) return; // Botão deve estar desabilitado, mas é uma segurança
 
         // NOVO: Carrega itens do estoque
-        List<EstoqueItem> itensEstoque;
+        // ATUALIZADO: Garante o ReferenceDataCache carregado; o combo é preenchido pela busca
         try {
-            itensEstoque = estoqueDAO.listEstoque();
+            ReferenceDataCache.estoque();
         } catch (SQLException e) {
             AlertUtil.showError("Erro de Banco de Dados", "Não foi possível carregar os itens do estoque.");
             return;
@@ -473,7 +491,9 @@ public class PatrimonioController {
         consumirItemCheck.setSelected(false);
 
         Label itemLabel = new Label("Item do Estoque:");
-        ComboBox<EstoqueItem> itemCombo = new ComboBox<>(FXCollections.observableArrayList(itensEstoque));
+        // ATUALIZADO: Sugestões da busca em vez de todos os itens do estoque
+        ComboBox<EstoqueItem> itemCombo = new ComboBox<>();
+        VBox itemBox = AutoCompleteUtil.comBusca(itemCombo, "Buscar insumo ou fornecedor...", ReferenceDataCache::buscarEstoque);
         itemCombo.setCellFactory(lv -> new ListCell<EstoqueItem>() {
             @Override
             protected void updateItem(EstoqueItem item, boolean empty) {
@@ -502,7 +522,7 @@ public class PatrimonioController {
         
         gridCustos.add(consumirItemCheck, 0, 0, 2, 1);
         gridCustos.add(itemLabel, 0, 1);
-        gridCustos.add(itemCombo, 1, 1);
+        gridCustos.add(itemBox, 1, 1);
         gridCustos.add(qtdLabel, 0, 2);
         gridCustos.add(qtdField, 1, 2);
         gridCustos.add(new Label("Custo do Item:"), 0, 3);
@@ -549,6 +569,10 @@ public class PatrimonioController {
         gridPagamento.add(vencimentoLabel, 0, 4);
         gridPagamento.add(vencimentoPicker, 1, 4);
 
+        // NOVO: Parcelamento da mão de obra a prazo (vencimento acima = 1ª parcela)
+        CamposParcelamento parcelamento = new CamposParcelamento();
+        parcelamento.adicionarAo(gridPagamento, 5);
+
         TitledPane pagamentosPane = new TitledPane("3. Informações de Pagamento (Mão de Obra)", gridPagamento);
         pagamentosPane.setCollapsible(true);
         pagamentosPane.setExpanded(true);
@@ -560,7 +584,7 @@ public class PatrimonioController {
 
 
         // --- Lógica de Visibilidade (Como antes) ---
-        Node[] consumoNodes = {itemLabel, itemCombo, qtdLabel, qtdField, custoItemLabel};
+        Node[] consumoNodes = {itemLabel, itemBox, qtdLabel, qtdField, custoItemLabel};
         for(Node n : consumoNodes) {
             n.setVisible(false);
             n.setManaged(false);
@@ -569,6 +593,7 @@ public class PatrimonioController {
         vencimentoPicker.setVisible(false);
         vencimentoLabel.setManaged(false);
         vencimentoPicker.setManaged(false);
+        parcelamento.setVisivel(false); // NOVO
 
         consumirItemCheck.selectedProperty().addListener((obs, oldVal, newVal) -> {
             for(Node n : consumoNodes) {
@@ -583,6 +608,7 @@ public class PatrimonioController {
             vencimentoPicker.setVisible(aPrazo);
             vencimentoLabel.setManaged(aPrazo);
             vencimentoPicker.setManaged(aPrazo);
+            parcelamento.setVisivel(aPrazo); // NOVO
         });
         
         // --- Validação e Cálculo de Custo Total (Como antes) ---
@@ -641,6 +667,7 @@ public class PatrimonioController {
             
             adicionarButtonNode.setDisable(!descOk || !custoAdicionalOk || !dataVencOk || !itemConsumoOk || !custoTotalOk);
             custoTotalLabel.setText("Custo Total: " + currencyFormatter.format(custoItem + custoAdicional));
+            parcelamento.atualizarResumo(custoAdicional, vencimentoPicker.getValue()); // NOVO
         };
         
         // Adiciona listeners
@@ -651,6 +678,7 @@ public class PatrimonioController {
         qtdField.textProperty().addListener((obs, o, n) -> validadorManutencao.run());
         tipoPagCombo.valueProperty().addListener((obs, o, n) -> validadorManutencao.run());
         vencimentoPicker.valueProperty().addListener((obs, o, n) -> validadorManutencao.run());
+        parcelamento.aoAlterar(validadorManutencao); // NOVO
         validadorManutencao.run(); // Run inicial
         
         // --- FIM VALIDAÇÃO ---
@@ -691,7 +719,8 @@ public class PatrimonioController {
                          return null; // Erro já tratado
                     }
                     
-                    return new ManutencaoDialogInfo(desc, data, item, qtd, custoAdicional, tipoPag, dataVenc, fornNome, fornEmpresa);
+                    return new ManutencaoDialogInfo(desc, data, item, qtd, custoAdicional, tipoPag, dataVenc, fornNome, fornEmpresa,
+                        parcelamento.getNumeroParcelas(), parcelamento.getIntervaloMeses());
 
                 } catch (NumberFormatException e) {
                     AlertUtil.showError("Erro de Formato", "Custo ou quantidade inválido.");
@@ -759,9 +788,28 @@ public class PatrimonioController {
                             dataStr, 
                             "despesa"
                         );
+                        // NOVO: Classificação estruturada
+                        transacao.setCategoria(CategoriaFinanceira.MANUTENCAO);
+                        transacao.setContraparte(info.fornecedorNome, info.fornecedorEmpresa);
+                        transacao.setOrigem(CategoriaFinanceira.ORIGEM_PATRIMONIO, selecionado.getId());
                         financeiroDAO.addTransacao(transacao);
                         msgSucesso += "\nLançamento (à vista) da mão de obra efetuado.";
                         
+                    } else if (info.numeroParcelas > 1) {
+                        // NOVO: Lança as parcelas em Contas a Pagar (um plano, uma transação)
+                        PlanoParcelamento plano = new PlanoParcelamento(
+                            descFin,
+                            "pagar",
+                            custoAdicional,
+                            info.numeroParcelas,
+                            info.dataVencimento.toString(),
+                            info.intervaloMeses,
+                            info.fornecedorNome,
+                            info.fornecedorEmpresa
+                        );
+                        planoDAO.criarPlano(plano);
+                        msgSucesso += "\nMão de obra parcelada em " + info.numeroParcelas + "x (Contas a Pagar).";
+
                     } else {
                         // Lança em Contas a Pagar
                         Conta conta = new Conta(
@@ -851,6 +899,8 @@ public class PatrimonioController {
                 // 1. Lança a receita no financeiro
                 String desc = "Venda Ativo: " + selecionado.getNome();
                 Transacao transacao = new Transacao(desc, valorVenda, LocalDate.now().toString(), "receita");
+                transacao.setCategoria(CategoriaFinanceira.VENDA_ATIVO); // NOVO
+                transacao.setOrigem(CategoriaFinanceira.ORIGEM_PATRIMONIO, selecionado.getId());
                 financeiroDAO.addTransacao(transacao);
 
                 // 2. Remove o ativo do patrimônio
@@ -1,5 +1,6 @@
 package com.farmmanager.controller;
 
+import com.farmmanager.model.CategoriaFinanceira;
 import com.farmmanager.model.Safra;
 import com.farmmanager.model.SafraInfo;
 import com.farmmanager.model.SafraDAO;
@@ -13,10 +14,12 @@ import com.farmmanager.model.FinanceiroDAO;
 import com.farmmanager.model.Transacao; 
 import com.farmmanager.model.Conta; // NOVO: Import para Contas
 import com.farmmanager.model.ContaDAO; // NOVO: Import para ContaDAO
+import com.farmmanager.model.ReferenceDataCache; // NOVO
 import com.farmmanager.util.AlertUtil;
+import com.farmmanager.util.AsyncDAO; // NOVO IMPORT
+import com.farmmanager.util.AutoCompleteUtil; // NOVO
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.concurrent.Task; // NOVO: Import para Task
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
@@ -41,6 +44,7 @@ import java.util.List;
 import java.util.stream.Collectors; 
 import java.util.Optional;
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller para o SafrasView.fxml.
@@ -62,6 +66,11 @@ import java.util.Locale;
  * - ATUALIZAÇÃO (handleSafraSelectionChanged, handleExportarCsv): Agora somam vendas "À Vista" (Financeiro) 
  * e "A Prazo" (Contas a Receber) para calcular a receita total da safra.
  * - MELHORIA (handleNovoTalhao): Adicionado cálculo automático entre Hectares e Alqueires.
+ * - ATUALIZADO: Detalhes e CSV de safras colhidas consultam também os arquivos anuais.
+ * - ATUALIZADO: carregarDadosPagina usa o AsyncDAO (safras e talhões em paralelo).
+ * - ATUALIZADO: Diálogos de nova safra e de atividade usam o ReferenceDataCache (talhões e estoque).
+ * - ATUALIZADO: Insumo da atividade escolhido com autocompletar (AutoCompleteUtil).
+ * - ATUALIZADO: Custos manuais gravam categoria e a safra de origem no financeiro.
  */
 public class SafrasController {
 
@@ -157,19 +166,6 @@ public class SafrasController {
     // NOVO: Flag para evitar loops nos listeners de conversão
     private boolean isUpdatingArea = false;
 
-    /**
-     * NOVO: Classe interna para agrupar os resultados da Task
-     */
-    private static class SafrasPageData {
-        final List<SafraInfo> safras;
-        final List<Talhao> talhoes;
-
-        SafrasPageData(List<SafraInfo> safras, List<Talhao> talhoes) {
-            this.safras = safras;
-            this.talhoes = talhoes;
-        }
-    }
-
     public SafrasController() {
         safraDAO = new SafraDAO();
         talhaoDAO = new TalhaoDAO();
@@ -262,45 +258,33 @@ public class SafrasController {
 
     /**
      * NOVO: Método unificado para carregar todos os dados da página
-     * (Safras e Talhões) em uma Task de background.
+     * (Safras e Talhões) em segundo plano.
+     * ATUALIZADO: As duas consultas rodam em paralelo pelo AsyncDAO.
      */
     private void carregarDadosPagina() {
-        Task<SafrasPageData> carregarTask = new Task<SafrasPageData>() {
-            @Override
-            protected SafrasPageData call() throws Exception {
-                // Chamadas de banco de dados (demoradas)
-                List<SafraInfo> safras = safraDAO.listSafrasComInfo();
-                List<Talhao> talhoes = talhaoDAO.listTalhoes();
-                return new SafrasPageData(safras, talhoes);
-            }
-        };
+        CompletableFuture<List<SafraInfo>> safras = AsyncDAO.consultar(safraDAO::listSafrasComInfo);
+        CompletableFuture<List<Talhao>> talhoes = AsyncDAO.consultar(talhaoDAO::listTalhoes);
 
-        carregarTask.setOnSucceeded(e -> {
-            SafrasPageData data = carregarTask.getValue();
+        showLoading(true);
 
+        AsyncDAO.naFx(AsyncDAO.todos(safras, talhoes), ok -> {
             // 1. Atualiza lista mestra de safras
             listaMestraSafras.clear();
-            listaMestraSafras.addAll(data.safras);
-            
+            listaMestraSafras.addAll(safras.join());
+
             // 2. Atualiza tabela de talhões
-            dadosTabelaTalhoes.clear();
-            dadosTabelaTalhoes.addAll(data.talhoes);
+            dadosTabelaTalhoes.setAll(talhoes.join());
 
             // 3. Aplica filtro (rápido, em memória)
             aplicarFiltroSafras();
-            
+
             // 4. Esconde o loading
             showLoading(false);
-        });
-
-        carregarTask.setOnFailed(e -> {
+        }, erro -> {
             AlertUtil.showError("Erro de Banco de Dados", "Não foi possível carregar os dados da página.");
-            carregarTask.getException().printStackTrace();
+            erro.printStackTrace();
             showLoading(false);
         });
-
-        showLoading(true);
-        new Thread(carregarTask).start();
     }
 
     /**
@@ -374,7 +358,7 @@ public class SafrasController {
         // mas o ideal seria criar uma Task separada também para *este* painel.
         // A melhoria principal (carregamento da tela) já foi feita.
         try {
-            List<AtividadeSafra> atividades = atividadeSafraDAO.listAtividadesPorSafra(safra.getId());
+            List<AtividadeSafra> atividades = atividadeSafraDAO.listAtividadesPorSafra(safra.getId(), isColhida(safra));
             
             List<AtividadeSafraInfo> atividadesInfo = new ArrayList<>();
             for (AtividadeSafra atv : atividades) {
@@ -393,7 +377,7 @@ public class SafrasController {
             dadosTabelaAtividades.clear();
             dadosTabelaAtividades.addAll(atividadesInfo);
 
-            double custoTotal = atividadeSafraDAO.getCustoTotalPorSafra(safra.getId());
+            double custoTotal = atividadeSafraDAO.getCustoTotalPorSafra(safra.getId(), isColhida(safra));
             lblCustoTotalSafra.setText(currencyFormatter.format(custoTotal));
 
             if (safra.getStatus().equalsIgnoreCase("Colhida")) {
@@ -403,14 +387,14 @@ public class SafrasController {
                 String descVendaQuery = "Venda de " + nomeItemColheita;
                 
                 // 1. Soma vendas À VISTA (do Financeiro)
-                List<Transacao> vendasAVista = financeiroDAO.listTransacoesPorDescricaoLike(descVendaQuery);
+                List<Transacao> vendasAVista = financeiroDAO.listTransacoesPorDescricaoLike(descVendaQuery, true);
                 for (Transacao venda : vendasAVista) {
                     receitaTotalVendas += venda.getValor(); // Valores já são positivos
                 }
 
                 // 2. Soma vendas A PRAZO (de Contas a Receber)
                 // (Requer novo método no ContaDAO: listContasPorDescricaoLike)
-                List<Conta> vendasAPrazo = contaDAO.listContasPorDescricaoLike(descVendaQuery);
+                List<Conta> vendasAPrazo = contaDAO.listContasPorDescricaoLike(descVendaQuery, true);
                 for (Conta conta : vendasAPrazo) {
                     if (conta.getTipo().equals("receber")) {
                         // Soma o valor da conta (pendente ou paga), pois a receita é realizada na venda.
@@ -447,6 +431,14 @@ public class SafrasController {
         }
     }
 
+    /**
+     * NOVO: Safras colhidas podem ter atividades e vendas já arquivadas
+     * (anos fechados), então suas consultas incluem os arquivos anuais.
+     */
+    private boolean isColhida(SafraInfo safra) {
+        return safra.getStatus().equalsIgnoreCase("Colhida");
+    }
+
     /**
      * NOVO: Limpa os labels do resumo financeiro (para safras não colhidas).
      */
@@ -566,11 +558,10 @@ public class SafrasController {
     @FXML
     private void handleNovaSafra() {
         // 1. Buscar a lista de talhões
-        // ATENÇÃO: Esta é uma chamada de DB na thread principal.
-        // Como o dialog depende dela, vamos mantê-la por ser rápida (poucos talhões).
+        // ATUALIZADO: Vem do ReferenceDataCache (sem consulta ao banco na thread principal).
         List<Talhao> talhoes;
         try {
-            talhoes = talhaoDAO.listTalhoes();
+            talhoes = ReferenceDataCache.talhoes().listar();
         } catch (SQLException e) {
             AlertUtil.showError("Erro", "Não foi possível carregar a lista de talhões para o formulário.");
             return;
@@ -680,10 +671,10 @@ public class SafrasController {
             return;
         }
 
-        // Chamada de DB (rápida, mantida na FX thread)
+        // ATUALIZADO: Itens do estoque vêm do ReferenceDataCache
         List<EstoqueItem> itensEstoque;
         try {
-            itensEstoque = estoqueDAO.listEstoque(); 
+            itensEstoque = ReferenceDataCache.estoque().listar();
         } catch (SQLException e) {
             AlertUtil.showError("Erro de Banco de Dados", "Não foi possível carregar a lista de itens do estoque.");
             return;
@@ -710,7 +701,9 @@ public class SafrasController {
         TextField custoManualField = new TextField();
         custoManualField.setPromptText("Ex: 150.00");
 
-        ComboBox<EstoqueItem> itemCombo = new ComboBox<>(FXCollections.observableArrayList(itensEstoque));
+        // ATUALIZADO: O combo mostra só as sugestões da busca (não todos os itens do estoque)
+        ComboBox<EstoqueItem> itemCombo = new ComboBox<>();
+        VBox itemBox = AutoCompleteUtil.comBusca(itemCombo, "Buscar insumo ou fornecedor...", ReferenceDataCache::buscarEstoque);
         TextField qtdField = new TextField("1.0");
         Label custoCalculadoLabel = new Label("Custo (R$): ---");
 
@@ -780,7 +773,7 @@ public class SafrasController {
         grid.add(descField, 1, 1);
         grid.add(isManualCheck, 0, 2, 2, 1); 
         grid.add(new Label("Insumo (do Estoque):"), 0, 3);
-        grid.add(itemCombo, 1, 3);
+        grid.add(itemBox, 1, 3);
         grid.add(new Label("Quantidade Usada:"), 0, 4);
         grid.add(qtdBox, 1, 4); 
         grid.add(custoCalculadoLabel, 1, 5);
@@ -864,6 +857,8 @@ public class SafrasController {
                             descFin, -atividade.getCustoTotalAtividade(), 
                             atividade.getData(), "despesa"
                         );
+                        transacao.setCategoria(CategoriaFinanceira.CUSTO_SAFRA); // NOVO
+                        transacao.setOrigem(CategoriaFinanceira.ORIGEM_SAFRA, safraSelecionada.getId());
                         financeiroDAO.addTransacao(transacao);
                         successMessage = "Custo manual lançado com sucesso na safra e no financeiro."; 
                     } else {
@@ -1074,7 +1069,7 @@ public class SafrasController {
 
             // 1. Custos (Atividades)
             double custoTotal = 0;
-            List<AtividadeSafra> atividades = atividadeSafraDAO.listAtividadesPorSafra(safra.getId());
+            List<AtividadeSafra> atividades = atividadeSafraDAO.listAtividadesPorSafra(safra.getId(), isColhida(safra));
             
             for (AtividadeSafra atv : atividades) {
                 String nomeInsumo = "N/A (Custo Manual)";
@@ -1105,7 +1100,7 @@ public class SafrasController {
             String descVendaQuery = "Venda de " + nomeItemColheita;
             
             // Vendas à Vista (do Financeiro)
-            List<Transacao> vendasAVista = financeiroDAO.listTransacoesPorDescricaoLike(descVendaQuery);
+            List<Transacao> vendasAVista = financeiroDAO.listTransacoesPorDescricaoLike(descVendaQuery, true);
             for (Transacao venda : vendasAVista) {
                 sb.append(String.format(Locale.US, "Receita (Venda à Vista);%s;\"%s\";\"%s\";N/A;N/A;%.2f\n",
                     venda.getData(),
@@ -1117,7 +1112,7 @@ public class SafrasController {
             }
 
             // Vendas a Prazo (de Contas a Receber)
-            List<Conta> vendasAPrazo = contaDAO.listContasPorDescricaoLike(descVendaQuery);
+            List<Conta> vendasAPrazo = contaDAO.listContasPorDescricaoLike(descVendaQuery, true);
             for (Conta conta : vendasAPrazo) {
                  if (conta.getTipo().equals("receber")) {
                     sb.append(String.format(Locale.US, "Receita (Venda a Prazo);%s;\"%s\";\"%s\";N/A;N/A;%.2f\n",
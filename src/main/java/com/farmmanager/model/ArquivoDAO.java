@@ -0,0 +1,384 @@
+package com.farmmanager.model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * NOVO: DAO para o arquivamento anual de períodos fechados.
+ * Move as linhas de 'financeiro', 'atividades_safra' e 'contas' de anos
+ * agrícolas já encerrados para um arquivo SQLite separado por ano
+ * (fazenda_arquivo_AAAA.db), mantendo o banco principal pequeno.
+ *
+ * As consultas de relatório que precisam do histórico completo usam
+ * consultarComArquivo(), que anexa (ATTACH) cada arquivo sob demanda.
+ *
+ * ATUALIZADO: Os totais diários do financeiro arquivado ficam no banco principal
+ * (financeiro_arquivado_diario, migração 10), gravados na mesma transação que move
+ * as linhas. Balanço, receita/despesa e balanço por dia somam esses totais, então
+ * arquivar um ano não altera nenhum saldo.
+ * ATUALIZADO: Salários arquivados continuam registrados na folha de pagamento
+ * (a competência segue paga), ver desvincularFolhaPagamento.
+ * ATUALIZADO: O schema dos arquivos só é alterado por quem grava: arquivarAno e, na
+ * inicialização, sincronizarArquivos (arquivos com user_version menor que o do banco
+ * principal). As consultas apenas anexam o arquivo, inclusive nas conexões de leitura.
+ */
+public class ArquivoDAO {
+
+    // Tabelas arquivadas e a coluna de data usada para definir o ano
+    private static final Map<String, String> TABELAS_ARQUIVADAS = new LinkedHashMap<>();
+    static {
+        TABELAS_ARQUIVADAS.put("financeiro", "data");
+        TABELAS_ARQUIVADAS.put("atividades_safra", "data");
+        TABELAS_ARQUIVADAS.put("contas", "data_vencimento");
+    }
+
+    // NOVO: Acumula os totais por dia das transações que vão para o arquivo.
+    // Um ano pode ser arquivado de novo (lançamentos retroativos): os totais do dia são somados.
+    private static final String SQL_TOTAIS_ARQUIVADOS =
+        "INSERT INTO main.financeiro_arquivado_diario (data, receita, despesa, saldo) "
+        + "SELECT data, TOTAL(CASE WHEN tipo = 'receita' THEN valor END), "
+        + "TOTAL(CASE WHEN tipo = 'despesa' THEN valor END), TOTAL(valor) "
+        + "FROM main.financeiro WHERE data >= ? AND data < ? GROUP BY data "
+        + "ON CONFLICT(data) DO UPDATE SET receita = receita + excluded.receita, "
+        + "despesa = despesa + excluded.despesa, saldo = saldo + excluded.saldo";
+
+    /**
+     * Consulta executada contra um schema ("main" ou um arquivo anexado).
+     * O SQL deve usar o nome do schema como prefixo das tabelas.
+     */
+    public interface ConsultaPorSchema {
+        void executar(Connection conn, String schema) throws SQLException;
+    }
+
+    /**
+     * DTO com o resultado de um arquivamento.
+     */
+    public static class ResultadoArquivamento {
+        private final int ano;
+        private final int transacoes;
+        private final int atividades;
+        private final int contas;
+        private final String caminhoArquivo;
+
+        public ResultadoArquivamento(int ano, int transacoes, int atividades, int contas, String caminhoArquivo) {
+            this.ano = ano;
+            this.transacoes = transacoes;
+            this.atividades = atividades;
+            this.contas = contas;
+            this.caminhoArquivo = caminhoArquivo;
+        }
+
+        public int getAno() { return ano; }
+        public int getTransacoes() { return transacoes; }
+        public int getAtividades() { return atividades; }
+        public int getContas() { return contas; }
+        public String getCaminhoArquivo() { return caminhoArquivo; }
+        public int getTotal() { return transacoes + atividades + contas; }
+    }
+
+    /**
+     * Lista os anos fechados (anteriores ao ano corrente) que ainda possuem
+     * linhas arquiváveis no banco principal.
+     */
+    public List<Integer> listAnosArquivaveis() throws SQLException {
+        int anoCorrente = LocalDate.now().getYear();
+        TreeSet<Integer> anos = new TreeSet<>();
+
+        String sql = "SELECT DISTINCT CAST(substr(data, 1, 4) AS INTEGER) AS ano FROM financeiro "
+                   + "UNION SELECT DISTINCT CAST(substr(data, 1, 4) AS INTEGER) FROM atividades_safra a "
+                   + "WHERE " + condicaoAtividadeFechada("main", "a") + " "
+                   + "UNION SELECT DISTINCT CAST(substr(data_vencimento, 1, 4) AS INTEGER) FROM contas WHERE status = 'pago'";
+
+        try (Connection conn = Database.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                int ano = rs.getInt("ano");
+                if (ano > 0 && ano < anoCorrente) {
+                    anos.add(ano);
+                }
+            }
+        }
+        return new ArrayList<>(anos);
+    }
+
+    /**
+     * Lista os anos que já possuem arquivo em disco.
+     */
+    public List<Integer> listAnosArquivados() {
+        return Database.listAnosArquivados();
+    }
+
+    /**
+     * Move as linhas de um ano fechado para o arquivo daquele ano.
+     * - financeiro: todas as transações do ano.
+     * - atividades_safra: atividades do ano de safras 'Colhida' ou de uso interno.
+     * - contas: apenas contas 'pago' com vencimento no ano (pendentes ficam).
+     * A cópia e a remoção ocorrem na mesma transação.
+     * ATUALIZADO: Os totais diários do financeiro movido são gravados na mesma transação.
+     * ATUALIZADO: A folha de pagamento dos salários movidos é mantida.
+     */
+    public ResultadoArquivamento arquivarAno(int ano) throws SQLException {
+        if (ano >= LocalDate.now().getYear()) {
+            throw new IllegalArgumentException("Apenas anos já encerrados podem ser arquivados: " + ano);
+        }
+
+        String schema = aliasArquivo(ano);
+        String inicio = ano + "-01-01";
+        String fim = (ano + 1) + "-01-01";
+        int transacoes;
+        int atividades;
+        int contas;
+
+        try (Connection conn = Database.getConnection()) {
+            anexarArquivo(conn, ano);
+            try {
+                sincronizarArquivo(conn, schema, versaoSchema(conn, "main"));
+                conn.setAutoCommit(false);
+                try {
+                    registrarTotaisArquivados(conn, inicio, fim);
+                    desvincularFolhaPagamento(conn, inicio, fim);
+                    transacoes = moverLinhas(conn, schema, "financeiro",
+                        "data >= ? AND data < ?", inicio, fim);
+                    atividades = moverLinhas(conn, schema, "atividades_safra",
+                        "data >= ? AND data < ? AND " + condicaoAtividadeFechada("main", "atividades_safra"), inicio, fim);
+                    contas = moverLinhas(conn, schema, "contas",
+                        "status = 'pago' AND data_vencimento >= ? AND data_vencimento < ?", inicio, fim);
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            } finally {
+                desanexarArquivo(conn, ano);
+            }
+        }
+        return new ResultadoArquivamento(ano, transacoes, atividades, contas, Database.getArquivoPath(ano));
+    }
+
+    /**
+     * Executa a consulta no banco principal e, se solicitado, em cada arquivo anual.
+     * Cada arquivo é anexado, consultado e desanexado em sequência, o que evita
+     * o limite de bancos anexados do SQLite.
+     */
+    static void consultarComArquivo(Connection conn, boolean incluirArquivo, ConsultaPorSchema consulta) throws SQLException {
+        consulta.executar(conn, "main");
+        if (!incluirArquivo) {
+            return;
+        }
+        for (int ano : Database.listAnosArquivados()) {
+            anexarArquivo(conn, ano);
+            try {
+                consulta.executar(conn, aliasArquivo(ano));
+            } finally {
+                desanexarArquivo(conn, ano);
+            }
+        }
+    }
+
+    /**
+     * NOVO: Totais por dia do financeiro que já está nos arquivos: data -> {receita, despesa, saldo}.
+     * Usado pela migração 10 para preencher financeiro_arquivado_diario com os anos
+     * arquivados antes dela. Cada arquivo é anexado e desanexado em sequência.
+     */
+    static Map<String, double[]> lerTotaisArquivados(Connection conn) throws SQLException {
+        String sqlExiste = "SELECT 1 FROM %s.sqlite_master WHERE type = 'table' AND name = 'financeiro'";
+        String sqlTotais = "SELECT data, TOTAL(CASE WHEN tipo = 'receita' THEN valor END) AS receita, "
+                         + "TOTAL(CASE WHEN tipo = 'despesa' THEN valor END) AS despesa, TOTAL(valor) AS saldo "
+                         + "FROM %s.financeiro GROUP BY data";
+        Map<String, double[]> totais = new LinkedHashMap<>();
+        for (int ano : Database.listAnosArquivados()) {
+            String schema = aliasArquivo(ano);
+            anexarArquivo(conn, ano);
+            try (Statement stmt = conn.createStatement()) {
+                try (ResultSet rs = stmt.executeQuery(String.format(sqlExiste, schema))) {
+                    if (!rs.next()) {
+                        continue;
+                    }
+                }
+                try (ResultSet rs = stmt.executeQuery(String.format(sqlTotais, schema))) {
+                    while (rs.next()) {
+                        double[] dia = totais.computeIfAbsent(rs.getString("data"), d -> new double[3]);
+                        dia[0] += rs.getDouble("receita");
+                        dia[1] += rs.getDouble("despesa");
+                        dia[2] += rs.getDouble("saldo");
+                    }
+                }
+            } finally {
+                desanexarArquivo(conn, ano);
+            }
+        }
+        return totais;
+    }
+
+    /**
+     * NOVO: Atualiza as tabelas dos arquivos cujo schema ficou para trás (PRAGMA user_version
+     * do arquivo menor que o do banco principal). Chamado na inicialização, depois das
+     * migrações, na conexão que as aplicou; um arquivo que falhar é tentado de novo na próxima.
+     */
+    static void sincronizarArquivos(Connection conn) throws SQLException {
+        int versaoMain = versaoSchema(conn, "main");
+        for (int ano : Database.listAnosArquivados()) {
+            String schema = aliasArquivo(ano);
+            anexarArquivo(conn, ano);
+            try {
+                if (versaoSchema(conn, schema) < versaoMain) {
+                    sincronizarArquivo(conn, schema, versaoMain);
+                }
+            } finally {
+                desanexarArquivo(conn, ano);
+            }
+        }
+    }
+
+    // --- Helpers internos ---
+
+    private static String aliasArquivo(int ano) {
+        return "arq_" + ano;
+    }
+
+    /**
+     * Anexa o arquivo do ano.
+     * ATUALIZADO: Só o ATTACH; o schema do arquivo é mantido por sincronizarArquivo.
+     */
+    private static void anexarArquivo(Connection conn, int ano) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("ATTACH DATABASE ? AS " + aliasArquivo(ano))) {
+            pstmt.setString(1, Database.getArquivoPath(ano));
+            pstmt.execute();
+        }
+    }
+
+    /**
+     * NOVO: Garante que as tabelas arquivadas existam no arquivo anexado com as mesmas
+     * colunas do banco principal (novas colunas são adicionadas) e grava a versão do schema.
+     */
+    private static void sincronizarArquivo(Connection conn, String schema, int versao) throws SQLException {
+        for (Map.Entry<String, String> tabela : TABELAS_ARQUIVADAS.entrySet()) {
+            sincronizarTabela(conn, schema, tabela.getKey(), tabela.getValue());
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA " + schema + ".user_version = " + versao);
+        }
+    }
+
+    private static int versaoSchema(Connection conn, String schema) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA " + schema + ".user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static void desanexarArquivo(Connection conn, int ano) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DETACH DATABASE " + aliasArquivo(ano));
+        }
+    }
+
+    private static void sincronizarTabela(Connection conn, String schema, String tabela, String colunaData) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            // Cria a tabela vazia com as colunas atuais (sem PK/FK: ids são preservados como estão)
+            stmt.execute("CREATE TABLE IF NOT EXISTS " + schema + "." + tabela
+                       + " AS SELECT * FROM main." + tabela + " WHERE 0");
+
+            List<String[]> colunasMain = listColunas(conn, "main", tabela);
+            List<String[]> colunasArquivo = listColunas(conn, schema, tabela);
+            for (String[] coluna : colunasMain) {
+                boolean existe = colunasArquivo.stream().anyMatch(c -> c[0].equalsIgnoreCase(coluna[0]));
+                if (!existe) {
+                    stmt.execute("ALTER TABLE " + schema + "." + tabela + " ADD COLUMN " + coluna[0] + " " + coluna[1]);
+                }
+            }
+
+            stmt.execute("CREATE INDEX IF NOT EXISTS " + schema + ".idx_" + tabela + "_" + colunaData
+                       + " ON " + tabela + "(" + colunaData + ")");
+            stmt.execute("CREATE INDEX IF NOT EXISTS " + schema + ".idx_" + tabela + "_descricao"
+                       + " ON " + tabela + "(descricao)");
+        }
+    }
+
+    private static List<String[]> listColunas(Connection conn, String schema, String tabela) throws SQLException {
+        List<String[]> colunas = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA " + schema + ".table_info(" + tabela + ")")) {
+            while (rs.next()) {
+                colunas.add(new String[] { rs.getString("name"), rs.getString("type") });
+            }
+        }
+        return colunas;
+    }
+
+    private static void registrarTotaisArquivados(Connection conn, String inicio, String fim) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_TOTAIS_ARQUIVADOS)) {
+            pstmt.setString(1, inicio);
+            pstmt.setString(2, fim);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * NOVO: O trigger folha_financeiro_del apaga a linha da folha quando o salário sai do
+     * financeiro, o que liberaria a competência para ser paga de novo. Antes de mover o ano,
+     * os salários dele deixam de ser referenciados pela folha (o pagamento continua registrado).
+     */
+    private static void desvincularFolhaPagamento(Connection conn, String inicio, String fim) throws SQLException {
+        String sql = "UPDATE main.folha_pagamento SET transacao_id = NULL WHERE transacao_id IN "
+                   + "(SELECT id FROM main.financeiro WHERE funcionario_id IS NOT NULL AND data >= ? AND data < ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, inicio);
+            pstmt.setString(2, fim);
+            pstmt.executeUpdate();
+        }
+    }
+
+    private int moverLinhas(Connection conn, String schema, String tabela, String condicao, String inicio, String fim) throws SQLException {
+        StringBuilder colunas = new StringBuilder();
+        for (String[] coluna : listColunas(conn, "main", tabela)) {
+            if (colunas.length() > 0) {
+                colunas.append(", ");
+            }
+            colunas.append(coluna[0]);
+        }
+
+        String sqlCopia = "INSERT INTO " + schema + "." + tabela + " (" + colunas + ") "
+                        + "SELECT " + colunas + " FROM main." + tabela + " WHERE " + condicao;
+        String sqlRemocao = "DELETE FROM main." + tabela + " WHERE " + condicao;
+
+        try (PreparedStatement pstmtCopia = conn.prepareStatement(sqlCopia);
+             PreparedStatement pstmtRemocao = conn.prepareStatement(sqlRemocao)) {
+            pstmtCopia.setString(1, inicio);
+            pstmtCopia.setString(2, fim);
+            int copiadas = pstmtCopia.executeUpdate();
+
+            pstmtRemocao.setString(1, inicio);
+            pstmtRemocao.setString(2, fim);
+            int removidas = pstmtRemocao.executeUpdate();
+
+            if (copiadas != removidas) {
+                throw new SQLException("Arquivamento inconsistente em '" + tabela + "': "
+                    + copiadas + " copiadas, " + removidas + " removidas.");
+            }
+            return removidas;
+        }
+    }
+
+    /**
+     * Atividades só são arquivadas quando pertencem a safras já colhidas
+     * (ou a consumo interno, sem safra).
+     */
+    private static String condicaoAtividadeFechada(String schema, String alias) {
+        return "(" + alias + ".safra_id IS NULL OR " + alias + ".safra_id IN "
+             + "(SELECT id FROM " + schema + ".safras WHERE status = 'Colhida'))";
+    }
+}
@@ -16,6 +16,7 @@ import java.util.List;
  * ATUALIZADO: Adicionada classe DTO ConsumoHistoricoInfo e método listConsumoHistorico.
  * ATUALIZADO: listConsumoHistorico agora usa LEFT JOIN para incluir consumo interno (sem safra).
  * ATUALIZADO: addAtividade e listAtividadesPorSafra agora lidam com safra_id Nulo (Integer).
+ * ATUALIZADO: listAtividadesPorSafra e getCustoTotalPorSafra podem incluir os arquivos anuais.
  */
 public class AtividadeSafraDAO {
 
@@ -66,32 +67,33 @@ public class AtividadeSafraDAO {
         String sql = "INSERT INTO atividades_safra (safra_id, descricao, data, item_consumido_id, quantidade_consumida, custo_total_atividade, data_hora_criacao) "
                    + "VALUES (?, ?, ?, ?, ?, ?, ?)";
         
-        try (Connection conn = Database.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return DatabaseWriter.executar(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            // ATUALIZADO: Lida com safra_id nulo
-            if (atividade.getSafraId() != null) {
-                pstmt.setInt(1, atividade.getSafraId());
-            } else {
-                pstmt.setNull(1, Types.INTEGER);
-            }
+                // ATUALIZADO: Lida com safra_id nulo
+                if (atividade.getSafraId() != null) {
+                    pstmt.setInt(1, atividade.getSafraId());
+                } else {
+                    pstmt.setNull(1, Types.INTEGER);
+                }
             
-            pstmt.setString(2, atividade.getDescricao());
-            pstmt.setString(3, atividade.getData());
+                pstmt.setString(2, atividade.getDescricao());
+                pstmt.setString(3, atividade.getData());
             
-            if (atividade.getItemConsumidoId() != null) {
-                pstmt.setInt(4, atividade.getItemConsumidoId());
-                pstmt.setDouble(5, atividade.getQuantidadeConsumida());
-            } else {
-                pstmt.setNull(4, Types.INTEGER);
-                pstmt.setDouble(5, 0.0);
-            }
+                if (atividade.getItemConsumidoId() != null) {
+                    pstmt.setInt(4, atividade.getItemConsumidoId());
+                    pstmt.setDouble(5, atividade.getQuantidadeConsumida());
+                } else {
+                    pstmt.setNull(4, Types.INTEGER);
+                    pstmt.setDouble(5, 0.0);
+                }
             
-            pstmt.setDouble(6, atividade.getCustoTotalAtividade());
-            pstmt.setString(7, DateTimeUtil.getCurrentTimestamp()); // NOVO
+                pstmt.setDouble(6, atividade.getCustoTotalAtividade());
+                pstmt.setString(7, DateTimeUtil.getCurrentTimestamp()); // NOVO
             
-            return pstmt.executeUpdate() > 0;
-        }
+                return pstmt.executeUpdate() > 0;
+            }
+        });
     }
 
     /**
@@ -99,33 +101,43 @@ public class AtividadeSafraDAO {
      * ATUALIZADO: Lida com safra_id Nulo (Integer).
      */
     public List<AtividadeSafra> listAtividadesPorSafra(int safraId) throws SQLException {
+        return listAtividadesPorSafra(safraId, false);
+    }
+
+    /**
+     * NOVO: Versão que também consulta os arquivos anuais
+     * (atividades de safras colhidas em anos já arquivados).
+     */
+    public List<AtividadeSafra> listAtividadesPorSafra(int safraId, boolean incluirArquivo) throws SQLException {
         List<AtividadeSafra> atividades = new ArrayList<>();
-        String sql = "SELECT * FROM atividades_safra WHERE safra_id = ?";
         
-        try (Connection conn = Database.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, safraId);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    // Trata o item_consumido_id nulo
-                    Integer itemConsumidoId = (Integer) rs.getObject("item_consumido_id");
-                    // ATUALIZADO: Trata safra_id nulo (embora este método filtre por ID)
-                    Integer safraIdLido = (Integer) rs.getObject("safra_id"); 
+        try (Connection conn = Database.getConnection()) {
+            ArquivoDAO.consultarComArquivo(conn, incluirArquivo, (c, schema) -> {
+                String sql = "SELECT * FROM " + schema + ".atividades_safra WHERE safra_id = ?";
+                try (PreparedStatement pstmt = c.prepareStatement(sql)) {
+                    pstmt.setInt(1, safraId);
+                    
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            // Trata o item_consumido_id nulo
+                            Integer itemConsumidoId = (Integer) rs.getObject("item_consumido_id");
+                            // ATUALIZADO: Trata safra_id nulo (embora este método filtre por ID)
+                            Integer safraIdLido = (Integer) rs.getObject("safra_id"); 
 
-                    AtividadeSafra atv = new AtividadeSafra(
-                        rs.getInt("id"),
-                        safraIdLido, // ATUALIZADO
-                        rs.getString("descricao"),
-                        rs.getString("data"),
-                        itemConsumidoId,
-                        rs.getDouble("quantidade_consumida"),
-                        rs.getDouble("custo_total_atividade")
-                    );
-                    atividades.add(atv);
+                            AtividadeSafra atv = new AtividadeSafra(
+                                rs.getInt("id"),
+                                safraIdLido, // ATUALIZADO
+                                rs.getString("descricao"),
+                                rs.getString("data"),
+                                itemConsumidoId,
+                                rs.getDouble("quantidade_consumida"),
+                                rs.getDouble("custo_total_atividade")
+                            );
+                            atividades.add(atv);
+                        }
+                    }
                 }
-            }
+            });
         }
         return atividades;
     }
@@ -171,19 +183,29 @@ public class AtividadeSafraDAO {
      * (Será usado na Etapa 3)
      */
     public double getCustoTotalPorSafra(int safraId) throws SQLException {
-        String sql = "SELECT SUM(custo_total_atividade) AS custo_total FROM atividades_safra WHERE safra_id = ?";
+        return getCustoTotalPorSafra(safraId, false);
+    }
+
+    /**
+     * NOVO: Versão que soma também as atividades dos arquivos anuais.
+     */
+    public double getCustoTotalPorSafra(int safraId, boolean incluirArquivo) throws SQLException {
+        double[] custoTotal = { 0.0 };
         
-        try (Connection conn = Database.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, safraId);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getDouble("custo_total");
+        try (Connection conn = Database.getConnection()) {
+            ArquivoDAO.consultarComArquivo(conn, incluirArquivo, (c, schema) -> {
+                String sql = "SELECT SUM(custo_total_atividade) AS custo_total FROM " + schema + ".atividades_safra WHERE safra_id = ?";
+                try (PreparedStatement pstmt = c.prepareStatement(sql)) {
+                    pstmt.setInt(1, safraId);
+                    
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (rs.next()) {
+                            custoTotal[0] += rs.getDouble("custo_total");
+                        }
+                    }
                 }
-            }
+            });
         }
-        return 0.0;
+        return custoTotal[0];
     }
 }
\ No newline at end of file
@@ -0,0 +1,101 @@
+package com.farmmanager.model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * NOVO: Busca global (barra de busca da tela principal) sobre o índice FTS5 busca_global.
+ *
+ * O índice cobre financeiro, contas (descrição e fornecedor), atividades de safra,
+ * manutenções de patrimônio e itens de estoque, e é mantido pelos triggers da migração 3.
+ * Cada palavra digitada vira um prefixo ("adub" encontra "Adubação"); todas precisam aparecer.
+ * A ordem é a do bm25, com a descrição pesando mais que o fornecedor.
+ */
+public class BuscaGlobalDAO {
+
+    /**
+     * Pesos do bm25 para as colunas (texto, complemento).
+     */
+    private static final double PESO_TEXTO = 10.0;
+    private static final double PESO_COMPLEMENTO = 3.0;
+
+    private static final String SQL_BUSCA =
+        "SELECT b.rowid % 8 AS modulo, b.rowid / 8 AS registro_id, "
+      + "highlight(busca_global, 0, char(2), char(3)) AS texto, "
+      + "highlight(busca_global, 1, char(2), char(3)) AS complemento, "
+      + "CASE b.rowid % 8 "
+      + "  WHEN 1 THEN (SELECT data FROM financeiro WHERE id = b.rowid / 8) "
+      + "  WHEN 2 THEN (SELECT data_vencimento FROM contas WHERE id = b.rowid / 8) "
+      + "  WHEN 3 THEN (SELECT data FROM atividades_safra WHERE id = b.rowid / 8) "
+      + "  WHEN 4 THEN (SELECT data FROM manutencao_patrimonio WHERE id = b.rowid / 8) "
+      + "END AS data, "
+      + "bm25(busca_global, " + PESO_TEXTO + ", " + PESO_COMPLEMENTO + ") AS pontuacao "
+      + "FROM busca_global b "
+      + "WHERE busca_global MATCH ? "
+      + "ORDER BY pontuacao "
+      + "LIMIT ?";
+
+    /**
+     * Os "limite" resultados mais relevantes para o termo digitado.
+     * Termo vazio (ou só com pontuação) devolve lista vazia.
+     */
+    public List<ResultadoBusca> buscar(String termo, int limite) throws SQLException {
+        List<ResultadoBusca> resultados = new ArrayList<>();
+        String consulta = montarConsulta(termo);
+        if (consulta.isEmpty()) {
+            return resultados;
+        }
+
+        try (Connection conn = Database.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SQL_BUSCA)) {
+
+            pstmt.setString(1, consulta);
+            pstmt.setInt(2, limite);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    resultados.add(new ResultadoBusca(
+                        ResultadoBusca.Modulo.porCodigo(rs.getInt("modulo")),
+                        rs.getInt("registro_id"),
+                        rs.getString("texto"),
+                        rs.getString("complemento"),
+                        rs.getString("data"),
+                        rs.getDouble("pontuacao")
+                    ));
+                }
+            }
+        }
+        return resultados;
+    }
+
+    /**
+     * Converte o texto digitado em uma consulta FTS5: cada palavra entre aspas (para que
+     * AND, OR, NEAR, '-', ':' etc. não sejam interpretados como operadores) e com '*' de prefixo.
+     */
+    static String montarConsulta(String termo) {
+        if (termo == null) {
+            return "";
+        }
+        // Mesma normalização do tokenizer (unicode61 remove_diacritics): separa nas não-letras/dígitos
+        String normalizado = Normalizer.normalize(termo, Normalizer.Form.NFD)
+            .replaceAll("\\p{M}+", "")
+            .toLowerCase(Locale.ROOT);
+        StringBuilder consulta = new StringBuilder();
+        for (String palavra : normalizado.split("[^\\p{L}\\p{N}]+")) {
+            if (palavra.isEmpty()) {
+                continue;
+            }
+            if (consulta.length() > 0) {
+                consulta.append(' ');
+            }
+            consulta.append('"').append(palavra).append("\"*");
+        }
+        return consulta.toString();
+    }
+}
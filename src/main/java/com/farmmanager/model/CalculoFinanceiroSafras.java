@@ -0,0 +1,251 @@
+package com.farmmanager.model;
+
+import com.farmmanager.util.CacheStats;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * NOVO: Cálculo de custo, receita, estoque e lucro das safras colhidas
+ * (antes em HistoricoSafrasController).
+ *
+ * Cada safra é independente das outras, então a lista é dividida entre os workers de um
+ * ForkJoinPool limitado. Cada pedaço roda em Database.emLeitura, ou seja, com as conexões
+ * do pool somente leitura; os resultados são concatenados na ordem original.
+ *
+ * Paralelismo: -Dfarmmanager.historico.paralelismo (padrão: tamanho do pool de leitura).
+ * Com 1, ou com poucas safras, usa o caminho sequencial.
+ *
+ * ATUALIZADO: calcular() lê primeiro os snapshots válidos (safra_financeiro_snapshot, uma
+ * consulta) e só calcula as safras sem snapshot; os novos resultados são gravados pelo
+ * DatabaseWriter sem bloquear a tela. Os triggers da migração 2 invalidam o snapshot quando
+ * uma venda, conta, atividade ou o estoque da colheita mudam.
+ */
+public class CalculoFinanceiroSafras {
+
+    private static final int PARALELISMO =
+        Math.max(1, Integer.getInteger("farmmanager.historico.paralelismo", Database.getTamanhoPoolLeitura()));
+
+    // Abaixo disso um pedaço não é mais dividido (cada safra custa ~4 consultas)
+    private static final int SAFRAS_POR_PEDACO = 4;
+
+    private static volatile ForkJoinPool pool;
+
+    private final AtividadeSafraDAO atividadeSafraDAO = new AtividadeSafraDAO();
+    private final FinanceiroDAO financeiroDAO = new FinanceiroDAO();
+    private final ContaDAO contaDAO = new ContaDAO();
+    private final EstoqueDAO estoqueDAO = new EstoqueDAO();
+    private final SafraFinanceiroSnapshotDAO snapshotDAO = new SafraFinanceiroSnapshotDAO(); // NOVO
+    private final CacheStats estatisticasSnapshot = CacheStats.de("Snapshots financeiros de safra"); // NOVO
+
+    public static int getParalelismo() {
+        return PARALELISMO;
+    }
+
+    /**
+     * Calcula o financeiro das safras colhidas da lista (as demais são ignoradas).
+     * ATUALIZADO: usa os snapshots válidos; só as safras sem snapshot são calculadas
+     * (com o paralelismo configurado) e depois gravadas.
+     */
+    public List<SafraHistoricoInfo> calcular(List<SafraInfo> safras) throws SQLException {
+        List<SafraInfo> colhidas = filtrarColhidas(safras);
+        Map<Integer, SafraFinanceiroSnapshotDAO.Snapshot> snapshots = snapshotDAO.listValidos();
+
+        List<SafraInfo> pendentes = new ArrayList<>();
+        Map<Integer, String> nomesItem = new HashMap<>();
+        for (SafraInfo safra : colhidas) {
+            if (snapshots.containsKey(safra.getId())) {
+                estatisticasSnapshot.acerto();
+            } else {
+                estatisticasSnapshot.falha();
+                pendentes.add(safra);
+                nomesItem.put(safra.getId(), nomeItemColheita(safra));
+            }
+        }
+
+        Map<Integer, SafraHistoricoInfo> calculados = new HashMap<>();
+        if (!pendentes.isEmpty()) {
+            // A versão é reservada ANTES do cálculo: uma escrita concorrente a incrementa
+            // e o salvar() descarta o valor calculado
+            Map<Integer, Long> versoes = snapshotDAO.reservar(nomesItem);
+            List<SafraHistoricoInfo> novos = calcularSemSnapshot(pendentes);
+            for (SafraHistoricoInfo info : novos) {
+                calculados.put(info.getId(), info);
+            }
+            snapshotDAO.salvar(novos, versoes).exceptionally(erro -> {
+                System.err.println("Aviso: falha ao gravar snapshots financeiros: " + erro.getMessage());
+                return 0;
+            });
+        }
+
+        List<SafraHistoricoInfo> resultado = new ArrayList<>(colhidas.size());
+        for (SafraInfo safra : colhidas) {
+            SafraHistoricoInfo info = calculados.get(safra.getId());
+            if (info == null) {
+                SafraFinanceiroSnapshotDAO.Snapshot snapshot = snapshots.get(safra.getId());
+                info = new SafraHistoricoInfo(safra, snapshot.getCustoTotal(), snapshot.getReceitaTotal(),
+                    snapshot.getValorEmEstoque(), snapshot.getLucro());
+            }
+            resultado.add(info);
+        }
+        return resultado;
+    }
+
+    private List<SafraHistoricoInfo> calcularSemSnapshot(List<SafraInfo> colhidas) throws SQLException {
+        if (PARALELISMO == 1 || colhidas.size() <= SAFRAS_POR_PEDACO) {
+            return calcularSequencial(colhidas);
+        }
+        return calcularParalelo(colhidas, getPool());
+    }
+
+    /**
+     * Caminho sequencial (uma safra após a outra, na thread atual), sem snapshots.
+     * Público para comparação nos benchmarks.
+     */
+    public List<SafraHistoricoInfo> calcularSequencial(List<SafraInfo> safras) throws SQLException {
+        List<SafraHistoricoInfo> resultado = new ArrayList<>();
+        for (SafraInfo safra : filtrarColhidas(safras)) {
+            resultado.add(calcularSafra(safra));
+        }
+        return resultado;
+    }
+
+    /**
+     * Caminho fork/join no pool informado, sem snapshots (benchmarks usam pools de tamanhos diferentes).
+     */
+    public List<SafraHistoricoInfo> calcularParalelo(List<SafraInfo> safras, ForkJoinPool destino) throws SQLException {
+        List<SafraInfo> colhidas = filtrarColhidas(safras);
+        try {
+            return destino.invoke(new Pedaco(colhidas, 0, colhidas.size()));
+        } catch (FalhaCalculo e) {
+            throw e.getCause();
+        }
+    }
+
+    private SafraHistoricoInfo calcularSafra(SafraInfo safra) throws SQLException {
+        double custo = atividadeSafraDAO.getCustoTotalPorSafra(safra.getId(), true); // Inclui arquivos anuais
+        double receita = calcularReceitaParaSafra(safra);
+        double estoqueValor = calcularValorEstoqueParaSafra(safra);
+        double lucro = (receita + estoqueValor) - custo;
+        return new SafraHistoricoInfo(safra, custo, receita, estoqueValor, lucro);
+    }
+
+    private double calcularReceitaParaSafra(SafraInfo safra) throws SQLException {
+        double receitaTotalVendas = 0;
+        String descVendaQuery = "Venda de " + nomeItemColheita(safra);
+
+        // 1. Soma vendas À VISTA (do Financeiro)
+        List<Transacao> vendasAVista = financeiroDAO.listTransacoesPorDescricaoLike(descVendaQuery, true);
+        for (Transacao venda : vendasAVista) {
+            receitaTotalVendas += venda.getValor(); // Valores já são positivos
+        }
+
+        // 2. Soma vendas A PRAZO (de Contas a Receber)
+        List<Conta> vendasAPrazo = contaDAO.listContasPorDescricaoLike(descVendaQuery, true);
+        for (Conta conta : vendasAPrazo) {
+            if (conta.getTipo().equals("receber")) {
+                receitaTotalVendas += conta.getValor();
+            }
+        }
+        return receitaTotalVendas;
+    }
+
+    private double calcularValorEstoqueParaSafra(SafraInfo safra) throws SQLException {
+        EstoqueItem itemColheitaEstoque = estoqueDAO.getEstoqueItemPorNome(nomeItemColheita(safra));
+        if (itemColheitaEstoque != null) {
+            return itemColheitaEstoque.getValorTotal();
+        }
+        return 0.0;
+    }
+
+    private static String nomeItemColheita(SafraInfo safra) {
+        return safra.getCultura() + " (Colheita " + safra.getAnoInicio() + ")";
+    }
+
+    private static List<SafraInfo> filtrarColhidas(List<SafraInfo> safras) {
+        List<SafraInfo> colhidas = new ArrayList<>();
+        for (SafraInfo safra : safras) {
+            if (safra.getStatus().equalsIgnoreCase("Colhida")) {
+                colhidas.add(safra);
+            }
+        }
+        return colhidas;
+    }
+
+    private static ForkJoinPool getPool() {
+        if (pool == null) {
+            synchronized (CalculoFinanceiroSafras.class) {
+                if (pool == null) {
+                    // Threads do ForkJoinPool são daemon: não impedem o encerramento da aplicação
+                    pool = new ForkJoinPool(PARALELISMO);
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Intervalo [inicio, fim) da lista; divide ao meio até SAFRAS_POR_PEDACO.
+     */
+    private final class Pedaco extends RecursiveTask<List<SafraHistoricoInfo>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<SafraInfo> safras;
+        private final int inicio;
+        private final int fim;
+
+        Pedaco(List<SafraInfo> safras, int inicio, int fim) {
+            this.safras = safras;
+            this.inicio = inicio;
+            this.fim = fim;
+        }
+
+        @Override
+        protected List<SafraHistoricoInfo> compute() {
+            if (fim - inicio <= SAFRAS_POR_PEDACO) {
+                try {
+                    return Database.emLeitura(() -> {
+                        List<SafraHistoricoInfo> parcial = new ArrayList<>(fim - inicio);
+                        for (int i = inicio; i < fim; i++) {
+                            parcial.add(calcularSafra(safras.get(i)));
+                        }
+                        return parcial;
+                    });
+                } catch (SQLException e) {
+                    throw new FalhaCalculo(e);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            int meio = (inicio + fim) >>> 1;
+            Pedaco esquerda = new Pedaco(safras, inicio, meio);
+            esquerda.fork();
+            List<SafraHistoricoInfo> direita = new Pedaco(safras, meio, fim).compute();
+            List<SafraHistoricoInfo> resultado = new ArrayList<>(esquerda.join());
+            resultado.addAll(direita);
+            return resultado;
+        }
+    }
+
+    /**
+     * Leva a SQLException de um worker até calcularParalelo.
+     */
+    private static final class FalhaCalculo extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        FalhaCalculo(SQLException causa) {
+            super(causa);
+        }
+
+        @Override
+        public synchronized SQLException getCause() {
+            return (SQLException) super.getCause();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.farmmanager.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * NOVO: Categorias e origens das transações do financeiro (colunas categoria,
+ * contraparte_nome, contraparte_empresa, origem_tipo e origem_id, migração 6).
+ *
+ * Os lançamentos feitos pelos módulos (estoque, patrimônio, safras, contas, folha)
+ * já chegam classificados. interpretar() deduz a classificação a partir da descrição
+ * e só é usado onde ela não existe: linhas antigas (migração 6 e arquivos anuais)
+ * e lançamentos manuais sem categoria.
+ */
+public final class CategoriaFinanceira {
+
+    // Categorias
+    public static final String VENDA_PRODUCAO = "Venda de Produção";
+    public static final String COMPRA_INSUMOS = "Compra de Insumos";
+    public static final String CUSTO_SAFRA = "Custo de Safra";
+    public static final String FOLHA_PAGAMENTO = "Folha de Pagamento";
+    public static final String AQUISICAO_ATIVO = "Aquisição de Ativo";
+    public static final String VENDA_ATIVO = "Venda de Ativo";
+    public static final String MANUTENCAO = "Manutenção";
+    public static final String OUTRAS_RECEITAS = "Outras Receitas";
+    public static final String OUTRAS_DESPESAS = "Outras Despesas";
+
+    // Origens (origem_tipo); origem_id aponta para a linha da tabela correspondente
+    public static final String ORIGEM_CONTA = "conta";
+    public static final String ORIGEM_ESTOQUE = "estoque";
+    public static final String ORIGEM_PATRIMONIO = "patrimonio";
+    public static final String ORIGEM_SAFRA = "safra";
+    public static final String ORIGEM_FUNCIONARIO = "funcionario";
+    public static final String ORIGEM_MANUAL = "manual";
+    public static final String ORIGEM_EXTRATO = "extrato"; // NOVO: importado do extrato bancário
+
+    private static final List<String> CATEGORIAS = Collections.unmodifiableList(Arrays.asList(
+        VENDA_PRODUCAO, COMPRA_INSUMOS, CUSTO_SAFRA, FOLHA_PAGAMENTO,
+        AQUISICAO_ATIVO, VENDA_ATIVO, MANUTENCAO, OUTRAS_RECEITAS, OUTRAS_DESPESAS
+    ));
+
+    private static final String PREFIXO_LIQUIDACAO = "Liquidação: ";
+    private static final String PREFIXO_SALARIO = "Pagamento de salário: ";
+    private static final String PREFIXO_PGTO_FUNCIONARIO = "Pgto. Funcionário (";
+    // Sufixo de competência da folha: " (MM/yyyy)"
+    private static final Pattern SUFIXO_COMPETENCIA = Pattern.compile(" \\(\\d{2}/\\d{4}\\)$");
+
+    private CategoriaFinanceira() {
+    }
+
+    /**
+     * Categorias padrão, na ordem exibida nos filtros e diálogos.
+     */
+    public static List<String> listar() {
+        return CATEGORIAS;
+    }
+
+    /**
+     * Categoria genérica para lançamentos sem classificação.
+     */
+    public static String padrao(String tipo) {
+        return "receita".equals(tipo) ? OUTRAS_RECEITAS : OUTRAS_DESPESAS;
+    }
+
+    /**
+     * Preenche os campos de classificação ainda nulos da transação a partir da descrição.
+     * Campos já definidos (pelo módulo que fez o lançamento) não são alterados.
+     */
+    public static void completar(Transacao transacao) {
+        if (transacao.getCategoria() != null && transacao.getOrigemTipo() != null) {
+            return;
+        }
+        Transacao deduzida = interpretar(transacao.getDescricao(), transacao.getTipo());
+        if (transacao.getCategoria() == null) {
+            transacao.setCategoria(deduzida.getCategoria());
+        }
+        if (transacao.getContraparteNome() == null && transacao.getContraparteEmpresa() == null) {
+            transacao.setContraparte(deduzida.getContraparteNome(), deduzida.getContraparteEmpresa());
+        }
+        if (transacao.getOrigemTipo() == null) {
+            if (ORIGEM_FUNCIONARIO.equals(deduzida.getOrigemTipo()) && transacao.getFuncionarioId() != null) {
+                transacao.setOrigem(ORIGEM_FUNCIONARIO, transacao.getFuncionarioId());
+            } else {
+                transacao.setOrigem(deduzida.getOrigemTipo(), null);
+            }
+        }
+    }
+
+    /**
+     * Deduz categoria, contraparte e origem a partir dos formatos de descrição
+     * gravados pelos módulos. Devolve uma Transacao só com esses campos preenchidos.
+     * Ex: "Liquidação: Compra (a prazo): Ureia (Fornec: João) (Empresa: Agro)"
+     *   -> Compra de Insumos, João / Agro, origem conta.
+     */
+    public static Transacao interpretar(String descricao, String tipo) {
+        Transacao resultado = new Transacao(descricao, 0, null, tipo);
+        String desc = descricao != null ? descricao : "";
+        String origem = null;
+
+        if (desc.startsWith(PREFIXO_LIQUIDACAO)) {
+            desc = desc.substring(PREFIXO_LIQUIDACAO.length());
+            origem = ORIGEM_CONTA;
+        }
+
+        String nome = extrairInfo(desc, "(Fornec:");
+        String empresa = extrairInfo(desc, "(Empresa:");
+        String categoria;
+
+        if (desc.startsWith(PREFIXO_SALARIO)) {
+            categoria = FOLHA_PAGAMENTO;
+            nome = SUFIXO_COMPETENCIA.matcher(desc.substring(PREFIXO_SALARIO.length())).replaceFirst("").trim();
+            origem = ORIGEM_FUNCIONARIO;
+        } else if (desc.startsWith(PREFIXO_PGTO_FUNCIONARIO)) {
+            categoria = FOLHA_PAGAMENTO;
+            int fim = desc.indexOf("): ", PREFIXO_PGTO_FUNCIONARIO.length());
+            nome = fim > 0 ? desc.substring(PREFIXO_PGTO_FUNCIONARIO.length(), fim).trim() : null;
+            origem = ORIGEM_FUNCIONARIO;
+        } else if (desc.startsWith("Compra (")) {
+            categoria = COMPRA_INSUMOS;
+            origem = origem != null ? origem : ORIGEM_ESTOQUE;
+        } else if (desc.startsWith("Custo Safra (")) {
+            categoria = CUSTO_SAFRA;
+            origem = origem != null ? origem : ORIGEM_SAFRA;
+        } else if (desc.startsWith("Aquisição Ativo: ")) {
+            categoria = AQUISICAO_ATIVO;
+            origem = origem != null ? origem : ORIGEM_PATRIMONIO;
+        } else if (desc.startsWith("Venda Ativo: ")) {
+            categoria = VENDA_ATIVO;
+            origem = origem != null ? origem : ORIGEM_PATRIMONIO;
+        } else if (desc.startsWith("Manutenção (")) {
+            categoria = MANUTENCAO;
+            origem = origem != null ? origem : ORIGEM_PATRIMONIO;
+        } else if (desc.startsWith("Venda de ")) {
+            categoria = VENDA_PRODUCAO;
+            origem = origem != null ? origem : ORIGEM_ESTOQUE;
+        } else {
+            categoria = padrao(tipo);
+            origem = origem != null ? origem : ORIGEM_MANUAL;
+        }
+
+        resultado.setCategoria(categoria);
+        resultado.setContraparte(nome, empresa);
+        resultado.setOrigem(origem, null);
+        return resultado;
+    }
+
+    /**
+     * Texto entre o marcador e o ")" seguinte.
+     * Ex: extrairInfo("Compra (Fornec: Nome)", "(Fornec:") -> "Nome"
+     */
+    static String extrairInfo(String descricao, String marcador) {
+        int inicio = descricao.indexOf(marcador);
+        if (inicio < 0) {
+            return null;
+        }
+        inicio += marcador.length();
+        int fim = descricao.indexOf(')', inicio);
+        String valor = (fim < 0 ? descricao.substring(inicio) : descricao.substring(inicio, fim)).trim();
+        return valor.isEmpty() ? null : valor;
+    }
+}
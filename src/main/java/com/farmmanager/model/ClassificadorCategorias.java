@@ -0,0 +1,296 @@
+package com.farmmanager.model;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * NOVO: Classificador de transações pelas regras de categoria (RegraCategoria).
+ *
+ * Todas as palavras-chave são compiladas em um único autômato de Aho-Corasick (tabela de
+ * transições completa, sem seguir links de falha na busca): cada descrição é percorrida
+ * uma única vez, caractere a caractere, qualquer que seja o número de regras.
+ * O texto é comparado sem maiúsculas nem acentos, com a mesma tabela de dobra para
+ * padrões e descrições; a palavra-chave precisa aparecer como palavra inteira
+ * ("óleo" casa com "Óleo diesel", não com "Petróleo").
+ * As expressões regulares são avaliadas depois, e só as que poderiam vencer a
+ * melhor palavra-chave encontrada.
+ *
+ * Ordem de preferência quando várias regras casam: maior prioridade, depois padrão mais
+ * longo (mais específico), depois a regra mais antiga.
+ * A instância é imutável e pode ser usada por várias threads.
+ */
+public final class ClassificadorCategorias {
+
+    // Caracteres abaixo deste limite (Latin-1 e Latin Extended) usam a tabela de dobra
+    private static final int TAMANHO_TABELA = 0x250;
+    private static final char[] DOBRA = new char[TAMANHO_TABELA];
+    static {
+        for (int c = 0; c < TAMANHO_TABELA; c++) {
+            String dobrado = Normalizer.normalize(String.valueOf((char) c), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}+", "")
+                .toLowerCase(Locale.ROOT);
+            DOBRA[c] = Character.isWhitespace(c) ? ' '
+                : dobrado.length() == 1 ? dobrado.charAt(0) : Character.toLowerCase((char) c);
+        }
+    }
+
+    private static final int SEM_REGRA = Integer.MAX_VALUE;
+
+    private final String[] categorias; // por posição na ordem de preferência
+
+    // Autômato das palavras-chave
+    private final int colunas; // coluna 0 = qualquer caractere que não aparece nos padrões
+    private final int[] colunaPorCaractere = new int[TAMANHO_TABELA];
+    private final Map<Character, Integer> colunaPorCaractereExtra = new HashMap<>();
+    private final int[] transicoes; // estado * colunas + coluna -> próximo estado
+    private final int[][] saidas; // por estado: palavras-chave que terminam nele, em ordem de preferência
+    private final int[] posicaoPalavra;
+    private final int[] tamanhoPalavra;
+    private final boolean[] exigeLimiteInicio;
+    private final boolean[] exigeLimiteFim;
+
+    // Expressões regulares, em ordem de preferência
+    private final Pattern[] expressoes;
+    private final int[] posicaoExpressao;
+
+    private ClassificadorCategorias(List<RegraCategoria> regras) {
+        // 1. Ordem de preferência: posição 0 é a melhor regra
+        List<RegraCategoria> ordenadas = new ArrayList<>(regras);
+        ordenadas.sort(Comparator.comparingInt(RegraCategoria::getPrioridade).reversed()
+            .thenComparing(Comparator.comparingInt((RegraCategoria r) -> r.getPadrao().length()).reversed())
+            .thenComparingInt(RegraCategoria::getId));
+        categorias = new String[ordenadas.size()];
+
+        List<String> palavras = new ArrayList<>();
+        List<Integer> posicoesPalavras = new ArrayList<>();
+        List<Pattern> listaExpressoes = new ArrayList<>();
+        List<Integer> posicoesExpressoes = new ArrayList<>();
+        for (int i = 0; i < ordenadas.size(); i++) {
+            RegraCategoria regra = ordenadas.get(i);
+            categorias[i] = regra.getCategoria();
+            if (regra.isRegex()) {
+                try {
+                    listaExpressoes.add(compilarExpressao(regra.getPadrao()));
+                    posicoesExpressoes.add(i);
+                } catch (PatternSyntaxException e) {
+                    System.err.println("Regra de categoria ignorada (expressão inválida): " + regra.getPadrao());
+                }
+            } else {
+                String palavra = normalizar(regra.getPadrao());
+                if (!palavra.isEmpty()) {
+                    palavras.add(palavra);
+                    posicoesPalavras.add(i);
+                }
+            }
+        }
+        expressoes = listaExpressoes.toArray(new Pattern[0]);
+        posicaoExpressao = posicoesExpressoes.stream().mapToInt(Integer::intValue).toArray();
+
+        // 2. Alfabeto: uma coluna por caractere usado nas palavras-chave
+        int proximaColuna = 1;
+        int totalCaracteres = 0;
+        for (String palavra : palavras) {
+            totalCaracteres += palavra.length();
+            for (char c : palavra.toCharArray()) {
+                if (coluna(c) == 0) {
+                    if (c < TAMANHO_TABELA) {
+                        colunaPorCaractere[c] = proximaColuna++;
+                    } else {
+                        colunaPorCaractereExtra.put(c, proximaColuna++);
+                    }
+                }
+            }
+        }
+        colunas = proximaColuna;
+
+        // 3. Trie das palavras-chave
+        int maxEstados = totalCaracteres + 1;
+        int[] trie = new int[maxEstados * colunas];
+        Arrays.fill(trie, -1);
+        List<List<Integer>> terminam = new ArrayList<>();
+        terminam.add(new ArrayList<>());
+        int estados = 1;
+        posicaoPalavra = new int[palavras.size()];
+        tamanhoPalavra = new int[palavras.size()];
+        exigeLimiteInicio = new boolean[palavras.size()];
+        exigeLimiteFim = new boolean[palavras.size()];
+        for (int p = 0; p < palavras.size(); p++) {
+            String palavra = palavras.get(p);
+            posicaoPalavra[p] = posicoesPalavras.get(p);
+            tamanhoPalavra[p] = palavra.length();
+            exigeLimiteInicio[p] = Character.isLetterOrDigit(palavra.charAt(0));
+            exigeLimiteFim[p] = Character.isLetterOrDigit(palavra.charAt(palavra.length() - 1));
+            int estado = 0;
+            for (char c : palavra.toCharArray()) {
+                int indice = estado * colunas + coluna(c);
+                if (trie[indice] < 0) {
+                    trie[indice] = estados++;
+                    terminam.add(new ArrayList<>());
+                }
+                estado = trie[indice];
+            }
+            terminam.get(estado).add(p);
+        }
+
+        // 4. Links de falha (busca em largura) embutidos na tabela: toda transição fica definida
+        transicoes = Arrays.copyOf(trie, estados * colunas);
+        saidas = new int[estados][];
+        int[] falha = new int[estados];
+        ArrayDeque<Integer> fila = new ArrayDeque<>();
+        for (int c = 0; c < colunas; c++) {
+            int proximo = transicoes[c];
+            if (proximo < 0) {
+                transicoes[c] = 0;
+            } else {
+                falha[proximo] = 0;
+                fila.add(proximo);
+            }
+        }
+        saidas[0] = ordenarSaidas(terminam.get(0));
+        while (!fila.isEmpty()) {
+            int estado = fila.poll();
+            // Saídas do estado + as do link de falha (já processado: tem profundidade menor)
+            List<Integer> saida = new ArrayList<>(terminam.get(estado));
+            if (saidas[falha[estado]] != null) {
+                for (int p : saidas[falha[estado]]) {
+                    saida.add(p);
+                }
+            }
+            saidas[estado] = ordenarSaidas(saida);
+            for (int c = 0; c < colunas; c++) {
+                int indice = estado * colunas + c;
+                int proximo = transicoes[indice];
+                int viaFalha = transicoes[falha[estado] * colunas + c];
+                if (proximo < 0) {
+                    transicoes[indice] = viaFalha;
+                } else {
+                    falha[proximo] = viaFalha;
+                    fila.add(proximo);
+                }
+            }
+        }
+    }
+
+    /**
+     * Compila as regras em um classificador.
+     * Expressões regulares inválidas são ignoradas (RegraCategoriaDAO já as rejeita no cadastro).
+     */
+    public static ClassificadorCategorias compilar(List<RegraCategoria> regras) {
+        return new ClassificadorCategorias(regras);
+    }
+
+    /**
+     * Categoria da regra preferida que casa com a descrição, ou null se nenhuma casar.
+     */
+    public String classificar(String descricao) {
+        if (descricao == null || categorias.length == 0) {
+            return null;
+        }
+        int melhor = SEM_REGRA;
+
+        // 1. Palavras-chave: uma passada pelo autômato
+        int estado = 0;
+        int tamanho = descricao.length();
+        for (int i = 0; i < tamanho && melhor > 0; i++) {
+            estado = transicoes[estado * colunas + coluna(dobrar(descricao.charAt(i)))];
+            int[] saida = saidas[estado];
+            if (saida == null) {
+                continue;
+            }
+            for (int p : saida) {
+                if (posicaoPalavra[p] >= melhor) {
+                    break; // saídas em ordem de preferência: as demais também perdem
+                }
+                int inicio = i - tamanhoPalavra[p] + 1;
+                if ((!exigeLimiteInicio[p] || limitePalavra(descricao, inicio - 1))
+                        && (!exigeLimiteFim[p] || limitePalavra(descricao, i + 1))) {
+                    melhor = posicaoPalavra[p];
+                    break;
+                }
+            }
+        }
+
+        // 2. Expressões regulares que ainda podem vencer
+        for (int r = 0; r < expressoes.length && posicaoExpressao[r] < melhor; r++) {
+            if (expressoes[r].matcher(descricao).find()) {
+                melhor = posicaoExpressao[r];
+                break;
+            }
+        }
+        return melhor == SEM_REGRA ? null : categorias[melhor];
+    }
+
+    /**
+     * Quantidade de regras compiladas (palavras-chave e expressões válidas).
+     */
+    public int getQuantidadeRegras() {
+        return posicaoPalavra.length + expressoes.length;
+    }
+
+    /**
+     * Compila a expressão de uma regra (sem diferenciar maiúsculas).
+     * @throws PatternSyntaxException se a expressão for inválida
+     */
+    static Pattern compilarExpressao(String expressao) {
+        return Pattern.compile(expressao, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+    }
+
+    /**
+     * Padrão de palavra-chave normalizado: minúsculas, sem acentos, espaços simples.
+     */
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(texto.length());
+        for (int i = 0; i < texto.length(); i++) {
+            char c = dobrar(texto.charAt(i));
+            if (c != ' ' || (sb.length() > 0 && sb.charAt(sb.length() - 1) != ' ')) {
+                sb.append(c);
+            }
+        }
+        int fim = sb.length();
+        while (fim > 0 && sb.charAt(fim - 1) == ' ') {
+            fim--;
+        }
+        return sb.substring(0, fim);
+    }
+
+    private static char dobrar(char c) {
+        if (c < TAMANHO_TABELA) {
+            return DOBRA[c];
+        }
+        return Character.isWhitespace(c) ? ' ' : Character.toLowerCase(c);
+    }
+
+    private int coluna(char c) {
+        if (c < TAMANHO_TABELA) {
+            return colunaPorCaractere[c];
+        }
+        Integer coluna = colunaPorCaractereExtra.get(c);
+        return coluna != null ? coluna : 0;
+    }
+
+    private static boolean limitePalavra(String texto, int posicao) {
+        return posicao < 0 || posicao >= texto.length() || !Character.isLetterOrDigit(texto.charAt(posicao));
+    }
+
+    private int[] ordenarSaidas(List<Integer> palavrasNoEstado) {
+        if (palavrasNoEstado.isEmpty()) {
+            return null;
+        }
+        return palavrasNoEstado.stream()
+            .sorted(Comparator.comparingInt(p -> posicaoPalavra[p]))
+            .mapToInt(Integer::intValue)
+            .toArray();
+    }
+}
@@ -0,0 +1,180 @@
+package com.farmmanager.model;
+
+import com.farmmanager.util.DateTimeUtil;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * NOVO: Conciliação do extrato bancário com as contas e o financeiro.
+ *
+ * preparar() monta a prévia (três consultas pelo período do extrato e a correspondência
+ * em memória, ver ConciliadorExtrato); confirmar() grava todos os itens marcados em um
+ * único comando do DatabaseWriter: liquidações, vínculos e lançamentos novos entram no
+ * banco juntos ou não entram.
+ * Cada linha gravada leva o identificador do extrato em financeiro.extrato_id (índice
+ * único, migração 8), e linhas já importadas aparecem na prévia como "Já importado".
+ */
+public class ConciliacaoExtratoDAO {
+
+    // Diferença máxima (em dias) entre a data do extrato e o vencimento / data da transação
+    public static final int JANELA_DIAS = 10;
+
+    private final ContaDAO contaDAO = new ContaDAO();
+    private final FinanceiroDAO financeiroDAO = new FinanceiroDAO();
+    private final RegraCategoriaDAO regraCategoriaDAO = new RegraCategoriaDAO();
+
+    /**
+     * Resultado da confirmação.
+     */
+    public static final class ResultadoConciliacao {
+        private final int liquidadas;
+        private final int vinculadas;
+        private final int lancadas;
+        private final int ignoradas;
+
+        ResultadoConciliacao(int liquidadas, int vinculadas, int lancadas, int ignoradas) {
+            this.liquidadas = liquidadas;
+            this.vinculadas = vinculadas;
+            this.lancadas = lancadas;
+            this.ignoradas = ignoradas;
+        }
+
+        /** Contas liquidadas pelo extrato. */
+        public int getLiquidadas() { return liquidadas; }
+        /** Transações existentes ligadas ao extrato. */
+        public int getVinculadas() { return vinculadas; }
+        /** Lançamentos novos no financeiro. */
+        public int getLancadas() { return lancadas; }
+        /** Itens que mudaram desde a prévia (conta já paga, linha já importada) e não foram gravados. */
+        public int getIgnoradas() { return ignoradas; }
+    }
+
+    /**
+     * Prévia da conciliação, um item por lançamento do extrato.
+     */
+    public List<ItemConciliacao> preparar(List<LancamentoExtrato> lancamentos) throws SQLException {
+        if (lancamentos.isEmpty()) {
+            return Collections.emptyList();
+        }
+        LocalDate primeira = null;
+        LocalDate ultima = null;
+        for (LancamentoExtrato lancamento : lancamentos) {
+            LocalDate data = LocalDate.parse(lancamento.getData());
+            primeira = primeira == null || data.isBefore(primeira) ? data : primeira;
+            ultima = ultima == null || data.isAfter(ultima) ? data : ultima;
+        }
+        String inicio = primeira.minusDays(JANELA_DIAS).toString();
+        String fim = ultima.plusDays(JANELA_DIAS).toString();
+
+        List<Conta> contas = contaDAO.listContasPendentes(inicio, fim);
+        List<Transacao> transacoes = financeiroDAO.listTransacoesSemExtrato(inicio, fim);
+        Set<String> jaImportados = listExtratosImportados(inicio, fim);
+        ClassificadorCategorias classificador = regraCategoriaDAO.carregarClassificador();
+
+        return ConciliadorExtrato.conciliar(lancamentos, contas, transacoes, jaImportados, classificador, JANELA_DIAS);
+    }
+
+    /**
+     * Grava os itens marcados (isConfirmar) em uma única transação.
+     * Itens que deixaram de valer desde a prévia são ignorados, sem desfazer os demais.
+     */
+    public ResultadoConciliacao confirmar(List<ItemConciliacao> itens) throws SQLException {
+        List<ItemConciliacao> marcados = new ArrayList<>();
+        for (ItemConciliacao item : itens) {
+            if (item.isConfirmar()) {
+                marcados.add(item);
+            }
+        }
+        if (marcados.isEmpty()) {
+            return new ResultadoConciliacao(0, 0, 0, 0);
+        }
+
+        String sqlImportado = "SELECT 1 FROM financeiro WHERE extrato_id = ?";
+        String sqlVincular = "UPDATE financeiro SET extrato_id = ?, data_modificacao = ? WHERE id = ? AND extrato_id IS NULL";
+
+        return DatabaseWriter.executar(conn -> {
+            int liquidadas = 0, vinculadas = 0, lancadas = 0, ignoradas = 0;
+            String agora = DateTimeUtil.getCurrentTimestamp();
+            try (PreparedStatement pstmtImportado = conn.prepareStatement(sqlImportado);
+                 PreparedStatement pstmtVincular = conn.prepareStatement(sqlVincular)) {
+                for (ItemConciliacao item : marcados) {
+                    LancamentoExtrato lancamento = item.getLancamento();
+                    // Outra importação pode ter gravado a mesma linha depois da prévia
+                    pstmtImportado.setString(1, lancamento.getIdentificador());
+                    try (ResultSet rs = pstmtImportado.executeQuery()) {
+                        if (rs.next()) {
+                            ignoradas++;
+                            continue;
+                        }
+                    }
+
+                    switch (item.getAcao()) {
+                        case LIQUIDAR_CONTA:
+                            if (ContaDAO.liquidarConta(conn, item.getConta(), lancamento.getData(), lancamento.getIdentificador())) {
+                                liquidadas++;
+                            } else {
+                                ignoradas++;
+                            }
+                            break;
+                        case VINCULAR_LANCAMENTO:
+                            pstmtVincular.setString(1, lancamento.getIdentificador());
+                            pstmtVincular.setString(2, agora);
+                            pstmtVincular.setInt(3, item.getTransacao().getId());
+                            if (pstmtVincular.executeUpdate() > 0) {
+                                vinculadas++;
+                            } else {
+                                ignoradas++;
+                            }
+                            break;
+                        case NOVO_LANCAMENTO:
+                            FinanceiroDAO.addTransacao(conn, criarTransacao(item));
+                            lancadas++;
+                            break;
+                        default:
+                            ignoradas++;
+                    }
+                }
+            }
+            return new ResultadoConciliacao(liquidadas, vinculadas, lancadas, ignoradas);
+        });
+    }
+
+    /**
+     * Identificadores de extrato já gravados no período (idx_financeiro_data).
+     */
+    private Set<String> listExtratosImportados(String inicio, String fim) throws SQLException {
+        String sql = "SELECT extrato_id FROM financeiro WHERE data BETWEEN ? AND ? AND extrato_id IS NOT NULL";
+        Set<String> ids = new HashSet<>();
+        try (Connection conn = Database.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, inicio);
+            pstmt.setString(2, fim);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getString("extrato_id"));
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static Transacao criarTransacao(ItemConciliacao item) {
+        LancamentoExtrato lancamento = item.getLancamento();
+        String tipo = lancamento.isCredito() ? "receita" : "despesa";
+        String descricao = lancamento.getDescricao().trim().isEmpty() ? "Lançamento do extrato bancário" : lancamento.getDescricao();
+        Transacao transacao = new Transacao(descricao, lancamento.getValor(), lancamento.getData(), tipo);
+        transacao.setCategoria(item.getCategoria());
+        transacao.setCategoriaAutomatica(item.isCategoriaAutomatica());
+        transacao.setOrigem(CategoriaFinanceira.ORIGEM_EXTRATO, null);
+        transacao.setExtratoId(lancamento.getIdentificador());
+        return transacao;
+    }
+}
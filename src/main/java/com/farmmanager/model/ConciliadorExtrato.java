@@ -0,0 +1,231 @@
+package com.farmmanager.model;
+
+import com.farmmanager.util.SearchIndex;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * NOVO: Correspondência entre os lançamentos de um extrato e as contas pendentes /
+ * transações do financeiro (sem acesso ao banco; ver ConciliacaoExtratoDAO).
+ *
+ * Um par só é considerado com o mesmo valor (em centavos), o mesmo sentido
+ * (crédito = receita / conta a receber) e datas a no máximo "janela" dias.
+ * Os candidatos ficam em um HashMap por valor e sentido, cada grupo ordenado pela data:
+ * cada lançamento faz uma busca no mapa e uma busca binária na janela, em vez de comparar
+ * com todas as contas. Entre os pares possíveis vence a maior pontuação (datas próximas
+ * e descrições parecidas), e cada conta ou transação casa com um único lançamento.
+ * Custo total O((n + m) log m) para n lançamentos e m candidatos.
+ */
+public final class ConciliadorExtrato {
+
+    // Peso da data e da descrição na pontuação do par
+    private static final double PESO_DATA = 0.6;
+    private static final double PESO_DESCRICAO = 0.4;
+    private static final int TAMANHO_MINIMO_PALAVRA = 3;
+
+    private ConciliadorExtrato() {
+    }
+
+    /** Conta pendente ou transação que pode corresponder a um lançamento. */
+    private static final class Candidato {
+        final long dia;
+        final Conta conta;
+        final Transacao transacao;
+        private final String[] textos;
+        private Set<String> palavras; // só calculadas se algum lançamento cair na janela
+
+        Candidato(long dia, Conta conta, Transacao transacao, String... textos) {
+            this.dia = dia;
+            this.conta = conta;
+            this.transacao = transacao;
+            this.textos = textos;
+        }
+
+        Set<String> palavras() {
+            if (palavras == null) {
+                palavras = ConciliadorExtrato.palavras(textos);
+            }
+            return palavras;
+        }
+    }
+
+    private static final class Par {
+        final int lancamento;
+        final Candidato candidato;
+        final double pontuacao;
+
+        Par(int lancamento, Candidato candidato, double pontuacao) {
+            this.lancamento = lancamento;
+            this.candidato = candidato;
+            this.pontuacao = pontuacao;
+        }
+    }
+
+    /**
+     * Monta a prévia da conciliação, um item por lançamento, na ordem do extrato.
+     * @param contasPendentes contas com status "pendente"
+     * @param transacoes transações do período ainda não vinculadas a um extrato
+     * @param jaImportados identificadores de lançamentos já gravados (financeiro.extrato_id)
+     * @param classificador regras de categoria para os lançamentos novos
+     * @param janelaDias diferença máxima entre a data do extrato e o vencimento / data da transação
+     */
+    public static List<ItemConciliacao> conciliar(List<LancamentoExtrato> lancamentos, List<Conta> contasPendentes,
+                                                  List<Transacao> transacoes, Set<String> jaImportados,
+                                                  ClassificadorCategorias classificador, int janelaDias) {
+        // 1. Índice: (valor, sentido) -> candidatos ordenados pela data
+        Map<Long, List<Candidato>> grupos = new HashMap<>();
+        for (Conta conta : contasPendentes) {
+            long chave = chave(Math.round(conta.getValor() * 100), "receber".equals(conta.getTipo()));
+            grupos.computeIfAbsent(chave, k -> new ArrayList<>()).add(new Candidato(
+                LocalDate.parse(conta.getDataVencimento()).toEpochDay(), conta, null,
+                conta.getDescricao(), conta.getFornecedorNome(), conta.getFornecedorEmpresa()));
+        }
+        for (Transacao transacao : transacoes) {
+            long chave = chave(Math.round(Math.abs(transacao.getValor()) * 100), transacao.getValor() > 0);
+            grupos.computeIfAbsent(chave, k -> new ArrayList<>()).add(new Candidato(
+                LocalDate.parse(transacao.getData()).toEpochDay(), null, transacao,
+                transacao.getDescricao(), transacao.getContraparteNome(), transacao.getContraparteEmpresa()));
+        }
+        Map<Long, Candidato[]> indice = new HashMap<>(grupos.size() * 2);
+        Map<Long, long[]> dias = new HashMap<>(grupos.size() * 2);
+        for (Map.Entry<Long, List<Candidato>> grupo : grupos.entrySet()) {
+            Candidato[] ordenados = grupo.getValue().toArray(new Candidato[0]);
+            Arrays.sort(ordenados, (a, b) -> Long.compare(a.dia, b.dia));
+            long[] diasGrupo = new long[ordenados.length];
+            for (int i = 0; i < ordenados.length; i++) {
+                diasGrupo[i] = ordenados[i].dia;
+            }
+            indice.put(grupo.getKey(), ordenados);
+            dias.put(grupo.getKey(), diasGrupo);
+        }
+
+        // 2. Pares possíveis: busca no mapa + busca binária da janela de datas
+        List<Par> pares = new ArrayList<>();
+        for (int i = 0; i < lancamentos.size(); i++) {
+            LancamentoExtrato lancamento = lancamentos.get(i);
+            if (jaImportados.contains(lancamento.getIdentificador())) {
+                continue;
+            }
+            long chave = chave(lancamento.getCentavos(), lancamento.isCredito());
+            Candidato[] grupo = indice.get(chave);
+            if (grupo == null) {
+                continue;
+            }
+            long dia = LocalDate.parse(lancamento.getData()).toEpochDay();
+            long[] diasGrupo = dias.get(chave);
+            int inicio = primeiroAPartirDe(diasGrupo, dia - janelaDias);
+            Set<String> palavrasLancamento = null;
+            for (int c = inicio; c < grupo.length && grupo[c].dia <= dia + janelaDias; c++) {
+                if (palavrasLancamento == null) {
+                    palavrasLancamento = palavras(lancamento.getDescricao());
+                }
+                double proximidade = 1.0 - (double) Math.abs(grupo[c].dia - dia) / (janelaDias + 1);
+                double semelhanca = semelhanca(palavrasLancamento, grupo[c].palavras());
+                pares.add(new Par(i, grupo[c], PESO_DATA * proximidade + PESO_DESCRICAO * semelhanca));
+            }
+        }
+
+        // 3. Atribuição gulosa pela maior pontuação: cada lado casa uma vez só
+        pares.sort((a, b) -> a.pontuacao != b.pontuacao
+            ? Double.compare(b.pontuacao, a.pontuacao)
+            : Integer.compare(a.lancamento, b.lancamento));
+        Par[] escolhido = new Par[lancamentos.size()];
+        Set<Candidato> usados = new HashSet<>();
+        for (Par par : pares) {
+            if (escolhido[par.lancamento] == null && !usados.contains(par.candidato)) {
+                escolhido[par.lancamento] = par;
+                usados.add(par.candidato);
+            }
+        }
+
+        // 4. Itens da prévia, na ordem do extrato
+        List<ItemConciliacao> itens = new ArrayList<>(lancamentos.size());
+        for (int i = 0; i < lancamentos.size(); i++) {
+            LancamentoExtrato lancamento = lancamentos.get(i);
+            Par par = escolhido[i];
+            if (jaImportados.contains(lancamento.getIdentificador())) {
+                itens.add(new ItemConciliacao(lancamento, ItemConciliacao.Acao.JA_IMPORTADO, null, null, 0, null, false));
+            } else if (par != null && par.candidato.conta != null) {
+                itens.add(new ItemConciliacao(lancamento, ItemConciliacao.Acao.LIQUIDAR_CONTA,
+                    par.candidato.conta, null, par.pontuacao, null, false));
+            } else if (par != null) {
+                itens.add(new ItemConciliacao(lancamento, ItemConciliacao.Acao.VINCULAR_LANCAMENTO,
+                    null, par.candidato.transacao, par.pontuacao, null, false));
+            } else {
+                String categoria = classificador != null ? classificador.classificar(lancamento.getDescricao()) : null;
+                boolean automatica = categoria != null;
+                if (categoria == null) {
+                    categoria = CategoriaFinanceira.padrao(lancamento.isCredito() ? "receita" : "despesa");
+                }
+                itens.add(new ItemConciliacao(lancamento, ItemConciliacao.Acao.NOVO_LANCAMENTO,
+                    null, null, 0, categoria, automatica));
+            }
+        }
+        return itens;
+    }
+
+    private static long chave(long centavos, boolean credito) {
+        return centavos * 2 + (credito ? 1 : 0);
+    }
+
+    /**
+     * Primeira posição com dia >= limite (lower bound).
+     */
+    private static int primeiroAPartirDe(long[] diasOrdenados, long limite) {
+        int inicio = 0;
+        int fim = diasOrdenados.length;
+        while (inicio < fim) {
+            int meio = (inicio + fim) >>> 1;
+            if (diasOrdenados[meio] < limite) {
+                inicio = meio + 1;
+            } else {
+                fim = meio;
+            }
+        }
+        return inicio;
+    }
+
+    /**
+     * Palavras significativas (normalizadas, com 3+ letras) dos textos informados.
+     */
+    static Set<String> palavras(String... textos) {
+        Set<String> palavras = new HashSet<>();
+        for (String texto : textos) {
+            if (texto == null) {
+                continue;
+            }
+            for (String palavra : SearchIndex.normalizar(texto).split("[^a-z0-9]+")) {
+                if (palavra.length() >= TAMANHO_MINIMO_PALAVRA) {
+                    palavras.add(palavra);
+                }
+            }
+        }
+        return palavras;
+    }
+
+    /**
+     * Fração das palavras do texto menor que aparecem no outro (0 a 1).
+     * Os históricos do banco são curtos e abreviados ("PAG BOLETO AGROSUL"), por isso
+     * a comparação é pelo menor conjunto, e não pela união.
+     */
+    static double semelhanca(Set<String> a, Set<String> b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0;
+        }
+        Set<String> menor = a.size() <= b.size() ? a : b;
+        Set<String> maior = menor == a ? b : a;
+        int comuns = 0;
+        for (String palavra : menor) {
+            if (maior.contains(palavra)) {
+                comuns++;
+            }
+        }
+        return (double) comuns / menor.size();
+    }
+}
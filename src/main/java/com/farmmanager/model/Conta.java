@@ -5,6 +5,7 @@ package com.farmmanager.model;
  * (Conta a Pagar ou Conta a Receber).
  * ATUALIZADO: Adicionados setters para permitir a edição.
  * ATUALIZADO: Adicionado fornecedorNome e fornecedorEmpresa.
+ * ATUALIZADO: Adicionados planoId e parcelaNumero (parcelas de um PlanoParcelamento).
  */
 public class Conta {
     private int id;
@@ -16,6 +17,8 @@ public class Conta {
     private String fornecedorNome; // NOVO
     private String fornecedorEmpresa; // NOVO
     private String dataCriacao;
+    private Integer planoId; // NOVO: nulo se a conta não é parcela de um plano
+    private Integer parcelaNumero; // NOVO: 1..N dentro do plano
     
     // Construtor para criar (sem ID)
     public Conta(String descricao, double valor, String dataVencimento, String tipo, String status, String fornecedorNome, String fornecedorEmpresa) {
@@ -56,6 +59,8 @@ public class Conta {
     public String getFornecedorNome() { return fornecedorNome; } // NOVO
     public String getFornecedorEmpresa() { return fornecedorEmpresa; } // NOVO
     public String getDataCriacao() { return dataCriacao; }
+    public Integer getPlanoId() { return planoId; } // NOVO
+    public Integer getParcelaNumero() { return parcelaNumero; } // NOVO
 
     // NOVO: Setters para edição
     public void setDescricao(String descricao) {
@@ -76,4 +81,13 @@ public class Conta {
     public void setFornecedorEmpresa(String fornecedorEmpresa) { // NOVO
         this.fornecedorEmpresa = fornecedorEmpresa;
     }
+    public void setPlanoId(Integer planoId) { // NOVO
+        this.planoId = planoId;
+    }
+    public void setParcelaNumero(Integer parcelaNumero) { // NOVO
+        this.parcelaNumero = parcelaNumero;
+    }
+    public void setStatus(String status) { // NOVO: atualização da linha após a liquidação em lote
+        this.status = status;
+    }
 }
@@ -7,7 +7,11 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement; 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
 /**
  * NOVO: DAO para gerenciar a tabela 'contas' (Contas a Pagar/Receber).
@@ -16,28 +20,98 @@ import java.util.List;
  * ATUALIZADO: Adicionados campos de fornecedor.
  * ATUALIZADO: Adicionado listContasPorDescricaoLike para o balanço de safras.
  * ATUALIZADO: Revertido SQL de data para sintaxe do SQLite.
+ * ATUALIZADO: listContasPorDescricaoLike pode incluir os arquivos anuais.
+ * CORRIGIDO: liquidarConta é atômica (status + financeiro na mesma transação).
+ * ATUALIZADO: A liquidação grava categoria, fornecedor e a conta de origem no financeiro.
+ * ATUALIZADO: liquidarConta(Connection, ...) para liquidar dentro da transação de outro DAO
+ * (conciliação bancária).
+ * NOVO: liquidarContas liquida várias contas em uma transação, com UPDATE e INSERT em lote.
+ * NOVO: Parcelas de planos de parcelamento (plano_id, parcela_numero): addContas em lote
+ * e listContasPorPlano.
  */
 public class ContaDAO {
 
+    // Ids por comando em getContasPorIds (o SQLite antigo aceita até 999 parâmetros)
+    private static final int TAMANHO_BLOCO_IN = 500;
+
+    private static final String SQL_INSERT =
+        "INSERT INTO contas(descricao, valor, data_vencimento, tipo, status, fornecedor_nome, fornecedor_empresa, "
+        + "data_criacao, plano_id, parcela_numero) VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * NOVO: Resultado da liquidação de uma conta em liquidarContas.
+     */
+    public static final class ResultadoLiquidacao {
+        private final int contaId;
+        private final Conta conta; // Como ficou após o lote; nulo se a conta não existe mais
+        private final boolean liquidada;
+        private final String motivo; // Por que não foi liquidada
+
+        ResultadoLiquidacao(int contaId, Conta conta, boolean liquidada, String motivo) {
+            this.contaId = contaId;
+            this.conta = conta;
+            this.liquidada = liquidada;
+            this.motivo = motivo;
+        }
+
+        // Getters
+        public int getContaId() { return contaId; }
+        public Conta getConta() { return conta; }
+        public boolean isLiquidada() { return liquidada; }
+        public String getMotivo() { return motivo; }
+
+        // Getters para a tabela do relatório
+        public String getDescricao() { return conta != null ? conta.getDescricao() : "Conta #" + contaId; }
+        public double getValor() { return conta != null ? conta.getValor() : 0; }
+        public String getSituacao() { return liquidada ? "Liquidada" : motivo; }
+    }
+
     /**
      * Adiciona uma nova conta (pagar/receber).
      */
     public boolean addConta(Conta conta) throws SQLException {
-        String sql = "INSERT INTO contas(descricao, valor, data_vencimento, tipo, status, fornecedor_nome, fornecedor_empresa, data_criacao) VALUES(?, ?, ?, ?, ?, ?, ?, ?)";
-        try (Connection conn = Database.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, conta.getDescricao());
-            pstmt.setDouble(2, conta.getValor()); // Valor é sempre positivo
-            pstmt.setString(3, conta.getDataVencimento());
-            pstmt.setString(4, conta.getTipo());
-            pstmt.setString(5, conta.getStatus());
-            pstmt.setString(6, conta.getFornecedorNome()); // NOVO
-            pstmt.setString(7, conta.getFornecedorEmpresa()); // NOVO
-            pstmt.setString(8, DateTimeUtil.getCurrentTimestamp());
-            
-            return pstmt.executeUpdate() > 0;
+        return DatabaseWriter.executar(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(SQL_INSERT)) {
+                preencherInsert(pstmt, conta, DateTimeUtil.getCurrentTimestamp());
+                return pstmt.executeUpdate() > 0;
+            }
+        });
+    }
+
+    /**
+     * NOVO: Insere várias contas em um único lote, na transação de quem chama
+     * (ex: as parcelas de PlanoParcelamentoDAO.criarPlano).
+     * @return quantidade de contas inseridas
+     */
+    static int addContas(Connection conn, List<Conta> contas) throws SQLException {
+        if (contas.isEmpty()) {
+            return 0;
         }
+        int inseridas = 0;
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_INSERT)) {
+            String now = DateTimeUtil.getCurrentTimestamp();
+            for (Conta conta : contas) {
+                preencherInsert(pstmt, conta, now);
+                pstmt.addBatch();
+            }
+            for (int linhas : pstmt.executeBatch()) {
+                inseridas += linhas > 0 ? linhas : 0;
+            }
+        }
+        return inseridas;
+    }
+
+    private static void preencherInsert(PreparedStatement pstmt, Conta conta, String now) throws SQLException {
+        pstmt.setString(1, conta.getDescricao());
+        pstmt.setDouble(2, conta.getValor()); // Valor é sempre positivo
+        pstmt.setString(3, conta.getDataVencimento());
+        pstmt.setString(4, conta.getTipo());
+        pstmt.setString(5, conta.getStatus());
+        pstmt.setString(6, conta.getFornecedorNome()); // NOVO
+        pstmt.setString(7, conta.getFornecedorEmpresa()); // NOVO
+        pstmt.setString(8, now);
+        pstmt.setObject(9, conta.getPlanoId()); // NOVO
+        pstmt.setObject(10, conta.getParcelaNumero()); // NOVO
     }
 
     /**
@@ -45,12 +119,13 @@ public class ContaDAO {
      */
     public boolean removerConta(int id) throws SQLException {
         String sql = "DELETE FROM contas WHERE id = ?";
-        try (Connection conn = Database.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return DatabaseWriter.executar(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, id);
-            return pstmt.executeUpdate() > 0;
-        }
+                pstmt.setInt(1, id);
+                return pstmt.executeUpdate() > 0;
+            }
+        });
     }
 
     /**
@@ -60,25 +135,29 @@ public class ContaDAO {
         String sql = "UPDATE contas SET descricao = ?, valor = ?, data_vencimento = ?, tipo = ?, "
                    + "fornecedor_nome = ?, fornecedor_empresa = ? "
                    + "WHERE id = ? AND status = 'pendente'";
-        try (Connection conn = Database.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return DatabaseWriter.executar(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setString(1, conta.getDescricao());
-            pstmt.setDouble(2, conta.getValor());
-            pstmt.setString(3, conta.getDataVencimento());
-            pstmt.setString(4, conta.getTipo());
-            pstmt.setString(5, conta.getFornecedorNome()); // NOVO
-            pstmt.setString(6, conta.getFornecedorEmpresa()); // NOVO
-            pstmt.setInt(7, conta.getId());
+                pstmt.setString(1, conta.getDescricao());
+                pstmt.setDouble(2, conta.getValor());
+                pstmt.setString(3, conta.getDataVencimento());
+                pstmt.setString(4, conta.getTipo());
+                pstmt.setString(5, conta.getFornecedorNome()); // NOVO
+                pstmt.setString(6, conta.getFornecedorEmpresa()); // NOVO
+                pstmt.setInt(7, conta.getId());
             
-            return pstmt.executeUpdate() > 0;
-        }
+                return pstmt.executeUpdate() > 0;
+            }
+        });
     }
 
     /**
      * "Liquida" uma conta:
      * 1. Atualiza o status da conta para "pago".
      * 2. Cria uma transação correspondente no 'financeiro'.
+     * CORRIGIDO: As duas operações agora estão na mesma transação, e o UPDATE só
+     * vale para conta ainda 'pendente'. Antes, dois usuários liquidando a mesma
+     * conta ao mesmo tempo geravam dois lançamentos no financeiro.
      */
     public boolean liquidarConta(int id, String dataPagamento) throws SQLException {
         // 1. Buscar a conta
@@ -87,7 +166,104 @@ public class ContaDAO {
             throw new SQLException("Conta não encontrada ou já foi paga.");
         }
 
-        // 2. Definir a transação
+        // O DatabaseWriter executa o comando em um SAVEPOINT: a exceção desfaz as duas operações
+        return DatabaseWriter.executar(conn -> {
+            if (!liquidarConta(conn, conta, dataPagamento, null)) {
+                throw new SQLException("Conta não encontrada ou já foi paga.");
+            }
+            return true;
+        });
+    }
+
+    /**
+     * NOVO: Liquida a conta usando uma conexão já aberta (mesma transação de quem chama,
+     * ex: ConciliacaoExtratoDAO.confirmar).
+     * @param extratoId lançamento do extrato bancário que pagou a conta (pode ser nulo)
+     * @return false se a conta não estava mais pendente (nada é gravado)
+     */
+    static boolean liquidarConta(Connection conn, Conta conta, String dataPagamento, String extratoId) throws SQLException {
+        String sqlUpdateConta = "UPDATE contas SET status = 'pago' WHERE id = ? AND status = 'pendente'";
+
+        // 3. Atualiza o status; se outra estação já liquidou, nenhuma linha muda
+        try (PreparedStatement pstmtUpdate = conn.prepareStatement(sqlUpdateConta)) {
+            pstmtUpdate.setInt(1, conta.getId());
+            if (pstmtUpdate.executeUpdate() == 0) {
+                return false;
+            }
+        }
+
+        // 4. Adiciona no financeiro (mesma conexão, mesma transação)
+        return FinanceiroDAO.addTransacao(conn, criarTransacaoLiquidacao(conta, dataPagamento, extratoId));
+    }
+
+    /**
+     * NOVO: Liquida várias contas na mesma data em um único comando do DatabaseWriter
+     * (uma transação, um COMMIT): as contas são lidas com SELECT ... IN, os status mudam
+     * com um UPDATE em lote e os lançamentos entram no financeiro com um INSERT em lote.
+     * Contas já pagas ou removidas não impedem as demais: cada id recebe seu resultado,
+     * na ordem da lista.
+     */
+    public List<ResultadoLiquidacao> liquidarContas(List<Integer> ids, String dataPagamento) throws SQLException {
+        List<Integer> unicos = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (unicos.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String sqlUpdateConta = "UPDATE contas SET status = 'pago' WHERE id = ? AND status = 'pendente'";
+
+        return DatabaseWriter.executar(conn -> {
+            // 1. Lê as contas na própria transação do escritor: o status não muda até o COMMIT
+            Map<Integer, Conta> contas = getContasPorIds(conn, unicos);
+
+            // 2. Status das pendentes em um único lote
+            List<Conta> pendentes = new ArrayList<>();
+            for (Integer id : unicos) {
+                Conta conta = contas.get(id);
+                if (conta != null && conta.getStatus().equals("pendente")) {
+                    pendentes.add(conta);
+                }
+            }
+            int[] atualizadas;
+            try (PreparedStatement pstmtUpdate = conn.prepareStatement(sqlUpdateConta)) {
+                for (Conta conta : pendentes) {
+                    pstmtUpdate.setInt(1, conta.getId());
+                    pstmtUpdate.addBatch();
+                }
+                atualizadas = pendentes.isEmpty() ? new int[0] : pstmtUpdate.executeBatch();
+            }
+
+            // 3. Lançamentos no financeiro em um único lote
+            List<Transacao> transacoes = new ArrayList<>();
+            for (int i = 0; i < pendentes.size(); i++) {
+                if (atualizadas[i] > 0) {
+                    Conta conta = pendentes.get(i);
+                    transacoes.add(criarTransacaoLiquidacao(conta, dataPagamento, null));
+                    conta.setStatus("pago");
+                }
+            }
+            FinanceiroDAO.addTransacoes(conn, transacoes);
+
+            // 4. Resultado por conta
+            List<ResultadoLiquidacao> resultados = new ArrayList<>(unicos.size());
+            for (int i = 0, p = 0; i < unicos.size(); i++) {
+                Conta conta = contas.get(unicos.get(i));
+                if (conta == null) {
+                    resultados.add(new ResultadoLiquidacao(unicos.get(i), null, false, "Conta não encontrada (removida)."));
+                } else if (p < pendentes.size() && pendentes.get(p) == conta) {
+                    boolean liquidada = atualizadas[p++] > 0;
+                    resultados.add(new ResultadoLiquidacao(conta.getId(), conta, liquidada,
+                        liquidada ? null : "Conta já foi paga."));
+                } else {
+                    resultados.add(new ResultadoLiquidacao(conta.getId(), conta, false, "Conta já foi paga."));
+                }
+            }
+            return resultados;
+        });
+    }
+
+    /**
+     * Lançamento do financeiro correspondente à liquidação da conta.
+     */
+    private static Transacao criarTransacaoLiquidacao(Conta conta, String dataPagamento, String extratoId) {
         double valorTransacao = conta.getTipo().equals("pagar") ? -conta.getValor() : conta.getValor();
         String tipoTransacao = conta.getTipo().equals("pagar") ? "despesa" : "receita";
         
@@ -98,45 +274,35 @@ public class ContaDAO {
         }
 
         Transacao transacao = new Transacao(descTransacao, valorTransacao, dataPagamento, tipoTransacao);
-        
-        String sqlUpdateConta = "UPDATE contas SET status = 'pago' WHERE id = ?";
-        
-        Connection conn = null;
-        try {
-            conn = Database.getConnection();
-            conn.setAutoCommit(false); // Inicia transação
-
-            // 3. Adiciona no financeiro
-            FinanceiroDAO financeiroDAO = new FinanceiroDAO();
-            // Como o FinanceiroDAO não está preparado para isso, vamos chamá-lo fora da transação
-            // (idealmente, o addTransacao receberia a conexão)
-            
-            // ATUALIZAÇÃO: Para simplificar, vamos fazer as duas operações separadas
-            // Se o primeiro falhar, o segundo não executa.
-            
-            // 1. Adiciona no financeiro
-            financeiroDAO.addTransacao(transacao);
-            
-            // 2. Atualiza o status da conta
-            try (PreparedStatement pstmtUpdate = conn.prepareStatement(sqlUpdateConta)) {
-                pstmtUpdate.setInt(1, id);
-                pstmtUpdate.executeUpdate();
-            }
+        // NOVO: Classificação estruturada: categoria da conta (pela descrição), fornecedor e a própria conta
+        transacao.setCategoria(CategoriaFinanceira.interpretar(conta.getDescricao(), tipoTransacao).getCategoria());
+        transacao.setContraparte(conta.getFornecedorNome(), conta.getFornecedorEmpresa());
+        transacao.setOrigem(CategoriaFinanceira.ORIGEM_CONTA, conta.getId());
+        transacao.setExtratoId(extratoId);
+        return transacao;
+    }
 
-            conn.commit(); // Efetiva (apenas o update, neste caso)
-            return true;
-            
-        } catch (SQLException e) {
-            if (conn != null) {
-                conn.rollback();
-            }
-            throw e;
-        } finally {
-            if (conn != null) {
-                conn.setAutoCommit(true);
-                conn.close();
+    /**
+     * Contas por id, lidas em blocos (limite de parâmetros por comando do SQLite).
+     */
+    private Map<Integer, Conta> getContasPorIds(Connection conn, List<Integer> ids) throws SQLException {
+        Map<Integer, Conta> contas = new HashMap<>();
+        for (int inicio = 0; inicio < ids.size(); inicio += TAMANHO_BLOCO_IN) {
+            List<Integer> bloco = ids.subList(inicio, Math.min(ids.size(), inicio + TAMANHO_BLOCO_IN));
+            String sql = "SELECT * FROM contas WHERE id IN (" + String.join(", ", Collections.nCopies(bloco.size(), "?")) + ")";
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < bloco.size(); i++) {
+                    pstmt.setInt(i + 1, bloco.get(i));
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        Conta conta = mapRowToConta(rs);
+                        contas.put(conta.getId(), conta);
+                    }
+                }
             }
         }
+        return contas;
     }
 
     /**
@@ -189,28 +355,75 @@ public class ContaDAO {
     }
 
     /**
-     * NOVO: Retorna uma lista de contas (pagar/receber) onde a descrição começa com o texto.
-     * Usado pelo SafrasController para encontrar vendas a prazo.
+     * NOVO: Contas pendentes com vencimento no período (usa idx_contas_status).
      */
-    public List<Conta> listContasPorDescricaoLike(String partialDesc) throws SQLException {
+    public List<Conta> listContasPendentes(String vencimentoInicio, String vencimentoFim) throws SQLException {
         List<Conta> contas = new ArrayList<>();
-        // Busca por contas que COMECEM com o prefixo
-        String sql = "SELECT * FROM contas WHERE descricao LIKE ? ORDER BY data_vencimento ASC";
-        
+        String sql = "SELECT * FROM contas WHERE status = 'pendente' AND data_vencimento BETWEEN ? AND ? "
+                   + "ORDER BY data_vencimento ASC";
         try (Connection conn = Database.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, partialDesc + "%"); 
-            
+            pstmt.setString(1, vencimentoInicio);
+            pstmt.setString(2, vencimentoFim);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    contas.add(mapRowToConta(rs));
+                }
+            }
+        }
+        return contas;
+    }
+
+    /**
+     * NOVO: Parcelas de um plano de parcelamento, em ordem (usa idx_contas_plano).
+     */
+    public List<Conta> listContasPorPlano(int planoId) throws SQLException {
+        List<Conta> contas = new ArrayList<>();
+        String sql = "SELECT * FROM contas WHERE plano_id = ? ORDER BY parcela_numero ASC";
+        try (Connection conn = Database.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, planoId);
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    contas.add(mapRowToConta(rs)); // Reusa o helper existente
+                    contas.add(mapRowToConta(rs));
                 }
             }
         }
         return contas;
     }
 
+    /**
+     * NOVO: Retorna uma lista de contas (pagar/receber) onde a descrição começa com o texto.
+     * Usado pelo SafrasController para encontrar vendas a prazo.
+     */
+    public List<Conta> listContasPorDescricaoLike(String partialDesc) throws SQLException {
+        return listContasPorDescricaoLike(partialDesc, false);
+    }
+
+    /**
+     * NOVO: Versão que também consulta os arquivos anuais (contas pagas arquivadas).
+     */
+    public List<Conta> listContasPorDescricaoLike(String partialDesc, boolean incluirArquivo) throws SQLException {
+        List<Conta> contas = new ArrayList<>();
+        
+        try (Connection conn = Database.getConnection()) {
+            ArquivoDAO.consultarComArquivo(conn, incluirArquivo, (c, schema) -> {
+                // Busca por contas que COMECEM com o prefixo
+                String sql = "SELECT * FROM " + schema + ".contas WHERE descricao LIKE ? ORDER BY data_vencimento ASC";
+                try (PreparedStatement pstmt = c.prepareStatement(sql)) {
+                    pstmt.setString(1, partialDesc + "%"); 
+                    
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            contas.add(mapRowToConta(rs)); // Reusa o helper existente
+                        }
+                    }
+                }
+            });
+        }
+        return contas;
+    }
+
     /**
      * Calcula o total pendente (a pagar ou a receber).
      */
@@ -292,7 +505,7 @@ public class ContaDAO {
 
     // Helper para mapear o ResultSet
     private Conta mapRowToConta(ResultSet rs) throws SQLException {
-        return new Conta(
+        Conta conta = new Conta(
             rs.getInt("id"),
             rs.getString("descricao"),
             rs.getDouble("valor"),
@@ -303,5 +516,12 @@ public class ContaDAO {
             rs.getString("fornecedor_empresa"), // NOVO
             rs.getString("data_criacao")
         );
+        // NOVO: Parcela de plano (colunas nulas nas contas avulsas)
+        int planoId = rs.getInt("plano_id");
+        if (!rs.wasNull()) {
+            conta.setPlanoId(planoId);
+            conta.setParcelaNumero(rs.getInt("parcela_numero"));
+        }
+        return conta;
     }
 }
\ No newline at end of file
@@ -4,9 +4,15 @@ import java.io.File; // RE-ADICIONADO
 import com.farmmanager.util.AlertUtil; // Certifique-se que AlertUtil está acessível
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
 
 /**
  * Classe utilitária para gerenciar a conexão com o banco de dados
@@ -16,13 +22,43 @@ import java.sql.Statement;
  * - Revertido de PostgreSQL (servidor) para SQLite (ficheiro local).
  * - Sintaxe de 'SERIAL PRIMARY KEY' alterada de volta para 'INTEGER PRIMARY KEY AUTOINCREMENT'.
  * - ATUALIZADO: Tabela 'atividades_safra' agora permite safra_id NULO.
+ * - NOVO: Localização dos arquivos de arquivamento anual (fazenda_arquivo_AAAA.db).
+ * - NOVO: Migrações versionadas via PRAGMA user_version (aplicarMigracoes).
+ * - NOVO: busy_timeout nas conexões e registro do último acesso (usado pela manutenção).
+ * - NOVO: Conexões instrumentadas para métricas (ver DbMetrics).
+ * - NOVO: Caminho do banco configurável e inicialização headless (inicializarSchema).
+ * - NOVO: Pool de conexões somente leitura para consultas paralelas (emLeitura).
+ * - NOVO: Migração 2 (safra_financeiro_snapshot e triggers de invalidação).
+ * - NOVO: Migração 3 (índice FTS5 busca_global da busca global, mantido por triggers).
+ * - NOVO: Migração 4 (financeiro.funcionario_id: pagamentos ligados ao funcionário por id).
+ * - NOVO: Migração 5 (folha_pagamento: um salário por funcionário e competência).
+ * - NOVO: Migração 6 (categoria, contraparte e origem do financeiro em colunas indexadas).
+ * - NOVO: Migração 7 (regras_categoria e financeiro.categoria_automatica).
+ * - NOVO: Migração 8 (financeiro.extrato_id da conciliação bancária e índice de contas por status).
+ * - NOVO: Migração 9 (planos_parcelamento e contas.plano_id / parcela_numero).
+ * - NOVO: Migração 10 (financeiro_arquivado_diario: totais do financeiro arquivado nos saldos).
  */
 public class Database {
 
     // --- CONFIGURAÇÃO ANTIGA (RE-ATIVADA) ---
     private static final String USER_HOME = System.getProperty("user.home");
-    private static final String DB_PATH = USER_HOME + File.separator + "fazenda.db";
-    private static final String DB_URL = "jdbc:sqlite:" + DB_PATH;
+    // ATUALIZADO: O caminho pode ser trocado por -Dfarmmanager.db.path ou setDbPath (benchmarks e ferramentas)
+    private static volatile String dbPath =
+        System.getProperty("farmmanager.db.path", USER_HOME + File.separator + "fazenda.db");
+
+    // NOVO: Arquivos de arquivamento ficam ao lado do banco principal
+    private static final String ARQUIVO_PREFIXO = "fazenda_arquivo_";
+    private static final String ARQUIVO_SUFIXO = ".db";
+
+    // NOVO: Versão do schema após todas as migrações (PRAGMA user_version); atualizar a cada migração nova
+    public static final int VERSAO_SCHEMA = 10;
+
+    // NOVO: Tempo que uma conexão espera por um lock antes de falhar com SQLITE_BUSY
+    private static final int BUSY_TIMEOUT_MS = 5000;
+
+    // NOVO: Instante (System.nanoTime) da última conexão aberta pela aplicação.
+    // A manutenção automática só roda quando o banco está ocioso.
+    private static volatile long ultimoAcessoNanos = System.nanoTime();
 
 
     // --- NOVA CONFIGURAÇÃO CLIENTE-SERVIDOR (PostgreSQL) - DESATIVADA ---
@@ -36,9 +72,20 @@ public class Database {
     // private static final String DB_URL = "jdbc:postgresql://" + DB_HOST_IP + ":" + DB_PORT + "/" + DB_NAME;
 
 
+    // NOVO: Threads dentro de emLeitura() recebem conexões do pool somente leitura
+    private static final ThreadLocal<Boolean> modoLeitura = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    /**
+     * NOVO: Abre a conexão física (usado pelo ReadOnlyConnectionPool).
+     */
+    interface AberturaConexao {
+        Connection abrir() throws SQLException;
+    }
+
     /**
      * Retorna uma nova conexão com o banco de dados SQLite.
      * ATUALIZADO: Agora usa a URL do SQLite sem utilizador/senha.
+     * ATUALIZADO: Dentro de emLeitura() a conexão vem do pool somente leitura.
      */
     public static Connection getConnection() throws SQLException {
         // Carrega o driver do SQLite (boa prática)
@@ -48,8 +95,135 @@ public class Database {
             System.err.println("Driver SQLite não encontrado. Verifique se o pom.xml está correto.");
             throw new SQLException("Driver SQLite não encontrado.", e);
         }
+        registrarAcesso();
+        long inicio = System.nanoTime();
+        String caminho = dbPath;
+        Connection conn = modoLeitura.get()
+            ? ReadOnlyConnectionPool.obter(caminho, () -> abrirConexao(caminho))
+            : abrirConexao(caminho);
+        // NOVO: Conexão instrumentada (latência por SQL e por método de DAO, log de consultas lentas)
+        if (DbMetrics.isHabilitado()) {
+            return InstrumentedJdbc.envolver(conn, System.nanoTime() - inicio);
+        }
+        return conn;
+    }
+
+    /**
+     * NOVO: Conexão própria para monitoramento (PRAGMA data_version do ReferenceDataCache).
+     * Não conta como acesso: não impede a manutenção de considerar o banco ocioso.
+     */
+    static Connection abrirConexaoMonitor() throws SQLException {
+        return abrirConexao(dbPath);
+    }
+
+    private static Connection abrirConexao(String caminho) throws SQLException {
         // Tenta conectar usando a URL do SQLite
-        return DriverManager.getConnection(DB_URL);
+        // ATUALIZADO: busy_timeout evita falha imediata quando outro processo/thread escreve
+        Properties props = new Properties();
+        props.setProperty("busy_timeout", String.valueOf(BUSY_TIMEOUT_MS));
+        return DriverManager.getConnection("jdbc:sqlite:" + caminho, props);
+    }
+
+    /**
+     * NOVO: Executa consultas com conexões do pool somente leitura.
+     * Toda chamada de DAO feita dentro da consulta (na mesma thread) reaproveita uma conexão
+     * já aberta; escritas diretas falham (as dos DAOs passam pelo DatabaseWriter e não são afetadas).
+     * Usado pelo AsyncDAO.consultarLeitura para carregar telas com várias consultas em paralelo.
+     */
+    public static <T> T emLeitura(Callable<T> consulta) throws Exception {
+        Boolean anterior = modoLeitura.get();
+        modoLeitura.set(Boolean.TRUE);
+        try {
+            return consulta.call();
+        } finally {
+            modoLeitura.set(anterior);
+        }
+    }
+
+    /**
+     * NOVO: Quantas conexões de leitura ficam abertas no pool; os executores de leitura
+     * não devem ter mais threads que isso.
+     */
+    public static int getTamanhoPoolLeitura() {
+        return ReadOnlyConnectionPool.TAMANHO;
+    }
+
+    /**
+     * NOVO: Conexões de leitura abertas e paradas no pool (tela de diagnóstico).
+     */
+    public static int getConexoesLeituraOciosas() {
+        return ReadOnlyConnectionPool.getOciosas();
+    }
+
+    /**
+     * NOVO: Fecha as conexões ociosas do pool de leitura (encerramento da aplicação).
+     */
+    public static void fecharConexoesLeitura() {
+        ReadOnlyConnectionPool.fechar();
+    }
+
+    /**
+     * NOVO: Marca o banco como em uso agora (conexões novas e lotes do DatabaseWriter,
+     * que reaproveita a própria conexão).
+     */
+    static void registrarAcesso() {
+        ultimoAcessoNanos = System.nanoTime();
+    }
+
+    /**
+     * NOVO: Retorna o caminho do arquivo do banco principal.
+     */
+    public static String getDbPath() {
+        return dbPath;
+    }
+
+    /**
+     * NOVO: Aponta a aplicação para outro arquivo de banco.
+     * Usado por benchmarks e ferramentas que trabalham com bancos temporários;
+     * deve ser chamado antes de abrir conexões.
+     */
+    public static void setDbPath(String caminho) {
+        dbPath = new File(caminho).getAbsolutePath();
+    }
+
+    /**
+     * NOVO: Milissegundos desde a última conexão aberta pela aplicação.
+     */
+    public static long getMillisDesdeUltimoAcesso() {
+        return (System.nanoTime() - ultimoAcessoNanos) / 1_000_000L;
+    }
+
+    /**
+     * NOVO: Retorna o caminho do arquivo de arquivamento de um ano agrícola.
+     * Ex: ~/fazenda_arquivo_2022.db
+     */
+    public static String getArquivoPath(int ano) {
+        File pasta = new File(dbPath).getAbsoluteFile().getParentFile();
+        return new File(pasta, ARQUIVO_PREFIXO + ano + ARQUIVO_SUFIXO).getAbsolutePath();
+    }
+
+    /**
+     * NOVO: Lista os anos que já possuem arquivo de arquivamento em disco,
+     * em ordem crescente.
+     */
+    public static List<Integer> listAnosArquivados() {
+        List<Integer> anos = new ArrayList<>();
+        File pasta = new File(dbPath).getAbsoluteFile().getParentFile();
+        File[] arquivos = pasta.listFiles((dir, nome) -> nome.startsWith(ARQUIVO_PREFIXO) && nome.endsWith(ARQUIVO_SUFIXO));
+        if (arquivos == null) {
+            return anos;
+        }
+        for (File arquivo : arquivos) {
+            String nome = arquivo.getName();
+            String ano = nome.substring(ARQUIVO_PREFIXO.length(), nome.length() - ARQUIVO_SUFIXO.length());
+            try {
+                anos.add(Integer.parseInt(ano));
+            } catch (NumberFormatException e) {
+                // Ignora arquivos com nome fora do padrão
+            }
+        }
+        anos.sort(null);
+        return anos;
     }
 
     /**
@@ -57,8 +231,28 @@ public class Database {
      * ainda não existirem.
      * ATUALIZADO: Sintaxe do PostgreSQL 'SERIAL PRIMARY KEY'
      * foi alterada de volta para a sintaxe do SQLite 'INTEGER PRIMARY KEY AUTOINCREMENT'.
+     * ATUALIZADO: Delega para inicializarSchema() e apenas exibe o alerta em caso de erro.
      */
     public static void initDb() {
+        try {
+            inicializarSchema();
+            System.out.println("Banco de dados SQLite inicializado com sucesso em: " + dbPath);
+        } catch (SQLException e) {
+            System.out.println("Erro ao inicializar o banco de dados: " + e.getMessage());
+            // Lança um erro mais descritivo
+            AlertUtil.showError("Erro de Conexão", 
+                "Não foi possível criar ou conectar ao banco de dados SQLite em: " + dbPath + "\n\n" +
+                "Verifique as permissões de escrita na pasta do usuário.\n\n" +
+                "Erro original: " + e.getMessage()
+            );
+        }
+    }
+
+    /**
+     * NOVO: Cria as tabelas e aplica as migrações sem depender do JavaFX.
+     * Usado por initDb() e por ferramentas headless (benchmarks, geradores de dados).
+     */
+    public static void inicializarSchema() throws SQLException {
         
         // Sintaxe de 'SERIAL' do PostgreSQL foi mudada de volta para 'INTEGER PRIMARY KEY AUTOINCREMENT'
         String sqlFuncionarios = "CREATE TABLE IF NOT EXISTS funcionarios ("
@@ -185,15 +379,367 @@ public class Database {
             stmt.execute(sqlManutencaoPatrimonio);
             stmt.execute(sqlContas);
 
-            System.out.println("Banco de dados SQLite inicializado com sucesso em: " + DB_PATH);
-        } catch (SQLException e) {
-            System.out.println("Erro ao inicializar o banco de dados: " + e.getMessage());
-            // Lança um erro mais descritivo
-            AlertUtil.showError("Erro de Conexão", 
-                "Não foi possível criar ou conectar ao banco de dados SQLite em: " + DB_PATH + "\n\n" +
-                "Verifique as permissões de escrita na pasta do usuário.\n\n" +
-                "Erro original: " + e.getMessage()
-            );
+            // 2. NOVO: Aplica migrações pendentes (controladas por PRAGMA user_version)
+            aplicarMigracoes(conn);
+
+            // 3. NOVO: Leva as colunas novas para os arquivos anuais com schema anterior
+            ArquivoDAO.sincronizarArquivos(conn);
+        }
+    }
+
+    /**
+     * NOVO: Aplica, em ordem, as migrações ainda não executadas neste banco.
+     * A versão do schema fica gravada em PRAGMA user_version.
+     * Cada bloco "if (versao < N)" roda uma única vez por arquivo.
+     *
+     * ATUALIZADO: A partir da migração 2, cada migração e o seu PRAGMA user_version são
+     * gravados em uma única transação (aplicarMigracao). Se uma etapa falhar, nada fica
+     * gravado e a próxima inicialização repete a migração inteira, em vez de esbarrar em
+     * colunas ou linhas do índice de busca criadas pela tentativa anterior.
+     * A migração 1 fica de fora: VACUUM e journal_mode não rodam dentro de transação.
+     */
+    private static void aplicarMigracoes(Connection conn) throws SQLException {
+        int versao = getUserVersion(conn);
+
+        try (Statement stmt = conn.createStatement()) {
+            // Migração 1: auto_vacuum incremental e WAL.
+            // auto_vacuum só passa a valer em bancos existentes após um VACUUM completo.
+            if (versao < 1) {
+                stmt.execute("PRAGMA auto_vacuum = INCREMENTAL");
+                stmt.execute("VACUUM");
+                // CORRIGIDO: journal_mode devolve uma linha; lida e fechada antes de gravar a versão
+                // (com o comando ainda aberto, o PRAGMA user_version falha com SQLITE_BUSY)
+                try (ResultSet rs = stmt.executeQuery("PRAGMA journal_mode = WAL")) {
+                    rs.next();
+                }
+                setUserVersion(conn, 1);
+                System.out.println("Migração 1 aplicada: auto_vacuum=INCREMENTAL, journal_mode=WAL.");
+            }
+
+            // Migração 2: snapshot do financeiro das safras colhidas (SafraFinanceiroSnapshotDAO).
+            // Os triggers invalidam o snapshot sempre que algo ligado à safra muda:
+            // vendas ("Venda de <item>...") no financeiro e em contas, atividades, o item
+            // da colheita no estoque e a própria safra. Valem para qualquer escritor do banco.
+            if (versao < 2) {
+                aplicarMigracao(conn, 2, () -> {
+                    stmt.execute("CREATE TABLE IF NOT EXISTS safra_financeiro_snapshot ("
+                        + "safra_id INTEGER PRIMARY KEY,"
+                        + "nome_item TEXT NOT NULL,"      // "<cultura> (Colheita <ano>)": liga vendas e estoque à safra
+                        + "custo_total REAL,"
+                        + "receita_total REAL,"
+                        + "valor_em_estoque REAL,"
+                        + "lucro REAL,"
+                        + "valido INTEGER NOT NULL DEFAULT 0,"
+                        + "versao INTEGER NOT NULL DEFAULT 0," // incrementada a cada invalidação
+                        + "calculado_em TEXT"
+                        + ")");
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS snapshot_financeiro_ins AFTER INSERT ON financeiro WHEN NEW.descricao LIKE 'Venda de %' "
+                        + "BEGIN UPDATE safra_financeiro_snapshot SET valido = 0, versao = versao + 1 WHERE NEW.descricao LIKE 'Venda de ' || nome_item || '%'; END");
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS snapshot_financeiro_del AFTER DELETE ON financeiro WHEN OLD.descricao LIKE 'Venda de %' "
+                        + "BEGIN UPDATE safra_financeiro_snapshot SET valido = 0, versao = versao + 1 WHERE OLD.descricao LIKE 'Venda de ' || nome_item || '%'; END");
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS snapshot_financeiro_upd AFTER UPDATE OF descricao, valor ON financeiro WHEN OLD.descricao LIKE 'Venda de %' OR NEW.descricao LIKE 'Venda de %' "
+                        + "BEGIN UPDATE safra_financeiro_snapshot SET valido = 0, versao = versao + 1 WHERE OLD.descricao LIKE 'Venda de ' || nome_item || '%' OR NEW.descricao LIKE 'Venda de ' || nome_item || '%'; END");
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS snapshot_contas_ins AFTER INSERT ON contas WHEN NEW.descricao LIKE 'Venda de %' "
+                        + "BEGIN UPDATE safra_financeiro_snapshot SET valido = 0, versao = versao + 1 WHERE NEW.descricao LIKE 'Venda de ' || nome_item || '%'; END");
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS snapshot_contas_del AFTER DELETE ON contas WHEN OLD.descricao LIKE 'Venda de %' "
+                        + "BEGIN UPDATE safra_financeiro_snapshot SET valido = 0, versao = versao + 1 WHERE OLD.descricao LIKE 'Venda de ' || nome_item || '%'; END");
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS snapshot_contas_upd AFTER UPDATE OF descricao, valor, tipo ON contas WHEN OLD.descricao LIKE 'Venda de %' OR NEW.descricao LIKE 'Venda de %' "
+                        + "BEGIN UPDATE safra_financeiro_snapshot SET valido = 0, versao = versao + 1 WHERE OLD.descricao LIKE 'Venda de ' || nome_item || '%' OR NEW.descricao LIKE 'Venda de ' || nome_item || '%'; END");
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS snapshot_atividades_ins AFTER INSERT ON atividades_safra WHEN NEW.safra_id IS NOT NULL "
+                        + "BEGIN UPDATE safra_financeiro_snapshot SET valido = 0, versao = versao + 1 WHERE safra_id = NEW.safra_id; END");
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS snapshot_atividades_del AFTER DELETE ON atividades_safra WHEN OLD.safra_id IS NOT NULL "
+                        + "BEGIN UPDATE safra_financeiro_snapshot SET valido = 0, versao = versao + 1 WHERE safra_id = OLD.safra_id; END");
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS snapshot_atividades_upd AFTER UPDATE OF safra_id, custo_total_atividade ON atividades_safra "
+                        + "BEGIN UPDATE safra_financeiro_snapshot SET valido = 0, versao = versao + 1 WHERE safra_id IN (OLD.safra_id, NEW.safra_id); END");
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS snapshot_estoque_ins AFTER INSERT ON estoque "
+                        + "BEGIN UPDATE safra_financeiro_snapshot SET valido = 0, versao = versao + 1 WHERE nome_item = NEW.item_nome; END");
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS snapshot_estoque_del AFTER DELETE ON estoque "
+                        + "BEGIN UPDATE safra_financeiro_snapshot SET valido = 0, versao = versao + 1 WHERE nome_item = OLD.item_nome; END");
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS snapshot_estoque_upd AFTER UPDATE OF item_nome, valor_total ON estoque "
+                        + "BEGIN UPDATE safra_financeiro_snapshot SET valido = 0, versao = versao + 1 WHERE nome_item IN (OLD.item_nome, NEW.item_nome); END");
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS snapshot_safras_upd AFTER UPDATE OF cultura, ano_inicio, status ON safras "
+                        + "BEGIN UPDATE safra_financeiro_snapshot SET valido = 0, versao = versao + 1 WHERE safra_id = OLD.id; END");
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS snapshot_safras_del AFTER DELETE ON safras "
+                        + "BEGIN DELETE FROM safra_financeiro_snapshot WHERE safra_id = OLD.id; END");
+                });
+                System.out.println("Migração 2 aplicada: safra_financeiro_snapshot.");
+            }
+
+            // Migração 3: índice de texto completo da busca global (BuscaGlobalDAO).
+            // Uma linha por registro pesquisável; o rowid codifica a origem (id * 8 + módulo,
+            // ver ResultadoBusca.Modulo), então os triggers removem/atualizam direto pelo rowid.
+            // Registros movidos para o arquivo anual saem do índice pelo trigger de DELETE.
+            if (versao < 3) {
+                aplicarMigracao(conn, 3, () -> {
+                    stmt.execute("CREATE VIRTUAL TABLE IF NOT EXISTS busca_global USING fts5("
+                        + "texto,"        // descrição / nome do item
+                        + "complemento,"  // fornecedor (contas e estoque)
+                        + "tokenize = 'unicode61 remove_diacritics 2'"
+                        + ")");
+                    String fornecedor = "TRIM(COALESCE(%1$s.fornecedor_nome, '') || ' ' || COALESCE(%1$s.fornecedor_empresa, ''))";
+                    criarIndiceBusca(stmt, "financeiro", "busca_financeiro", 1, "descricao", "descricao", "''");
+                    criarIndiceBusca(stmt, "contas", "busca_contas", 2, "descricao", "descricao, fornecedor_nome, fornecedor_empresa", fornecedor);
+                    criarIndiceBusca(stmt, "atividades_safra", "busca_atividades", 3, "descricao", "descricao", "''");
+                    criarIndiceBusca(stmt, "manutencao_patrimonio", "busca_manutencao", 4, "descricao", "descricao", "''");
+                    criarIndiceBusca(stmt, "estoque", "busca_estoque", 5, "item_nome", "item_nome, fornecedor_nome, fornecedor_empresa", fornecedor);
+                });
+                System.out.println("Migração 3 aplicada: busca_global (FTS5).");
+            }
+
+            // Migração 4: pagamentos a funcionários passam a referenciar o funcionário por id
+            // (antes eram encontrados por LIKE '%nome%' na descrição, varrendo o livro-caixa
+            // e trazendo também quem tivesse o nome contido no de outro).
+            // O preenchimento usa as descrições exatas geradas pela tela de Funcionários;
+            // nomes repetidos ficam sem vínculo (não há como saber de quem é o pagamento).
+            if (versao < 4) {
+                aplicarMigracao(conn, 4, () -> {
+                    stmt.execute("ALTER TABLE financeiro ADD COLUMN funcionario_id INTEGER REFERENCES funcionarios(id) ON DELETE SET NULL");
+                    stmt.execute("UPDATE financeiro SET funcionario_id = ("
+                        + "SELECT CASE WHEN COUNT(*) = 1 THEN MIN(f.id) END FROM funcionarios f "
+                        + "WHERE financeiro.descricao = 'Pagamento de salário: ' || f.nome "
+                        + "OR substr(financeiro.descricao, 1, length(f.nome) + 22) = 'Pgto. Funcionário (' || f.nome || '): '"
+                        + ") WHERE descricao LIKE 'Pagamento de salário: %' OR descricao LIKE 'Pgto. Funcionário (%'");
+                    stmt.execute("CREATE INDEX IF NOT EXISTS idx_financeiro_funcionario ON financeiro (funcionario_id, data) "
+                        + "WHERE funcionario_id IS NOT NULL");
+                });
+                System.out.println("Migração 4 aplicada: financeiro.funcionario_id.");
+            }
+
+            // Migração 5: folha de pagamento (FolhaPagamentoDAO). A chave única
+            // (competencia, funcionario_id) impede pagar o salário do mesmo mês duas vezes.
+            // Salários já lançados entram na competência da data do pagamento.
+            // Excluir o lançamento do salário no financeiro libera a competência (trigger).
+            // ATUALIZADO: O arquivamento anual não libera: ArquivoDAO desvincula a folha
+            // (transacao_id nulo) antes de mover o financeiro, e o trigger não encontra a linha.
+            if (versao < 5) {
+                aplicarMigracao(conn, 5, () -> {
+                    stmt.execute("CREATE TABLE IF NOT EXISTS folha_pagamento ("
+                        + "id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                        + "competencia TEXT NOT NULL,"       // YYYY-MM
+                        + "funcionario_id INTEGER NOT NULL,"
+                        + "data_pagamento TEXT NOT NULL,"
+                        + "valor_salario REAL NOT NULL,"
+                        + "valor_extras REAL NOT NULL DEFAULT 0,"
+                        + "transacao_id INTEGER,"            // lançamento do salário no financeiro
+                        + "data_criacao TEXT,"
+                        + "UNIQUE (competencia, funcionario_id)"
+                        + ")");
+                    stmt.execute("CREATE INDEX IF NOT EXISTS idx_folha_pagamento_transacao ON folha_pagamento (transacao_id)");
+                    stmt.execute("INSERT OR IGNORE INTO folha_pagamento "
+                        + "(competencia, funcionario_id, data_pagamento, valor_salario, transacao_id, data_criacao) "
+                        + "SELECT substr(data, 1, 7), funcionario_id, data, -valor, id, data_hora_criacao FROM financeiro "
+                        + "WHERE funcionario_id IS NOT NULL AND descricao LIKE 'Pagamento de salário: %' ORDER BY data, id");
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS folha_financeiro_del AFTER DELETE ON financeiro "
+                        + "WHEN OLD.funcionario_id IS NOT NULL "
+                        + "BEGIN DELETE FROM folha_pagamento WHERE transacao_id = OLD.id; END");
+                });
+                System.out.println("Migração 5 aplicada: folha_pagamento.");
+            }
+
+            // Migração 6: classificação estruturada do financeiro (ver CategoriaFinanceira).
+            // As linhas existentes são classificadas pela descrição uma única vez;
+            // daqui em diante cada módulo grava a classificação junto com o lançamento.
+            if (versao < 6) {
+                int[] classificadas = new int[1];
+                aplicarMigracao(conn, 6, () -> {
+                    stmt.execute("ALTER TABLE financeiro ADD COLUMN categoria TEXT");
+                    stmt.execute("ALTER TABLE financeiro ADD COLUMN contraparte_nome TEXT");
+                    stmt.execute("ALTER TABLE financeiro ADD COLUMN contraparte_empresa TEXT");
+                    stmt.execute("ALTER TABLE financeiro ADD COLUMN origem_tipo TEXT");
+                    stmt.execute("ALTER TABLE financeiro ADD COLUMN origem_id INTEGER");
+                    classificadas[0] = classificarFinanceiro(conn);
+                    stmt.execute("CREATE INDEX IF NOT EXISTS idx_financeiro_categoria ON financeiro (categoria, data)");
+                    stmt.execute("CREATE INDEX IF NOT EXISTS idx_financeiro_contraparte ON financeiro (contraparte_nome) "
+                        + "WHERE contraparte_nome IS NOT NULL");
+                    stmt.execute("CREATE INDEX IF NOT EXISTS idx_financeiro_origem ON financeiro (origem_tipo, origem_id) "
+                        + "WHERE origem_id IS NOT NULL");
+                });
+                System.out.println("Migração 6 aplicada: classificação do financeiro (" + classificadas[0] + " linhas).");
+            }
+
+            // Migração 7: regras de categorização automática (RegraCategoriaDAO).
+            // categoria_automatica = 1 marca as categorias definidas por regra, que a
+            // reclassificação pode refazer; as demais nunca são alteradas pelas regras.
+            if (versao < 7) {
+                aplicarMigracao(conn, 7, () -> {
+                    stmt.execute("CREATE TABLE IF NOT EXISTS regras_categoria ("
+                        + "id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                        + "padrao TEXT NOT NULL,"
+                        + "tipo TEXT NOT NULL DEFAULT 'palavra'," // 'palavra' ou 'regex'
+                        + "categoria TEXT NOT NULL,"
+                        + "prioridade INTEGER NOT NULL DEFAULT 0,"
+                        + "data_criacao TEXT"
+                        + ")");
+                    stmt.execute("ALTER TABLE financeiro ADD COLUMN categoria_automatica INTEGER NOT NULL DEFAULT 0");
+                });
+                System.out.println("Migração 7 aplicada: regras_categoria.");
+            }
+            if (versao < 8) {
+                aplicarMigracao(conn, 8, () -> {
+                    // Conciliação bancária: cada linha do extrato é ligada a no máximo um lançamento,
+                    // o que impede importar o mesmo extrato duas vezes
+                    stmt.execute("ALTER TABLE financeiro ADD COLUMN extrato_id TEXT");
+                    stmt.execute("CREATE UNIQUE INDEX IF NOT EXISTS idx_financeiro_extrato ON financeiro (extrato_id) "
+                        + "WHERE extrato_id IS NOT NULL");
+                    // Períodos da conciliação: transações por data e contas pendentes por vencimento
+                    stmt.execute("CREATE INDEX IF NOT EXISTS idx_financeiro_data ON financeiro (data)");
+                    stmt.execute("CREATE INDEX IF NOT EXISTS idx_contas_status ON contas (status, data_vencimento)");
+                });
+                System.out.println("Migração 8 aplicada: financeiro.extrato_id.");
+            }
+
+            // Migração 9: planos de parcelamento (PlanoParcelamentoDAO). Cada parcela é uma
+            // conta comum com plano_id; o índice parcial cobre só as contas parceladas.
+            // Contas avulsas antigas ficam com plano_id nulo.
+            if (versao < 9) {
+                aplicarMigracao(conn, 9, () -> {
+                    stmt.execute("CREATE TABLE IF NOT EXISTS planos_parcelamento ("
+                        + "id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                        + "descricao TEXT NOT NULL,"
+                        + "tipo TEXT NOT NULL,"                // "pagar" ou "receber"
+                        + "valor_total REAL NOT NULL,"
+                        + "numero_parcelas INTEGER NOT NULL,"
+                        + "primeiro_vencimento TEXT NOT NULL," // YYYY-MM-DD
+                        + "intervalo_meses INTEGER NOT NULL DEFAULT 1,"
+                        + "fornecedor_nome TEXT,"
+                        + "fornecedor_empresa TEXT,"
+                        + "data_criacao TEXT"
+                        + ")");
+                    stmt.execute("ALTER TABLE contas ADD COLUMN plano_id INTEGER REFERENCES planos_parcelamento(id) ON DELETE SET NULL");
+                    stmt.execute("ALTER TABLE contas ADD COLUMN parcela_numero INTEGER");
+                    stmt.execute("CREATE INDEX IF NOT EXISTS idx_contas_plano ON contas (plano_id, parcela_numero) "
+                        + "WHERE plano_id IS NOT NULL");
+                });
+                System.out.println("Migração 9 aplicada: planos_parcelamento.");
+            }
+
+            // Migração 10: totais por dia do financeiro arquivado (ver ArquivoDAO), somados
+            // pelo balanço, receita/despesa e balanço por dia para que arquivar um ano não
+            // mude os saldos. Os anos arquivados antes desta migração são lidos dos arquivos
+            // fora da transação (ATTACH não roda dentro de uma).
+            if (versao < 10) {
+                Map<String, double[]> arquivados = ArquivoDAO.lerTotaisArquivados(conn);
+                aplicarMigracao(conn, 10, () -> {
+                    stmt.execute("CREATE TABLE IF NOT EXISTS financeiro_arquivado_diario ("
+                        + "data TEXT PRIMARY KEY,"              // YYYY-MM-DD
+                        + "receita REAL NOT NULL DEFAULT 0,"
+                        + "despesa REAL NOT NULL DEFAULT 0,"    // negativa, como no financeiro
+                        + "saldo REAL NOT NULL DEFAULT 0"
+                        + ")");
+                    try (PreparedStatement pstmt = conn.prepareStatement(
+                            "INSERT INTO financeiro_arquivado_diario (data, receita, despesa, saldo) VALUES (?, ?, ?, ?)")) {
+                        for (Map.Entry<String, double[]> dia : arquivados.entrySet()) {
+                            pstmt.setString(1, dia.getKey());
+                            pstmt.setDouble(2, dia.getValue()[0]);
+                            pstmt.setDouble(3, dia.getValue()[1]);
+                            pstmt.setDouble(4, dia.getValue()[2]);
+                            pstmt.addBatch();
+                        }
+                        pstmt.executeBatch();
+                    }
+                });
+                System.out.println("Migração 10 aplicada: financeiro_arquivado_diario (" + arquivados.size() + " dias).");
+            }
+        }
+    }
+
+    /**
+     * NOVO: Etapas de uma migração (executadas dentro da transação de aplicarMigracao).
+     */
+    private interface PassoMigracao {
+        void executar() throws SQLException;
+    }
+
+    /**
+     * NOVO: Executa as etapas da migração e grava user_version = versao no mesmo COMMIT.
+     * Em caso de erro a transação é desfeita e a versão continua a anterior.
+     */
+    private static void aplicarMigracao(Connection conn, int versao, PassoMigracao passo) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            passo.executar();
+            setUserVersion(conn, versao);
+            conn.commit();
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Migração 3: preenche busca_global com as linhas existentes de uma tabela e cria os
+     * triggers que a mantêm sincronizada.
+     * @param colunaTexto coluna indexada em "texto"
+     * @param colunasMonitoradas colunas cujo UPDATE reindexa a linha
+     * @param formatoComplemento expressão do "complemento", com %1$s no lugar da linha (tabela ou NEW)
+     */
+    private static void criarIndiceBusca(Statement stmt, String tabela, String prefixoTrigger, int modulo,
+                                         String colunaTexto, String colunasMonitoradas,
+                                         String formatoComplemento) throws SQLException {
+        String rowid = "%s.id * 8 + " + modulo;
+        String complementoLinha = String.format(formatoComplemento, tabela);
+        String complementoNovo = String.format(formatoComplemento, "NEW");
+
+        stmt.execute("INSERT INTO busca_global (rowid, texto, complemento) SELECT " + String.format(rowid, tabela) + ", "
+            + colunaTexto + ", " + complementoLinha + " FROM " + tabela);
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS " + prefixoTrigger + "_ins AFTER INSERT ON " + tabela + " "
+            + "BEGIN INSERT INTO busca_global (rowid, texto, complemento) VALUES (" + String.format(rowid, "NEW") + ", NEW."
+            + colunaTexto + ", " + complementoNovo + "); END");
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS " + prefixoTrigger + "_del AFTER DELETE ON " + tabela + " "
+            + "BEGIN DELETE FROM busca_global WHERE rowid = " + String.format(rowid, "OLD") + "; END");
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS " + prefixoTrigger + "_upd AFTER UPDATE OF " + colunasMonitoradas + " ON " + tabela + " "
+            + "BEGIN UPDATE busca_global SET texto = NEW." + colunaTexto + ", complemento = " + complementoNovo
+            + " WHERE rowid = " + String.format(rowid, "OLD") + "; END");
+    }
+
+    /**
+     * Migração 6: classifica as transações existentes pela descrição.
+     * ATUALIZADO: Roda dentro da transação da migração (aplicarMigracao), que faz o COMMIT.
+     * @return quantidade de linhas classificadas
+     */
+    private static int classificarFinanceiro(Connection conn) throws SQLException {
+        String sqlSelect = "SELECT id, descricao, tipo, funcionario_id FROM financeiro WHERE categoria IS NULL";
+        String sqlUpdate = "UPDATE financeiro SET categoria = ?, contraparte_nome = ?, contraparte_empresa = ?, "
+                         + "origem_tipo = ?, origem_id = ? WHERE id = ?";
+        int total = 0;
+        try (Statement select = conn.createStatement();
+             ResultSet rs = select.executeQuery(sqlSelect);
+             PreparedStatement update = conn.prepareStatement(sqlUpdate)) {
+            while (rs.next()) {
+                Transacao t = new Transacao(rs.getString("descricao"), 0, null, rs.getString("tipo"));
+                int funcionarioId = rs.getInt("funcionario_id");
+                t.setFuncionarioId(rs.wasNull() ? null : funcionarioId);
+                CategoriaFinanceira.completar(t);
+
+                update.setString(1, t.getCategoria());
+                update.setString(2, t.getContraparteNome());
+                update.setString(3, t.getContraparteEmpresa());
+                update.setString(4, t.getOrigemTipo());
+                update.setObject(5, t.getOrigemId());
+                update.setInt(6, rs.getInt("id"));
+                update.addBatch();
+                if (++total % 1000 == 0) {
+                    update.executeBatch();
+                }
+            }
+            update.executeBatch();
+        }
+        return total;
+    }
+
+    private static int getUserVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static void setUserVersion(Connection conn, int versao) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA user_version = " + versao);
         }
     }
-}
\ No newline at end of file
+}
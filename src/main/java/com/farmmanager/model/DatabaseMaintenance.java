@@ -0,0 +1,255 @@
+package com.farmmanager.model;
+
+import com.farmmanager.util.DateTimeUtil;
+import java.io.File;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NOVO: Agendador de manutenção automática do banco SQLite.
+ * Roda em uma thread daemon de baixa prioridade e só age quando o banco
+ * está ocioso (nenhuma conexão aberta pela aplicação há algum tempo).
+ *
+ * Cada execução faz, nesta ordem:
+ * 1. PRAGMA quick_check (integridade);
+ * 2. ANALYZE na primeira vez, depois PRAGMA optimize (estatísticas do planejador);
+ * 3. PRAGMA incremental_vacuum (devolve páginas livres deixadas pelos DELETEs);
+ * 4. PRAGMA wal_checkpoint(TRUNCATE) (encolhe o arquivo -wal).
+ *
+ * Depende da migração 1 do Database (auto_vacuum=INCREMENTAL e WAL).
+ */
+public class DatabaseMaintenance {
+
+    // Frequência com que a thread verifica se o banco está ocioso
+    private static final long INTERVALO_VERIFICACAO_MIN = 5;
+    // Tempo mínimo sem conexões para considerar o banco ocioso
+    private static final long OCIOSIDADE_MINIMA_MS = 60_000L;
+    // Intervalo mínimo entre duas manutenções completas
+    private static final long INTERVALO_MANUTENCAO_MS = TimeUnit.HOURS.toMillis(6);
+    // Só vale a pena liberar páginas acima deste limite
+    private static final int PAGINAS_LIVRES_MINIMAS = 64;
+    // Tempo máximo gasto no incremental_vacuum por execução (não trava o banco por muito tempo)
+    private static final long ORCAMENTO_VACUUM_MS = 5_000L;
+    // NOVO: Páginas liberadas por passo do incremental_vacuum (o orçamento é verificado entre passos)
+    private static final int PAGINAS_POR_PASSO = 1_000;
+
+    private static ScheduledExecutorService agendador;
+    private static volatile long ultimaExecucaoMillis = 0;
+    private static volatile ResultadoManutencao ultimoResultado;
+
+    /**
+     * DTO com o resultado de uma execução de manutenção.
+     */
+    public static class ResultadoManutencao {
+        private final String dataHora;
+        private final String integridade;
+        private final long duracaoMs;
+        private final int paginasLiberadas;
+        private final long bytesLiberados;
+        private final long tamanhoWalAntes;
+
+        public ResultadoManutencao(String dataHora, String integridade, long duracaoMs, int paginasLiberadas, long bytesLiberados, long tamanhoWalAntes) {
+            this.dataHora = dataHora;
+            this.integridade = integridade;
+            this.duracaoMs = duracaoMs;
+            this.paginasLiberadas = paginasLiberadas;
+            this.bytesLiberados = bytesLiberados;
+            this.tamanhoWalAntes = tamanhoWalAntes;
+        }
+
+        public String getDataHora() { return dataHora; }
+        public String getIntegridade() { return integridade; }
+        public long getDuracaoMs() { return duracaoMs; }
+        public int getPaginasLiberadas() { return paginasLiberadas; }
+        public long getBytesLiberados() { return bytesLiberados; }
+        public long getTamanhoWalAntes() { return tamanhoWalAntes; }
+        public boolean isIntegro() { return "ok".equalsIgnoreCase(integridade); }
+    }
+
+    /**
+     * Inicia o agendador (idempotente). Deve ser chamado após Database.initDb().
+     */
+    public static synchronized void iniciar() {
+        if (agendador != null) {
+            return;
+        }
+        agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "farmmanager-manutencao-db");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        agendador.scheduleWithFixedDelay(DatabaseMaintenance::verificarEExecutar,
+            INTERVALO_VERIFICACAO_MIN, INTERVALO_VERIFICACAO_MIN, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Para o agendador (usado no encerramento da aplicação).
+     */
+    public static synchronized void parar() {
+        if (agendador != null) {
+            agendador.shutdownNow();
+            agendador = null;
+        }
+    }
+
+    /**
+     * Retorna o resultado da última manutenção, ou null se ainda não rodou.
+     */
+    public static ResultadoManutencao getUltimoResultado() {
+        return ultimoResultado;
+    }
+
+    private static void verificarEExecutar() {
+        boolean ocioso = Database.getMillisDesdeUltimoAcesso() >= OCIOSIDADE_MINIMA_MS;
+        boolean vencida = System.currentTimeMillis() - ultimaExecucaoMillis >= INTERVALO_MANUTENCAO_MS;
+        if (!ocioso || !vencida) {
+            return;
+        }
+        try {
+            executarManutencao();
+        } catch (SQLException e) {
+            // Falha de manutenção não deve derrubar a thread agendada
+            System.err.println("[Manutenção DB] Falha: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Executa todas as etapas de manutenção imediatamente e registra no log
+     * a duração de cada uma e os bytes devolvidos ao sistema de arquivos.
+     */
+    public static synchronized ResultadoManutencao executarManutencao() throws SQLException {
+        long inicio = System.nanoTime();
+        File arquivoWal = new File(Database.getDbPath() + "-wal");
+        long tamanhoWalAntes = arquivoWal.length();
+        String integridade;
+        int paginasLiberadas;
+        long bytesLiberados;
+
+        // Lido antes de abrir a conexão (getConnection reinicia o contador de ociosidade)
+        long ociosoAntes = Database.getMillisDesdeUltimoAcesso();
+
+        try (Connection conn = Database.getConnection(); Statement stmt = conn.createStatement()) {
+            // 1. Integridade
+            long t0 = System.nanoTime();
+            integridade = executarQuickCheck(stmt);
+            log("quick_check = " + integridade, t0);
+            if (!"ok".equalsIgnoreCase(integridade)) {
+                System.err.println("[Manutenção DB] ATENÇÃO: quick_check encontrou problemas: " + integridade);
+            }
+
+            // 2. Estatísticas do planejador
+            t0 = System.nanoTime();
+            if (possuiEstatisticas(stmt)) {
+                stmt.execute("PRAGMA optimize");
+                log("PRAGMA optimize", t0);
+            } else {
+                stmt.execute("ANALYZE");
+                log("ANALYZE (primeira coleta de estatísticas)", t0);
+            }
+
+            // 3. Devolve páginas livres
+            t0 = System.nanoTime();
+            int tamanhoPagina = lerInteiro(stmt, "PRAGMA page_size");
+            paginasLiberadas = executarVacuumIncremental(stmt);
+            bytesLiberados = (long) paginasLiberadas * tamanhoPagina;
+            log("incremental_vacuum: " + paginasLiberadas + " páginas (" + formatarBytes(bytesLiberados) + ")", t0);
+
+            // 4. Checkpoint do WAL
+            t0 = System.nanoTime();
+            try (ResultSet rs = stmt.executeQuery("PRAGMA wal_checkpoint(TRUNCATE)")) {
+                boolean ocupado = rs.next() && rs.getInt(1) != 0;
+                log("wal_checkpoint(TRUNCATE)" + (ocupado ? " parcial (banco ocupado)" : "")
+                    + ", WAL antes: " + formatarBytes(tamanhoWalAntes), t0);
+            }
+        } finally {
+            ultimaExecucaoMillis = System.currentTimeMillis();
+        }
+
+        long duracaoMs = (System.nanoTime() - inicio) / 1_000_000L;
+        System.out.println("[Manutenção DB] Concluída em " + duracaoMs + " ms; "
+            + formatarBytes(bytesLiberados) + " liberados (ocioso há " + ociosoAntes + " ms).");
+
+        ultimoResultado = new ResultadoManutencao(DateTimeUtil.getCurrentTimestamp(), integridade,
+            duracaoMs, paginasLiberadas, bytesLiberados, tamanhoWalAntes);
+        return ultimoResultado;
+    }
+
+    // --- Helpers internos ---
+
+    private static String executarQuickCheck(Statement stmt) throws SQLException {
+        List<String> linhas = new ArrayList<>();
+        try (ResultSet rs = stmt.executeQuery("PRAGMA quick_check")) {
+            while (rs.next()) {
+                linhas.add(rs.getString(1));
+            }
+        }
+        return linhas.isEmpty() ? "sem resposta" : String.join("; ", linhas);
+    }
+
+    private static boolean possuiEstatisticas(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'sqlite_stat1'")) {
+            return rs.next();
+        }
+    }
+
+    /**
+     * Libera páginas da freelist em pequenos passos (cada passo é uma transação curta),
+     * respeitando um orçamento de tempo para não segurar o lock de escrita.
+     * CORRIGIDO: Cada passo libera no máximo PAGINAS_POR_PASSO páginas; antes o primeiro
+     * passo pedia a freelist inteira e o orçamento nunca chegava a ser verificado.
+     * CORRIGIDO: O incremental_vacuum libera uma página a cada avanço do comando. O execute avança
+     * uma única vez, ou seja, uma página por passo. O executeQuery é recusado pelo driver porque o
+     * pragma não declara colunas. Já o executeUpdate avança o comando até o fim.
+     * Retorna o número de páginas liberadas.
+     */
+    private static int executarVacuumIncremental(Statement stmt) throws SQLException {
+        int livresAntes = lerInteiro(stmt, "PRAGMA freelist_count");
+        if (livresAntes < PAGINAS_LIVRES_MINIMAS) {
+            return 0;
+        }
+
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ORCAMENTO_VACUUM_MS);
+        int livres = livresAntes;
+        while (livres > 0 && System.nanoTime() < limite) {
+            int pedidas = Math.min(livres, PAGINAS_POR_PASSO);
+            stmt.executeUpdate("PRAGMA incremental_vacuum(" + pedidas + ")");
+            int depois = lerInteiro(stmt, "PRAGMA freelist_count");
+            boolean completo = livres - depois >= pedidas;
+            livres = Math.min(livres, depois);
+            if (!completo) {
+                break; // Passo incompleto (ex: auto_vacuum desativado); a próxima manutenção continua
+            }
+        }
+        return livresAntes - livres;
+    }
+
+    private static int lerInteiro(Statement stmt, String pragma) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(pragma)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static void log(String etapa, long inicioNanos) {
+        long ms = (System.nanoTime() - inicioNanos) / 1_000_000L;
+        System.out.println("[Manutenção DB] " + etapa + " (" + ms + " ms)");
+    }
+
+    private static String formatarBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format("%.1f KB", bytes / 1024.0);
+        }
+        return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+}
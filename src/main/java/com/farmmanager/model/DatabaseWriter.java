@@ -0,0 +1,480 @@
+package com.farmmanager.model;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import org.sqlite.SQLiteConnection;
+
+/**
+ * NOVO: Escritor único do banco, com "group commit".
+ *
+ * O SQLite aceita um único escritor por vez; com cada DAO abrindo a própria conexão,
+ * escritas simultâneas disputavam o lock e podiam falhar com SQLITE_BUSY. Agora toda
+ * alteração dos DAOs é enviada como um comando para uma única thread escritora, que:
+ * - agrupa os comandos que chegam dentro de uma janela curta (padrão 2 ms,
+ *   -Dfarmmanager.db.writer.janelaMs) em uma única transação (BEGIN IMMEDIATE ... COMMIT);
+ * - isola cada comando em um SAVEPOINT: a falha de um comando desfaz só ele, não o lote;
+ * - completa o CompletableFuture de cada chamador somente depois do COMMIT;
+ * - repete o lote com backoff quando o lock não é obtido nem após o busy_timeout.
+ *
+ * Chamadas feitas de dentro de um comando (na própria thread escritora) são executadas
+ * na hora, na mesma transação. Operações que não podem rodar dentro de transação
+ * (ATTACH do ArquivoDAO, VACUUM da manutenção) continuam usando conexões próprias.
+ *
+ * ATUALIZADO: Depois de cada COMMIT, avisa os ouvintes (addOuvinte) com os nomes das tabelas
+ * alteradas no lote, coletados pelo update hook do SQLite na conexão do escritor.
+ * Usado pelo ReferenceDataCache para invalidar só os conjuntos afetados.
+ * NOVO: getCommits() conta os COMMITs do escritor; o ReferenceDataCache o compara com o
+ * PRAGMA data_version para distinguir as próprias gravações das de outras conexões.
+ * CORRIGIDO: O data_version da conexão do escritor só muda com COMMITs de outras conexões.
+ * Cada lote o lê logo após o BEGIN IMMEDIATE e conta em getGravacoesExternas as mudanças
+ * desde o lote anterior. conferirGravacoesExternas() cobre as gravações feitas depois do último lote.
+ */
+public class DatabaseWriter {
+
+    /**
+     * Comando de escrita. Recebe a conexão do escritor: não deve fechá-la nem
+     * controlar transação (commit/rollback/setAutoCommit).
+     */
+    public interface ComandoEscrita<T> {
+        T executar(Connection conn) throws SQLException;
+    }
+
+    private static final long JANELA_NANOS =
+        TimeUnit.MILLISECONDS.toNanos(Long.getLong("farmmanager.db.writer.janelaMs", 2L));
+    private static final int MAX_LOTE = 500;
+    private static final int MAX_TENTATIVAS = 6;
+    private static final long OCIOSO_FECHAR_MS = 10_000;
+
+    private static final LinkedBlockingQueue<Pedido<?>> fila = new LinkedBlockingQueue<>();
+    private static volatile Thread escritor;
+    private static volatile boolean parando = false;
+
+    // Estado da thread escritora
+    private static Connection conexao;
+    private static String caminhoConexao;
+    private static long dataVersionConexao = -1; // NOVO: última leitura na conexão atual (-1: nenhuma)
+    private static final Set<String> tabelasAlteradas = new HashSet<>(); // NOVO: tabelas do lote atual
+
+    // NOVO: Avisados após o COMMIT com as tabelas alteradas (rodam na thread escritora)
+    private static final List<Consumer<Set<String>>> ouvintes = new CopyOnWriteArrayList<>();
+
+    // Estatísticas (tela de diagnóstico)
+    private static final LongAdder comandos = new LongAdder();
+    private static final LongAdder lotes = new LongAdder();
+    private static final LongAdder retentativasBusy = new LongAdder();
+    private static final AtomicInteger maiorLote = new AtomicInteger();
+    private static final AtomicLong commits = new AtomicLong(); // NOVO: incrementado após cada COMMIT
+    private static final AtomicLong gravacoesExternas = new AtomicLong(); // NOVO: ver verificarDataVersion
+
+    private static final class Pedido<T> {
+        final ComandoEscrita<T> comando;
+        final String metodo;
+        final CompletableFuture<T> futuro = new CompletableFuture<>();
+        T resultado;
+        Throwable erro;
+
+        Pedido(ComandoEscrita<T> comando, String metodo) {
+            this.comando = comando;
+            this.metodo = metodo;
+        }
+
+        void executar(Connection conn) throws SQLException {
+            resultado = comando.executar(conn);
+        }
+
+        void completar() {
+            if (erro != null) {
+                futuro.completeExceptionally(erro);
+            } else {
+                futuro.complete(resultado);
+            }
+        }
+    }
+
+    private DatabaseWriter() {
+    }
+
+    /**
+     * Enfileira o comando e retorna imediatamente.
+     * O futuro é completado depois do COMMIT do lote (ou com a exceção do comando).
+     */
+    public static <T> CompletableFuture<T> submeter(ComandoEscrita<T> comando) {
+        if (Thread.currentThread() == escritor) {
+            // Chamada aninhada: já estamos dentro da transação do lote
+            try {
+                return CompletableFuture.completedFuture(comando.executar(conexao));
+            } catch (SQLException | RuntimeException e) {
+                CompletableFuture<T> falha = new CompletableFuture<>();
+                falha.completeExceptionally(e);
+                return falha;
+            }
+        }
+        Pedido<T> pedido = new Pedido<>(comando, DbMetrics.isHabilitado() ? InstrumentedJdbc.identificarChamador() : null);
+        // Enfileira antes de garantir a thread: se ela estiver encerrando, o finally de executarLaco vê o pedido
+        fila.add(pedido);
+        garantirIniciado();
+        return pedido.futuro;
+    }
+
+    /**
+     * Versão síncrona de submeter: espera o COMMIT e repassa a exceção original do comando
+     * (SQLException ou RuntimeException, ex: IllegalStateException de estoque insuficiente).
+     */
+    public static <T> T executar(ComandoEscrita<T> comando) throws SQLException {
+        try {
+            return submeter(comando).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrompido aguardando a escrita no banco.", e);
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof SQLException) {
+                throw (SQLException) causa;
+            }
+            if (causa instanceof RuntimeException) {
+                throw (RuntimeException) causa;
+            }
+            if (causa instanceof Error) {
+                throw (Error) causa;
+            }
+            throw new CompletionException(causa);
+        }
+    }
+
+    /**
+     * Processa o que ainda estiver na fila e encerra a thread escritora (chamado em App.stop).
+     */
+    public static void parar() {
+        Thread t;
+        synchronized (DatabaseWriter.class) {
+            t = escritor;
+            if (t == null) {
+                return;
+            }
+            parando = true;
+        }
+        t.interrupt();
+        try {
+            t.join(10_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * NOVO: Registra um ouvinte chamado após cada COMMIT com as tabelas alteradas.
+     * Roda na thread escritora, antes de os chamadores receberem o resultado: deve ser rápido.
+     */
+    public static void addOuvinte(Consumer<Set<String>> ouvinte) {
+        ouvintes.add(ouvinte);
+    }
+
+    public static void removeOuvinte(Consumer<Set<String>> ouvinte) {
+        ouvintes.remove(ouvinte);
+    }
+
+    public static int getPendentes() {
+        return fila.size();
+    }
+
+    public static long getComandos() {
+        return comandos.sum();
+    }
+
+    public static long getLotes() {
+        return lotes.sum();
+    }
+
+    public static long getRetentativasBusy() {
+        return retentativasBusy.sum();
+    }
+
+    public static int getMaiorLote() {
+        return maiorLote.get();
+    }
+
+    /**
+     * NOVO: Quantidade de transações gravadas pelo escritor (incrementada depois do COMMIT).
+     */
+    public static long getCommits() {
+        return commits.get();
+    }
+
+    /**
+     * NOVO: Quantas vezes o escritor encontrou o banco alterado por outra conexão desde o
+     * lote anterior (o valor só aumenta; o que importa é se mudou).
+     */
+    public static long getGravacoesExternas() {
+        return gravacoesExternas.get();
+    }
+
+    /**
+     * NOVO: Executa um lote vazio para que o escritor confira o data_version agora, e devolve
+     * getGravacoesExternas() lido dentro desse lote. Cobre as gravações externas feitas depois
+     * do último lote, que ainda não foram contadas.
+     */
+    public static long conferirGravacoesExternas() throws SQLException {
+        return executar(conn -> gravacoesExternas.get());
+    }
+
+    // --- Thread escritora ---
+
+    private static synchronized void garantirIniciado() {
+        if (escritor != null) {
+            return;
+        }
+        parando = false;
+        Thread t = new Thread(DatabaseWriter::executarLaco, "farmmanager-db-writer");
+        t.setDaemon(true);
+        escritor = t;
+        t.start();
+    }
+
+    private static void executarLaco() {
+        List<Pedido<?>> lote = new ArrayList<>();
+        try {
+            while (true) {
+                Pedido<?> primeiro;
+                try {
+                    primeiro = parando ? fila.poll() : fila.poll(OCIOSO_FECHAR_MS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    // parar(): continua drenando a fila sem bloquear
+                    continue;
+                }
+                if (primeiro == null) {
+                    if (parando) {
+                        return;
+                    }
+                    fecharConexao(); // Ocioso: não segura o arquivo aberto
+                    continue;
+                }
+
+                lote.clear();
+                lote.add(primeiro);
+                coletarJanela(lote);
+                processarLote(lote);
+            }
+        } finally {
+            fecharConexao();
+            synchronized (DatabaseWriter.class) {
+                escritor = null;
+            }
+            // Algo enfileirado durante o encerramento não fica sem resposta
+            if (!fila.isEmpty()) {
+                garantirIniciado();
+            }
+        }
+    }
+
+    /**
+     * Junta ao lote os comandos que chegarem dentro da janela (ou já estiverem na fila).
+     */
+    private static void coletarJanela(List<Pedido<?>> lote) {
+        long limite = System.nanoTime() + JANELA_NANOS;
+        while (lote.size() < MAX_LOTE) {
+            Pedido<?> proximo = fila.poll();
+            if (proximo == null) {
+                long restante = limite - System.nanoTime();
+                if (restante <= 0 || parando) {
+                    return;
+                }
+                try {
+                    proximo = fila.poll(restante, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    return; // parar(): fecha o lote atual
+                }
+                if (proximo == null) {
+                    return;
+                }
+            }
+            lote.add(proximo);
+        }
+    }
+
+    private static void processarLote(List<Pedido<?>> lote) {
+        long espera = 50;
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                executarTransacao(lote);
+                break;
+            } catch (SQLException e) {
+                fecharConexao(); // Estado da conexão incerto após falha no BEGIN/COMMIT
+                if (!isBusy(e) || tentativa >= MAX_TENTATIVAS) {
+                    for (Pedido<?> p : lote) {
+                        p.erro = e;
+                    }
+                    break;
+                }
+                retentativasBusy.increment();
+                try {
+                    Thread.sleep(espera);
+                } catch (InterruptedException ie) {
+                    parando = true; // Termina o lote e encerra em seguida
+                }
+                espera = Math.min(espera * 2, 2_000);
+            }
+        }
+
+        lotes.increment();
+        comandos.add(lote.size());
+        maiorLote.accumulateAndGet(lote.size(), Math::max);
+        for (Pedido<?> p : lote) {
+            p.completar();
+        }
+    }
+
+    /**
+     * Uma transação para o lote inteiro, com um SAVEPOINT por comando.
+     * Só lança SQLException para falhas da transação em si (BEGIN/COMMIT).
+     */
+    private static void executarTransacao(List<Pedido<?>> lote) throws SQLException {
+        Connection conn = obterConexao();
+        Database.registrarAcesso();
+        tabelasAlteradas.clear();
+        long inicio = System.nanoTime();
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("BEGIN IMMEDIATE");
+            try {
+                verificarDataVersion(stmt);
+                for (Pedido<?> p : lote) {
+                    p.resultado = null;
+                    p.erro = null;
+                    long inicioComando = System.nanoTime();
+                    InstrumentedJdbc.definirMetodo(conn, p.metodo);
+                    stmt.execute("SAVEPOINT comando");
+                    try {
+                        p.executar(conn);
+                        stmt.execute("RELEASE comando");
+                    } catch (SQLException | RuntimeException e) {
+                        if (isBusy(e)) {
+                            throw (SQLException) e; // Lock perdido: repete o lote inteiro
+                        }
+                        stmt.execute("ROLLBACK TO comando");
+                        stmt.execute("RELEASE comando");
+                        p.erro = e;
+                    } finally {
+                        if (p.metodo != null) {
+                            DbMetrics.registrarMetodo(p.metodo, System.nanoTime() - inicioComando);
+                        }
+                    }
+                }
+                InstrumentedJdbc.definirMetodo(conn, null);
+                stmt.execute("COMMIT");
+            } catch (SQLException | RuntimeException e) {
+                try {
+                    stmt.execute("ROLLBACK");
+                } catch (SQLException ignorada) {
+                    // A transação pode já ter sido desfeita pelo próprio SQLite
+                }
+                throw e;
+            }
+        }
+        commits.incrementAndGet();
+        DbMetrics.registrarTransacao(System.nanoTime() - inicio, false);
+        notificarOuvintes();
+    }
+
+    /**
+     * NOVO: Compara o data_version com a leitura do lote anterior na mesma conexão.
+     * Com o lock de escrita já obtido, nenhuma outra conexão grava até o COMMIT, e o próprio
+     * COMMIT não altera o valor: uma diferença é sempre gravação externa entre os dois lotes.
+     * Na primeira leitura de uma conexão não há como saber, então conta como externa.
+     */
+    private static void verificarDataVersion(Statement stmt) throws SQLException {
+        long dataVersion;
+        try (ResultSet rs = stmt.executeQuery("PRAGMA data_version")) {
+            dataVersion = rs.next() ? rs.getLong(1) : -1;
+        }
+        if (dataVersionConexao == -1 || dataVersion != dataVersionConexao) {
+            gravacoesExternas.incrementAndGet();
+        }
+        dataVersionConexao = dataVersion;
+    }
+
+    /**
+     * NOVO: Repassa as tabelas alteradas pelo lote já gravado (depois do COMMIT, então quem
+     * recarregar dados ao receber o aviso já enxerga as alterações).
+     */
+    private static void notificarOuvintes() {
+        if (tabelasAlteradas.isEmpty()) {
+            return;
+        }
+        Set<String> tabelas = Collections.unmodifiableSet(new HashSet<>(tabelasAlteradas));
+        tabelasAlteradas.clear();
+        for (Consumer<Set<String>> ouvinte : ouvintes) {
+            try {
+                ouvinte.accept(tabelas);
+            } catch (RuntimeException e) {
+                System.err.println("Aviso: ouvinte de alterações do DatabaseWriter falhou: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Conexão do escritor; reaberta se o caminho do banco mudou (benchmarks trocam de banco).
+     */
+    private static Connection obterConexao() throws SQLException {
+        String caminho = Database.getDbPath();
+        if (conexao != null && !caminho.equals(caminhoConexao)) {
+            fecharConexao();
+        }
+        if (conexao == null) {
+            conexao = Database.getConnection();
+            caminhoConexao = caminho;
+            InstrumentedJdbc.definirMetodo(conexao, null);
+            registrarUpdateHook(conexao);
+        }
+        return conexao;
+    }
+
+    /**
+     * NOVO: Coleta o nome de cada tabela do banco principal alterada pela conexão do escritor
+     * (inclusive por triggers). Se o driver não permitir, os ouvintes só deixam de ser avisados.
+     */
+    private static void registrarUpdateHook(Connection conn) {
+        try {
+            conn.unwrap(SQLiteConnection.class).addUpdateListener((tipo, banco, tabela, rowId) -> {
+                if ("main".equals(banco)) {
+                    tabelasAlteradas.add(tabela.toLowerCase());
+                }
+            });
+        } catch (SQLException e) {
+            System.err.println("Aviso: update hook indisponível no escritor: " + e.getMessage());
+        }
+    }
+
+    private static void fecharConexao() {
+        if (conexao != null) {
+            try {
+                conexao.close();
+            } catch (SQLException e) {
+                System.err.println("Aviso: falha ao fechar a conexão de escrita: " + e.getMessage());
+            }
+            conexao = null;
+            caminhoConexao = null;
+            dataVersionConexao = -1;
+        }
+    }
+
+    private static boolean isBusy(Exception e) {
+        String msg = String.valueOf(e.getMessage());
+        return e instanceof SQLException && (msg.contains("SQLITE_BUSY") || msg.contains("database is locked"));
+    }
+}
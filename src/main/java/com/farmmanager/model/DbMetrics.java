@@ -0,0 +1,338 @@
+package com.farmmanager.model;
+
+import com.farmmanager.util.DateTimeUtil;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * NOVO: Registro de métricas da camada JDBC.
+ * Alimentado pelas conexões instrumentadas (InstrumentedJdbc) devolvidas por
+ * Database.getConnection(). Mantém:
+ * - histograma de latência por comando SQL (execução + leitura das linhas);
+ * - histograma de latência por método de DAO (tempo de vida da conexão aberta pelo método);
+ * - linhas retornadas/afetadas, erros, tempo de espera por conexão e duração de transações;
+ * - log de consultas lentas (com parâmetros) em ~/farmmanager_slow_queries.log.
+ *
+ * Propriedades de sistema:
+ * - farmmanager.db.metrics=false desliga a instrumentação;
+ * - farmmanager.db.slowQueryMs define o limiar do log de consultas lentas (padrão 200 ms).
+ */
+public final class DbMetrics {
+
+    private static final boolean HABILITADO =
+        !"false".equalsIgnoreCase(System.getProperty("farmmanager.db.metrics"));
+
+    private static volatile long limiarLentoNanos =
+        Long.getLong("farmmanager.db.slowQueryMs", 200L) * 1_000_000L;
+
+    private static final File ARQUIVO_LOG_LENTO =
+        new File(System.getProperty("user.home"), "farmmanager_slow_queries.log");
+    private static final long TAMANHO_MAXIMO_LOG = 5L * 1024 * 1024;
+    private static final Object LOCK_LOG = new Object();
+
+    private static final Map<String, Estatistica> porSql = new ConcurrentHashMap<>();
+    private static final Map<String, Estatistica> porMetodo = new ConcurrentHashMap<>();
+    private static final Histograma esperaConexao = new Histograma();
+    private static final Histograma duracaoTransacao = new Histograma();
+    private static final LongAdder conexoesAbertas = new LongAdder();
+    private static final LongAdder comandosExecutados = new LongAdder();
+    private static final LongAdder consultasLentas = new LongAdder();
+    private static final LongAdder errosSql = new LongAdder();
+    private static final LongAdder transacoesRevertidas = new LongAdder();
+    // Conexões abertas e ainda não fechadas (cada getConnection() abre uma conexão nova)
+    private static final AtomicInteger conexoesEmUso = new AtomicInteger();
+    private static final AtomicInteger picoConexoesEmUso = new AtomicInteger();
+
+    private DbMetrics() {
+    }
+
+    /**
+     * Histograma de latência com buckets em potências de 2 (microssegundos).
+     * O bucket i cobre [2^i, 2^(i+1)) µs; percentis são estimados pelo limite superior.
+     */
+    public static final class Histograma {
+        private static final int BUCKETS = 40;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder contagem = new LongAdder();
+        private final LongAdder somaNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void registrar(long nanos) {
+            long micros = Math.max(1L, nanos / 1_000L);
+            int bucket = Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros));
+            buckets.incrementAndGet(bucket);
+            contagem.increment();
+            somaNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        public long getContagem() { return contagem.sum(); }
+        public double getTotalMs() { return somaNanos.sum() / 1_000_000.0; }
+        public double getMaxMs() { return maxNanos.get() / 1_000_000.0; }
+
+        public double getMediaMs() {
+            long n = contagem.sum();
+            return n == 0 ? 0 : getTotalMs() / n;
+        }
+
+        /**
+         * Estimativa do percentil (0-100) em milissegundos.
+         */
+        public double getPercentilMs(double percentil) {
+            long total = 0;
+            long[] copia = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                copia[i] = buckets.get(i);
+                total += copia[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long alvo = (long) Math.ceil(total * percentil / 100.0);
+            long acumulado = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                acumulado += copia[i];
+                if (acumulado >= alvo) {
+                    return Math.min((1L << (i + 1)) / 1000.0, getMaxMs());
+                }
+            }
+            return getMaxMs();
+        }
+    }
+
+    /**
+     * Estatística agregada de uma chave (comando SQL ou método de DAO).
+     */
+    public static final class Estatistica {
+        private final String chave;
+        private final Histograma latencia = new Histograma();
+        private final LongAdder linhas = new LongAdder();
+        private final LongAdder erros = new LongAdder();
+
+        Estatistica(String chave) {
+            this.chave = chave;
+        }
+
+        public String getChave() { return chave; }
+        public Histograma getLatencia() { return latencia; }
+        public long getLinhas() { return linhas.sum(); }
+        public long getErros() { return erros.sum(); }
+    }
+
+    // --- Registro (chamado pela camada instrumentada) ---
+
+    static boolean isHabilitado() {
+        return HABILITADO;
+    }
+
+    static void registrarConexao(long esperaNanos) {
+        conexoesAbertas.increment();
+        esperaConexao.registrar(esperaNanos);
+        picoConexoesEmUso.accumulateAndGet(conexoesEmUso.incrementAndGet(), Math::max);
+    }
+
+    static void registrarFechamento() {
+        conexoesEmUso.decrementAndGet();
+    }
+
+    static void registrarMetodo(String metodo, long nanos) {
+        porMetodo.computeIfAbsent(metodo, Estatistica::new).latencia.registrar(nanos);
+    }
+
+    static void registrarComando(String sql, String metodo, long nanos, long linhas, Map<Integer, Object> parametros) {
+        comandosExecutados.increment();
+        Estatistica e = porSql.computeIfAbsent(normalizar(sql), Estatistica::new);
+        e.latencia.registrar(nanos);
+        e.linhas.add(linhas);
+        if (nanos >= limiarLentoNanos) {
+            consultasLentas.increment();
+            escreverLog("LENTA", nanos, metodo, sql, parametros, linhas + " linha(s)");
+        }
+    }
+
+    static void registrarErro(String sql, String metodo, long nanos, Map<Integer, Object> parametros, Throwable erro) {
+        errosSql.increment();
+        porSql.computeIfAbsent(normalizar(sql), Estatistica::new).erros.increment();
+        if (metodo != null) {
+            porMetodo.computeIfAbsent(metodo, Estatistica::new).erros.increment();
+        }
+        escreverLog("ERRO", nanos, metodo, sql, parametros, String.valueOf(erro.getMessage()));
+    }
+
+    static void registrarTransacao(long nanos, boolean revertida) {
+        duracaoTransacao.registrar(nanos);
+        if (revertida) {
+            transacoesRevertidas.increment();
+        }
+    }
+
+    // --- API pública de consulta ---
+
+    /**
+     * Estatísticas por comando SQL, ordenadas pelo tempo total (maior primeiro).
+     */
+    public static List<Estatistica> getEstatisticasSql() {
+        return ordenar(porSql);
+    }
+
+    /**
+     * Estatísticas por método de DAO (ex: "FinanceiroDAO.listTransacoes"),
+     * ordenadas pelo tempo total.
+     */
+    public static List<Estatistica> getEstatisticasMetodos() {
+        return ordenar(porMetodo);
+    }
+
+    public static Histograma getEsperaConexao() {
+        return esperaConexao;
+    }
+
+    public static Histograma getDuracaoTransacao() {
+        return duracaoTransacao;
+    }
+
+    /**
+     * Contadores globais, em ordem estável para exibição.
+     */
+    public static Map<String, Long> getContadores() {
+        Map<String, Long> contadores = new LinkedHashMap<>();
+        contadores.put("conexoes_abertas", conexoesAbertas.sum());
+        contadores.put("conexoes_em_uso", (long) conexoesEmUso.get());
+        contadores.put("pico_conexoes_em_uso", (long) picoConexoesEmUso.get());
+        contadores.put("comandos_executados", comandosExecutados.sum());
+        contadores.put("consultas_lentas", consultasLentas.sum());
+        contadores.put("erros_sql", errosSql.sum());
+        contadores.put("transacoes", duracaoTransacao.getContagem());
+        contadores.put("transacoes_revertidas", transacoesRevertidas.sum());
+        return contadores;
+    }
+
+    public static int getConexoesEmUso() {
+        return conexoesEmUso.get();
+    }
+
+    /**
+     * Maior número de conexões abertas ao mesmo tempo desde o início (ou do último reset).
+     */
+    public static int getPicoConexoesEmUso() {
+        return picoConexoesEmUso.get();
+    }
+
+    public static long getLimiarLentoMs() {
+        return limiarLentoNanos / 1_000_000L;
+    }
+
+    public static void setLimiarLentoMs(long ms) {
+        limiarLentoNanos = Math.max(0L, ms) * 1_000_000L;
+    }
+
+    public static String getCaminhoLogLento() {
+        return ARQUIVO_LOG_LENTO.getAbsolutePath();
+    }
+
+    /**
+     * Zera todas as métricas acumuladas (o log em disco é mantido).
+     */
+    public static void reset() {
+        porSql.clear();
+        porMetodo.clear();
+        for (Histograma h : new Histograma[] { esperaConexao, duracaoTransacao }) {
+            for (int i = 0; i < Histograma.BUCKETS; i++) {
+                h.buckets.set(i, 0);
+            }
+            h.contagem.reset();
+            h.somaNanos.reset();
+            h.maxNanos.set(0);
+        }
+        conexoesAbertas.reset();
+        comandosExecutados.reset();
+        consultasLentas.reset();
+        errosSql.reset();
+        transacoesRevertidas.reset();
+        picoConexoesEmUso.set(conexoesEmUso.get());
+    }
+
+    /**
+     * Resumo textual das métricas (top N por tempo total), útil para log e diagnóstico.
+     */
+    public static String gerarRelatorio(int topN) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== Métricas JDBC ===\n");
+        getContadores().forEach((k, v) -> sb.append(k).append(": ").append(v).append('\n'));
+        sb.append(String.format("espera_conexao: p50=%.2f ms p99=%.2f ms max=%.2f ms%n",
+            esperaConexao.getPercentilMs(50), esperaConexao.getPercentilMs(99), esperaConexao.getMaxMs()));
+        sb.append(String.format("transacao: p50=%.2f ms p99=%.2f ms max=%.2f ms%n",
+            duracaoTransacao.getPercentilMs(50), duracaoTransacao.getPercentilMs(99), duracaoTransacao.getMaxMs()));
+
+        sb.append("--- Métodos de DAO ---\n");
+        anexarLinhas(sb, getEstatisticasMetodos(), topN);
+        sb.append("--- Comandos SQL ---\n");
+        anexarLinhas(sb, getEstatisticasSql(), topN);
+        return sb.toString();
+    }
+
+    // --- Helpers internos ---
+
+    private static void anexarLinhas(StringBuilder sb, List<Estatistica> lista, int topN) {
+        int limite = Math.min(topN, lista.size());
+        for (int i = 0; i < limite; i++) {
+            Estatistica e = lista.get(i);
+            Histograma h = e.getLatencia();
+            sb.append(String.format("%6d x | total %9.1f ms | p50 %7.2f | p95 %7.2f | p99 %7.2f | max %8.2f | linhas %7d | erros %d | %s%n",
+                h.getContagem(), h.getTotalMs(), h.getPercentilMs(50), h.getPercentilMs(95), h.getPercentilMs(99),
+                h.getMaxMs(), e.getLinhas(), e.getErros(), e.getChave()));
+        }
+    }
+
+    private static List<Estatistica> ordenar(Map<String, Estatistica> mapa) {
+        List<Estatistica> lista = new ArrayList<>(mapa.values());
+        lista.sort(Comparator.comparingDouble((Estatistica e) -> e.getLatencia().getTotalMs()).reversed());
+        return lista;
+    }
+
+    /**
+     * Colapsa espaços para que o mesmo comando montado em várias linhas gere uma única chave.
+     */
+    private static String normalizar(String sql) {
+        return sql == null ? "<nulo>" : sql.trim().replaceAll("\\s+", " ");
+    }
+
+    private static void escreverLog(String tipo, long nanos, String metodo, String sql, Map<Integer, Object> parametros, String detalhe) {
+        String linha = String.format("%s [%s] %.1f ms | %s | %s | params=%s | %s%n",
+            DateTimeUtil.getCurrentTimestamp(), tipo, nanos / 1_000_000.0,
+            metodo == null ? "-" : metodo, normalizar(sql),
+            parametros == null ? "{}" : parametros.toString(), detalhe);
+
+        synchronized (LOCK_LOG) {
+            try {
+                if (ARQUIVO_LOG_LENTO.length() > TAMANHO_MAXIMO_LOG) {
+                    File anterior = new File(ARQUIVO_LOG_LENTO.getPath() + ".1");
+                    Files.move(ARQUIVO_LOG_LENTO.toPath(), anterior.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+                try (BufferedWriter writer = Files.newBufferedWriter(ARQUIVO_LOG_LENTO.toPath(), StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                    writer.write(linha);
+                }
+            } catch (IOException e) {
+                // O log de consultas lentas nunca deve interromper a operação no banco
+                System.err.println("Aviso: não foi possível escrever o log de consultas lentas: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -14,6 +14,8 @@ import java.util.List;
  * - addEstoque (INSERT e UPDATE) agora inclui fornecedor_nome e fornecedor_empresa.
  * - updateEstoqueItem agora inclui fornecedor_nome e fornecedor_empresa.
  * - listEstoque, getItemById, getEstoqueItemPorNome agora leem os novos campos.
+ * - addEstoque e consumirEstoque agora são comandos únicos (upsert e baixa condicional).
+ * - getItemNomeById agora usa o ReferenceDataCache (com consulta direta para itens sem saldo).
  */
 public class EstoqueDAO {
 
@@ -27,70 +29,40 @@ public class EstoqueDAO {
      * Se for um novo item, insere.
      * NOVO: Atualiza data_modificacao ou insere data_criacao/data_modificacao.
      * ATUALIZADO: Atualiza dados do fornecedor no INSERT e UPDATE.
+     * ATUALIZADO: Um único INSERT ... ON CONFLICT(item_nome) DO UPDATE (upsert), com o
+     * custo médio calculado no próprio SQL. Antes era SELECT + UPDATE/INSERT, e duas
+     * compras simultâneas do mesmo item podiam perder uma das atualizações.
      */
     public boolean addEstoque(EstoqueItem item) throws SQLException {
-        String sqlSelect = "SELECT id, quantidade, valor_total FROM estoque WHERE item_nome = ?";
-        // NOVO: SQLs atualizados
-        String sqlUpdate = "UPDATE estoque SET quantidade = ?, valor_total = ?, valor_unitario = ?, "
-                         + "fornecedor_nome = ?, fornecedor_empresa = ?, data_modificacao = ? WHERE id = ?";
-        String sqlInsert = "INSERT INTO estoque (item_nome, quantidade, unidade, valor_unitario, valor_total, "
-                         + "fornecedor_nome, fornecedor_empresa, data_criacao, data_modificacao) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        // No DO UPDATE, as colunas sem prefixo são os valores atuais e "excluded" é a compra nova
+        String sql = "INSERT INTO estoque (item_nome, quantidade, unidade, valor_unitario, valor_total, "
+                   + "fornecedor_nome, fornecedor_empresa, data_criacao, data_modificacao) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) "
+                   + "ON CONFLICT(item_nome) DO UPDATE SET "
+                   + "quantidade = quantidade + excluded.quantidade, "
+                   + "valor_total = valor_total + excluded.valor_total, "
+                   + "valor_unitario = CASE WHEN quantidade + excluded.quantidade > 0 "
+                   + "THEN (valor_total + excluded.valor_total) / (quantidade + excluded.quantidade) ELSE 0 END, "
+                   + "fornecedor_nome = excluded.fornecedor_nome, "
+                   + "fornecedor_empresa = excluded.fornecedor_empresa, "
+                   + "data_modificacao = excluded.data_modificacao";
 
-        try (Connection conn = Database.getConnection()) {
-            conn.setAutoCommit(false); // Inicia transação
-            
-            String now = DateTimeUtil.getCurrentTimestamp(); // NOVO
+        return DatabaseWriter.executar(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            try (PreparedStatement pstmtSelect = conn.prepareStatement(sqlSelect)) {
-                pstmtSelect.setString(1, item.getItemNome());
-                
-                try (ResultSet rs = pstmtSelect.executeQuery()) {
-                    if (rs.next()) {
-                        // --- ITEM EXISTE (UPDATE) ---
-                        int id = rs.getInt("id");
-                        double oldQty = rs.getDouble("quantidade");
-                        double oldTotalVal = rs.getDouble("valor_total");
+                String now = DateTimeUtil.getCurrentTimestamp();
+                pstmt.setString(1, item.getItemNome());
+                pstmt.setDouble(2, item.getQuantidade());
+                pstmt.setString(3, item.getUnidade());
+                pstmt.setDouble(4, item.getValorUnitario());
+                pstmt.setDouble(5, item.getValorTotal());
+                pstmt.setString(6, item.getFornecedorNome());
+                pstmt.setString(7, item.getFornecedorEmpresa());
+                pstmt.setString(8, now); // data_criacao (ignorada se o item já existir)
+                pstmt.setString(9, now);
 
-                        double newQty = oldQty + item.getQuantidade();
-                        double newTotalVal = oldTotalVal + item.getValorTotal();
-                        // Custo médio ponderado
-                        double newUnitVal = (newQty > 0) ? (newTotalVal / newQty) : 0; 
-
-                        try (PreparedStatement pstmtUpdate = conn.prepareStatement(sqlUpdate)) {
-                            pstmtUpdate.setDouble(1, newQty);
-                            pstmtUpdate.setDouble(2, newTotalVal);
-                            pstmtUpdate.setDouble(3, newUnitVal);
-                            pstmtUpdate.setString(4, item.getFornecedorNome()); // NOVO
-                            pstmtUpdate.setString(5, item.getFornecedorEmpresa()); // NOVO
-                            pstmtUpdate.setString(6, now); // NOVO
-                            pstmtUpdate.setInt(7, id); // NOVO (índice mudou)
-                            pstmtUpdate.executeUpdate();
-                        }
-                    } else {
-                        // --- ITEM NÃO EXISTE (INSERT) ---
-                        try (PreparedStatement pstmtInsert = conn.prepareStatement(sqlInsert)) {
-                            pstmtInsert.setString(1, item.getItemNome());
-                            pstmtInsert.setDouble(2, item.getQuantidade());
-                            pstmtInsert.setString(3, item.getUnidade());
-                            pstmtInsert.setDouble(4, item.getValorUnitario());
-                            pstmtInsert.setDouble(5, item.getValorTotal());
-                            pstmtInsert.setString(6, item.getFornecedorNome()); // NOVO
-                            pstmtInsert.setString(7, item.getFornecedorEmpresa()); // NOVO
-                            pstmtInsert.setString(8, now); // NOVO
-                            pstmtInsert.setString(9, now); // NOVO
-                            pstmtInsert.executeUpdate();
-                        }
-                    }
-                }
-                
-                conn.commit(); // Efetiva a transação
-                return true;
-
-            } catch (SQLException e) {
-                conn.rollback(); // Desfaz em caso de erro
-                throw e; // Repassa a exceção
+                return pstmt.executeUpdate() > 0;
             }
-        }
+        });
     }
 
     /**
@@ -99,76 +71,61 @@ public class EstoqueDAO {
      */
     public boolean updateEstoqueItem(int id, String nome, String unidade, String fornecedorNome, String fornecedorEmpresa) throws SQLException {
         String sql = "UPDATE estoque SET item_nome = ?, unidade = ?, fornecedor_nome = ?, fornecedor_empresa = ?, data_modificacao = ? WHERE id = ?";
-        try (Connection conn = Database.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return DatabaseWriter.executar(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setString(1, nome);
-            pstmt.setString(2, unidade);
-            pstmt.setString(3, fornecedorNome); // NOVO
-            pstmt.setString(4, fornecedorEmpresa); // NOVO
-            pstmt.setString(5, DateTimeUtil.getCurrentTimestamp());
-            pstmt.setInt(6, id);
+                pstmt.setString(1, nome);
+                pstmt.setString(2, unidade);
+                pstmt.setString(3, fornecedorNome); // NOVO
+                pstmt.setString(4, fornecedorEmpresa); // NOVO
+                pstmt.setString(5, DateTimeUtil.getCurrentTimestamp());
+                pstmt.setInt(6, id);
             
-            return pstmt.executeUpdate() > 0;
-        }
+                return pstmt.executeUpdate() > 0;
+            }
+        });
     }
 
     /**
      * Consome (dá baixa) em uma quantidade específica de um item.
      * Recalcula o valor_total com base no valor_unitário (custo médio).
      * NOVO: Atualiza data_modificacao.
+     * ATUALIZADO: Um único UPDATE condicionado a "quantidade >= ?", que devolve o novo saldo
+     * via RETURNING. A verificação e a baixa acontecem no mesmo comando, então dois consumos
+     * simultâneos não conseguem deixar o estoque negativo.
+     * @return O saldo do item após a baixa.
      * @throws IllegalStateException Se não houver estoque suficiente.
      */
-    public boolean consumirEstoque(int id, double quantidadeAConsumir) throws SQLException, IllegalStateException {
-        String sqlSelect = "SELECT quantidade, valor_unitario FROM estoque WHERE id = ?";
-        // NOVO: SQL atualizado
-        String sqlUpdate = "UPDATE estoque SET quantidade = ?, valor_total = ?, data_modificacao = ? WHERE id = ?";
+    public double consumirEstoque(int id, double quantidadeAConsumir) throws SQLException, IllegalStateException {
+        String sql = "UPDATE estoque SET quantidade = quantidade - ?, valor_total = (quantidade - ?) * valor_unitario, "
+                   + "data_modificacao = ? WHERE id = ? AND quantidade >= ? RETURNING quantidade";
 
-        try (Connection conn = Database.getConnection()) {
-            conn.setAutoCommit(false); 
-            
-            String now = DateTimeUtil.getCurrentTimestamp(); // NOVO
-            double quantidadeAtual = 0;
-            double valorUnitario = 0;
+        return DatabaseWriter.executar(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setDouble(1, quantidadeAConsumir);
+                pstmt.setDouble(2, quantidadeAConsumir);
+                pstmt.setString(3, DateTimeUtil.getCurrentTimestamp());
+                pstmt.setInt(4, id);
+                pstmt.setDouble(5, quantidadeAConsumir);
 
-            // 1. Verifica o estoque atual e o valor unitário
-            try (PreparedStatement pstmtSelect = conn.prepareStatement(sqlSelect)) {
-                pstmtSelect.setInt(1, id);
-                try (ResultSet rs = pstmtSelect.executeQuery()) {
+                try (ResultSet rs = pstmt.executeQuery()) {
                     if (rs.next()) {
-                        quantidadeAtual = rs.getDouble("quantidade");
-                        valorUnitario = rs.getDouble("valor_unitario");
-                    } else {
-                        throw new SQLException("Item não encontrado no estoque, ID: " + id);
+                        return rs.getDouble(1);
                     }
                 }
             }
 
-            // 2. Valida se há estoque suficiente
-            if (quantidadeAtual < quantidadeAConsumir) {
-                conn.rollback(); 
-                throw new IllegalStateException("Estoque insuficiente. Disponível: " + quantidadeAtual + ", Tentativa de consumo: " + quantidadeAConsumir);
-            }
-
-            // 3. Calcula novos valores
-            double novaQuantidade = quantidadeAtual - quantidadeAConsumir;
-            double novoValorTotal = novaQuantidade * valorUnitario; // Atualiza o valor total baseado no custo médio
-
-            // 4. Atualiza o estoque
-            try (PreparedStatement pstmtUpdate = conn.prepareStatement(sqlUpdate)) {
-                pstmtUpdate.setDouble(1, novaQuantidade);
-                pstmtUpdate.setDouble(2, novoValorTotal);
-                pstmtUpdate.setString(3, now); // NOVO
-                pstmtUpdate.setInt(4, id); // NOVO (índice mudou)
-                int rowsAffected = pstmtUpdate.executeUpdate();
-                
-                conn.commit(); // Efetiva a transação
-                return rowsAffected > 0;
-            } catch (SQLException e) {
-                conn.rollback();
-                throw e;
+            // Nenhuma linha alterada: só aqui consulta o saldo, para explicar o motivo
+            try (PreparedStatement pstmtSelect = conn.prepareStatement("SELECT quantidade FROM estoque WHERE id = ?")) {
+                pstmtSelect.setInt(1, id);
+                try (ResultSet rs = pstmtSelect.executeQuery()) {
+                    if (!rs.next()) {
+                        throw new SQLException("Item não encontrado no estoque, ID: " + id);
+                    }
+                    throw new IllegalStateException("Estoque insuficiente. Disponível: " + rs.getDouble("quantidade") + ", Tentativa de consumo: " + quantidadeAConsumir);
+                }
             }
-        }
+        });
     }
 
 
@@ -177,12 +134,13 @@ public class EstoqueDAO {
      */
     public boolean removerItemEstoque(int id) throws SQLException {
         String sql = "DELETE FROM estoque WHERE id = ?";
-        try (Connection conn = Database.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return DatabaseWriter.executar(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, id);
-            return pstmt.executeUpdate() > 0;
-        }
+                pstmt.setInt(1, id);
+                return pstmt.executeUpdate() > 0;
+            }
+        });
     }
 
     /**
@@ -340,8 +298,16 @@ public class EstoqueDAO {
     /**
      * Retorna o nome de um item baseado no ID.
      * Usado pelo SafrasController para preencher a tabela de detalhes.
+     * ATUALIZADO: Consulta o ReferenceDataCache em vez de ir ao banco a cada chamada.
+     * CORRIGIDO: O cache só tem itens com quantidade > 0 (listEstoque); itens sem saldo,
+     * comuns nos detalhes de safras antigas, são buscados direto no banco.
      */
     public String getItemNomeById(int id) throws SQLException {
+        EstoqueItem item = ReferenceDataCache.estoque().porId(id);
+        if (item != null) {
+            return item.getItemNome();
+        }
+
         String sql = "SELECT item_nome FROM estoque WHERE id = ?";
         
         try (Connection conn = Database.getConnection();
@@ -7,46 +7,121 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.LinkedHashMap; 
 import java.util.List;
 import java.util.Map; 
 
+/**
+ * DAO da tabela 'financeiro' (livro-caixa).
+ * ATUALIZADO: listTransacoes e listTransacoesPorDescricaoLike aceitam incluirArquivo
+ * para consultar também os arquivos anuais (ver ArquivoDAO); as linhas dos arquivos
+ * vêm marcadas como arquivadas (Transacao.isArquivada).
+ * ATUALIZADO: addTransacao grava funcionario_id; histórico e totais de pagamentos por
+ * funcionário usam o índice idx_financeiro_funcionario (migração 4).
+ * ATUALIZADO: Categoria, contraparte e origem gravadas em colunas próprias (migração 6);
+ * a descrição só é interpretada para linhas sem classificação (ver CategoriaFinanceira).
+ * ATUALIZADO: categoria_automatica (migração 7) marca categorias definidas por regras;
+ * mudar a categoria na edição a torna manual.
+ * ATUALIZADO: extrato_id (migração 8) liga o lançamento à linha do extrato bancário conciliada.
+ * NOVO: addTransacoes insere em lote (liquidação de várias contas).
+ * ATUALIZADO: Balanço, totais de receita/despesa e balanço por dia incluem os totais
+ * do financeiro arquivado (financeiro_arquivado_diario, migração 10).
+ */
 public class FinanceiroDAO {
 
     public boolean addTransacao(Transacao transacao) throws SQLException {
-        // NOVO: SQL atualizado com data_hora_criacao
-        String sql = "INSERT INTO financeiro(descricao, valor, data, tipo, data_hora_criacao, data_modificacao) VALUES(?, ?, ?, ?, ?, ?)";
-        try (Connection conn = Database.getConnection(); // CORRIGIDO
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            String now = DateTimeUtil.getCurrentTimestamp(); // NOVO
-            pstmt.setString(1, transacao.getDescricao());
-            pstmt.setDouble(2, transacao.getValor());
-            pstmt.setString(3, transacao.getData());
-            pstmt.setString(4, transacao.getTipo());
-            pstmt.setString(5, now); // NOVO: data_hora_criacao
-            pstmt.setString(6, now); // NOVO: data_modificacao
+        return DatabaseWriter.executar(conn -> addTransacao(conn, transacao));
+    }
+
+    // NOVO: SQL atualizado com data_hora_criacao
+    // ATUALIZADO: funcionario_id (nulo se a transação não for pagamento a funcionário)
+    // ATUALIZADO: classificação estruturada (migração 6)
+    // ATUALIZADO: extrato_id (lançamento do extrato bancário, migração 8)
+    private static final String SQL_INSERT =
+        "INSERT INTO financeiro(descricao, valor, data, tipo, data_hora_criacao, data_modificacao, funcionario_id, "
+        + "categoria, contraparte_nome, contraparte_empresa, origem_tipo, origem_id, categoria_automatica, extrato_id) "
+        + "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * NOVO: Insere a transação usando uma conexão já aberta, para que outros DAOs
+     * possam incluí-la na mesma transação (ex: ContaDAO.liquidarConta).
+     */
+    static boolean addTransacao(Connection conn, Transacao transacao) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_INSERT)) {
+            preencherInsert(pstmt, transacao, DateTimeUtil.getCurrentTimestamp());
             return pstmt.executeUpdate() > 0;
         }
     }
 
+    /**
+     * NOVO: Insere várias transações com um único comando preparado, em lote (executeBatch),
+     * na conexão de quem chama (ex: ContaDAO.liquidarContas).
+     * @return quantidade de linhas inseridas
+     */
+    static int addTransacoes(Connection conn, List<Transacao> transacoes) throws SQLException {
+        if (transacoes.isEmpty()) {
+            return 0;
+        }
+        int inseridas = 0;
+        try (PreparedStatement pstmt = conn.prepareStatement(SQL_INSERT)) {
+            String now = DateTimeUtil.getCurrentTimestamp();
+            for (Transacao transacao : transacoes) {
+                preencherInsert(pstmt, transacao, now);
+                pstmt.addBatch();
+            }
+            for (int linhas : pstmt.executeBatch()) {
+                inseridas += Math.max(linhas, 0);
+            }
+        }
+        return inseridas;
+    }
+
+    private static void preencherInsert(PreparedStatement pstmt, Transacao transacao, String now) throws SQLException {
+        // Lançamentos sem classificação (ex: manuais) são classificados pela descrição
+        CategoriaFinanceira.completar(transacao);
+        pstmt.setString(1, transacao.getDescricao());
+        pstmt.setDouble(2, transacao.getValor());
+        pstmt.setString(3, transacao.getData());
+        pstmt.setString(4, transacao.getTipo());
+        pstmt.setString(5, now); // NOVO: data_hora_criacao
+        pstmt.setString(6, now); // NOVO: data_modificacao
+        pstmt.setObject(7, transacao.getFuncionarioId()); // NOVO
+        pstmt.setString(8, transacao.getCategoria()); // NOVO
+        pstmt.setString(9, transacao.getContraparteNome());
+        pstmt.setString(10, transacao.getContraparteEmpresa());
+        pstmt.setString(11, transacao.getOrigemTipo());
+        pstmt.setObject(12, transacao.getOrigemId());
+        pstmt.setInt(13, transacao.isCategoriaAutomatica() ? 1 : 0); // NOVO
+        pstmt.setString(14, transacao.getExtratoId()); // NOVO
+    }
+
     /**
      * NOVO: Atualiza uma transação existente no banco de dados.
+     * ATUALIZADO: Grava também a categoria (contraparte e origem não mudam na edição).
+     * Trocar a categoria a torna manual: as regras não a alteram mais.
      */
     public boolean updateTransacao(Transacao transacao) throws SQLException {
-        String sql = "UPDATE financeiro SET descricao = ?, valor = ?, data = ?, tipo = ?, data_modificacao = ? WHERE id = ?";
-        try (Connection conn = Database.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        // No SET, "categoria" à direita ainda é o valor anterior
+        String sql = "UPDATE financeiro SET descricao = ?, valor = ?, data = ?, tipo = ?, data_modificacao = ?, "
+                   + "categoria = COALESCE(?, categoria), "
+                   + "categoria_automatica = CASE WHEN COALESCE(?, categoria) = categoria THEN categoria_automatica ELSE 0 END "
+                   + "WHERE id = ?";
+        return DatabaseWriter.executar(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setString(1, transacao.getDescricao());
-            pstmt.setDouble(2, transacao.getValor());
-            pstmt.setString(3, transacao.getData());
-            pstmt.setString(4, transacao.getTipo());
-            pstmt.setString(5, DateTimeUtil.getCurrentTimestamp()); // Atualiza o timestamp
-            pstmt.setInt(6, transacao.getId()); // Cláusula WHERE
+                pstmt.setString(1, transacao.getDescricao());
+                pstmt.setDouble(2, transacao.getValor());
+                pstmt.setString(3, transacao.getData());
+                pstmt.setString(4, transacao.getTipo());
+                pstmt.setString(5, DateTimeUtil.getCurrentTimestamp()); // Atualiza o timestamp
+                pstmt.setString(6, transacao.getCategoria()); // NOVO: nula = mantém a atual
+                pstmt.setString(7, transacao.getCategoria());
+                pstmt.setInt(8, transacao.getId()); // Cláusula WHERE
             
-            return pstmt.executeUpdate() > 0;
-        }
+                return pstmt.executeUpdate() > 0;
+            }
+        });
     }
 
     /**
@@ -54,35 +129,48 @@ public class FinanceiroDAO {
      */
     public boolean removerTransacao(int id) throws SQLException {
         String sql = "DELETE FROM financeiro WHERE id = ?";
-        try (Connection conn = Database.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return DatabaseWriter.executar(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, id);
-            return pstmt.executeUpdate() > 0;
-        }
+                pstmt.setInt(1, id);
+                return pstmt.executeUpdate() > 0;
+            }
+        });
     }
 
     public List<Transacao> listTransacoes() throws SQLException {
+        return listTransacoes(false);
+    }
+
+    /**
+     * NOVO: Lista as transações do banco principal e, opcionalmente,
+     * também as dos arquivos anuais (relatórios).
+     * Mantém a ordenação por data_hora_criacao (mais recente primeiro).
+     */
+    public List<Transacao> listTransacoes(boolean incluirArquivo) throws SQLException {
         List<Transacao> transacoes = new ArrayList<>();
-        // ATUALIZADO: Seleciona data_hora_criacao e ordena por ela (DESC - mais recente primeiro)
-        String sql = "SELECT id, data, descricao, tipo, valor, data_hora_criacao FROM financeiro ORDER BY data_hora_criacao DESC";
         
-        try (Connection conn = Database.getConnection(); // CORRIGIDO
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (Connection conn = Database.getConnection()) {
+            ArquivoDAO.consultarComArquivo(conn, incluirArquivo, (c, schema) -> {
+                // ATUALIZADO: Seleciona data_hora_criacao e ordena por ela (DESC - mais recente primeiro)
+                // ATUALIZADO: Inclui as colunas de classificação (migração 6)
+                String sql = "SELECT id, data, descricao, tipo, valor, data_hora_criacao, funcionario_id, categoria, "
+                           + "contraparte_nome, contraparte_empresa, origem_tipo, origem_id FROM " + schema + ".financeiro ORDER BY data_hora_criacao DESC";
+                try (Statement stmt = c.createStatement();
+                     ResultSet rs = stmt.executeQuery(sql)) {
+                    while (rs.next()) {
+                        Transacao t = mapRowToTransacao(rs);
+                        t.setArquivada(!"main".equals(schema));
+                        transacoes.add(t);
+                    }
+                }
+            });
+        }
 
-            while (rs.next()) {
-                // ATUALIZADO: Usa o novo construtor para incluir data_hora_criacao
-                Transacao t = new Transacao(
-                    rs.getInt("id"),
-                    rs.getString("descricao"),
-                    rs.getDouble("valor"),
-                    rs.getString("data"),
-                    rs.getString("tipo"),
-                    rs.getString("data_hora_criacao") // NOVO
-                );
-                transacoes.add(t);
-            }
+        if (incluirArquivo) {
+            // Reordena o resultado combinado (principal + arquivos)
+            transacoes.sort(Comparator.comparing(Transacao::getDataHoraCriacao,
+                Comparator.nullsFirst(Comparator.<String>naturalOrder())).reversed());
         }
         return transacoes;
     }
@@ -120,14 +208,51 @@ public class FinanceiroDAO {
      * Usado pelo SafrasController para encontrar todas as vendas de uma colheita.
      */
     public List<Transacao> listTransacoesPorDescricaoLike(String partialDesc) throws SQLException {
+        return listTransacoesPorDescricaoLike(partialDesc, false);
+    }
+
+    /**
+     * NOVO: Versão que também consulta os arquivos anuais.
+     * Usada pelos relatórios de safra, cujas vendas podem já ter sido arquivadas.
+     */
+    public List<Transacao> listTransacoesPorDescricaoLike(String partialDesc, boolean incluirArquivo) throws SQLException {
         List<Transacao> transacoes = new ArrayList<>();
-        String sql = "SELECT * FROM financeiro WHERE descricao LIKE ?";
         
-        try (Connection conn = Database.getConnection(); // CORRIGIDO
+        try (Connection conn = Database.getConnection()) {
+            ArquivoDAO.consultarComArquivo(conn, incluirArquivo, (c, schema) -> {
+                String sql = "SELECT * FROM " + schema + ".financeiro WHERE descricao LIKE ?";
+                try (PreparedStatement pstmt = c.prepareStatement(sql)) {
+                    // O '%' é o curinga do SQL para "qualquer coisa"
+                    pstmt.setString(1, partialDesc + "%"); 
+                    
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            Transacao t = mapRowToTransacao(rs);
+                            t.setArquivada(!"main".equals(schema));
+                            transacoes.add(t);
+                        }
+                    }
+                }
+            });
+        }
+        return transacoes;
+    }
+
+    /**
+     * NOVO: Retorna uma lista de transações onde a descrição CONTÉM o nome fornecido.
+     * Ordena por data (mais recente primeiro).
+     * ATUALIZADO: O histórico de pagamento dos funcionários usa listPagamentosFuncionario.
+     */
+    public List<Transacao> listTransacoesPorDescricaoContendo(String nome) throws SQLException {
+        List<Transacao> transacoes = new ArrayList<>();
+        // Busca por transações que contenham o nome em qualquer parte da descrição
+        String sql = "SELECT * FROM financeiro WHERE descricao LIKE ? ORDER BY data DESC";
+        
+        try (Connection conn = Database.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             // O '%' é o curinga do SQL para "qualquer coisa"
-            pstmt.setString(1, partialDesc + "%"); 
+            pstmt.setString(1, "%" + nome + "%"); 
             
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
@@ -137,7 +262,7 @@ public class FinanceiroDAO {
                         rs.getDouble("valor"),
                         rs.getString("data"),
                         rs.getString("tipo"),
-                        rs.getString("data_hora_criacao") // NOVO
+                        rs.getString("data_hora_criacao")
                     ));
                 }
             }
@@ -146,40 +271,120 @@ public class FinanceiroDAO {
     }
 
     /**
-     * NOVO: Retorna uma lista de transações onde a descrição CONTÉM o nome fornecido.
-     * Usado pelo FuncionariosController para buscar histórico de pagamento.
-     * Ordena por data (mais recente primeiro).
+     * NOVO: Transações do período ainda não ligadas a um extrato bancário
+     * (candidatas da conciliação, ver ConciliacaoExtratoDAO). Usa idx_financeiro_data.
      */
-    public List<Transacao> listTransacoesPorDescricaoContendo(String nome) throws SQLException {
+    public List<Transacao> listTransacoesSemExtrato(String dataInicio, String dataFim) throws SQLException {
         List<Transacao> transacoes = new ArrayList<>();
-        // Busca por transações que contenham o nome em qualquer parte da descrição
-        String sql = "SELECT * FROM financeiro WHERE descricao LIKE ? ORDER BY data DESC";
-        
+        String sql = "SELECT * FROM financeiro WHERE data BETWEEN ? AND ? AND extrato_id IS NULL";
         try (Connection conn = Database.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            // O '%' é o curinga do SQL para "qualquer coisa"
-            pstmt.setString(1, "%" + nome + "%"); 
-            
+            pstmt.setString(1, dataInicio);
+            pstmt.setString(2, dataFim);
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    transacoes.add(new Transacao(
+                    transacoes.add(mapRowToTransacao(rs));
+                }
+            }
+        }
+        return transacoes;
+    }
+
+
+    /**
+     * NOVO: Uma página do histórico de pagamentos do funcionário (mais recentes primeiro).
+     * Busca pelo índice (funcionario_id, data): o custo depende do tamanho da página,
+     * não do tamanho do livro-caixa.
+     */
+    public List<Transacao> listPagamentosFuncionario(int funcionarioId, int limite, int deslocamento) throws SQLException {
+        List<Transacao> transacoes = new ArrayList<>();
+        String sql = "SELECT id, descricao, valor, data, tipo, data_hora_criacao FROM financeiro "
+                   + "WHERE funcionario_id = ? ORDER BY data DESC, id DESC LIMIT ? OFFSET ?";
+
+        try (Connection conn = Database.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, funcionarioId);
+            pstmt.setInt(2, limite);
+            pstmt.setInt(3, deslocamento);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Transacao t = new Transacao(
                         rs.getInt("id"),
                         rs.getString("descricao"),
                         rs.getDouble("valor"),
                         rs.getString("data"),
                         rs.getString("tipo"),
                         rs.getString("data_hora_criacao")
-                    ));
+                    );
+                    t.setFuncionarioId(funcionarioId);
+                    transacoes.add(t);
                 }
             }
         }
         return transacoes;
     }
 
+    /**
+     * NOVO: Histórico completo de pagamentos do funcionário (ex: exportação CSV).
+     */
+    public List<Transacao> listPagamentosFuncionario(int funcionarioId) throws SQLException {
+        return listPagamentosFuncionario(funcionarioId, -1, 0); // LIMIT -1: sem limite no SQLite
+    }
+
+    /**
+     * NOVO: Quantidade de pagamentos e total pago (valor negativo) ao funcionário no período.
+     * Datas no formato YYYY-MM-DD, inclusivas; nulas = sem limite.
+     * @return mapa com "quantidade" e "total"
+     */
+    public Map<String, Double> getTotalPagamentosFuncionario(int funcionarioId, String dataInicio, String dataFim) throws SQLException {
+        String sql = "SELECT COUNT(*) AS quantidade, COALESCE(SUM(valor), 0) AS total FROM financeiro "
+                   + "WHERE funcionario_id = ? AND data >= COALESCE(?, '') AND data <= COALESCE(?, '9999-12-31')";
+        Map<String, Double> totais = new LinkedHashMap<>();
+
+        try (Connection conn = Database.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, funcionarioId);
+            pstmt.setString(2, dataInicio);
+            pstmt.setString(3, dataFim);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                totais.put("quantidade", (double) rs.getInt("quantidade"));
+                totais.put("total", rs.getDouble("total"));
+            }
+        }
+        return totais;
+    }
+
+    /**
+     * NOVO: Total pago (valor negativo) ao funcionário em cada mês ("YYYY-MM"), em ordem cronológica.
+     */
+    public Map<String, Double> getPagamentosFuncionarioPorMes(int funcionarioId) throws SQLException {
+        String sql = "SELECT substr(data, 1, 7) AS mes, SUM(valor) AS total FROM financeiro "
+                   + "WHERE funcionario_id = ? GROUP BY mes ORDER BY mes";
+        Map<String, Double> totais = new LinkedHashMap<>();
+
+        try (Connection conn = Database.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, funcionarioId);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    totais.put(rs.getString("mes"), rs.getDouble("total"));
+                }
+            }
+        }
+        return totais;
+    }
 
+    // ATUALIZADO: Soma também o saldo dos anos arquivados
     public double getBalançoFinanceiro() throws SQLException {
-        String sql = "SELECT SUM(valor) AS balanco FROM financeiro";
+        String sql = "SELECT COALESCE((SELECT SUM(valor) FROM financeiro), 0) "
+                   + "+ COALESCE((SELECT SUM(saldo) FROM financeiro_arquivado_diario), 0) AS balanco";
         try (Connection conn = Database.getConnection(); // CORRIGIDO
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
@@ -194,13 +399,15 @@ public class FinanceiroDAO {
     /**
      * NOVO: Retorna os totais de Receita e Despesa.
      * Usado pelo Gráfico de Pizza.
+     * ATUALIZADO: Inclui os totais dos anos arquivados.
      */
     public Map<String, Double> getTotaisReceitaDespesa() throws SQLException {
         // Usa LinkedHashMap para garantir a ordem
         Map<String, Double> totais = new LinkedHashMap<>();
         
         // Query para somar todas as receitas (valores positivos)
-        String sqlReceita = "SELECT SUM(valor) AS total FROM financeiro WHERE tipo = 'receita'";
+        String sqlReceita = "SELECT COALESCE((SELECT SUM(valor) FROM financeiro WHERE tipo = 'receita'), 0) "
+                          + "+ COALESCE((SELECT SUM(receita) FROM financeiro_arquivado_diario), 0) AS total";
         try (Connection conn = Database.getConnection(); // CORRIGIDO
              PreparedStatement pstmt = conn.prepareStatement(sqlReceita);
              ResultSet rs = pstmt.executeQuery()) {
@@ -210,7 +417,8 @@ public class FinanceiroDAO {
         }
         
         // Query para somar todas as despesas (valores negativos) e pegar o absoluto
-        String sqlDespesa = "SELECT ABS(SUM(valor)) AS total FROM financeiro WHERE tipo = 'despesa'";
+        String sqlDespesa = "SELECT ABS(COALESCE((SELECT SUM(valor) FROM financeiro WHERE tipo = 'despesa'), 0) "
+                          + "+ COALESCE((SELECT SUM(despesa) FROM financeiro_arquivado_diario), 0)) AS total";
         try (Connection conn = Database.getConnection(); // CORRIGIDO
              PreparedStatement pstmt = conn.prepareStatement(sqlDespesa);
              ResultSet rs = pstmt.executeQuery()) {
@@ -225,12 +433,14 @@ public class FinanceiroDAO {
      * NOVO: Retorna um histórico do balanço (soma de transações) agrupado por DIA.
      * Usa a data (YYYY-MM-DD) para agrupar.
      * Usado pelo Gráfico de Linha.
+     * ATUALIZADO: Os dias dos anos arquivados vêm de financeiro_arquivado_diario.
      */
     public Map<String, Double> getBalancoPorDia() throws SQLException {
         Map<String, Double> balancoDiario = new LinkedHashMap<>(); // LinkedHashMap para manter a ordem
         
         String sql = "SELECT data, SUM(valor) as balanco_dia " +
-                     "FROM financeiro " +
+                     "FROM (SELECT data, valor FROM financeiro " +
+                     "UNION ALL SELECT data, saldo FROM financeiro_arquivado_diario) " +
                      "GROUP BY data " +
                      "ORDER BY data ASC";
 
@@ -244,5 +454,25 @@ public class FinanceiroDAO {
         }
         return balancoDiario;
     }
-}
 
+    // Helper para mapear o ResultSet
+    // ATUALIZADO: Lê a classificação; linhas sem ela (arquivos antigos) são classificadas pela descrição
+    private Transacao mapRowToTransacao(ResultSet rs) throws SQLException {
+        Transacao t = new Transacao(
+            rs.getInt("id"),
+            rs.getString("descricao"),
+            rs.getDouble("valor"),
+            rs.getString("data"),
+            rs.getString("tipo"),
+            rs.getString("data_hora_criacao")
+        );
+        int funcionarioId = rs.getInt("funcionario_id");
+        t.setFuncionarioId(rs.wasNull() ? null : funcionarioId);
+        t.setCategoria(rs.getString("categoria"));
+        t.setContraparte(rs.getString("contraparte_nome"), rs.getString("contraparte_empresa"));
+        int origemId = rs.getInt("origem_id");
+        t.setOrigem(rs.getString("origem_tipo"), rs.wasNull() ? null : origemId);
+        CategoriaFinanceira.completar(t);
+        return t;
+    }
+}
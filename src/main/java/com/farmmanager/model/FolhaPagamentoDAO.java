@@ -0,0 +1,152 @@
+package com.farmmanager.model;
+
+import com.farmmanager.util.DateTimeUtil;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * NOVO: DAO da folha de pagamento (tabela folha_pagamento, migração 5).
+ *
+ * A folha do mês é lançada de uma vez: prévia() monta os itens (quem já foi pago
+ * na competência fica de fora) e lancar() grava todos os salários e extras no
+ * financeiro em uma única transação (um COMMIT para a fazenda inteira).
+ * A chave única (competencia, funcionario_id) garante que a mesma competência não
+ * seja paga duas vezes, mesmo com duas prévias abertas ao mesmo tempo.
+ */
+public class FolhaPagamentoDAO {
+
+    private static final DateTimeFormatter FORMATO_COMPETENCIA = DateTimeFormatter.ofPattern("MM/yyyy");
+
+    /**
+     * Resultado do lançamento da folha.
+     */
+    public static final class ResultadoFolha {
+        private final int pagos;
+        private final int ignorados;
+        private final double total;
+
+        ResultadoFolha(int pagos, int ignorados, double total) {
+            this.pagos = pagos;
+            this.ignorados = ignorados;
+            this.total = total;
+        }
+
+        /** Funcionários lançados agora. */
+        public int getPagos() { return pagos; }
+        /** Funcionários que já estavam pagos na competência (não lançados). */
+        public int getIgnorados() { return ignorados; }
+        /** Total lançado (positivo). */
+        public double getTotal() { return total; }
+    }
+
+    /**
+     * Prévia da folha: um item por funcionário, marcado como já pago se houver
+     * salário lançado na competência.
+     */
+    public List<ItemFolha> previa(YearMonth competencia, List<Funcionario> funcionarios) throws SQLException {
+        Set<Integer> pagos = listFuncionariosPagos(competencia);
+        List<ItemFolha> itens = new ArrayList<>(funcionarios.size());
+        for (Funcionario f : funcionarios) {
+            itens.add(new ItemFolha(f.getId(), f.getNome(), f.getSalario(), pagos.contains(f.getId())));
+        }
+        return itens;
+    }
+
+    /**
+     * IDs dos funcionários com salário lançado na competência.
+     */
+    public Set<Integer> listFuncionariosPagos(YearMonth competencia) throws SQLException {
+        String sql = "SELECT funcionario_id FROM folha_pagamento WHERE competencia = ?";
+        Set<Integer> pagos = new HashSet<>();
+        try (Connection conn = Database.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, competencia.toString());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    pagos.add(rs.getInt("funcionario_id"));
+                }
+            }
+        }
+        return pagos;
+    }
+
+    /**
+     * Lança os itens marcados para inclusão em uma única transação.
+     * Para cada funcionário: registro na folha, salário no financeiro e, se houver, um
+     * lançamento separado com os extras. Quem já foi pago na competência é ignorado.
+     *
+     * @param descricaoExtras motivo dos extras (ex: "Hora extra")
+     */
+    public ResultadoFolha lancar(YearMonth competencia, LocalDate dataPagamento, List<ItemFolha> itens,
+                                 String descricaoExtras) throws SQLException {
+        String sqlFolha = "INSERT INTO folha_pagamento (competencia, funcionario_id, data_pagamento, valor_salario, valor_extras, data_criacao) "
+                        + "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT(competencia, funcionario_id) DO NOTHING";
+        // last_insert_rowid(): id do lançamento do salário, inserido logo antes
+        String sqlVinculo = "UPDATE folha_pagamento SET transacao_id = last_insert_rowid() WHERE competencia = ? AND funcionario_id = ?";
+        String data = dataPagamento.toString();
+        String sufixo = " (" + competencia.format(FORMATO_COMPETENCIA) + ")";
+
+        return DatabaseWriter.executar(conn -> {
+            int pagos = 0;
+            int ignorados = 0;
+            double total = 0;
+            try (PreparedStatement pstmtFolha = conn.prepareStatement(sqlFolha);
+                 PreparedStatement pstmtVinculo = conn.prepareStatement(sqlVinculo)) {
+                String agora = DateTimeUtil.getCurrentTimestamp();
+                for (ItemFolha item : itens) {
+                    if (!item.isIncluir()) {
+                        continue;
+                    }
+                    pstmtFolha.setString(1, competencia.toString());
+                    pstmtFolha.setInt(2, item.getFuncionarioId());
+                    pstmtFolha.setString(3, data);
+                    pstmtFolha.setDouble(4, item.getSalario());
+                    pstmtFolha.setDouble(5, item.getExtras());
+                    pstmtFolha.setString(6, agora);
+                    if (pstmtFolha.executeUpdate() == 0) {
+                        ignorados++; // competência já paga (ex: por outra prévia)
+                        continue;
+                    }
+
+                    Transacao salario = new Transacao("Pagamento de salário: " + item.getNome() + sufixo,
+                        -item.getSalario(), data, "despesa");
+                    classificar(salario, item);
+                    FinanceiroDAO.addTransacao(conn, salario);
+
+                    pstmtVinculo.setString(1, competencia.toString());
+                    pstmtVinculo.setInt(2, item.getFuncionarioId());
+                    pstmtVinculo.executeUpdate();
+
+                    if (item.getExtras() > 0) {
+                        Transacao extras = new Transacao("Pgto. Funcionário (" + item.getNome() + "): " + descricaoExtras + sufixo,
+                            -item.getExtras(), data, "despesa");
+                        classificar(extras, item);
+                        FinanceiroDAO.addTransacao(conn, extras);
+                    }
+                    pagos++;
+                    total += item.getTotal();
+                }
+            }
+            return new ResultadoFolha(pagos, ignorados, total);
+        });
+    }
+
+    /**
+     * Liga o lançamento ao funcionário (funcionario_id e classificação estruturada).
+     */
+    private static void classificar(Transacao transacao, ItemFolha item) {
+        transacao.setFuncionarioId(item.getFuncionarioId());
+        transacao.setCategoria(CategoriaFinanceira.FOLHA_PAGAMENTO);
+        transacao.setContraparte(item.getNome(), null);
+        transacao.setOrigem(CategoriaFinanceira.ORIGEM_FUNCIONARIO, item.getFuncionarioId());
+    }
+}
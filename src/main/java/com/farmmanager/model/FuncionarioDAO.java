@@ -18,23 +18,24 @@ public class FuncionarioDAO {
     public boolean addFuncionario(Funcionario funcionario) throws SQLException {
         // NOVO: SQL atualizado com data_inicio e novos campos
         String sql = "INSERT INTO funcionarios(nome, cargo, salario, data_inicio, cpf, telefone, endereco, data_criacao, data_modificacao) VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        try (Connection conn = Database.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return DatabaseWriter.executar(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            String now = DateTimeUtil.getCurrentTimestamp();
+                String now = DateTimeUtil.getCurrentTimestamp();
 
-            pstmt.setString(1, funcionario.getNome());
-            pstmt.setString(2, funcionario.getCargo());
-            pstmt.setDouble(3, funcionario.getSalario());
-            pstmt.setString(4, funcionario.getDataInicio());
-            pstmt.setString(5, funcionario.getCpf()); // NOVO
-            pstmt.setString(6, funcionario.getTelefone()); // NOVO
-            pstmt.setString(7, funcionario.getEndereco()); // NOVO
-            pstmt.setString(8, now); // Índice atualizado
-            pstmt.setString(9, now); // Índice atualizado
-            int affectedRows = pstmt.executeUpdate();
-            return affectedRows > 0;
-        }
+                pstmt.setString(1, funcionario.getNome());
+                pstmt.setString(2, funcionario.getCargo());
+                pstmt.setDouble(3, funcionario.getSalario());
+                pstmt.setString(4, funcionario.getDataInicio());
+                pstmt.setString(5, funcionario.getCpf()); // NOVO
+                pstmt.setString(6, funcionario.getTelefone()); // NOVO
+                pstmt.setString(7, funcionario.getEndereco()); // NOVO
+                pstmt.setString(8, now); // Índice atualizado
+                pstmt.setString(9, now); // Índice atualizado
+                int affectedRows = pstmt.executeUpdate();
+                return affectedRows > 0;
+            }
+        });
     }
 
     /**
@@ -42,12 +43,13 @@ public class FuncionarioDAO {
      */
     public boolean removerFuncionario(int id) throws SQLException {
         String sql = "DELETE FROM funcionarios WHERE id = ?";
-        try (Connection conn = Database.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return DatabaseWriter.executar(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, id);
-            return pstmt.executeUpdate() > 0;
-        }
+                pstmt.setInt(1, id);
+                return pstmt.executeUpdate() > 0;
+            }
+        });
     }
 
     public List<Funcionario> listFuncionarios() throws SQLException {
@@ -0,0 +1,340 @@
+package com.farmmanager.model;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * NOVO: Camada JDBC instrumentada.
+ * Envolve Connection, Statement/PreparedStatement e ResultSet em proxies dinâmicos
+ * que medem o tempo de cada comando (execução + leitura das linhas), capturam os
+ * parâmetros vinculados e repassam tudo para o DbMetrics.
+ *
+ * O método de DAO responsável é identificado uma única vez, na abertura da conexão,
+ * pelo primeiro quadro da pilha fora de Database (ex: "FinanceiroDAO.listTransacoes").
+ * Como cada método de DAO abre e fecha a própria conexão, o tempo de vida da conexão
+ * é a latência do método.
+ */
+final class InstrumentedJdbc {
+
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+    private InstrumentedJdbc() {
+    }
+
+    /**
+     * Devolve a conexão instrumentada.
+     * @param esperaNanos tempo gasto para obter a conexão real (DriverManager).
+     */
+    static Connection envolver(Connection real, long esperaNanos) {
+        DbMetrics.registrarConexao(esperaNanos);
+        ConexaoHandler handler = new ConexaoHandler(real, identificarChamador());
+        Connection proxy = (Connection) Proxy.newProxyInstance(
+            InstrumentedJdbc.class.getClassLoader(), new Class<?>[] { Connection.class }, handler);
+        handler.proxy = proxy;
+        return proxy;
+    }
+
+    /**
+     * Primeiro quadro da pilha fora da infraestrutura de banco, no formato "Classe.metodo".
+     */
+    static String identificarChamador() {
+        Optional<String> chamador = STACK_WALKER.walk(frames -> frames
+            .filter(f -> !f.getClassName().equals(InstrumentedJdbc.class.getName())
+                      && !f.getClassName().equals(Database.class.getName())
+                      && !f.getClassName().startsWith(DatabaseWriter.class.getName()))
+            .findFirst()
+            .map(f -> nomeSimples(f.getClassName()) + "." + nomeMetodo(f.getMethodName())));
+        return chamador.orElse("desconhecido");
+    }
+
+    private static String nomeSimples(String nomeClasse) {
+        String nome = nomeClasse.substring(nomeClasse.lastIndexOf('.') + 1);
+        int interna = nome.indexOf('$');
+        return interna > 0 ? nome.substring(0, interna) : nome;
+    }
+
+    // Lambdas aparecem como "lambda$listTransacoes$0"; usa o método que as contém
+    private static String nomeMetodo(String metodo) {
+        if (metodo.startsWith("lambda$")) {
+            int fim = metodo.indexOf('$', 7);
+            return fim > 7 ? metodo.substring(7, fim) : metodo;
+        }
+        return metodo;
+    }
+
+    /**
+     * NOVO: Troca o método de DAO ao qual os comandos da conexão são atribuídos.
+     * Usado pelo DatabaseWriter, cuja conexão única executa comandos de vários DAOs.
+     * Com null, o fechamento da conexão não é contabilizado como latência de método.
+     */
+    static void definirMetodo(Connection conn, String metodo) {
+        if (Proxy.isProxyClass(conn.getClass()) && Proxy.getInvocationHandler(conn) instanceof ConexaoHandler) {
+            ((ConexaoHandler) Proxy.getInvocationHandler(conn)).metodo = metodo;
+        }
+    }
+
+    private static Object invocar(Object alvo, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(alvo, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // --- Connection ---
+
+    private static final class ConexaoHandler implements InvocationHandler {
+        private final Connection real;
+        private volatile String metodo;
+        private final long abertaEm = System.nanoTime();
+        private Connection proxy;
+        private boolean transacaoManual = false;
+        private long inicioTransacao = 0;
+        private boolean fechada = false;
+
+        ConexaoHandler(Connection real, String metodo) {
+            this.real = real;
+            this.metodo = metodo;
+        }
+
+        @Override
+        public Object invoke(Object p, Method method, Object[] args) throws Throwable {
+            String nome = method.getName();
+            switch (nome) {
+                case "prepareStatement":
+                case "prepareCall":
+                    return envolverComando((Statement) invocar(real, method, args), (String) args[0]);
+                case "createStatement":
+                    return envolverComando((Statement) invocar(real, method, args), null);
+                case "setAutoCommit": {
+                    Object resultado = invocar(real, method, args);
+                    boolean autoCommit = (Boolean) args[0];
+                    if (!autoCommit && !transacaoManual) {
+                        inicioTransacao = System.nanoTime();
+                    } else if (autoCommit && transacaoManual) {
+                        // Voltar ao autocommit confirma a transação em aberto
+                        finalizarTransacao(false);
+                    }
+                    transacaoManual = !autoCommit;
+                    return resultado;
+                }
+                case "commit":
+                case "rollback": {
+                    Object resultado = invocar(real, method, args);
+                    if (args == null || args.length == 0) {
+                        finalizarTransacao("rollback".equals(nome));
+                    }
+                    return resultado;
+                }
+                case "close": {
+                    Object resultado = invocar(real, method, args);
+                    if (!fechada) {
+                        fechada = true;
+                        // Transação ainda aberta no fechamento é descartada pelo SQLite
+                        finalizarTransacao(true);
+                        if (metodo != null) {
+                            DbMetrics.registrarMetodo(metodo, System.nanoTime() - abertaEm);
+                        }
+                        DbMetrics.registrarFechamento();
+                    }
+                    return resultado;
+                }
+                default:
+                    return invocar(real, method, args);
+            }
+        }
+
+        void antesDeExecutar() {
+            // Após commit/rollback, a próxima transação começa no próximo comando
+            if (transacaoManual && inicioTransacao == 0) {
+                inicioTransacao = System.nanoTime();
+            }
+        }
+
+        private void finalizarTransacao(boolean revertida) {
+            if (inicioTransacao != 0) {
+                DbMetrics.registrarTransacao(System.nanoTime() - inicioTransacao, revertida);
+                inicioTransacao = 0;
+            }
+        }
+
+        private Statement envolverComando(Statement real, String sql) {
+            Class<?> tipo = real instanceof CallableStatement ? CallableStatement.class
+                          : real instanceof PreparedStatement ? PreparedStatement.class
+                          : Statement.class;
+            return (Statement) Proxy.newProxyInstance(InstrumentedJdbc.class.getClassLoader(),
+                new Class<?>[] { tipo }, new ComandoHandler(this, real, sql));
+        }
+    }
+
+    // --- Statement / PreparedStatement ---
+
+    private static final class ComandoHandler implements InvocationHandler {
+        private final ConexaoHandler conexao;
+        private final Statement real;
+        private final String sql;
+        private final Map<Integer, Object> parametros = new TreeMap<>();
+        private String sqlLote;
+        private LeituraHandler leituraAberta;
+
+        ComandoHandler(ConexaoHandler conexao, Statement real, String sql) {
+            this.conexao = conexao;
+            this.real = real;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object p, Method method, Object[] args) throws Throwable {
+            String nome = method.getName();
+            switch (nome) {
+                case "executeQuery":
+                    return executarConsulta(method, args);
+                case "execute":
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                case "executeBatch":
+                case "executeLargeBatch":
+                    return executarAtualizacao(nome, method, args);
+                case "addBatch":
+                    if (args != null && args.length == 1 && args[0] instanceof String) {
+                        sqlLote = (String) args[0];
+                    }
+                    return invocar(real, method, args);
+                case "clearParameters":
+                    parametros.clear();
+                    return invocar(real, method, args);
+                case "getConnection":
+                    return conexao.proxy;
+                case "close":
+                    if (leituraAberta != null) {
+                        leituraAberta.registrar();
+                    }
+                    return invocar(real, method, args);
+                default:
+                    if (nome.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                        parametros.put((Integer) args[0], args[1]);
+                    }
+                    return invocar(real, method, args);
+            }
+        }
+
+        private String sqlEfetivo(Object[] args) {
+            if (args != null && args.length > 0 && args[0] instanceof String) {
+                return (String) args[0];
+            }
+            return sql != null ? sql : sqlLote;
+        }
+
+        private Object executarConsulta(Method method, Object[] args) throws Throwable {
+            String comando = sqlEfetivo(args);
+            Map<Integer, Object> copia = new TreeMap<>(parametros);
+            conexao.antesDeExecutar();
+            long inicio = System.nanoTime();
+            ResultSet rs;
+            try {
+                rs = (ResultSet) invocar(real, method, args);
+            } catch (Throwable t) {
+                DbMetrics.registrarErro(comando, conexao.metodo, System.nanoTime() - inicio, copia, t);
+                throw t;
+            }
+            // O registro acontece quando as linhas terminam de ser lidas (ou o ResultSet é fechado)
+            leituraAberta = new LeituraHandler(rs, comando, conexao.metodo, copia, System.nanoTime() - inicio);
+            return Proxy.newProxyInstance(InstrumentedJdbc.class.getClassLoader(),
+                new Class<?>[] { ResultSet.class }, leituraAberta);
+        }
+
+        private Object executarAtualizacao(String nome, Method method, Object[] args) throws Throwable {
+            String comando = sqlEfetivo(args);
+            Map<Integer, Object> copia = new TreeMap<>(parametros);
+            conexao.antesDeExecutar();
+            long inicio = System.nanoTime();
+            Object resultado;
+            try {
+                resultado = invocar(real, method, args);
+            } catch (Throwable t) {
+                DbMetrics.registrarErro(comando, conexao.metodo, System.nanoTime() - inicio, copia, t);
+                throw t;
+            }
+            long nanos = System.nanoTime() - inicio;
+
+            long linhas = 0;
+            if (resultado instanceof Integer) {
+                linhas = (Integer) resultado;
+            } else if (resultado instanceof Long) {
+                linhas = (Long) resultado;
+            } else if (resultado instanceof int[]) {
+                for (int n : (int[]) resultado) {
+                    linhas += Math.max(0, n);
+                }
+            } else if (resultado instanceof long[]) {
+                for (long n : (long[]) resultado) {
+                    linhas += Math.max(0, n);
+                }
+            }
+            if (nome.startsWith("executeBatch") || nome.startsWith("executeLargeBatch")) {
+                copia = null; // Parâmetros do último item do lote não representam o lote
+            }
+            DbMetrics.registrarComando(comando, conexao.metodo, nanos, Math.max(0, linhas), copia);
+            return resultado;
+        }
+    }
+
+    // --- ResultSet ---
+
+    private static final class LeituraHandler implements InvocationHandler {
+        private final ResultSet real;
+        private final String sql;
+        private final String metodo;
+        private final Map<Integer, Object> parametros;
+        private long nanos;
+        private long linhas = 0;
+        private boolean registrado = false;
+
+        LeituraHandler(ResultSet real, String sql, String metodo, Map<Integer, Object> parametros, long execucaoNanos) {
+            this.real = real;
+            this.sql = sql;
+            this.metodo = metodo;
+            this.parametros = parametros;
+            this.nanos = execucaoNanos;
+        }
+
+        @Override
+        public Object invoke(Object p, Method method, Object[] args) throws Throwable {
+            String nome = method.getName();
+            if ("next".equals(nome)) {
+                long inicio = System.nanoTime();
+                boolean temLinha = (Boolean) invocar(real, method, args);
+                nanos += System.nanoTime() - inicio;
+                if (temLinha) {
+                    linhas++;
+                } else {
+                    registrar();
+                }
+                return temLinha;
+            }
+            if ("close".equals(nome)) {
+                Object resultado = invocar(real, method, args);
+                registrar();
+                return resultado;
+            }
+            return invocar(real, method, args);
+        }
+
+        void registrar() {
+            if (!registrado) {
+                registrado = true;
+                DbMetrics.registrarComando(sql, metodo, nanos, linhas, parametros);
+            }
+        }
+    }
+}
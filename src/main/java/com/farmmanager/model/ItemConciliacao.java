@@ -0,0 +1,95 @@
+package com.farmmanager.model;
+
+/**
+ * NOVO: Uma linha da prévia da conciliação bancária (ver ConciliacaoExtratoDAO).
+ *
+ * Cada lançamento do extrato recebe uma ação: liquidar a conta pendente correspondente,
+ * vincular a uma transação já lançada no financeiro, criar um lançamento novo ou nada
+ * (linha já importada antes). Só os itens marcados em "confirmar" são gravados.
+ *
+ * ATUALIZADO: Só as correspondências com pontuação a partir de PONTUACAO_MINIMA_MARCADA
+ * vêm marcadas. Com o mesmo valor e a mesma data, sem nenhuma palavra em comum, a
+ * pontuação chega a 0,6: esses pares aparecem na prévia, mas o usuário precisa marcá-los.
+ */
+public class ItemConciliacao {
+
+    public enum Acao {
+        LIQUIDAR_CONTA("Liquidar conta"),
+        VINCULAR_LANCAMENTO("Já lançado"),
+        NOVO_LANCAMENTO("Novo lançamento"),
+        JA_IMPORTADO("Já importado");
+
+        private final String descricao;
+
+        Acao(String descricao) {
+            this.descricao = descricao;
+        }
+
+        public String getDescricao() { return descricao; }
+    }
+
+    // NOVO: Pontuação mínima para a correspondência vir marcada (exige semelhança na descrição)
+    public static final double PONTUACAO_MINIMA_MARCADA = 0.7;
+
+    private final LancamentoExtrato lancamento;
+    private final Acao acao;
+    private final Conta conta; // LIQUIDAR_CONTA
+    private final Transacao transacao; // VINCULAR_LANCAMENTO
+    private final double pontuacao; // 0 a 1: proximidade da data e semelhança da descrição
+    private final String categoria; // NOVO_LANCAMENTO
+    private final boolean categoriaAutomatica;
+    private boolean confirmar;
+
+    ItemConciliacao(LancamentoExtrato lancamento, Acao acao, Conta conta, Transacao transacao, double pontuacao,
+                    String categoria, boolean categoriaAutomatica) {
+        this.lancamento = lancamento;
+        this.acao = acao;
+        this.conta = conta;
+        this.transacao = transacao;
+        this.pontuacao = pontuacao;
+        this.categoria = categoria;
+        this.categoriaAutomatica = categoriaAutomatica;
+        // Correspondências fortes vêm marcadas; as fracas e os lançamentos novos são conferidos pelo usuário
+        this.confirmar = (acao == Acao.LIQUIDAR_CONTA || acao == Acao.VINCULAR_LANCAMENTO)
+            && pontuacao >= PONTUACAO_MINIMA_MARCADA;
+    }
+
+    // Getters
+    public LancamentoExtrato getLancamento() { return lancamento; }
+    public Acao getAcao() { return acao; }
+    public Conta getConta() { return conta; }
+    public Transacao getTransacao() { return transacao; }
+    public double getPontuacao() { return pontuacao; }
+    public String getCategoria() { return categoria; }
+    public boolean isCategoriaAutomatica() { return categoriaAutomatica; }
+    public boolean isConfirmar() { return confirmar; }
+
+    // Getters para a tabela da prévia
+    public String getData() { return lancamento.getData(); }
+    public String getDescricao() { return lancamento.getDescricao(); }
+    public double getValor() { return lancamento.getValor(); }
+    public String getAcaoDescricao() { return acao.getDescricao(); }
+
+    /**
+     * NOVO: Pontuação da correspondência em porcentagem (vazio quando não há correspondência).
+     */
+    public String getConfianca() {
+        return conta != null || transacao != null ? Math.round(pontuacao * 100) + "%" : "";
+    }
+
+    /**
+     * Conta ou transação correspondente, para exibição.
+     */
+    public String getCorrespondencia() {
+        if (conta != null) {
+            return "Conta #" + conta.getId() + ": " + conta.getDescricao() + " (venc. " + conta.getDataVencimento() + ")";
+        }
+        if (transacao != null) {
+            return "Transação #" + transacao.getId() + ": " + transacao.getDescricao() + " (" + transacao.getData() + ")";
+        }
+        return acao == Acao.NOVO_LANCAMENTO ? categoria : "";
+    }
+
+    // Itens já importados nunca são gravados de novo
+    public void setConfirmar(boolean confirmar) { this.confirmar = confirmar && acao != Acao.JA_IMPORTADO; }
+}
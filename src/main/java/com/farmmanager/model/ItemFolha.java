@@ -0,0 +1,43 @@
+package com.farmmanager.model;
+
+/**
+ * NOVO: Uma linha da prévia da folha de pagamento (ver FolhaPagamentoDAO).
+ *
+ * Salário vem do cadastro do funcionário; extras e "incluir" são editados na prévia.
+ * Funcionários já pagos na competência aparecem com jaPago = true e não são lançados.
+ */
+public class ItemFolha {
+    private final int funcionarioId;
+    private final String nome;
+    private final double salario;
+    private final boolean jaPago;
+    private double extras;
+    private boolean incluir;
+
+    public ItemFolha(int funcionarioId, String nome, double salario, boolean jaPago) {
+        this.funcionarioId = funcionarioId;
+        this.nome = nome;
+        this.salario = salario;
+        this.jaPago = jaPago;
+        this.incluir = !jaPago;
+    }
+
+    // Getters
+    public int getFuncionarioId() { return funcionarioId; }
+    public String getNome() { return nome; }
+    public double getSalario() { return salario; }
+    public boolean isJaPago() { return jaPago; }
+    public double getExtras() { return extras; }
+    public boolean isIncluir() { return incluir; }
+
+    /**
+     * Salário + extras (o que sai do caixa se o item for lançado).
+     */
+    public double getTotal() { return salario + extras; }
+
+    public String getStatus() { return jaPago ? "Já pago" : "A pagar"; }
+
+    // Setters (edição na prévia)
+    public void setExtras(double extras) { this.extras = extras; }
+    public void setIncluir(boolean incluir) { this.incluir = incluir && !jaPago; }
+}
@@ -0,0 +1,34 @@
+package com.farmmanager.model;
+
+/**
+ * NOVO: Uma linha de extrato bancário (OFX ou CSV), lida por LeitorExtrato.
+ *
+ * O identificador é o FITID do OFX ou, no CSV, um código derivado de data, valor,
+ * descrição e ocorrência; ele é gravado em financeiro.extrato_id (migração 8) para
+ * que o mesmo extrato importado de novo não gere lançamentos duplicados.
+ */
+public class LancamentoExtrato {
+
+    private final String data; // YYYY-MM-DD
+    private final double valor; // Positivo para crédito, negativo para débito
+    private final String descricao;
+    private final String identificador;
+
+    public LancamentoExtrato(String data, double valor, String descricao, String identificador) {
+        this.data = data;
+        this.valor = valor;
+        this.descricao = descricao;
+        this.identificador = identificador;
+    }
+
+    // Getters
+    public String getData() { return data; }
+    public double getValor() { return valor; }
+    public String getDescricao() { return descricao; }
+    public String getIdentificador() { return identificador; }
+
+    public boolean isCredito() { return valor > 0; }
+
+    /** Valor absoluto em centavos (chave dos índices da conciliação). */
+    public long getCentavos() { return Math.round(Math.abs(valor) * 100); }
+}
@@ -20,17 +20,18 @@ public class ManutencaoDAO {
         String sql = "INSERT INTO manutencao_patrimonio (patrimonio_id, data, descricao, custo, data_hora_criacao) "
                    + "VALUES (?, ?, ?, ?, ?)";
         
-        try (Connection conn = Database.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return DatabaseWriter.executar(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, manutencao.getPatrimonioId());
-            pstmt.setString(2, manutencao.getData());
-            pstmt.setString(3, manutencao.getDescricao());
-            pstmt.setDouble(4, manutencao.getCusto());
-            pstmt.setString(5, DateTimeUtil.getCurrentTimestamp());
+                pstmt.setInt(1, manutencao.getPatrimonioId());
+                pstmt.setString(2, manutencao.getData());
+                pstmt.setString(3, manutencao.getDescricao());
+                pstmt.setDouble(4, manutencao.getCusto());
+                pstmt.setString(5, DateTimeUtil.getCurrentTimestamp());
             
-            return pstmt.executeUpdate() > 0;
-        }
+                return pstmt.executeUpdate() > 0;
+            }
+        });
     }
 
     /**
@@ -23,21 +23,22 @@ public class PatrimonioDAO {
         String sql = "INSERT INTO patrimonio(nome, tipo, data_aquisicao, valor_aquisicao, status, data_criacao, data_modificacao) "
                    + "VALUES (?, ?, ?, ?, ?, ?, ?)";
         
-        try (Connection conn = Database.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return DatabaseWriter.executar(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            String now = DateTimeUtil.getCurrentTimestamp();
+                String now = DateTimeUtil.getCurrentTimestamp();
             
-            pstmt.setString(1, patrimonio.getNome());
-            pstmt.setString(2, patrimonio.getTipo());
-            pstmt.setString(3, patrimonio.getDataAquisicao());
-            pstmt.setDouble(4, patrimonio.getValorAquisicao());
-            pstmt.setString(5, patrimonio.getStatus());
-            pstmt.setString(6, now);
-            pstmt.setString(7, now);
+                pstmt.setString(1, patrimonio.getNome());
+                pstmt.setString(2, patrimonio.getTipo());
+                pstmt.setString(3, patrimonio.getDataAquisicao());
+                pstmt.setDouble(4, patrimonio.getValorAquisicao());
+                pstmt.setString(5, patrimonio.getStatus());
+                pstmt.setString(6, now);
+                pstmt.setString(7, now);
             
-            return pstmt.executeUpdate() > 0;
-        }
+                return pstmt.executeUpdate() > 0;
+            }
+        });
     }
 
     /**
@@ -45,14 +46,15 @@ public class PatrimonioDAO {
      */
     public boolean updateStatus(int id, String novoStatus) throws SQLException {
         String sql = "UPDATE patrimonio SET status = ?, data_modificacao = ? WHERE id = ?";
-        try (Connection conn = Database.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return DatabaseWriter.executar(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setString(1, novoStatus);
-            pstmt.setString(2, DateTimeUtil.getCurrentTimestamp());
-            pstmt.setInt(3, id);
-            return pstmt.executeUpdate() > 0;
-        }
+                pstmt.setString(1, novoStatus);
+                pstmt.setString(2, DateTimeUtil.getCurrentTimestamp());
+                pstmt.setInt(3, id);
+                return pstmt.executeUpdate() > 0;
+            }
+        });
     }
 
     /**
@@ -60,12 +62,13 @@ public class PatrimonioDAO {
      */
     public boolean removerPatrimonio(int id) throws SQLException {
         String sql = "DELETE FROM patrimonio WHERE id = ?";
-        try (Connection conn = Database.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return DatabaseWriter.executar(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, id);
-            return pstmt.executeUpdate() > 0;
-        }
+                pstmt.setInt(1, id);
+                return pstmt.executeUpdate() > 0;
+            }
+        });
     }
 
     /**
@@ -0,0 +1,107 @@
+package com.farmmanager.model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * NOVO: Plano de parcelamento (tabela planos_parcelamento, migração 9).
+ *
+ * Uma compra ou venda a prazo dividida em N contas ligadas ao plano (contas.plano_id).
+ * gerarParcelas() calcula os valores em centavos: todas as parcelas têm o mesmo valor
+ * e a diferença do arredondamento fica na primeira, então a soma é sempre o total.
+ * Os vencimentos são contados a partir do primeiro (1º + i * intervalo meses), o que
+ * mantém o dia do mês mesmo depois de um mês mais curto (31/01, 28/02, 31/03...).
+ */
+public class PlanoParcelamento {
+
+    private int id;
+    private final String descricao;
+    private final String tipo; // "pagar" ou "receber"
+    private final double valorTotal;
+    private final int numeroParcelas;
+    private final String primeiroVencimento; // YYYY-MM-DD
+    private final int intervaloMeses;
+    private final String fornecedorNome;
+    private final String fornecedorEmpresa;
+    private String dataCriacao;
+
+    // Resumo das parcelas (preenchido por PlanoParcelamentoDAO.listPlanos)
+    private int parcelasPendentes;
+    private double valorPendente;
+    private String proximoVencimento;
+
+    // Construtor para criar (sem ID)
+    public PlanoParcelamento(String descricao, String tipo, double valorTotal, int numeroParcelas,
+                             String primeiroVencimento, int intervaloMeses,
+                             String fornecedorNome, String fornecedorEmpresa) {
+        this.descricao = descricao;
+        this.tipo = tipo;
+        this.valorTotal = valorTotal;
+        this.numeroParcelas = numeroParcelas;
+        this.primeiroVencimento = primeiroVencimento;
+        this.intervaloMeses = intervaloMeses;
+        this.fornecedorNome = fornecedorNome;
+        this.fornecedorEmpresa = fornecedorEmpresa;
+    }
+
+    // Construtor para ler (com ID)
+    public PlanoParcelamento(int id, String descricao, String tipo, double valorTotal, int numeroParcelas,
+                             String primeiroVencimento, int intervaloMeses,
+                             String fornecedorNome, String fornecedorEmpresa, String dataCriacao) {
+        this(descricao, tipo, valorTotal, numeroParcelas, primeiroVencimento, intervaloMeses, fornecedorNome, fornecedorEmpresa);
+        this.id = id;
+        this.dataCriacao = dataCriacao;
+    }
+
+    /**
+     * Contas do plano, na ordem das parcelas (ainda sem plano_id: o DAO preenche após gravar o plano).
+     * Descrição de cada uma: "<descrição do plano> (i/N)".
+     */
+    public List<Conta> gerarParcelas() {
+        if (numeroParcelas < 1) {
+            throw new IllegalArgumentException("O número de parcelas deve ser maior que zero: " + numeroParcelas);
+        }
+        long totalCentavos = Math.round(valorTotal * 100);
+        long parcelaCentavos = totalCentavos / numeroParcelas;
+        long restoCentavos = totalCentavos - parcelaCentavos * numeroParcelas;
+        LocalDate primeiro = LocalDate.parse(primeiroVencimento);
+
+        List<Conta> parcelas = new ArrayList<>(numeroParcelas);
+        for (int i = 0; i < numeroParcelas; i++) {
+            long centavos = i == 0 ? parcelaCentavos + restoCentavos : parcelaCentavos;
+            String vencimento = primeiro.plusMonths((long) i * intervaloMeses).toString();
+            String desc = numeroParcelas > 1 ? descricao + " (" + (i + 1) + "/" + numeroParcelas + ")" : descricao;
+            Conta conta = new Conta(desc, centavos / 100.0, vencimento, tipo, "pendente", fornecedorNome, fornecedorEmpresa);
+            conta.setParcelaNumero(i + 1);
+            parcelas.add(conta);
+        }
+        return parcelas;
+    }
+
+    // Getters
+    public int getId() { return id; }
+    public String getDescricao() { return descricao; }
+    public String getTipo() { return tipo; }
+    public double getValorTotal() { return valorTotal; }
+    public int getNumeroParcelas() { return numeroParcelas; }
+    public String getPrimeiroVencimento() { return primeiroVencimento; }
+    public int getIntervaloMeses() { return intervaloMeses; }
+    public String getFornecedorNome() { return fornecedorNome; }
+    public String getFornecedorEmpresa() { return fornecedorEmpresa; }
+    public String getDataCriacao() { return dataCriacao; }
+    public int getParcelasPendentes() { return parcelasPendentes; }
+    public double getValorPendente() { return valorPendente; }
+    public String getProximoVencimento() { return proximoVencimento; }
+
+    // Getters para a tabela de planos (o que não está pendente conta como quitado:
+    // parcelas pagas, inclusive as já arquivadas, ou removidas)
+    public String getParcelas() { return (numeroParcelas - parcelasPendentes) + "/" + numeroParcelas + " quitadas"; }
+    public double getValorQuitado() { return valorTotal - valorPendente; }
+
+    void setResumo(int parcelasPendentes, double valorPendente, String proximoVencimento) {
+        this.parcelasPendentes = parcelasPendentes;
+        this.valorPendente = valorPendente;
+        this.proximoVencimento = proximoVencimento;
+    }
+}
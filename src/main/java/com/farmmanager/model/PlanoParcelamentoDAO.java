@@ -0,0 +1,130 @@
+package com.farmmanager.model;
+
+import com.farmmanager.util.DateTimeUtil;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * NOVO: DAO dos planos de parcelamento (tabela planos_parcelamento, migração 9).
+ *
+ * criarPlano() grava o plano e as N parcelas (contas com plano_id) em um único comando
+ * do DatabaseWriter: um INSERT do plano e um INSERT em lote das contas, no mesmo COMMIT.
+ * As parcelas continuam sendo contas comuns (aparecem em Contas, no dashboard e na
+ * conciliação); o plano só as agrupa. Listagem, resumo e quitação de um plano usam o
+ * índice idx_contas_plano, sem varrer a tabela de contas.
+ */
+public class PlanoParcelamentoDAO {
+
+    private final ContaDAO contaDAO = new ContaDAO();
+
+    /**
+     * Grava o plano e suas parcelas em uma única transação.
+     * @return id do plano criado
+     */
+    public int criarPlano(PlanoParcelamento plano) throws SQLException {
+        List<Conta> parcelas = plano.gerarParcelas();
+        String sql = "INSERT INTO planos_parcelamento(descricao, tipo, valor_total, numero_parcelas, primeiro_vencimento, "
+                   + "intervalo_meses, fornecedor_nome, fornecedor_empresa, data_criacao) VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+        return DatabaseWriter.executar(conn -> {
+            int planoId;
+            try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                pstmt.setString(1, plano.getDescricao());
+                pstmt.setString(2, plano.getTipo());
+                pstmt.setDouble(3, plano.getValorTotal());
+                pstmt.setInt(4, plano.getNumeroParcelas());
+                pstmt.setString(5, plano.getPrimeiroVencimento());
+                pstmt.setInt(6, plano.getIntervaloMeses());
+                pstmt.setString(7, plano.getFornecedorNome());
+                pstmt.setString(8, plano.getFornecedorEmpresa());
+                pstmt.setString(9, DateTimeUtil.getCurrentTimestamp());
+                pstmt.executeUpdate();
+                try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                    if (!rs.next()) {
+                        throw new SQLException("Não foi possível obter o id do plano de parcelamento.");
+                    }
+                    planoId = rs.getInt(1);
+                }
+            }
+
+            for (Conta parcela : parcelas) {
+                parcela.setPlanoId(planoId);
+            }
+            ContaDAO.addContas(conn, parcelas);
+            return planoId;
+        });
+    }
+
+    /**
+     * Planos com o resumo das parcelas (pendentes, valor pendente e próximo vencimento),
+     * calculado em uma única consulta agrupada.
+     * @param apenasAbertos só planos com ao menos uma parcela pendente
+     */
+    public List<PlanoParcelamento> listPlanos(boolean apenasAbertos) throws SQLException {
+        String sql = "SELECT p.*, "
+                   + "COUNT(c.id) AS parcelas_pendentes, "
+                   + "COALESCE(SUM(c.valor), 0) AS valor_pendente, "
+                   + "MIN(c.data_vencimento) AS proximo_vencimento "
+                   + "FROM planos_parcelamento p "
+                   + "LEFT JOIN contas c ON c.plano_id = p.id AND c.status = 'pendente' "
+                   + "GROUP BY p.id "
+                   + (apenasAbertos ? "HAVING COUNT(c.id) > 0 " : "")
+                   + "ORDER BY p.id DESC";
+        List<PlanoParcelamento> planos = new ArrayList<>();
+        try (Connection conn = Database.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                PlanoParcelamento plano = new PlanoParcelamento(
+                    rs.getInt("id"),
+                    rs.getString("descricao"),
+                    rs.getString("tipo"),
+                    rs.getDouble("valor_total"),
+                    rs.getInt("numero_parcelas"),
+                    rs.getString("primeiro_vencimento"),
+                    rs.getInt("intervalo_meses"),
+                    rs.getString("fornecedor_nome"),
+                    rs.getString("fornecedor_empresa"),
+                    rs.getString("data_criacao")
+                );
+                plano.setResumo(rs.getInt("parcelas_pendentes"), rs.getDouble("valor_pendente"),
+                    rs.getString("proximo_vencimento"));
+                planos.add(plano);
+            }
+        }
+        return planos;
+    }
+
+    /**
+     * Parcelas do plano, em ordem.
+     */
+    public List<Conta> listParcelas(int planoId) throws SQLException {
+        return contaDAO.listContasPorPlano(planoId);
+    }
+
+    /**
+     * Liquida todas as parcelas pendentes do plano na mesma data (quitação antecipada),
+     * em uma única transação: os ids são lidos e liquidados pelo mesmo comando do escritor.
+     */
+    public List<ContaDAO.ResultadoLiquidacao> quitarPlano(int planoId, String dataPagamento) throws SQLException {
+        String sql = "SELECT id FROM contas WHERE plano_id = ? AND status = 'pendente' ORDER BY parcela_numero";
+        return DatabaseWriter.executar(conn -> {
+            List<Integer> ids = new ArrayList<>();
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setInt(1, planoId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        ids.add(rs.getInt("id"));
+                    }
+                }
+            }
+            // Chamada aninhada: o DatabaseWriter executa na mesma transação
+            return contaDAO.liquidarContas(ids, dataPagamento);
+        });
+    }
+}
@@ -0,0 +1,145 @@
+package com.farmmanager.model;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * NOVO: Pool pequeno de conexões somente leitura (usado por Database.emLeitura).
+ *
+ * Em modo WAL o SQLite atende vários leitores ao mesmo tempo, inclusive durante uma escrita.
+ * As conexões do pool ficam abertas entre as consultas (sem o custo de abrir o arquivo e
+ * preparar o cache de páginas a cada chamada) e têm "PRAGMA query_only" ligado: uma escrita
+ * feita por engano dentro de emLeitura falha em vez de disputar o lock do DatabaseWriter.
+ *
+ * O flag de abertura somente leitura do SQLite não é usado porque, em WAL, ele exige que o
+ * arquivo -shm já exista; query_only tem o mesmo efeito para a aplicação.
+ */
+final class ReadOnlyConnectionPool {
+
+    /**
+     * Máximo de conexões ociosas guardadas (-Dfarmmanager.db.leitura.conexoes).
+     */
+    static final int TAMANHO = Integer.getInteger("farmmanager.db.leitura.conexoes",
+        Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors())));
+
+    private static final ArrayBlockingQueue<ConexaoPool> ociosas = new ArrayBlockingQueue<>(TAMANHO);
+
+    private ReadOnlyConnectionPool() {
+    }
+
+    /**
+     * Conexão de leitura para o banco informado. O close() da conexão devolvida
+     * a retorna ao pool (ou a fecha, se o pool estiver cheio ou o banco tiver mudado).
+     */
+    static Connection obter(String caminho, Database.AberturaConexao abrir) throws SQLException {
+        ConexaoPool conexao;
+        while ((conexao = ociosas.poll()) != null) {
+            if (conexao.caminho.equals(caminho) && !conexao.real.isClosed()) {
+                return conexao.emprestar();
+            }
+            fecharSilenciosamente(conexao.real);
+        }
+        Connection real = abrir.abrir();
+        try (Statement stmt = real.createStatement()) {
+            stmt.execute("PRAGMA query_only = ON");
+        } catch (SQLException e) {
+            fecharSilenciosamente(real);
+            throw e;
+        }
+        return new ConexaoPool(real, caminho).emprestar();
+    }
+
+    /**
+     * Fecha as conexões ociosas (encerramento da aplicação).
+     */
+    static void fechar() {
+        ConexaoPool conexao;
+        while ((conexao = ociosas.poll()) != null) {
+            fecharSilenciosamente(conexao.real);
+        }
+    }
+
+    static int getOciosas() {
+        return ociosas.size();
+    }
+
+    private static void devolver(ConexaoPool conexao) {
+        try {
+            if (!conexao.real.getAutoCommit()) {
+                conexao.real.rollback();
+                conexao.real.setAutoCommit(true);
+            }
+            if (conexao.caminho.equals(Database.getDbPath()) && ociosas.offer(conexao)) {
+                return;
+            }
+        } catch (SQLException e) {
+            // Conexão em estado incerto: descarta
+        }
+        fecharSilenciosamente(conexao.real);
+    }
+
+    private static void fecharSilenciosamente(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            System.err.println("Aviso: falha ao fechar conexão de leitura: " + e.getMessage());
+        }
+    }
+
+    private static final class ConexaoPool {
+        final Connection real;
+        final String caminho;
+
+        ConexaoPool(Connection real, String caminho) {
+            this.real = real;
+            this.caminho = caminho;
+        }
+
+        /**
+         * Cada empréstimo tem seu próprio proxy: fechar duas vezes o mesmo empréstimo
+         * não devolve a conexão em dobro.
+         */
+        Connection emprestar() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, new Emprestimo(this));
+        }
+    }
+
+    private static final class Emprestimo implements InvocationHandler {
+        private final ConexaoPool conexao;
+        private boolean devolvida = false;
+
+        Emprestimo(ConexaoPool conexao) {
+            this.conexao = conexao;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!devolvida) {
+                        devolvida = true;
+                        devolver(conexao);
+                    }
+                    return null;
+                case "isClosed":
+                    return devolvida || conexao.real.isClosed();
+                default:
+                    if (devolvida) {
+                        throw new SQLException("Conexão de leitura já devolvida ao pool.");
+                    }
+                    try {
+                        return method.invoke(conexao.real, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package com.farmmanager.model;
+
+import com.farmmanager.util.CacheStats;
+import com.farmmanager.util.SearchIndex;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * NOVO: Cache em memória dos dados de referência usados pelos diálogos:
+ * talhões, itens de estoque (insumos), funcionários e patrimônio.
+ *
+ * Cada conjunto é uma foto imutável (lista + índices por id e por nome) com um número de versão.
+ * A versão é incrementada quando:
+ * - o DatabaseWriter avisa, após o COMMIT, que a tabela do conjunto foi alterada;
+ * - o PRAGMA data_version muda (escrita de outra conexão: outro processo, ArquivoDAO).
+ *   Esse aviso não diz a tabela, então todos os conjuntos são invalidados.
+ *   ATUALIZADO: Mudanças do data_version acompanhadas de um COMMIT do DatabaseWriter
+ *   (DatabaseWriter.getCommits) são ignoradas, porque essas já chegaram, por tabela, pelo ouvinte.
+ *   CORRIGIDO: Isso vale só se o próprio escritor não viu gravação externa no mesmo intervalo
+ *   (DatabaseWriter.conferirGravacoesExternas).
+ * Um conjunto invalidado que já tinha sido usado é recarregado em segundo plano, então
+ * os diálogos normalmente abrem sem consultar o banco.
+ *
+ * Uso: ReferenceDataCache.talhoes().listar(), ReferenceDataCache.estoque().porId(id).
+ *
+ * ATUALIZADO: Cada conjunto mantém um SearchIndex (nome; no estoque, também fornecedor e
+ * empresa) para os seletores com autocompletar: buscarEstoque("ure", 50). O índice é
+ * sincronizado a cada recarga e só reindexa os itens incluídos, removidos ou renomeados.
+ * Intervalo da verificação do data_version: -Dfarmmanager.cache.referencia.intervaloMs (padrão 2000).
+ */
+public final class ReferenceDataCache {
+
+    /**
+     * Carga de um conjunto a partir do DAO.
+     */
+    @FunctionalInterface
+    interface Carga<T> {
+        List<T> carregar() throws SQLException;
+    }
+
+    /**
+     * Foto imutável de um conjunto de referência.
+     */
+    public static final class Conjunto<T> {
+        private final long versao;
+        private final List<T> itens;
+        private final Map<Integer, T> porId;
+        private final Map<String, T> porNome;
+
+        private Conjunto(long versao, List<T> itens, ToIntFunction<T> id, Function<T, String> nome) {
+            this.versao = versao;
+            this.itens = Collections.unmodifiableList(new ArrayList<>(itens));
+            Map<Integer, T> ids = new HashMap<>();
+            Map<String, T> nomes = new HashMap<>();
+            for (T item : itens) {
+                ids.put(id.applyAsInt(item), item);
+                String chave = nome.apply(item);
+                if (chave != null) {
+                    nomes.putIfAbsent(chave, item);
+                }
+            }
+            this.porId = ids;
+            this.porNome = nomes;
+        }
+
+        /**
+         * Todos os itens, na ordem devolvida pelo DAO (lista somente leitura).
+         */
+        public List<T> listar() {
+            return itens;
+        }
+
+        /**
+         * Item pelo id, ou null.
+         */
+        public T porId(int id) {
+            return porId.get(id);
+        }
+
+        /**
+         * Item pelo nome exato (como nas consultas "WHERE nome = ?"), ou null.
+         */
+        public T porNome(String nome) {
+            return porNome.get(nome);
+        }
+
+        public long getVersao() {
+            return versao;
+        }
+    }
+
+    /**
+     * Um conjunto de referência: tabela de origem, carga e foto atual.
+     */
+    private static final class Referencia<T> {
+        final String tabela;
+        final Carga<T> carga;
+        final ToIntFunction<T> id;
+        final Function<T, String> nome;
+        final CacheStats estatisticas;
+        final SearchIndex<T> indice;
+        final AtomicLong versao = new AtomicLong();
+        volatile Conjunto<T> atual;
+
+        /**
+         * @param campos campos da busca; o primeiro é o nome (também usado em porNome)
+         */
+        Referencia(String tabela, String descricao, Carga<T> carga, ToIntFunction<T> id, List<Function<T, String>> campos) {
+            this.tabela = tabela;
+            this.carga = carga;
+            this.id = id;
+            this.nome = campos.get(0);
+            this.estatisticas = CacheStats.de("Referência: " + descricao);
+            this.indice = new SearchIndex<>(id, campos);
+        }
+
+        Conjunto<T> obter() throws SQLException {
+            Conjunto<T> conjunto = atual;
+            if (conjunto != null && conjunto.versao == versao.get()) {
+                estatisticas.acerto();
+                return conjunto;
+            }
+            estatisticas.falha();
+            return carregar();
+        }
+
+        Conjunto<T> carregar() throws SQLException {
+            // A versão é lida antes da consulta: uma invalidação durante a carga não é perdida
+            long versaoLida = versao.get();
+            List<T> itens;
+            try {
+                itens = Database.emLeitura(carga::carregar);
+            } catch (SQLException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new SQLException(e);
+            }
+            Conjunto<T> conjunto = new Conjunto<>(versaoLida, itens, id, nome);
+            synchronized (this) {
+                if (atual == null || atual.versao < versaoLida) {
+                    atual = conjunto;
+                    indice.sincronizar(conjunto.listar());
+                }
+            }
+            return conjunto;
+        }
+
+        List<T> buscar(String consulta, int limite) throws SQLException {
+            obter(); // Garante a última versão carregada (e indexada)
+            return indice.buscar(consulta, limite);
+        }
+
+        void invalidar() {
+            versao.incrementAndGet();
+            if (atual != null) {
+                recarregarEmSegundoPlano(this);
+            }
+        }
+    }
+
+    private static final long INTERVALO_VERIFICACAO_MS =
+        Long.getLong("farmmanager.cache.referencia.intervaloMs", 2_000L);
+
+    private static final Referencia<Talhao> TALHOES = new Referencia<>("talhoes", "talhões",
+        () -> new TalhaoDAO().listTalhoes(), Talhao::getId, List.of(Talhao::getNome));
+    private static final Referencia<EstoqueItem> ESTOQUE = new Referencia<>("estoque", "estoque",
+        () -> new EstoqueDAO().listEstoque(), EstoqueItem::getId, List.of(EstoqueItem::getItemNome,
+        EstoqueItem::getFornecedorNome, EstoqueItem::getFornecedorEmpresa));
+    private static final Referencia<Funcionario> FUNCIONARIOS = new Referencia<>("funcionarios", "funcionários",
+        () -> new FuncionarioDAO().listFuncionarios(), Funcionario::getId, List.of(Funcionario::getNome));
+    private static final Referencia<Patrimonio> PATRIMONIO = new Referencia<>("patrimonio", "patrimônio",
+        () -> new PatrimonioDAO().listPatrimonio(), Patrimonio::getId, List.of(Patrimonio::getNome));
+
+    private static final List<Referencia<?>> REFERENCIAS = List.of(TALHOES, ESTOQUE, FUNCIONARIOS, PATRIMONIO);
+
+    private static final Consumer<Set<String>> ouvinteEscritor = ReferenceDataCache::tabelasAlteradas;
+
+    private static volatile ScheduledExecutorService agendador;
+
+    // Estado da verificação do data_version (só usado na thread do agendador)
+    private static Connection conexaoMonitor;
+    private static String caminhoMonitor;
+    private static long ultimoDataVersion = -1;
+    private static long ultimoCommitsEscritor = -1;
+    private static long ultimoGravacoesExternas = -1;
+
+    private ReferenceDataCache() {
+    }
+
+    public static Conjunto<Talhao> talhoes() throws SQLException {
+        return TALHOES.obter();
+    }
+
+    public static Conjunto<EstoqueItem> estoque() throws SQLException {
+        return ESTOQUE.obter();
+    }
+
+    public static Conjunto<Funcionario> funcionarios() throws SQLException {
+        return FUNCIONARIOS.obter();
+    }
+
+    public static Conjunto<Patrimonio> patrimonio() throws SQLException {
+        return PATRIMONIO.obter();
+    }
+
+    /**
+     * NOVO: Busca para autocompletar (ver SearchIndex): início do nome, início de palavra ou
+     * trecho com 3+ caracteres; os melhores "limite" resultados.
+     */
+    public static List<Talhao> buscarTalhoes(String consulta, int limite) throws SQLException {
+        return TALHOES.buscar(consulta, limite);
+    }
+
+    /**
+     * NOVO: Busca por nome do item, fornecedor ou empresa do fornecedor.
+     */
+    public static List<EstoqueItem> buscarEstoque(String consulta, int limite) throws SQLException {
+        return ESTOQUE.buscar(consulta, limite);
+    }
+
+    public static List<Funcionario> buscarFuncionarios(String consulta, int limite) throws SQLException {
+        return FUNCIONARIOS.buscar(consulta, limite);
+    }
+
+    public static List<Patrimonio> buscarPatrimonio(String consulta, int limite) throws SQLException {
+        return PATRIMONIO.buscar(consulta, limite);
+    }
+
+    /**
+     * Inicia a verificação do data_version e pré-carrega os conjuntos em segundo plano
+     * (idempotente). Deve ser chamado após Database.initDb().
+     */
+    public static synchronized void iniciar() {
+        if (agendador != null) {
+            return;
+        }
+        agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "farmmanager-cache-referencia");
+            t.setDaemon(true);
+            return t;
+        });
+        DatabaseWriter.addOuvinte(ouvinteEscritor);
+        for (Referencia<?> referencia : REFERENCIAS) {
+            recarregarEmSegundoPlano(referencia);
+        }
+        agendador.scheduleWithFixedDelay(ReferenceDataCache::verificarAlteracoesExternas,
+            INTERVALO_VERIFICACAO_MS, INTERVALO_VERIFICACAO_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Para a verificação e fecha a conexão de monitoramento (encerramento da aplicação).
+     */
+    public static void parar() {
+        ScheduledExecutorService parado;
+        synchronized (ReferenceDataCache.class) {
+            parado = agendador;
+            if (parado == null) {
+                return;
+            }
+            agendador = null;
+        }
+        DatabaseWriter.removeOuvinte(ouvinteEscritor);
+        parado.shutdownNow();
+        try {
+            // A conexão de monitoramento só é fechada depois que a verificação em curso termina
+            if (parado.awaitTermination(2, TimeUnit.SECONDS)) {
+                fecharMonitor();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Descarta todas as fotos (a próxima consulta de cada conjunto recarrega).
+     */
+    public static void invalidarTudo() {
+        for (Referencia<?> referencia : REFERENCIAS) {
+            referencia.invalidar();
+        }
+    }
+
+    private static void tabelasAlteradas(Set<String> tabelas) {
+        for (Referencia<?> referencia : REFERENCIAS) {
+            if (tabelas.contains(referencia.tabela)) {
+                referencia.invalidar();
+            }
+        }
+    }
+
+    private static void recarregarEmSegundoPlano(Referencia<?> referencia) {
+        ScheduledExecutorService executor = agendador;
+        if (executor == null) {
+            return; // Sem agendador (benchmarks, ferramentas): recarrega na próxima consulta
+        }
+        try {
+            executor.execute(() -> {
+                Conjunto<?> atual = referencia.atual;
+                if (atual != null && atual.versao == referencia.versao.get()) {
+                    return; // Já recarregado por uma consulta
+                }
+                try {
+                    referencia.carregar();
+                } catch (SQLException e) {
+                    System.err.println("Aviso: falha ao recarregar o cache de " + referencia.tabela + ": " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Encerrando: a próxima consulta recarrega
+        }
+    }
+
+    /**
+     * data_version muda quando OUTRA conexão grava no banco (inclui o DatabaseWriter, cujas
+     * alterações já chegaram pelo ouvinte). Como não informa a tabela, invalida tudo.
+     * ATUALIZADO: Só invalida quando a mudança veio de fora (outro processo, conexão do ArquivoDAO).
+     * Sem COMMIT do escritor no intervalo, a mudança é externa. Com COMMITs, o escritor confere
+     * na própria conexão se também houve gravação externa. Isso cobre uma escrita externa e uma
+     * do aplicativo no mesmo intervalo.
+     * Os contadores são lidos antes do data_version: uma gravação entre as leituras no máximo
+     * recarrega o cache sem necessidade.
+     * Roda no agendador a cada INTERVALO_VERIFICACAO_MS; público para as verificações (DatabaseCheckSuite).
+     */
+    public static synchronized void verificarAlteracoesExternas() {
+        try {
+            String caminho = Database.getDbPath();
+            if (conexaoMonitor != null && !caminho.equals(caminhoMonitor)) {
+                fecharMonitor();
+            }
+            if (conexaoMonitor == null) {
+                conexaoMonitor = Database.abrirConexaoMonitor();
+                caminhoMonitor = caminho;
+                ultimoDataVersion = -1;
+            }
+            long gravacoesExternas = DatabaseWriter.getGravacoesExternas();
+            long commitsEscritor = DatabaseWriter.getCommits();
+            long dataVersion;
+            try (Statement stmt = conexaoMonitor.createStatement();
+                 ResultSet rs = stmt.executeQuery("PRAGMA data_version")) {
+                dataVersion = rs.next() ? rs.getLong(1) : -1;
+            }
+            if (ultimoDataVersion != -1 && dataVersion != ultimoDataVersion) {
+                if (commitsEscritor == ultimoCommitsEscritor) {
+                    invalidarTudo();
+                } else {
+                    gravacoesExternas = DatabaseWriter.conferirGravacoesExternas();
+                    if (gravacoesExternas != ultimoGravacoesExternas) {
+                        invalidarTudo();
+                    }
+                }
+            }
+            ultimoDataVersion = dataVersion;
+            ultimoCommitsEscritor = commitsEscritor;
+            ultimoGravacoesExternas = gravacoesExternas;
+        } catch (SQLException e) {
+            System.err.println("Aviso: falha ao verificar PRAGMA data_version: " + e.getMessage());
+            fecharMonitor();
+        }
+    }
+
+    private static void fecharMonitor() {
+        if (conexaoMonitor != null) {
+            try {
+                conexaoMonitor.close();
+            } catch (SQLException e) {
+                System.err.println("Aviso: falha ao fechar a conexão de monitoramento: " + e.getMessage());
+            }
+            conexaoMonitor = null;
+            caminhoMonitor = null;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.farmmanager.model;
+
+/**
+ * NOVO: Regra de categorização automática (tabela regras_categoria, migração 7).
+ *
+ * O padrão é uma palavra-chave (ex: "diesel", "AgroSul Insumos"), procurada como palavra
+ * inteira, sem diferenciar maiúsculas nem acentos, ou uma expressão regular.
+ * Quando várias regras casam com a mesma descrição, vence a de maior prioridade
+ * (ver ClassificadorCategorias).
+ */
+public class RegraCategoria {
+
+    public static final String TIPO_PALAVRA = "palavra";
+    public static final String TIPO_REGEX = "regex";
+
+    private int id;
+    private final String padrao;
+    private final String tipo;
+    private final String categoria;
+    private final int prioridade;
+
+    public RegraCategoria(String padrao, String tipo, String categoria, int prioridade) {
+        this.padrao = padrao;
+        this.tipo = tipo;
+        this.categoria = categoria;
+        this.prioridade = prioridade;
+    }
+
+    // Construtor para ler do banco
+    public RegraCategoria(int id, String padrao, String tipo, String categoria, int prioridade) {
+        this(padrao, tipo, categoria, prioridade);
+        this.id = id;
+    }
+
+    // Getters
+    public int getId() { return id; }
+    public String getPadrao() { return padrao; }
+    public String getTipo() { return tipo; }
+    public String getCategoria() { return categoria; }
+    public int getPrioridade() { return prioridade; }
+
+    public boolean isRegex() { return TIPO_REGEX.equals(tipo); }
+
+    /** Tipo para exibição na tela. */
+    public String getTipoDescricao() { return isRegex() ? "Expressão regular" : "Palavra-chave"; }
+}
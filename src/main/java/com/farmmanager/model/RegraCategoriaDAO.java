@@ -0,0 +1,167 @@
+package com.farmmanager.model;
+
+import com.farmmanager.util.DateTimeUtil;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * NOVO: DAO das regras de categorização automática (tabela regras_categoria, migração 7)
+ * e da reclassificação do financeiro por essas regras.
+ *
+ * As regras só substituem categorias genéricas (sem categoria, "Outras Receitas",
+ * "Outras Despesas") ou definidas por elas mesmas (financeiro.categoria_automatica = 1):
+ * uma categoria escolhida pelo usuário ou gravada por um módulo nunca é sobrescrita.
+ */
+public class RegraCategoriaDAO {
+
+    // Linhas lidas e gravadas por vez na reclassificação
+    private static final int TAMANHO_LOTE = 5_000;
+
+    /**
+     * Adiciona uma regra.
+     * @throws IllegalArgumentException se o padrão for vazio ou a expressão regular for inválida
+     */
+    public boolean addRegra(RegraCategoria regra) throws SQLException {
+        validar(regra);
+        String sql = "INSERT INTO regras_categoria (padrao, tipo, categoria, prioridade, data_criacao) VALUES (?, ?, ?, ?, ?)";
+        return DatabaseWriter.executar(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, regra.getPadrao().trim());
+                pstmt.setString(2, regra.getTipo());
+                pstmt.setString(3, regra.getCategoria().trim());
+                pstmt.setInt(4, regra.getPrioridade());
+                pstmt.setString(5, DateTimeUtil.getCurrentTimestamp());
+                return pstmt.executeUpdate() > 0;
+            }
+        });
+    }
+
+    public boolean removerRegra(int id) throws SQLException {
+        String sql = "DELETE FROM regras_categoria WHERE id = ?";
+        return DatabaseWriter.executar(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setInt(1, id);
+                return pstmt.executeUpdate() > 0;
+            }
+        });
+    }
+
+    /**
+     * Regras cadastradas, da maior prioridade para a menor.
+     */
+    public List<RegraCategoria> listRegras() throws SQLException {
+        List<RegraCategoria> regras = new ArrayList<>();
+        String sql = "SELECT id, padrao, tipo, categoria, prioridade FROM regras_categoria ORDER BY prioridade DESC, id";
+        try (Connection conn = Database.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                regras.add(new RegraCategoria(
+                    rs.getInt("id"),
+                    rs.getString("padrao"),
+                    rs.getString("tipo"),
+                    rs.getString("categoria"),
+                    rs.getInt("prioridade")
+                ));
+            }
+        }
+        return regras;
+    }
+
+    /**
+     * Classificador com as regras atuais (a compilação é rápida; chame uma vez por importação
+     * ou reclassificação, não por linha).
+     */
+    public ClassificadorCategorias carregarClassificador() throws SQLException {
+        return ClassificadorCategorias.compilar(listRegras());
+    }
+
+    /**
+     * Reclassifica o financeiro pelas regras, em lotes: cada lote é lido e gravado
+     * separadamente (um comando do DatabaseWriter por lote), para não segurar o escritor
+     * enquanto o livro-caixa inteiro é percorrido. Feito para rodar em segundo plano.
+     * Linhas classificadas por uma regra que deixou de casar voltam para a categoria genérica.
+     * @return quantidade de transações cuja categoria mudou
+     */
+    public int reclassificarFinanceiro(ClassificadorCategorias classificador) throws SQLException {
+        String sqlLote = "SELECT id, descricao, tipo, categoria, categoria_automatica FROM financeiro "
+                       + "WHERE id > ? AND (categoria IS NULL OR categoria IN (?, ?) OR categoria_automatica = 1) "
+                       + "ORDER BY id LIMIT ?";
+        // "categoria IS ?": só grava se a categoria não mudou desde a leitura (ex: editada pelo usuário)
+        String sqlUpdate = "UPDATE financeiro SET categoria = ?, categoria_automatica = ? WHERE id = ? AND categoria IS ?";
+
+        int alteradas = 0;
+        int ultimoId = 0;
+        while (true) {
+            List<Object[]> mudancas = new ArrayList<>();
+            int lidas = 0;
+            try (Connection conn = Database.getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sqlLote)) {
+                pstmt.setInt(1, ultimoId);
+                pstmt.setString(2, CategoriaFinanceira.OUTRAS_RECEITAS);
+                pstmt.setString(3, CategoriaFinanceira.OUTRAS_DESPESAS);
+                pstmt.setInt(4, TAMANHO_LOTE);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        lidas++;
+                        ultimoId = rs.getInt("id");
+                        String atual = rs.getString("categoria");
+                        boolean automatica = rs.getInt("categoria_automatica") == 1;
+                        String nova = classificador.classificar(rs.getString("descricao"));
+                        if (nova != null) {
+                            if (!nova.equals(atual) || !automatica) {
+                                mudancas.add(new Object[] { nova, 1, ultimoId, atual });
+                            }
+                        } else if (automatica || atual == null) {
+                            // A regra que classificou a linha não casa mais
+                            mudancas.add(new Object[] { CategoriaFinanceira.padrao(rs.getString("tipo")), 0, ultimoId, atual });
+                        }
+                    }
+                }
+            }
+
+            if (!mudancas.isEmpty()) {
+                alteradas += DatabaseWriter.executar(conn -> {
+                    int total = 0;
+                    try (PreparedStatement pstmt = conn.prepareStatement(sqlUpdate)) {
+                        for (Object[] mudanca : mudancas) {
+                            for (int i = 0; i < mudanca.length; i++) {
+                                pstmt.setObject(i + 1, mudanca[i]);
+                            }
+                            pstmt.addBatch();
+                        }
+                        for (int linhas : pstmt.executeBatch()) {
+                            total += Math.max(linhas, 0);
+                        }
+                    }
+                    return total;
+                });
+            }
+            if (lidas < TAMANHO_LOTE) {
+                return alteradas;
+            }
+        }
+    }
+
+    private static void validar(RegraCategoria regra) {
+        if (regra.getPadrao() == null || regra.getPadrao().trim().isEmpty()) {
+            throw new IllegalArgumentException("O padrão da regra é obrigatório.");
+        }
+        if (regra.getCategoria() == null || regra.getCategoria().trim().isEmpty()) {
+            throw new IllegalArgumentException("A categoria da regra é obrigatória.");
+        }
+        if (regra.isRegex()) {
+            try {
+                ClassificadorCategorias.compilarExpressao(regra.getPadrao());
+            } catch (PatternSyntaxException e) {
+                throw new IllegalArgumentException("Expressão regular inválida: " + e.getDescription());
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.farmmanager.model;
+
+/**
+ * NOVO: Um resultado da busca global (BuscaGlobalDAO).
+ *
+ * texto e complemento chegam com os termos encontrados entre MARCA_INICIO e MARCA_FIM,
+ * para a tela destacar os trechos sem precisar refazer a busca.
+ */
+public class ResultadoBusca {
+
+    public static final char MARCA_INICIO = '\u0002';
+    public static final char MARCA_FIM = '\u0003';
+
+    /**
+     * Origem do resultado. O código é o mesmo usado no rowid de busca_global
+     * (id * 8 + código, migração 3) e não deve mudar.
+     */
+    public enum Modulo {
+        FINANCEIRO(1, "Financeiro"),
+        CONTAS(2, "Contas"),
+        ATIVIDADE_SAFRA(3, "Atividade de Safra"),
+        MANUTENCAO(4, "Manutenção de Patrimônio"),
+        ESTOQUE(5, "Estoque");
+
+        private final int codigo;
+        private final String descricao;
+
+        Modulo(int codigo, String descricao) {
+            this.codigo = codigo;
+            this.descricao = descricao;
+        }
+
+        public int getCodigo() { return codigo; }
+        public String getDescricao() { return descricao; }
+
+        public static Modulo porCodigo(int codigo) {
+            for (Modulo modulo : values()) {
+                if (modulo.codigo == codigo) {
+                    return modulo;
+                }
+            }
+            throw new IllegalArgumentException("Módulo de busca desconhecido: " + codigo);
+        }
+    }
+
+    private final Modulo modulo;
+    private final int registroId;
+    private final String texto;
+    private final String complemento;
+    private final String data; // pode ser nulo (itens de estoque)
+    private final double pontuacao; // bm25: quanto menor, mais relevante
+
+    public ResultadoBusca(Modulo modulo, int registroId, String texto, String complemento, String data, double pontuacao) {
+        this.modulo = modulo;
+        this.registroId = registroId;
+        this.texto = texto;
+        this.complemento = complemento;
+        this.data = data;
+        this.pontuacao = pontuacao;
+    }
+
+    public Modulo getModulo() { return modulo; }
+    public int getRegistroId() { return registroId; }
+    public String getTexto() { return texto; }
+    public String getComplemento() { return complemento; }
+    public String getData() { return data; }
+    public double getPontuacao() { return pontuacao; }
+
+    /**
+     * Texto sem as marcas de destaque.
+     */
+    public String getTextoSemDestaque() {
+        return removerMarcas(texto);
+    }
+
+    public static String removerMarcas(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        return valor.replace(String.valueOf(MARCA_INICIO), "").replace(String.valueOf(MARCA_FIM), "");
+    }
+
+    @Override
+    public String toString() {
+        return modulo.getDescricao() + ": " + getTextoSemDestaque();
+    }
+}
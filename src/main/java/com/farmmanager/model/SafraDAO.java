@@ -34,19 +34,20 @@ public class SafraDAO {
         // SQL atualizado com 'status' e 4 parâmetros
         // NOVO: Adicionado data_criacao e data_modificacao
         String sql = "INSERT INTO safras(cultura, ano_inicio, talhao_id, status, data_criacao, data_modificacao) VALUES(?, ?, ?, ?, ?, ?)";
-        try (Connection conn = Database.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return DatabaseWriter.executar(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            String now = DateTimeUtil.getCurrentTimestamp(); // NOVO
+                String now = DateTimeUtil.getCurrentTimestamp(); // NOVO
             
-            pstmt.setString(1, safra.getCultura());
-            pstmt.setString(2, safra.getAnoInicio()); // Alterado para setString
-            pstmt.setInt(3, safra.getTalhaoId());
-            pstmt.setString(4, safra.getStatus()); // NOVO
-            pstmt.setString(5, now); // NOVO
-            pstmt.setString(6, now); // NOVO
-            return pstmt.executeUpdate() > 0;
-        }
+                pstmt.setString(1, safra.getCultura());
+                pstmt.setString(2, safra.getAnoInicio()); // Alterado para setString
+                pstmt.setInt(3, safra.getTalhaoId());
+                pstmt.setString(4, safra.getStatus()); // NOVO
+                pstmt.setString(5, now); // NOVO
+                pstmt.setString(6, now); // NOVO
+                return pstmt.executeUpdate() > 0;
+            }
+        });
     }
 
     /**
@@ -56,14 +57,15 @@ public class SafraDAO {
     public boolean updateProducaoSafra(int safraId, double producaoKg) throws SQLException {
         // SQL atualizado para incluir a mudança de status e data_modificacao
         String sql = "UPDATE safras SET producao_total_kg = ?, status = 'Colhida', data_modificacao = ? WHERE id = ?";
-        try (Connection conn = Database.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return DatabaseWriter.executar(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setDouble(1, producaoKg);
-            pstmt.setString(2, DateTimeUtil.getCurrentTimestamp()); // NOVO
-            pstmt.setInt(3, safraId); // NOVO (índice mudou)
-            return pstmt.executeUpdate() > 0;
-        }
+                pstmt.setDouble(1, producaoKg);
+                pstmt.setString(2, DateTimeUtil.getCurrentTimestamp()); // NOVO
+                pstmt.setInt(3, safraId); // NOVO (índice mudou)
+                return pstmt.executeUpdate() > 0;
+            }
+        });
     }
 
     /**
@@ -72,14 +74,15 @@ public class SafraDAO {
      */
     public boolean updateStatusSafra(int safraId, String novoStatus) throws SQLException {
         String sql = "UPDATE safras SET status = ?, data_modificacao = ? WHERE id = ?";
-        try (Connection conn = Database.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return DatabaseWriter.executar(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setString(1, novoStatus);
-            pstmt.setString(2, DateTimeUtil.getCurrentTimestamp()); // NOVO
-            pstmt.setInt(3, safraId); // NOVO (índice mudou)
-            return pstmt.executeUpdate() > 0;
-        }
+                pstmt.setString(1, novoStatus);
+                pstmt.setString(2, DateTimeUtil.getCurrentTimestamp()); // NOVO
+                pstmt.setInt(3, safraId); // NOVO (índice mudou)
+                return pstmt.executeUpdate() > 0;
+            }
+        });
     }
 
     /**
@@ -87,12 +90,13 @@ public class SafraDAO {
      */
     public boolean removerSafra(int safraId) throws SQLException {
         String sql = "DELETE FROM safras WHERE id = ?";
-        try (Connection conn = Database.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return DatabaseWriter.executar(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, safraId);
-            return pstmt.executeUpdate() > 0;
-        }
+                pstmt.setInt(1, safraId);
+                return pstmt.executeUpdate() > 0;
+            }
+        });
     }
 
     /**
@@ -0,0 +1,126 @@
+package com.farmmanager.model;
+
+import com.farmmanager.util.DateTimeUtil;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * NOVO: DAO da tabela safra_financeiro_snapshot (migração 2).
+ *
+ * Guarda custo, receita, estoque e lucro já calculados de cada safra colhida.
+ * Os triggers da migração invalidam o snapshot (valido = 0) e incrementam a versão
+ * quando uma venda, conta, atividade ou o item da colheita no estoque mudam.
+ *
+ * Para não gravar um valor desatualizado quando uma escrita acontece durante o cálculo:
+ * 1. reservar() cria/atualiza a linha e devolve a versão atual;
+ * 2. o financeiro é calculado;
+ * 3. salvar() só grava se a versão ainda for a reservada.
+ */
+public class SafraFinanceiroSnapshotDAO {
+
+    /**
+     * Valores de um snapshot válido.
+     */
+    public static final class Snapshot {
+        private final double custoTotal;
+        private final double receitaTotal;
+        private final double valorEmEstoque;
+        private final double lucro;
+
+        Snapshot(double custoTotal, double receitaTotal, double valorEmEstoque, double lucro) {
+            this.custoTotal = custoTotal;
+            this.receitaTotal = receitaTotal;
+            this.valorEmEstoque = valorEmEstoque;
+            this.lucro = lucro;
+        }
+
+        public double getCustoTotal() { return custoTotal; }
+        public double getReceitaTotal() { return receitaTotal; }
+        public double getValorEmEstoque() { return valorEmEstoque; }
+        public double getLucro() { return lucro; }
+    }
+
+    /**
+     * Todos os snapshots válidos, por safra_id (uma única consulta).
+     */
+    public Map<Integer, Snapshot> listValidos() throws SQLException {
+        String sql = "SELECT safra_id, custo_total, receita_total, valor_em_estoque, lucro "
+                   + "FROM safra_financeiro_snapshot WHERE valido = 1";
+        Map<Integer, Snapshot> snapshots = new HashMap<>();
+        try (Connection conn = Database.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                snapshots.put(rs.getInt("safra_id"), new Snapshot(
+                    rs.getDouble("custo_total"),
+                    rs.getDouble("receita_total"),
+                    rs.getDouble("valor_em_estoque"),
+                    rs.getDouble("lucro")
+                ));
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * Garante uma linha (inválida) para cada safra a calcular e devolve a versão atual de cada uma.
+     * @param nomesItem safra_id -> nome do item da colheita ("<cultura> (Colheita <ano>)")
+     */
+    public Map<Integer, Long> reservar(Map<Integer, String> nomesItem) throws SQLException {
+        String sql = "INSERT INTO safra_financeiro_snapshot (safra_id, nome_item) VALUES (?, ?) "
+                   + "ON CONFLICT(safra_id) DO UPDATE SET nome_item = excluded.nome_item "
+                   + "RETURNING versao";
+        return DatabaseWriter.executar(conn -> {
+            Map<Integer, Long> versoes = new HashMap<>();
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (Map.Entry<Integer, String> entrada : nomesItem.entrySet()) {
+                    pstmt.setInt(1, entrada.getKey());
+                    pstmt.setString(2, entrada.getValue());
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (rs.next()) {
+                            versoes.put(entrada.getKey(), rs.getLong(1));
+                        }
+                    }
+                }
+            }
+            return versoes;
+        });
+    }
+
+    /**
+     * Grava os valores calculados e marca como válidos, exceto os que foram invalidados
+     * depois da reserva (versão diferente); esses são recalculados na próxima consulta.
+     * Não espera o COMMIT: o futuro completa com o número de snapshots gravados.
+     */
+    public CompletableFuture<Integer> salvar(List<SafraHistoricoInfo> calculados, Map<Integer, Long> versoes) {
+        String sql = "UPDATE safra_financeiro_snapshot SET custo_total = ?, receita_total = ?, valor_em_estoque = ?, "
+                   + "lucro = ?, valido = 1, calculado_em = ? WHERE safra_id = ? AND versao = ?";
+        String agora = DateTimeUtil.getCurrentTimestamp();
+        return DatabaseWriter.submeter(conn -> {
+            int gravados = 0;
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (SafraHistoricoInfo info : calculados) {
+                    Long versao = versoes.get(info.getId());
+                    if (versao == null) {
+                        continue;
+                    }
+                    pstmt.setDouble(1, info.getCustoTotal());
+                    pstmt.setDouble(2, info.getReceitaTotal());
+                    pstmt.setDouble(3, info.getValorEmEstoque());
+                    pstmt.setDouble(4, info.getLucro());
+                    pstmt.setString(5, agora);
+                    pstmt.setInt(6, info.getId());
+                    pstmt.setLong(7, versao);
+                    gravados += pstmt.executeUpdate();
+                }
+            }
+            return gravados;
+        });
+    }
+}
@@ -0,0 +1,40 @@
+package com.farmmanager.model;
+
+/**
+ * DTO para agrupar todos os dados necessários
+ * para a tabela e gráficos de histórico de safras.
+ * ATUALIZADO: Movido de HistoricoSafrasController para o model (calculado por CalculoFinanceiroSafras).
+ */
+public class SafraHistoricoInfo {
+    private final SafraInfo safraBase;
+    private final double custoTotal;
+    private final double receitaTotal; // Vendas (à vista + a prazo)
+    private final double valorEmEstoque; // Produto não vendido
+    private final double lucro;
+
+    public SafraHistoricoInfo(SafraInfo safraBase, double custoTotal, double receitaTotal, double valorEmEstoque, double lucro) {
+        this.safraBase = safraBase;
+        this.custoTotal = custoTotal;
+        this.receitaTotal = receitaTotal;
+        this.valorEmEstoque = valorEmEstoque;
+        this.lucro = lucro;
+    }
+
+    // Getters da SafraBase (para colunas existentes)
+    public SafraInfo getSafraBase() { return safraBase; }
+    public int getId() { return safraBase.getId(); }
+    public String getAnoInicio() { return safraBase.getAnoInicio(); }
+    public String getCultura() { return safraBase.getCultura(); }
+    public String getTalhaoNome() { return safraBase.getTalhaoNome(); }
+    public double getAreaHectares() { return safraBase.getAreaHectares(); }
+    public String getDataModificacao() { return safraBase.getDataModificacao(); } // Data Colheita
+    public double getProducaoTotalSacos() { return safraBase.getProducaoTotalSacos(); }
+    public double getProducaoSacosPorHectare() { return safraBase.getProducaoSacosPorHectare(); }
+    public String getStatus() { return safraBase.getStatus(); }
+
+    // Getters dos dados financeiros
+    public double getCustoTotal() { return custoTotal; }
+    public double getReceitaTotal() { return receitaTotal; }
+    public double getValorEmEstoque() { return valorEmEstoque; }
+    public double getLucro() { return lucro; }
+}
@@ -14,17 +14,18 @@ public class TalhaoDAO {
     public boolean addTalhao(Talhao talhao) throws SQLException {
         // NOVO: SQL atualizado com colunas de data/hora
         String sql = "INSERT INTO talhoes(nome, area_hectares, data_criacao, data_modificacao) VALUES(?, ?, ?, ?)";
-        try (Connection conn = Database.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return DatabaseWriter.executar(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            String now = DateTimeUtil.getCurrentTimestamp(); // NOVO
+                String now = DateTimeUtil.getCurrentTimestamp(); // NOVO
             
-            pstmt.setString(1, talhao.getNome());
-            pstmt.setDouble(2, talhao.getAreaHectares());
-            pstmt.setString(3, now); // NOVO
-            pstmt.setString(4, now); // NOVO
-            return pstmt.executeUpdate() > 0;
-        }
+                pstmt.setString(1, talhao.getNome());
+                pstmt.setDouble(2, talhao.getAreaHectares());
+                pstmt.setString(3, now); // NOVO
+                pstmt.setString(4, now); // NOVO
+                return pstmt.executeUpdate() > 0;
+            }
+        });
     }
 
     /**
@@ -32,12 +33,13 @@ public class TalhaoDAO {
      */
     public boolean removerTalhao(int talhaoId) throws SQLException {
         String sql = "DELETE FROM talhoes WHERE id = ?";
-        try (Connection conn = Database.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return DatabaseWriter.executar(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setInt(1, talhaoId);
-            return pstmt.executeUpdate() > 0;
-        }
+                pstmt.setInt(1, talhaoId);
+                return pstmt.executeUpdate() > 0;
+            }
+        });
     }
 
     public List<Talhao> listTalhoes() throws SQLException {
@@ -7,6 +7,16 @@ public class Transacao {
     private String data; // YYYY-MM-DD
     private String tipo; // "receita" ou "despesa"
     private String dataHoraCriacao; // NOVO CAMPO
+    private Integer funcionarioId; // NOVO: pagamento a funcionário (nulo nas demais transações)
+    // NOVO: Classificação estruturada (migração 6, ver CategoriaFinanceira)
+    private String categoria;
+    private String contraparteNome; // fornecedor, comprador ou funcionário
+    private String contraparteEmpresa;
+    private String origemTipo; // módulo que gerou o lançamento ("conta", "estoque", ...)
+    private Integer origemId; // id da linha de origem, quando conhecido
+    private boolean categoriaAutomatica; // NOVO: categoria definida pelas regras (RegraCategoriaDAO)
+    private String extratoId; // NOVO: lançamento do extrato bancário conciliado (migração 8)
+    private boolean arquivada; // NOVO: lida de um arquivo anual (somente consulta)
     // private String dataModificacao; // Adicionado implicitamente pela DAO
 
     public Transacao(String descricao, double valor, String data, String tipo) {
@@ -37,4 +47,39 @@ public class Transacao {
     public String getData() { return data; }
     public String getTipo() { return tipo; }
     public String getDataHoraCriacao() { return dataHoraCriacao; } // NOVO GETTER
+    public Integer getFuncionarioId() { return funcionarioId; } // NOVO
+    public String getCategoria() { return categoria; } // NOVO
+    public String getContraparteNome() { return contraparteNome; } // NOVO
+    public String getContraparteEmpresa() { return contraparteEmpresa; } // NOVO
+    public String getOrigemTipo() { return origemTipo; } // NOVO
+    public Integer getOrigemId() { return origemId; } // NOVO
+    public boolean isCategoriaAutomatica() { return categoriaAutomatica; } // NOVO
+    public String getExtratoId() { return extratoId; } // NOVO
+    public boolean isArquivada() { return arquivada; } // NOVO
+
+    // NOVO: Liga a transação a um funcionário (ver FinanceiroDAO.listPagamentosFuncionario)
+    public void setFuncionarioId(Integer funcionarioId) { this.funcionarioId = funcionarioId; }
+
+    // NOVO: Classificação gravada junto com o lançamento (ver FinanceiroDAO.addTransacao)
+    public void setCategoria(String categoria) { this.categoria = categoria; }
+
+    // Nomes em branco são gravados como nulos
+    public void setContraparte(String nome, String empresa) {
+        this.contraparteNome = nome == null || nome.trim().isEmpty() ? null : nome.trim();
+        this.contraparteEmpresa = empresa == null || empresa.trim().isEmpty() ? null : empresa.trim();
+    }
+
+    // NOVO: Marca a categoria como definida por regra (pode ser refeita pela reclassificação)
+    public void setCategoriaAutomatica(boolean categoriaAutomatica) { this.categoriaAutomatica = categoriaAutomatica; }
+
+    // NOVO: Identificador do lançamento do extrato (ver ConciliacaoExtratoDAO)
+    public void setExtratoId(String extratoId) { this.extratoId = extratoId; }
+
+    // NOVO: Marca a transação como vinda de um arquivo anual (não pode ser editada nem removida)
+    public void setArquivada(boolean arquivada) { this.arquivada = arquivada; }
+
+    public void setOrigem(String tipo, Integer id) {
+        this.origemTipo = tipo;
+        this.origemId = id;
+    }
 }
@@ -0,0 +1,126 @@
+package com.farmmanager.util;
+
+import com.farmmanager.model.Database;
+import javafx.application.Platform;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * NOVO: Fachada assíncrona para os DAOs.
+ *
+ * Qualquer chamada de DAO vira um CompletableFuture executado no executor compartilhado
+ * (BackgroundTasks), sem precisar de uma subclasse de Task por tela:
+ *
+ *   CompletableFuture<List<Conta>> contas = AsyncDAO.consultar(() -> contaDAO.listContas("pendente"));
+ *   CompletableFuture<Double> total = AsyncDAO.consultar(() -> contaDAO.getTotalPendente("pagar"));
+ *   AsyncDAO.naFx(AsyncDAO.todos(contas, total),
+ *       ok -> exibir(contas.join(), total.join()),
+ *       erro -> AlertUtil.showError(...));
+ *
+ * Consultas independentes disparadas juntas rodam em paralelo (cada uma com sua conexão;
+ * o modo WAL permite leituras simultâneas). Escritas continuam passando pelo DatabaseWriter.
+ * ATUALIZADO: consultarLeitura usa o pool de conexões somente leitura, em um executor do
+ * mesmo tamanho (threads virtuais dispensariam o limite, mas exigem Java 21; o projeto mira o 11).
+ */
+public final class AsyncDAO {
+
+    /**
+     * Chamada de DAO com retorno (as exceções verificadas, ex: SQLException, vão para o futuro).
+     */
+    @FunctionalInterface
+    public interface Consulta<T> {
+        T executar() throws Exception;
+    }
+
+    /**
+     * Chamada de DAO sem retorno (ex: removerItemEstoque).
+     */
+    @FunctionalInterface
+    public interface Acao {
+        void executar() throws Exception;
+    }
+
+    // NOVO: Threads das consultas de leitura; uma por conexão do pool somente leitura
+    private static final AtomicInteger contadorLeitura = new AtomicInteger();
+    private static final ThreadPoolExecutor executorLeitura = criarExecutorLeitura();
+
+    private AsyncDAO() {
+    }
+
+    private static ThreadPoolExecutor criarExecutorLeitura() {
+        int tamanho = Database.getTamanhoPoolLeitura();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(tamanho, tamanho, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), r -> {
+                Thread t = new Thread(r, "farmmanager-leitura-" + contadorLeitura.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Executa a consulta em segundo plano.
+     */
+    public static <T> CompletableFuture<T> consultar(Consulta<T> consulta) {
+        return BackgroundTasks.submeter(consulta::executar);
+    }
+
+    /**
+     * NOVO: Executa uma consulta somente leitura usando as conexões do pool de leitura
+     * (Database.emLeitura). No máximo Database.getTamanhoPoolLeitura() consultas rodam ao
+     * mesmo tempo; as demais esperam na fila. Não usar para chamadas que escrevem diretamente.
+     */
+    public static <T> CompletableFuture<T> consultarLeitura(Consulta<T> consulta) {
+        return BackgroundTasks.submeter(() -> Database.emLeitura(consulta::executar), executorLeitura);
+    }
+
+    /**
+     * Executa a ação em segundo plano; o futuro completa com null.
+     */
+    public static CompletableFuture<Void> executar(Acao acao) {
+        return BackgroundTasks.submeter(() -> {
+            acao.executar();
+            return null;
+        });
+    }
+
+    /**
+     * Completa quando todos os futuros completarem (falha com a primeira exceção encontrada).
+     * Os valores são lidos depois com join() em cada futuro.
+     */
+    public static CompletableFuture<Void> todos(CompletableFuture<?>... futuros) {
+        return CompletableFuture.allOf(futuros);
+    }
+
+    /**
+     * Entrega o resultado na JavaFX Application Thread: sucesso recebe o valor,
+     * falha recebe a exceção original (já sem o CompletionException em volta).
+     */
+    public static <T> void naFx(CompletableFuture<T> futuro, Consumer<? super T> sucesso, Consumer<Throwable> falha) {
+        futuro.whenComplete((valor, erro) -> Platform.runLater(() -> {
+            if (erro != null) {
+                falha.accept(causa(erro));
+            } else {
+                sucesso.accept(valor);
+            }
+        }));
+    }
+
+    /**
+     * Remove os invólucros CompletionException/ExecutionException.
+     */
+    public static Throwable causa(Throwable erro) {
+        Throwable atual = erro;
+        while ((atual instanceof CompletionException || atual instanceof ExecutionException) && atual.getCause() != null) {
+            atual = atual.getCause();
+        }
+        return atual;
+    }
+}
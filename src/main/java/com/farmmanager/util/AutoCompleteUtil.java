@@ -0,0 +1,71 @@
+package com.farmmanager.util;
+
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.VBox;
+import java.util.List;
+
+/**
+ * NOVO: Seletores com autocompletar.
+ *
+ * Em vez de carregar todos os itens (milhares de insumos) no ComboBox, um campo de busca
+ * acima dele preenche a lista com os melhores resultados a cada tecla. A busca roda na própria
+ * thread de UI, então deve ser em memória (ex: ReferenceDataCache.buscarEstoque, via SearchIndex).
+ */
+public final class AutoCompleteUtil {
+
+    /**
+     * Máximo de sugestões exibidas no ComboBox.
+     */
+    public static final int LIMITE_SUGESTOES = 50;
+
+    /**
+     * Busca em memória: os melhores "limite" itens para a consulta.
+     */
+    @FunctionalInterface
+    public interface Busca<T> {
+        List<T> buscar(String consulta, int limite) throws Exception;
+    }
+
+    private AutoCompleteUtil() {
+    }
+
+    /**
+     * Cria o campo de busca do ComboBox e devolve os dois em um VBox (a ser adicionado ao
+     * layout no lugar do ComboBox). O campo segue o disable do ComboBox; Enter abre a lista;
+     * se só um item corresponder, ele é selecionado.
+     */
+    public static <T> VBox comBusca(ComboBox<T> combo, String textoAjuda, Busca<T> busca) {
+        TextField campoBusca = new TextField();
+        campoBusca.setPromptText(textoAjuda);
+        campoBusca.disableProperty().bind(combo.disableProperty());
+
+        Runnable atualizar = () -> {
+            List<T> sugestoes;
+            try {
+                sugestoes = busca.buscar(campoBusca.getText(), LIMITE_SUGESTOES);
+            } catch (Exception e) {
+                System.err.println("Aviso: falha na busca do autocompletar: " + e.getMessage());
+                return;
+            }
+            T selecionado = combo.getSelectionModel().getSelectedItem();
+            combo.getItems().setAll(sugestoes);
+            if (selecionado != null && sugestoes.contains(selecionado)) {
+                combo.getSelectionModel().select(selecionado);
+            } else if (sugestoes.size() == 1) {
+                combo.getSelectionModel().select(0);
+            } else {
+                combo.getSelectionModel().clearSelection();
+            }
+        };
+        campoBusca.textProperty().addListener((obs, anterior, atual) -> atualizar.run());
+        campoBusca.setOnAction(e -> {
+            if (!combo.getItems().isEmpty()) {
+                combo.show();
+            }
+        });
+        atualizar.run();
+
+        return new VBox(5, campoBusca, combo);
+    }
+}
@@ -0,0 +1,129 @@
+package com.farmmanager.util;
+
+import javafx.concurrent.Task;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * NOVO: Executor compartilhado para as Tasks de carregamento dos controllers
+ * (substitui o "new Thread(task).start()" espalhado pelas telas).
+ *
+ * Usa threads daemon nomeadas e conta as Tasks em andamento, o que permite
+ * a ferramentas de medição (ex: harness de time-to-interactive) saber quando
+ * uma tela terminou de carregar os dados.
+ * ATUALIZADO: Também executa os CompletableFuture do AsyncDAO (submeter).
+ */
+public class BackgroundTasks {
+
+    private static final AtomicInteger contadorThreads = new AtomicInteger();
+    private static final AtomicInteger emAndamento = new AtomicInteger();
+    private static final AtomicInteger picoEmAndamento = new AtomicInteger();
+    private static final LongAdder concluidas = new LongAdder();
+    private static final Object monitor = new Object();
+
+    private static final ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "farmmanager-bg-" + contadorThreads.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Executa a Task em segundo plano. Os handlers (setOnSucceeded/setOnFailed)
+     * continuam sendo chamados na JavaFX Application Thread, como antes.
+     */
+    public static void executar(Task<?> task) {
+        executarContando(executor, task);
+    }
+
+    /**
+     * NOVO: Executa a tarefa em segundo plano e devolve o resultado como CompletableFuture
+     * (base do AsyncDAO). Entra na mesma contagem das Tasks.
+     * O futuro é completado ainda dentro da tarefa contada: continuações registradas antes
+     * disso (ex: Platform.runLater do AsyncDAO.naFx) são agendadas antes de a contagem cair.
+     */
+    public static <T> CompletableFuture<T> submeter(Callable<T> tarefa) {
+        return submeter(tarefa, executor);
+    }
+
+    /**
+     * NOVO: Como submeter(tarefa), mas em outro executor (ex: o de leituras do AsyncDAO,
+     * limitado ao tamanho do pool de conexões). A tarefa entra na mesma contagem.
+     */
+    public static <T> CompletableFuture<T> submeter(Callable<T> tarefa, Executor destino) {
+        CompletableFuture<T> futuro = new CompletableFuture<>();
+        executarContando(destino, () -> {
+            try {
+                futuro.complete(tarefa.call());
+            } catch (Throwable e) {
+                futuro.completeExceptionally(e);
+            }
+        });
+        return futuro;
+    }
+
+    private static void executarContando(Executor destino, Runnable tarefa) {
+        picoEmAndamento.accumulateAndGet(emAndamento.incrementAndGet(), Math::max);
+        destino.execute(() -> {
+            try {
+                tarefa.run();
+            } finally {
+                concluidas.increment();
+                if (emAndamento.decrementAndGet() == 0) {
+                    synchronized (monitor) {
+                        monitor.notifyAll();
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Número de Tasks ainda executando.
+     */
+    public static int getEmAndamento() {
+        return emAndamento.get();
+    }
+
+    /**
+     * Maior número de Tasks simultâneas desde o início da aplicação.
+     */
+    public static int getPicoEmAndamento() {
+        return picoEmAndamento.get();
+    }
+
+    public static long getConcluidas() {
+        return concluidas.sum();
+    }
+
+    /**
+     * Threads vivas no pool (ociosas são descartadas após 60 s).
+     */
+    public static int getThreadsNoPool() {
+        return executor.getPoolSize();
+    }
+
+    /**
+     * Bloqueia até que nenhuma Task esteja executando (ou o tempo acabar).
+     * Não deve ser chamado na JavaFX Application Thread.
+     * @return true se ficou ocioso dentro do prazo.
+     */
+    public static boolean aguardarOcioso(long timeout, TimeUnit unidade) throws InterruptedException {
+        long limite = System.nanoTime() + unidade.toNanos(timeout);
+        synchronized (monitor) {
+            while (emAndamento.get() > 0) {
+                long restante = limite - System.nanoTime();
+                if (restante <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(monitor, restante);
+            }
+        }
+        return true;
+    }
+}
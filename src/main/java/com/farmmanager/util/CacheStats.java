@@ -0,0 +1,63 @@
+package com.farmmanager.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * NOVO: Contadores de acerto/falha dos caches da aplicação, por nome.
+ *
+ * Cada cache obtém seu contador com CacheStats.de("nome") e chama acerto()/falha()
+ * nas consultas; a tela de diagnóstico lista todos os caches registrados.
+ */
+public class CacheStats {
+
+    private static final Map<String, CacheStats> registrados = new ConcurrentHashMap<>();
+
+    private final String nome;
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+
+    private CacheStats(String nome) {
+        this.nome = nome;
+    }
+
+    /**
+     * Contador do cache (criado no primeiro uso).
+     */
+    public static CacheStats de(String nome) {
+        return registrados.computeIfAbsent(nome, CacheStats::new);
+    }
+
+    /**
+     * Todos os caches registrados, em ordem alfabética.
+     */
+    public static List<CacheStats> listar() {
+        List<CacheStats> lista = new ArrayList<>(registrados.values());
+        lista.sort((a, b) -> a.nome.compareTo(b.nome));
+        return lista;
+    }
+
+    public void acerto() {
+        acertos.increment();
+    }
+
+    public void falha() {
+        falhas.increment();
+    }
+
+    public String getNome() { return nome; }
+    public long getAcertos() { return acertos.sum(); }
+    public long getFalhas() { return falhas.sum(); }
+
+    /**
+     * Taxa de acerto entre 0 e 1 (0 se ainda não houve consultas).
+     */
+    public double getTaxaAcerto() {
+        long a = getAcertos();
+        long total = a + getFalhas();
+        return total == 0 ? 0.0 : (double) a / total;
+    }
+}
@@ -0,0 +1,136 @@
+package com.farmmanager.util;
+
+import com.farmmanager.model.Conta;
+import com.farmmanager.model.PlanoParcelamento;
+import javafx.collections.FXCollections;
+import javafx.scene.Node;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.layout.GridPane;
+import java.text.NumberFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * NOVO: Campos de parcelamento dos diálogos de compra/venda a prazo
+ * (Contas, Estoque e Patrimônio): número de parcelas, intervalo e um resumo
+ * com o valor de cada parcela e o último vencimento.
+ *
+ * Com 1 parcela o diálogo segue gravando uma conta avulsa; com mais, o controller
+ * grava um PlanoParcelamento (criarPlano) e a data de vencimento do diálogo é a da 1ª parcela.
+ */
+public final class CamposParcelamento {
+
+    public static final int MAXIMO_PARCELAS = 48;
+
+    // Rótulo -> meses entre parcelas
+    private static final Map<String, Integer> INTERVALOS = new LinkedHashMap<>();
+    static {
+        INTERVALOS.put("Mensal", 1);
+        INTERVALOS.put("Bimestral", 2);
+        INTERVALOS.put("Trimestral", 3);
+        INTERVALOS.put("Semestral", 6);
+        INTERVALOS.put("Anual", 12);
+    }
+
+    private static final DateTimeFormatter FORMATO_DATA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private final Label parcelasLabel = new Label("Parcelas:");
+    private final ComboBox<Integer> parcelasCombo;
+    private final Label intervaloLabel = new Label("Intervalo:");
+    private final ComboBox<String> intervaloCombo;
+    private final Label resumoLabel = new Label();
+    private final NumberFormat currencyFormatter = NumberFormat.getCurrencyInstance(new Locale("pt", "BR"));
+
+    public CamposParcelamento() {
+        List<Integer> opcoes = new ArrayList<>();
+        for (int i = 1; i <= MAXIMO_PARCELAS; i++) {
+            opcoes.add(i);
+        }
+        parcelasCombo = new ComboBox<>(FXCollections.observableArrayList(opcoes));
+        parcelasCombo.getSelectionModel().selectFirst();
+        intervaloCombo = new ComboBox<>(FXCollections.observableArrayList(INTERVALOS.keySet()));
+        intervaloCombo.getSelectionModel().selectFirst();
+        resumoLabel.setStyle("-fx-font-style: italic; -fx-text-fill: #555;");
+
+        // O intervalo só importa com mais de uma parcela
+        intervaloCombo.disableProperty().bind(parcelasCombo.valueProperty().isEqualTo(1));
+    }
+
+    /**
+     * Adiciona os campos às colunas 0 e 1 do grid, nas linhas "linha" a "linha + 2".
+     */
+    public void adicionarAo(GridPane grid, int linha) {
+        grid.add(parcelasLabel, 0, linha);
+        grid.add(parcelasCombo, 1, linha);
+        grid.add(intervaloLabel, 0, linha + 1);
+        grid.add(intervaloCombo, 1, linha + 1);
+        grid.add(resumoLabel, 0, linha + 2, 2, 1);
+    }
+
+    /**
+     * Mostra ou esconde os campos (ex: só "A Prazo").
+     */
+    public void setVisivel(boolean visivel) {
+        for (Node n : new Node[]{parcelasLabel, parcelasCombo, intervaloLabel, intervaloCombo, resumoLabel}) {
+            n.setVisible(visivel);
+            n.setManaged(visivel);
+        }
+    }
+
+    /**
+     * Executa a ação (ex: o validador do diálogo) sempre que parcelas ou intervalo mudarem.
+     */
+    public void aoAlterar(Runnable acao) {
+        parcelasCombo.valueProperty().addListener((obs, o, n) -> acao.run());
+        intervaloCombo.valueProperty().addListener((obs, o, n) -> acao.run());
+    }
+
+    public int getNumeroParcelas() {
+        Integer parcelas = parcelasCombo.getValue();
+        return parcelas != null ? parcelas : 1;
+    }
+
+    public int getIntervaloMeses() {
+        Integer meses = INTERVALOS.get(intervaloCombo.getValue());
+        return meses != null ? meses : 1;
+    }
+
+    public boolean isParcelado() {
+        return getNumeroParcelas() > 1;
+    }
+
+    /**
+     * Plano com os valores dos campos.
+     */
+    public PlanoParcelamento criarPlano(String descricao, String tipo, double valorTotal, LocalDate primeiroVencimento,
+                                        String fornecedorNome, String fornecedorEmpresa) {
+        return new PlanoParcelamento(descricao, tipo, valorTotal, getNumeroParcelas(), primeiroVencimento.toString(),
+            getIntervaloMeses(), fornecedorNome, fornecedorEmpresa);
+    }
+
+    /**
+     * Atualiza o resumo com as parcelas que serão geradas (mesmo cálculo da gravação).
+     * Sem valor ou data válidos, o resumo fica vazio.
+     */
+    public void atualizarResumo(double valorTotal, LocalDate primeiroVencimento) {
+        if (!isParcelado() || valorTotal <= 0 || primeiroVencimento == null) {
+            resumoLabel.setText("");
+            return;
+        }
+        List<Conta> parcelas = criarPlano("", "pagar", valorTotal, primeiroVencimento, null, null).gerarParcelas();
+        Conta primeira = parcelas.get(0);
+        Conta ultima = parcelas.get(parcelas.size() - 1);
+        String texto = parcelas.size() + "x de " + currencyFormatter.format(ultima.getValor());
+        if (primeira.getValor() != ultima.getValor()) {
+            texto += " (1ª de " + currencyFormatter.format(primeira.getValor()) + ")";
+        }
+        texto += ", último vencimento em " + LocalDate.parse(ultima.getDataVencimento()).format(FORMATO_DATA);
+        resumoLabel.setText(texto);
+    }
+}
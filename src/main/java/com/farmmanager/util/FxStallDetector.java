@@ -0,0 +1,301 @@
+package com.farmmanager.util;
+
+import javafx.application.Platform;
+import javafx.fxml.FXML;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * NOVO: Detector de travamentos da JavaFX Application Thread.
+ *
+ * Uma thread "watchdog" envia batimentos via Platform.runLater e mede quanto tempo
+ * cada um leva para ser executado. Se a thread de UI não responder dentro do limiar
+ * (padrão 250 ms, -Dfarmmanager.fx.stallMs), a pilha dela é amostrada até o fim do
+ * travamento. O travamento é atribuído ao método de controller mais frequente nas
+ * amostras (ex: "FinanceiroController.handleRemoverTransacao [@FXML]").
+ *
+ * Os travamentos ficam em memória (últimos 200, para a tela de diagnóstico) e são
+ * gravados em ~/farmmanager_fx_stalls.log (rotacionado em 1 MB).
+ */
+public class FxStallDetector {
+
+    private static final long INTERVALO_MS = 50;
+    private static final int MAX_EVENTOS = 200;
+    private static final long TAMANHO_MAXIMO_LOG = 1024 * 1024;
+    private static final String PACOTE_CONTROLLERS = "com.farmmanager.controller.";
+    private static final File ARQUIVO_LOG =
+        new File(System.getProperty("user.home"), "farmmanager_fx_stalls.log");
+
+    private static final Deque<Travamento> eventos = new ArrayDeque<>();
+    private static final List<Consumer<Travamento>> ouvintes = new CopyOnWriteArrayList<>();
+
+    // Instante (nanoTime) em que o batimento pendente foi enviado; 0 = nenhum pendente
+    private static final AtomicLong pendenteDesde = new AtomicLong(0);
+    private static volatile long ultimoAtrasoNanos = 0;
+    private static volatile Thread threadFx;
+    private static volatile long limiarNanos =
+        Long.getLong("farmmanager.fx.stallMs", 250L) * 1_000_000L;
+    private static Thread watchdog;
+
+    // Estado do travamento em andamento (acessado só pela thread watchdog)
+    private static boolean emTravamento = false;
+    private static StackTraceElement[] primeiraPilha;
+    private static final Map<String, Integer> amostrasPorHandler = new LinkedHashMap<>();
+
+    /**
+     * DTO de um travamento detectado.
+     */
+    public static class Travamento {
+        private final String dataHora;
+        private final long duracaoMs;
+        private final String handler;
+        private final int amostras;
+        private final String pilha;
+
+        public Travamento(String dataHora, long duracaoMs, String handler, int amostras, String pilha) {
+            this.dataHora = dataHora;
+            this.duracaoMs = duracaoMs;
+            this.handler = handler;
+            this.amostras = amostras;
+            this.pilha = pilha;
+        }
+
+        public String getDataHora() { return dataHora; }
+        public long getDuracaoMs() { return duracaoMs; }
+        public String getHandler() { return handler; }
+        public int getAmostras() { return amostras; }
+        public String getPilha() { return pilha; }
+    }
+
+    /**
+     * Inicia o watchdog (idempotente). Deve ser chamado com o toolkit JavaFX já iniciado.
+     */
+    public static synchronized void iniciar() {
+        if (watchdog != null) {
+            return;
+        }
+        watchdog = new Thread(FxStallDetector::executar, "farmmanager-fx-watchdog");
+        watchdog.setDaemon(true);
+        watchdog.start();
+    }
+
+    public static synchronized void parar() {
+        if (watchdog != null) {
+            watchdog.interrupt();
+            watchdog = null;
+        }
+    }
+
+    public static long getLimiarMs() {
+        return limiarNanos / 1_000_000L;
+    }
+
+    public static void setLimiarMs(long ms) {
+        limiarNanos = Math.max(INTERVALO_MS, ms) * 1_000_000L;
+    }
+
+    /**
+     * Travamentos mais recentes primeiro.
+     */
+    public static List<Travamento> getEventosRecentes() {
+        synchronized (eventos) {
+            return new ArrayList<>(eventos);
+        }
+    }
+
+    /**
+     * Registra um ouvinte chamado a cada novo travamento.
+     * O ouvinte roda na thread watchdog: use Platform.runLater para tocar na UI.
+     */
+    public static void addOuvinte(Consumer<Travamento> ouvinte) {
+        ouvintes.add(ouvinte);
+    }
+
+    public static void removeOuvinte(Consumer<Travamento> ouvinte) {
+        ouvintes.remove(ouvinte);
+    }
+
+    public static String getCaminhoLog() {
+        return ARQUIVO_LOG.getAbsolutePath();
+    }
+
+    // --- Watchdog ---
+
+    private static void executar() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                verificar();
+                Thread.sleep(INTERVALO_MS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void verificar() {
+        long desde = pendenteDesde.get();
+        if (desde == 0) {
+            // Batimento anterior já foi atendido
+            if (emTravamento) {
+                finalizarTravamento(ultimoAtrasoNanos);
+            }
+            pendenteDesde.set(System.nanoTime());
+            Platform.runLater(FxStallDetector::batimento);
+            return;
+        }
+
+        if (System.nanoTime() - desde >= limiarNanos && threadFx != null) {
+            amostrar(threadFx.getStackTrace());
+        }
+    }
+
+    /**
+     * Executado na JavaFX Application Thread; só mede o atraso (nada de I/O aqui).
+     */
+    private static void batimento() {
+        threadFx = Thread.currentThread();
+        long desde = pendenteDesde.getAndSet(0);
+        if (desde != 0) {
+            ultimoAtrasoNanos = System.nanoTime() - desde;
+        }
+    }
+
+    private static void amostrar(StackTraceElement[] pilha) {
+        if (pilha.length == 0) {
+            return;
+        }
+        if (!emTravamento) {
+            emTravamento = true;
+            primeiraPilha = pilha;
+            amostrasPorHandler.clear();
+        }
+        amostrasPorHandler.merge(atribuir(pilha), 1, Integer::sum);
+    }
+
+    private static void finalizarTravamento(long duracaoNanos) {
+        emTravamento = false;
+
+        String handler = "desconhecido";
+        int maximo = 0;
+        int total = 0;
+        for (Map.Entry<String, Integer> e : amostrasPorHandler.entrySet()) {
+            total += e.getValue();
+            if (e.getValue() > maximo) {
+                maximo = e.getValue();
+                handler = e.getKey();
+            }
+        }
+
+        Travamento travamento = new Travamento(DateTimeUtil.getCurrentTimestamp(),
+            duracaoNanos / 1_000_000L, handler, total, formatarPilha(primeiraPilha));
+        synchronized (eventos) {
+            eventos.addFirst(travamento);
+            while (eventos.size() > MAX_EVENTOS) {
+                eventos.removeLast();
+            }
+        }
+        escreverLog(travamento);
+        for (Consumer<Travamento> ouvinte : ouvintes) {
+            try {
+                ouvinte.accept(travamento);
+            } catch (RuntimeException e) {
+                System.err.println("Aviso: ouvinte de travamentos falhou: " + e.getMessage());
+            }
+        }
+    }
+
+    // --- Atribuição ---
+
+    /**
+     * Primeiro quadro de controller na pilha (o mais interno), marcado com [@FXML]
+     * quando o método é um handler ligado pelo FXML. Sem controller, usa o primeiro
+     * quadro da aplicação ou indica trabalho interno do JavaFX (layout/render).
+     */
+    private static String atribuir(StackTraceElement[] pilha) {
+        StackTraceElement primeiroDaAplicacao = null;
+        for (StackTraceElement quadro : pilha) {
+            String classe = quadro.getClassName();
+            if (classe.startsWith(PACOTE_CONTROLLERS)) {
+                String nome = nomeSimples(classe) + "." + nomeMetodo(quadro.getMethodName());
+                return isHandlerFxml(classe, quadro.getMethodName()) ? nome + " [@FXML]" : nome;
+            }
+            if (primeiroDaAplicacao == null && classe.startsWith("com.farmmanager.")
+                    && !classe.equals(FxStallDetector.class.getName())) {
+                primeiroDaAplicacao = quadro;
+            }
+        }
+        if (primeiroDaAplicacao != null) {
+            return nomeSimples(primeiroDaAplicacao.getClassName()) + "." + primeiroDaAplicacao.getMethodName();
+        }
+        return "JavaFX (layout/render)";
+    }
+
+    private static boolean isHandlerFxml(String classe, String metodo) {
+        try {
+            for (Method m : Class.forName(classe).getDeclaredMethods()) {
+                if (m.getName().equals(metodo) && m.isAnnotationPresent(FXML.class)) {
+                    return true;
+                }
+            }
+        } catch (ClassNotFoundException | LinkageError e) {
+            // Sem a classe não há como saber; a atribuição pelo nome continua válida
+        }
+        return false;
+    }
+
+    private static String nomeSimples(String classe) {
+        String nome = classe.substring(classe.lastIndexOf('.') + 1);
+        int interna = nome.indexOf('$');
+        return interna > 0 ? nome.substring(0, interna) : nome;
+    }
+
+    // Lambdas aparecem como "lambda$handleLiquidar$3"; usa o método que as contém
+    private static String nomeMetodo(String metodo) {
+        if (metodo.startsWith("lambda$")) {
+            int fim = metodo.indexOf('$', 7);
+            return fim > 7 ? metodo.substring(7, fim) : metodo;
+        }
+        return metodo;
+    }
+
+    private static String formatarPilha(StackTraceElement[] pilha) {
+        StringBuilder sb = new StringBuilder();
+        if (pilha != null) {
+            for (StackTraceElement quadro : pilha) {
+                sb.append("    at ").append(quadro).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void escreverLog(Travamento t) {
+        String texto = String.format("%s travamento de %d ms em %s (%d amostras)%n%s%n",
+            t.getDataHora(), t.getDuracaoMs(), t.getHandler(), t.getAmostras(), t.getPilha());
+        try {
+            if (ARQUIVO_LOG.length() > TAMANHO_MAXIMO_LOG) {
+                Files.move(ARQUIVO_LOG.toPath(), new File(ARQUIVO_LOG.getPath() + ".1").toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(ARQUIVO_LOG.toPath(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                writer.write(texto);
+            }
+        } catch (IOException e) {
+            System.err.println("Aviso: não foi possível gravar o log de travamentos: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package com.farmmanager.util;
+
+import com.farmmanager.model.LancamentoExtrato;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * NOVO: Leitura de extratos bancários em OFX (SGML 1.x ou XML 2.x) e CSV.
+ *
+ * Os lançamentos são entregues um a um ao consumidor à medida que o arquivo é lido;
+ * o arquivo nunca é carregado inteiro na memória.
+ * A codificação é detectada: UTF-8 quando o arquivo é UTF-8 válido, senão Windows-1252
+ * (padrão dos extratos exportados pelos bancos brasileiros).
+ *
+ * CSV: separador ";", "," ou tabulação; a linha de cabeçalho é procurada nas primeiras
+ * linhas (colunas Data, Descrição/Histórico e Valor, ou Crédito e Débito). Sem cabeçalho,
+ * a ordem assumida é Data;Descrição;Valor. Linhas de saldo são ignoradas.
+ */
+public final class LeitorExtrato {
+
+    private static final Charset WINDOWS_1252 = Charset.forName("windows-1252");
+    private static final int LINHAS_PROCURA_CABECALHO = 20;
+    private static final DateTimeFormatter[] FORMATOS_DATA = {
+        DateTimeFormatter.ofPattern("dd/MM/yyyy"),
+        DateTimeFormatter.ofPattern("d/M/yyyy"),
+        DateTimeFormatter.ofPattern("dd/MM/yy"),
+        DateTimeFormatter.ISO_LOCAL_DATE,
+        DateTimeFormatter.ofPattern("dd-MM-yyyy"),
+        DateTimeFormatter.ofPattern("dd.MM.yyyy")
+    };
+
+    private LeitorExtrato() {
+    }
+
+    /**
+     * Lê o extrato (OFX pela extensão .ofx ou pelo conteúdo, senão CSV).
+     * @return quantidade de lançamentos entregues
+     * @throws IOException se o arquivo não puder ser lido ou não estiver em um formato reconhecido
+     */
+    public static int ler(Path arquivo, Consumer<LancamentoExtrato> destino) throws IOException {
+        Charset charset = detectarCharset(arquivo);
+        boolean ofx = arquivo.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".ofx") || pareceOfx(arquivo, charset);
+        try (BufferedReader reader = Files.newBufferedReader(arquivo, charset)) {
+            return ofx ? lerOfx(reader, destino) : lerCsv(reader, destino);
+        }
+    }
+
+    /**
+     * Conveniência: lê o extrato inteiro em uma lista.
+     */
+    public static List<LancamentoExtrato> lerTodos(Path arquivo) throws IOException {
+        List<LancamentoExtrato> lancamentos = new ArrayList<>();
+        ler(arquivo, lancamentos::add);
+        return lancamentos;
+    }
+
+    // --- OFX ---
+
+    /**
+     * Percorre as tags do arquivo caractere a caractere: funciona com o SGML do OFX 1.x
+     * (tags sem fechamento, uma ou várias por linha) e com o XML do OFX 2.x.
+     */
+    static int lerOfx(Reader reader, Consumer<LancamentoExtrato> destino) throws IOException {
+        Map<String, String> campos = null; // não nulo dentro de um <STMTTRN>
+        Map<String, Integer> ocorrencias = new HashMap<>();
+        StringBuilder tag = new StringBuilder();
+        StringBuilder texto = new StringBuilder();
+        String tagAtual = null;
+        boolean dentroTag = false;
+        int lidos = 0;
+
+        int c;
+        while ((c = reader.read()) != -1) {
+            if (dentroTag) {
+                if (c == '>') {
+                    dentroTag = false;
+                    String nome = tag.toString().trim().toUpperCase(Locale.ROOT);
+                    if (nome.equals("STMTTRN")) {
+                        campos = new HashMap<>();
+                    } else if (nome.equals("/STMTTRN")) {
+                        if (campos != null) {
+                            destino.accept(criarLancamentoOfx(campos, ocorrencias, lidos + 1));
+                            lidos++;
+                        }
+                        campos = null;
+                    }
+                    tagAtual = nome.startsWith("/") ? null : nome;
+                } else {
+                    tag.append((char) c);
+                }
+            } else if (c == '<') {
+                if (campos != null && tagAtual != null) {
+                    String valor = decodificarEntidades(texto.toString().trim());
+                    if (!valor.isEmpty()) {
+                        campos.put(tagAtual, valor);
+                    }
+                }
+                texto.setLength(0);
+                tag.setLength(0);
+                dentroTag = true;
+            } else if (tagAtual != null) {
+                texto.append((char) c);
+            }
+        }
+        return lidos;
+    }
+
+    private static LancamentoExtrato criarLancamentoOfx(Map<String, String> campos, Map<String, Integer> ocorrencias,
+                                                       int numero) throws IOException {
+        String dataOfx = campos.get("DTPOSTED");
+        String valorOfx = campos.get("TRNAMT");
+        if (dataOfx == null || dataOfx.length() < 8 || valorOfx == null) {
+            throw new IOException("Lançamento " + numero + " do OFX sem data (DTPOSTED) ou valor (TRNAMT).");
+        }
+        String data;
+        double valor;
+        try {
+            // "20251005120000[-3:BRT]" -> 2025-10-05
+            data = LocalDate.parse(dataOfx.substring(0, 8), DateTimeFormatter.BASIC_ISO_DATE).toString();
+            valor = Double.parseDouble(valorOfx.replace(',', '.'));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IOException("Lançamento " + numero + " do OFX com data ou valor inválido: " + dataOfx + " / " + valorOfx);
+        }
+
+        String memo = campos.get("MEMO");
+        String nome = campos.get("NAME");
+        String descricao;
+        if (memo == null) {
+            descricao = nome != null ? nome : "";
+        } else if (nome == null || memo.contains(nome)) {
+            descricao = memo;
+        } else {
+            descricao = nome + " " + memo;
+        }
+
+        String fitid = campos.get("FITID");
+        String identificador = fitid != null ? "ofx:" + fitid : identificadorGerado(data, valor, descricao, ocorrencias);
+        return new LancamentoExtrato(data, valor, descricao, identificador);
+    }
+
+    private static String decodificarEntidades(String texto) {
+        if (texto.indexOf('&') < 0) {
+            return texto;
+        }
+        return texto.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"")
+            .replace("&apos;", "'").replace("&amp;", "&");
+    }
+
+    // --- CSV ---
+
+    static int lerCsv(BufferedReader reader, Consumer<LancamentoExtrato> destino) throws IOException {
+        Map<String, Integer> ocorrencias = new HashMap<>();
+        char separador = ';';
+        int colData = 0, colDescricao = 1, colValor = 2, colCredito = -1, colDebito = -1;
+        boolean layoutDefinido = false;
+        int numeroLinha = 0;
+        int lidos = 0;
+
+        String linha;
+        while ((linha = reader.readLine()) != null) {
+            numeroLinha++;
+            if (numeroLinha == 1 && linha.startsWith("\uFEFF")) {
+                linha = linha.substring(1); // BOM
+            }
+            if (linha.trim().isEmpty()) {
+                continue;
+            }
+            if (!layoutDefinido) {
+                separador = detectarSeparador(linha);
+            }
+            List<String> campos = dividir(linha, separador);
+
+            if (!layoutDefinido) {
+                // Procura o cabeçalho; linhas anteriores (agência, conta, período) são ignoradas
+                int[] cabecalho = interpretarCabecalho(campos);
+                if (cabecalho != null) {
+                    colData = cabecalho[0];
+                    colDescricao = cabecalho[1];
+                    colValor = cabecalho[2];
+                    colCredito = cabecalho[3];
+                    colDebito = cabecalho[4];
+                    layoutDefinido = true;
+                    continue;
+                }
+                if (campos.size() >= 3 && parseData(campos.get(0)) != null) {
+                    layoutDefinido = true; // Sem cabeçalho: Data;Descrição;Valor
+                } else if (numeroLinha < LINHAS_PROCURA_CABECALHO) {
+                    continue;
+                } else {
+                    throw new IOException("Cabeçalho do CSV não encontrado. Esperado: Data;Descrição;Valor.");
+                }
+            }
+
+            String data = parseData(campo(campos, colData));
+            if (data == null) {
+                continue; // Totais, rodapé, linhas de informação
+            }
+            String descricao = colDescricao >= 0 ? campo(campos, colDescricao) : "";
+            if (SearchIndex.normalizar(descricao).startsWith("saldo")) {
+                continue;
+            }
+            Double valor;
+            if (colValor >= 0) {
+                valor = parseValor(campo(campos, colValor));
+            } else {
+                Double credito = parseValor(campo(campos, colCredito));
+                Double debito = parseValor(campo(campos, colDebito));
+                valor = credito == null && debito == null ? null
+                    : (credito != null ? Math.abs(credito) : 0) - (debito != null ? Math.abs(debito) : 0);
+            }
+            if (valor == null) {
+                throw new IOException("Linha " + numeroLinha + " do CSV com valor inválido: " + linha);
+            }
+            if (valor == 0) {
+                continue;
+            }
+            destino.accept(new LancamentoExtrato(data, valor, descricao,
+                identificadorGerado(data, valor, descricao, ocorrencias)));
+            lidos++;
+        }
+        return lidos;
+    }
+
+    /**
+     * Índices {data, descrição, valor, crédito, débito} (-1 se ausente), ou null se a
+     * linha não for um cabeçalho.
+     */
+    private static int[] interpretarCabecalho(List<String> campos) {
+        int[] colunas = { -1, -1, -1, -1, -1 };
+        for (int i = 0; i < campos.size(); i++) {
+            String nome = SearchIndex.normalizar(campos.get(i));
+            if (colunas[0] < 0 && nome.startsWith("data")) {
+                colunas[0] = i;
+            } else if (colunas[1] < 0 && (nome.contains("descri") || nome.contains("historico")
+                    || nome.contains("lancamento") || nome.contains("memo") || nome.contains("detalhe"))) {
+                colunas[1] = i;
+            } else if (colunas[2] < 0 && (nome.startsWith("valor") || nome.equals("quantia") || nome.equals("montante"))) {
+                colunas[2] = i;
+            } else if (colunas[3] < 0 && nome.startsWith("credito")) {
+                colunas[3] = i;
+            } else if (colunas[4] < 0 && nome.startsWith("debito")) {
+                colunas[4] = i;
+            }
+        }
+        boolean temValor = colunas[2] >= 0 || (colunas[3] >= 0 && colunas[4] >= 0);
+        return colunas[0] >= 0 && temValor ? colunas : null;
+    }
+
+    private static char detectarSeparador(String linha) {
+        char[] candidatos = { ';', '\t', ',' };
+        char melhor = ';';
+        int maior = 0;
+        for (char candidato : candidatos) {
+            int total = dividir(linha, candidato).size();
+            if (total > maior) {
+                maior = total;
+                melhor = candidato;
+            }
+        }
+        return melhor;
+    }
+
+    /**
+     * Divide a linha respeitando aspas ("a;b" é um campo só, "" é uma aspa).
+     */
+    static List<String> dividir(String linha, char separador) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (c == '"') {
+                if (entreAspas && i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                    atual.append('"');
+                    i++;
+                } else {
+                    entreAspas = !entreAspas;
+                }
+            } else if (c == separador && !entreAspas) {
+                campos.add(atual.toString().trim());
+                atual.setLength(0);
+            } else {
+                atual.append(c);
+            }
+        }
+        campos.add(atual.toString().trim());
+        return campos;
+    }
+
+    private static String campo(List<String> campos, int indice) {
+        return indice >= 0 && indice < campos.size() ? campos.get(indice) : "";
+    }
+
+    /**
+     * Data em YYYY-MM-DD, ou null se o texto não for uma data.
+     */
+    static String parseData(String texto) {
+        String t = texto.trim();
+        if (t.length() > 10 && t.charAt(10) == ' ') {
+            t = t.substring(0, 10); // "05/10/2025 14:32"
+        }
+        for (DateTimeFormatter formato : FORMATOS_DATA) {
+            try {
+                return LocalDate.parse(t, formato).toString();
+            } catch (DateTimeParseException e) {
+                // tenta o próximo formato
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Valor com sinal, nos formatos "1.234,56", "-1234.56", "1.234,56 D", "(150,00)" e "R$ 10,00".
+     * Devolve null se o texto não for um número.
+     */
+    static Double parseValor(String texto) {
+        String t = texto.replace("R$", "").replace("\u00A0", "").replace(" ", "").trim();
+        if (t.isEmpty()) {
+            return null;
+        }
+        boolean negativo = false;
+        String sufixo = t.substring(t.length() - 1).toUpperCase(Locale.ROOT);
+        if (sufixo.equals("D") || sufixo.equals("C") || sufixo.equals("-")) {
+            negativo = !sufixo.equals("C");
+            t = t.substring(0, t.length() - 1);
+        }
+        if (t.startsWith("(") && t.endsWith(")")) {
+            negativo = true;
+            t = t.substring(1, t.length() - 1);
+        }
+        if (t.startsWith("-")) {
+            negativo = !negativo;
+            t = t.substring(1);
+        } else if (t.startsWith("+")) {
+            t = t.substring(1);
+        }
+
+        // O último separador é o decimal; os demais são de milhar
+        int virgula = t.lastIndexOf(',');
+        int ponto = t.lastIndexOf('.');
+        if (virgula > ponto) {
+            t = t.replace(".", "").replace(',', '.');
+        } else if (ponto > virgula && virgula >= 0) {
+            t = t.replace(",", "");
+        }
+        try {
+            double valor = Double.parseDouble(t);
+            return negativo ? -valor : valor;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // --- Comum ---
+
+    /**
+     * Identificador estável para linhas sem FITID: o mesmo extrato lido de novo gera os
+     * mesmos códigos; linhas idênticas no mesmo arquivo são diferenciadas pela ocorrência.
+     */
+    private static String identificadorGerado(String data, double valor, String descricao, Map<String, Integer> ocorrencias) {
+        String chave = data + ":" + Math.round(valor * 100) + ":"
+            + Integer.toHexString(SearchIndex.normalizar(descricao).hashCode());
+        int ocorrencia = ocorrencias.merge(chave, 1, Integer::sum);
+        return "csv:" + chave + ":" + ocorrencia;
+    }
+
+    /**
+     * UTF-8 se o arquivo inteiro for UTF-8 válido; senão Windows-1252.
+     */
+    private static Charset detectarCharset(Path arquivo) throws IOException {
+        char[] buffer = new char[8192];
+        try (Reader reader = new InputStreamReader(Files.newInputStream(arquivo), StandardCharsets.UTF_8.newDecoder())) {
+            while (reader.read(buffer) != -1) {
+                // só valida a decodificação
+            }
+            return StandardCharsets.UTF_8;
+        } catch (CharacterCodingException e) {
+            return WINDOWS_1252;
+        }
+    }
+
+    private static boolean pareceOfx(Path arquivo, Charset charset) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(arquivo, charset)) {
+            String linha;
+            for (int i = 0; i < 5 && (linha = reader.readLine()) != null; i++) {
+                if (linha.contains("OFXHEADER") || linha.contains("<OFX>")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
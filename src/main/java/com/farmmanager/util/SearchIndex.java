@@ -0,0 +1,434 @@
+package com.farmmanager.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.regex.Pattern;
+
+/**
+ * NOVO: Índice de busca em memória para os seletores com autocompletar.
+ *
+ * Cada item é indexado por um ou mais campos de texto (o primeiro é o principal, ex: nome do
+ * insumo; os demais são secundários, ex: fornecedor). O texto é normalizado (minúsculas, sem
+ * acentos, espaços simples) e entra em duas estruturas:
+ * - trigramas -> ids (listas de int em ordem): consultas com 3+ caracteres encontram o texto em qualquer posição
+ *   (interseção das listas dos trigramas da consulta, depois confirmação com contains);
+ * - palavras em ordem (TreeMap): consultas de 1 ou 2 caracteres buscam início de palavra.
+ * Os textos do campo principal também ficam em ordem (TreeMap): quando há itens suficientes
+ * que começam com a consulta, o resultado sai direto desse intervalo, sem avaliar candidatos.
+ *
+ * Ordem dos resultados: campo principal antes dos secundários; início do texto, depois início
+ * de palavra, depois meio da palavra; por fim, ordem alfabética do campo principal.
+ *
+ * atualizar/remover alteram só o item informado (um item com o mesmo texto não é reindexado).
+ * Leituras e escritas podem vir de threads diferentes.
+ */
+public class SearchIndex<T> {
+
+    private static final Pattern ACENTOS = Pattern.compile("\\p{M}+");
+    private static final Pattern ESPACOS = Pattern.compile("\\s+");
+    private static final int TAMANHO_NGRAMA = 3;
+
+    // Tipos de correspondência (menor = melhor)
+    private static final int INICIO_TEXTO = 0;
+    private static final int INICIO_PALAVRA = 1;
+    private static final int MEIO = 2;
+    private static final int NENHUMA = -1;
+
+    private final ToIntFunction<T> id;
+    private final List<Function<T, String>> campos;
+
+    private final Map<Integer, Documento<T>> documentos = new HashMap<>();
+    private final Map<String, Lista> trigramas = new HashMap<>();
+    private final TreeMap<String, Lista> palavras = new TreeMap<>();
+    private final TreeMap<String, Lista> principais = new TreeMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private static final class Documento<T> {
+        final int chave;
+        final T item;
+        final String[] textos; // Campos normalizados (índice 0 = principal)
+
+        Documento(int chave, T item, String[] textos) {
+            this.chave = chave;
+            this.item = item;
+            this.textos = textos;
+        }
+    }
+
+    /**
+     * Lista de ids em ordem crescente (sem objetos Integer: o índice pode ter milhões de entradas).
+     */
+    private static final class Lista {
+        int[] ids = new int[2];
+        int tamanho;
+
+        void adicionar(int id) {
+            if (tamanho > 0 && ids[tamanho - 1] < id) {
+                inserirEm(tamanho, id); // Caso comum: ids chegam em ordem
+                return;
+            }
+            int pos = Arrays.binarySearch(ids, 0, tamanho, id);
+            if (pos < 0) {
+                inserirEm(-pos - 1, id);
+            }
+        }
+
+        void remover(int id) {
+            int pos = Arrays.binarySearch(ids, 0, tamanho, id);
+            if (pos >= 0) {
+                System.arraycopy(ids, pos + 1, ids, pos, tamanho - pos - 1);
+                tamanho--;
+            }
+        }
+
+        boolean contem(int id) {
+            return Arrays.binarySearch(ids, 0, tamanho, id) >= 0;
+        }
+
+        private void inserirEm(int pos, int id) {
+            if (tamanho == ids.length) {
+                ids = Arrays.copyOf(ids, tamanho * 2);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, tamanho - pos);
+            ids[pos] = id;
+            tamanho++;
+        }
+    }
+
+    private static final class Resultado<T> {
+        final Documento<T> documento;
+        final int pontos; // (campo principal ? 0 : 1) * 3 + tipo; menor = melhor
+
+        Resultado(Documento<T> documento, int pontos) {
+            this.documento = documento;
+            this.pontos = pontos;
+        }
+    }
+
+    private static final Comparator<Resultado<?>> ORDEM = Comparator
+        .comparingInt((Resultado<?> r) -> r.pontos)
+        .thenComparing(r -> r.documento.textos[0])
+        .thenComparingInt(r -> r.documento.chave);
+
+    /**
+     * @param id identificador do item (usado por atualizar/remover)
+     * @param campos campos indexados; o primeiro é o principal
+     * ATUALIZADO: Recebe uma lista em vez de varargs genérico (evita o aviso de heap pollution).
+     */
+    public SearchIndex(ToIntFunction<T> id, List<Function<T, String>> campos) {
+        if (campos.isEmpty()) {
+            throw new IllegalArgumentException("Informe ao menos um campo para indexar.");
+        }
+        this.id = id;
+        this.campos = List.copyOf(campos);
+    }
+
+    /**
+     * Texto em minúsculas, sem acentos e com espaços simples ("Adubo  Uréia" -> "adubo ureia").
+     */
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String semAcentos = ACENTOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return ESPACOS.matcher(semAcentos.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Inclui o item ou substitui o de mesmo id (só reindexa se algum campo mudou).
+     */
+    public void atualizar(T item) {
+        String[] textos = textosDe(item);
+        lock.writeLock().lock();
+        try {
+            atualizarSemLock(item, textos);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove o item com o id informado (se existir).
+     */
+    public void remover(int chave) {
+        lock.writeLock().lock();
+        try {
+            removerSemLock(chave);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Deixa o índice igual à coleção: remove os ids ausentes e atualiza os demais.
+     * Itens sem mudança de texto não são reindexados.
+     */
+    public void sincronizar(Collection<T> itens) {
+        // Normalização fora do lock: as buscas continuam enquanto o texto é preparado
+        List<String[]> textos = new ArrayList<>(itens.size());
+        Set<Integer> presentes = new HashSet<>();
+        for (T item : itens) {
+            textos.add(textosDe(item));
+            presentes.add(id.applyAsInt(item));
+        }
+        lock.writeLock().lock();
+        try {
+            List<Integer> removidos = new ArrayList<>();
+            for (Integer chave : documentos.keySet()) {
+                if (!presentes.contains(chave)) {
+                    removidos.add(chave);
+                }
+            }
+            for (Integer chave : removidos) {
+                removerSemLock(chave);
+            }
+            int i = 0;
+            for (T item : itens) {
+                atualizarSemLock(item, textos.get(i++));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int tamanho() {
+        lock.readLock().lock();
+        try {
+            return documentos.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Os melhores resultados para a consulta (no máximo "limite").
+     * Consulta vazia devolve os primeiros itens em ordem alfabética do campo principal.
+     */
+    public List<T> buscar(String consulta, int limite) {
+        String termo = normalizar(consulta);
+        List<T> itens = new ArrayList<>();
+        if (limite <= 0) {
+            return itens;
+        }
+        lock.readLock().lock();
+        try {
+            // Caminho rápido: itens cujo texto principal começa com o termo já estão na melhor
+            // ordem possível (pontos 0, alfabética); se completam o limite, não há o que avaliar
+            for (Lista chaves : intervalo(principais, termo).values()) {
+                for (int i = 0; i < chaves.tamanho; i++) {
+                    itens.add(documentos.get(chaves.ids[i]).item);
+                    if (itens.size() == limite) {
+                        return itens;
+                    }
+                }
+            }
+            if (termo.isEmpty()) {
+                return itens;
+            }
+            itens.clear();
+
+            // Heap invertido: o pior dos melhores fica no topo e sai quando aparece um melhor
+            PriorityQueue<Resultado<T>> melhores = new PriorityQueue<>(limite + 1, ORDEM.reversed());
+            String inicioPalavra = " " + termo;
+            for (int chave : candidatos(termo)) {
+                Documento<T> documento = documentos.get(chave);
+                int pontos = pontuar(documento, termo, inicioPalavra);
+                if (pontos == NENHUMA) {
+                    continue;
+                }
+                if (melhores.size() == limite && pior(melhores.peek(), documento, pontos)) {
+                    continue; // Não entra no resultado: evita criar o objeto
+                }
+                melhores.add(new Resultado<>(documento, pontos));
+                if (melhores.size() > limite) {
+                    melhores.poll();
+                }
+            }
+            List<Resultado<T>> ordenados = new ArrayList<>(melhores);
+            ordenados.sort(ORDEM);
+            for (Resultado<T> resultado : ordenados) {
+                itens.add(resultado.documento.item);
+            }
+            return itens;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private String[] textosDe(T item) {
+        String[] textos = new String[campos.size()];
+        for (int i = 0; i < textos.length; i++) {
+            textos[i] = normalizar(campos.get(i).apply(item));
+        }
+        return textos;
+    }
+
+    private void atualizarSemLock(T item, String[] textos) {
+        int chave = id.applyAsInt(item);
+        Documento<T> anterior = documentos.get(chave);
+        if (anterior != null && Arrays.equals(anterior.textos, textos)) {
+            documentos.put(chave, new Documento<>(chave, item, anterior.textos));
+            return;
+        }
+        if (anterior != null) {
+            desindexar(anterior);
+        }
+        documentos.put(chave, new Documento<>(chave, item, textos));
+        for (String texto : textos) {
+            for (int i = 0; i + TAMANHO_NGRAMA <= texto.length(); i++) {
+                trigramas.computeIfAbsent(texto.substring(i, i + TAMANHO_NGRAMA), k -> new Lista()).adicionar(chave);
+            }
+            for (String palavra : ESPACOS.split(texto)) {
+                if (!palavra.isEmpty()) {
+                    palavras.computeIfAbsent(palavra, k -> new Lista()).adicionar(chave);
+                }
+            }
+        }
+        principais.computeIfAbsent(textos[0], k -> new Lista()).adicionar(chave);
+    }
+
+    private void removerSemLock(int chave) {
+        Documento<T> anterior = documentos.remove(chave);
+        if (anterior != null) {
+            desindexar(anterior);
+        }
+    }
+
+    /**
+     * Retira o documento das listas (os trigramas e palavras são recalculados a partir do texto).
+     */
+    private void desindexar(Documento<T> documento) {
+        for (String texto : documento.textos) {
+            for (int i = 0; i + TAMANHO_NGRAMA <= texto.length(); i++) {
+                removerDaLista(trigramas, texto.substring(i, i + TAMANHO_NGRAMA), documento.chave);
+            }
+            for (String palavra : ESPACOS.split(texto)) {
+                removerDaLista(palavras, palavra, documento.chave);
+            }
+        }
+        removerDaLista(principais, documento.textos[0], documento.chave);
+    }
+
+    private static void removerDaLista(Map<String, Lista> indice, String termo, int chave) {
+        Lista lista = indice.get(termo);
+        if (lista != null) {
+            lista.remover(chave);
+            if (lista.tamanho == 0) {
+                indice.remove(termo);
+            }
+        }
+    }
+
+    /**
+     * Entradas cuja chave começa com o prefixo (todas, se vazio).
+     */
+    private static SortedMap<String, Lista> intervalo(TreeMap<String, Lista> indice, String prefixo) {
+        if (prefixo.isEmpty()) {
+            return indice;
+        }
+        return indice.subMap(prefixo, prefixo + Character.MAX_VALUE);
+    }
+
+    /**
+     * Ids que podem conter o termo.
+     */
+    private int[] candidatos(String termo) {
+        if (termo.length() < TAMANHO_NGRAMA) {
+            // União das listas das palavras que começam com o termo
+            BitSet ids = new BitSet();
+            for (Lista lista : intervalo(palavras, termo).values()) {
+                for (int i = 0; i < lista.tamanho; i++) {
+                    ids.set(lista.ids[i]);
+                }
+            }
+            return ids.stream().toArray();
+        }
+        // Interseção percorrendo a menor lista
+        List<Lista> listas = new ArrayList<>();
+        for (int i = 0; i + TAMANHO_NGRAMA <= termo.length(); i++) {
+            Lista lista = trigramas.get(termo.substring(i, i + TAMANHO_NGRAMA));
+            if (lista == null) {
+                return new int[0];
+            }
+            listas.add(lista);
+        }
+        listas.sort(Comparator.comparingInt(l -> l.tamanho));
+        Lista menor = listas.get(0);
+        int[] ids = new int[menor.tamanho];
+        int total = 0;
+        for (int i = 0; i < menor.tamanho; i++) {
+            int chave = menor.ids[i];
+            boolean emTodas = true;
+            for (int j = 1; j < listas.size() && emTodas; j++) {
+                emTodas = listas.get(j).contem(chave);
+            }
+            if (emTodas) {
+                ids[total++] = chave;
+            }
+        }
+        return Arrays.copyOf(ids, total);
+    }
+
+    /**
+     * Pontos da melhor correspondência do termo nos campos do documento, ou NENHUMA.
+     */
+    private static int pontuar(Documento<?> documento, String termo, String inicioPalavra) {
+        for (int campo = 0; campo < documento.textos.length; campo++) {
+            String texto = documento.textos[campo];
+            int tipo;
+            if (texto.startsWith(termo)) {
+                tipo = INICIO_TEXTO;
+            } else if (texto.contains(inicioPalavra)) {
+                tipo = INICIO_PALAVRA;
+            } else if (termo.length() >= TAMANHO_NGRAMA && texto.contains(termo)) {
+                tipo = MEIO;
+            } else {
+                continue;
+            }
+            int pontos = (campo == 0 ? 0 : 3) + tipo;
+            if (campo == 0 || tipo == INICIO_TEXTO) {
+                return pontos; // Nenhum campo seguinte consegue pontuar melhor
+            }
+            // Campo secundário com início de palavra/meio: outro secundário pode ter início de texto
+            int seguinte = pontuarSecundarios(documento, campo + 1, termo);
+            return seguinte != NENHUMA && seguinte < pontos ? seguinte : pontos;
+        }
+        return NENHUMA;
+    }
+
+    private static int pontuarSecundarios(Documento<?> documento, int inicio, String termo) {
+        for (int campo = inicio; campo < documento.textos.length; campo++) {
+            if (documento.textos[campo].startsWith(termo)) {
+                return 3 + INICIO_TEXTO;
+            }
+        }
+        return NENHUMA;
+    }
+
+    /**
+     * Se o documento ficaria depois do pior resultado já guardado.
+     */
+    private static boolean pior(Resultado<?> piorAtual, Documento<?> documento, int pontos) {
+        if (pontos != piorAtual.pontos) {
+            return pontos > piorAtual.pontos;
+        }
+        int texto = documento.textos[0].compareTo(piorAtual.documento.textos[0]);
+        return texto != 0 ? texto > 0 : documento.chave > piorAtual.documento.chave;
+    }
+}